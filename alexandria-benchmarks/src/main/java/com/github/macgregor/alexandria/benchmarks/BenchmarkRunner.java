@@ -0,0 +1,47 @@
+package com.github.macgregor.alexandria.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for {@code java -jar alexandria-benchmarks/target/benchmarks.jar}.
+ *
+ * Accepts the same arguments as the JMH runner, but defaults to writing JSON results to
+ * {@code alexandria-benchmarks-<version>.json} in the working directory so results from different releases can be
+ * archived and compared side by side. Pass {@code -rf} or {@code -rff} to override either default.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if(commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()){
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if(!commandLine.getResultFormat().hasValue()){
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if(!commandLine.getResult().hasValue()){
+            options.result(String.format("alexandria-benchmarks-%s.%s", version(),
+                    commandLine.getResultFormat().orElse(ResultFormatType.JSON).toString().toLowerCase()));
+        }
+        new Runner(options.build()).run();
+    }
+
+    /**
+     * Alexandria version being benchmarked, read from the jar manifest.
+     *
+     * @return  implementation version or "dev" when not running from a packaged jar
+     */
+    protected static String version(){
+        String version = BenchmarkRunner.class.getPackage().getImplementationVersion();
+        return version == null ? "dev" : version;
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.macgregor.alexandria.benchmarks;
+
+import com.github.macgregor.alexandria.Config;
+import com.github.macgregor.alexandria.Context;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading and saving the config of an indexed project with {@link Context#load(String)} and {@link Context#save(Context)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContextBenchmark {
+
+    /**
+     * Changes the state of one document before every save, the way syncing a document would, so each save writes the
+     * config and state rather than finding nothing changed since the previous invocation.
+     */
+    @State(Scope.Thread)
+    public static class ChangedDocument {
+        long invocation;
+
+        @Setup(Level.Invocation)
+        public void change(DocumentSet documents){
+            invocation++;
+            Config.DocumentMetadata metadata = documents.context().config().metadata().get()
+                    .get((int) (invocation % documents.documents));
+            metadata.sourceChecksum(Optional.of(invocation));
+        }
+    }
+
+    @Benchmark
+    public Context load(DocumentSet documents) throws IOException {
+        return Context.load(documents.context().configPath().toString());
+    }
+
+    @Benchmark
+    public Context save(DocumentSet documents, ChangedDocument changed) throws IOException {
+        Context.save(documents.context());
+        return documents.context();
+    }
+}
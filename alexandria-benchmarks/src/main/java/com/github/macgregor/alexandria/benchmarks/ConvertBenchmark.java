@@ -0,0 +1,48 @@
+package com.github.macgregor.alexandria.benchmarks;
+
+import com.github.macgregor.alexandria.Config;
+import com.github.macgregor.alexandria.exceptions.AlexandriaException;
+import com.github.macgregor.alexandria.markdown.JiveMarkdownConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting every document in the project to html with {@link JiveMarkdownConverter#convert(Config.DocumentMetadata, Path, Path)},
+ * including resolving relative links against the index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConvertBenchmark {
+
+    @State(Scope.Thread)
+    public static class Converter {
+        JiveMarkdownConverter converter;
+        Path output;
+
+        @Setup(Level.Trial)
+        public void setup(DocumentSet documents) throws IOException {
+            converter = new JiveMarkdownConverter();
+            converter.alexandriaContext(documents.context());
+            output = Files.createDirectories(documents.base().resolve("converted"));
+        }
+    }
+
+    @Benchmark
+    public Path convert(DocumentSet documents, Converter converter) throws AlexandriaException {
+        List<Config.DocumentMetadata> metadata = documents.context().config().metadata().get();
+        Path converted = null;
+        for(Config.DocumentMetadata m : metadata){
+            converted = converter.output.resolve(m.sourceFileName() + ".html");
+            converter.converter.convert(m, m.sourcePath(), converted);
+        }
+        return converted;
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.macgregor.alexandria.benchmarks;
+
+import com.github.macgregor.alexandria.Config;
+import com.github.macgregor.alexandria.Context;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Generated project of markdown documents shared by the benchmarks.
+ *
+ * Documents are spread across {@code docs/section-N} directories of {@link #DOCUMENTS_PER_SECTION} documents each, with
+ * an {@code excluded} directory of the same size next to them that is matched by the exclude pattern. Each document
+ * contains the usual mix of markdown (headings, lists, a table, a code block) and relative links to its neighbours so
+ * link resolution has real work to do. Every other document already has a remote uri, the rest will keep their
+ * relative links.
+ *
+ * The project is indexed and its config saved during setup, so {@link #context()} looks like a project that has been
+ * synced before.
+ */
+@State(Scope.Benchmark)
+@Getter @Accessors(fluent = true)
+public class DocumentSet {
+    public static final int DOCUMENTS_PER_SECTION = 100;
+    public static final String EXCLUDE = "excluded";
+
+    @Param({"100", "1000", "10000"})
+    public int documents;
+
+    protected Path base;
+    protected Context context;
+    protected List<Path> sources;
+
+    /** Relative links to every document, as they would appear in markdown, e.g. {@code docs/section-0/doc-0.md}. */
+    protected List<String> links;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        base = Files.createTempDirectory("alexandria-benchmarks").toAbsolutePath();
+        sources = new ArrayList<>(documents);
+        links = new ArrayList<>(documents);
+        for(int i = 0; i < documents; i++){
+            String link = link(i);
+            Path source = base.resolve(link);
+            Files.createDirectories(source.getParent());
+            Files.write(source, markdown(i).getBytes(StandardCharsets.UTF_8));
+            sources.add(source);
+            links.add(link);
+
+            Path excluded = base.resolve(EXCLUDE).resolve(link);
+            Files.createDirectories(excluded.getParent());
+            Files.write(excluded, markdown(i).getBytes(StandardCharsets.UTF_8));
+        }
+
+        context = newContext();
+        for(int i = 0; i < documents; i++){
+            Config.DocumentMetadata metadata = new Config.DocumentMetadata();
+            metadata.sourcePath(sources.get(i));
+            metadata.title(sources.get(i).getFileName().toString());
+            if(i % 2 == 0){
+                metadata.remoteUri(Optional.of(URI.create("https://jive.example.com/docs/DOC-" + i)));
+            }
+            context.addMetadata(metadata);
+        }
+        Context.save(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(base.toFile());
+    }
+
+    /**
+     * Context for the generated project without any indexed documents.
+     *
+     * @return  new context rooted at {@link #base()}
+     */
+    public Context newContext(){
+        Context context = new Context();
+        context.configPath(base.resolve(".alexandria"));
+        context.projectBase(base);
+        context.searchPath(Collections.singletonList(base));
+        context.include(Collections.singletonList("*.md"));
+        context.exclude(Collections.singletonList(EXCLUDE));
+        context.config().metadata(Optional.of(new ArrayList<>()));
+        return context;
+    }
+
+    protected String link(int i){
+        return Paths.get("docs", "section-" + (i / DOCUMENTS_PER_SECTION), "doc-" + i + ".md").toString();
+    }
+
+    protected String markdown(int i){
+        String previous = link(Math.max(i - 1, 0));
+        String next = link(Math.min(i + 1, documents - 1));
+        return String.format("# Document %d%n%n", i) +
+                String.format("Some introductory text with a [link to the previous document](%s) and the " +
+                        "[next one](%s), plus an [external link](https://github.com/macgregor/alexandria).%n%n", previous, next) +
+                String.format("## Details%n%n") +
+                String.format("* first item with **bold** text%n* second item with `inline code`%n- [ ] a task%n%n") +
+                String.format("| column | value |%n| ------ | ----- |%n| id | %d |%n| name | doc-%d |%n%n", i, i) +
+                String.format("```java%nSystem.out.println(\"document %d\");%n```%n", i);
+    }
+}
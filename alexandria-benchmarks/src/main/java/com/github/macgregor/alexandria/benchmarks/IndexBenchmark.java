@@ -0,0 +1,42 @@
+package com.github.macgregor.alexandria.benchmarks;
+
+import com.github.macgregor.alexandria.AlexandriaIndex;
+import com.github.macgregor.alexandria.Context;
+import com.github.macgregor.alexandria.exceptions.AlexandriaException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updating the index with {@link AlexandriaIndex#update()}, both for a new project where every document needs to be
+ * indexed and for a project where every document is already indexed. Both include saving the config afterwards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IndexBenchmark {
+
+    @State(Scope.Thread)
+    public static class EmptyIndex {
+        Context context;
+
+        @Setup(Level.Invocation)
+        public void setup(DocumentSet documents){
+            context = documents.newContext();
+        }
+    }
+
+    @Benchmark
+    public Context updateEmptyIndex(EmptyIndex index) throws AlexandriaException {
+        new AlexandriaIndex(index.context).update();
+        return index.context;
+    }
+
+    @Benchmark
+    public Context updateFullIndex(DocumentSet documents) throws AlexandriaException {
+        new AlexandriaIndex(documents.context()).update();
+        return documents.context();
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.macgregor.alexandria.benchmarks;
+
+import com.github.macgregor.alexandria.exceptions.AlexandriaException;
+import com.github.macgregor.alexandria.flexmark.AlexandriaRemoteUriLinkResolver;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validating and resolving a relative link to every document in the project with
+ * {@link AlexandriaRemoteUriLinkResolver}, the same calls made for each link found while converting.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LinkResolverBenchmark {
+
+    @State(Scope.Thread)
+    public static class Resolver {
+        AlexandriaRemoteUriLinkResolver resolver;
+
+        @Setup(Level.Trial)
+        public void setup(DocumentSet documents){
+            resolver = new AlexandriaRemoteUriLinkResolver();
+            resolver.alexandriaContext(documents.context());
+        }
+    }
+
+    @Benchmark
+    public void resolve(DocumentSet documents, Resolver resolver, Blackhole blackhole) throws AlexandriaException {
+        for(String link : documents.links()){
+            if(resolver.resolver.isValid(link, link)){
+                blackhole.consume(resolver.resolver.resolve(link, link));
+            }
+        }
+    }
+}
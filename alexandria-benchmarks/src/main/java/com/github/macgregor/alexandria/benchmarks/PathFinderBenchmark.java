@@ -0,0 +1,31 @@
+package com.github.macgregor.alexandria.benchmarks;
+
+import com.github.macgregor.alexandria.Context;
+import com.github.macgregor.alexandria.PathFinder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding documents on the search path with {@link PathFinder#paths()}, half of which are under an excluded directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PathFinderBenchmark {
+
+    @Benchmark
+    public Collection<Path> paths(DocumentSet documents) throws IOException {
+        Context context = documents.context();
+        return new PathFinder()
+                .startingInPaths(context.searchPath())
+                .including(context.include())
+                .excluding(context.exclude())
+                .paths();
+    }
+}
@@ -46,6 +46,18 @@ public abstract class AlexandriaCommand implements Callable<Void> {
     @CommandLine.Option(names = { "-t", "--timeout" }, description = "Timeout for remote request in seconds.")
     private Integer timeout = 30;
 
+    @CommandLine.Option(names = { "-j", "--jobs" }, description = "Number of documents to convert and sync concurrently. Defaults to the config file value, or 1 (sequential) if not set.")
+    private Integer jobs;
+
+    @CommandLine.Option(names = { "--pipeline" }, description = "Convert documents while already converted documents are synced with the remote. Defaults to the config file value, or false if not set.")
+    private Boolean pipeline;
+
+    @CommandLine.Option(names = { "--in-flight" }, description = "Number of documents to keep outstanding with the remote at once, syncing them asynchronously from a single thread. Defaults to the config file value, or 0 (disabled) if not set.")
+    private Integer inFlight;
+
+    @CommandLine.Option(names = { "--metadata-store" }, description = "Fully qualified class name of the metadata store that saves indexed documents, e.g. com.github.macgregor.alexandria.stores.EmbeddedMetadataStore. Defaults to the config file value, or the config file itself if not set.")
+    private String metadataStore;
+
     @CommandLine.Option(names = {"--disclaimerFooterEnabled" }, arity = "1", description = "Enable or disable Alexandria feature to add a disclaimer footer to each converted file warning the reader the document isnt the source and changes will be overwritten.")
     private boolean disclaimerFooterEnabled = true;
 
@@ -81,6 +93,18 @@ public abstract class AlexandriaCommand implements Callable<Void> {
         alexandria.context().searchPath(input.stream().map(Paths::get).collect(Collectors.toList()));
         alexandria.context().outputPath(outputPath == null ? Optional.empty() : Optional.of(Paths.get(outputPath)));
         alexandria.context().config().remote().requestTimeout(timeout);
+        if(jobs != null){
+            alexandria.context().config().jobs(jobs);
+        }
+        if(pipeline != null){
+            alexandria.context().config().pipeline(pipeline);
+        }
+        if(inFlight != null){
+            alexandria.context().config().inFlight(inFlight);
+        }
+        if(metadataStore != null){
+            alexandria.context().useMetadataStore(metadataStore);
+        }
         alexandria.context().disclaimerFooterEnabled(disclaimerFooterEnabled);
         if(disclaimerFooterPath != null){
             alexandria.context().disclaimerFooterPath(Optional.of(Paths.get(disclaimerFooterPath)));
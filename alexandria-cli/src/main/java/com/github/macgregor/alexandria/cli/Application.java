@@ -30,9 +30,12 @@ public class Application extends AlexandriaCommand {
         configureLogging();
         init();
         logContext();
-        alexandria().index()
-                .convert()
-                .syncWithRemote();
+        alexandria().index();
+        if(!alexandria().context().config().pipeline()){
+            // a pipelined sync converts each document right before handing it to the remote
+            alexandria().convert();
+        }
+        alexandria().syncWithRemote();
         return null;
     }
 
@@ -221,6 +221,65 @@ public class AlexandriaCommandConfigTest {
         assertThat(command.timeout()).isEqualTo(45);
     }
 
+    @Test
+    public void testJobsDefaultsToNull(){
+        TestCommand command = CommandLine.populateCommand(new TestCommand(), new String[]{});
+        assertThat(command.jobs()).isNull();
+    }
+
+    @Test
+    public void testJobsShort(){
+        String[] args = {"-j", "8"};
+        TestCommand command = CommandLine.populateCommand(new TestCommand(), args);
+        assertThat(command.jobs()).isEqualTo(8);
+    }
+
+    @Test
+    public void testJobsLong(){
+        String[] args = {"--jobs", "8"};
+        TestCommand command = CommandLine.populateCommand(new TestCommand(), args);
+        assertThat(command.jobs()).isEqualTo(8);
+    }
+
+    @Test
+    public void testPipelineDefaultsToNull(){
+        TestCommand command = CommandLine.populateCommand(new TestCommand(), new String[]{});
+        assertThat(command.pipeline()).isNull();
+    }
+
+    @Test
+    public void testPipeline(){
+        String[] args = {"--pipeline"};
+        TestCommand command = CommandLine.populateCommand(new TestCommand(), args);
+        assertThat(command.pipeline()).isTrue();
+    }
+
+    @Test
+    public void testInFlightDefaultsToNull(){
+        TestCommand command = CommandLine.populateCommand(new TestCommand(), new String[]{});
+        assertThat(command.inFlight()).isNull();
+    }
+
+    @Test
+    public void testInFlight(){
+        String[] args = {"--in-flight", "32"};
+        TestCommand command = CommandLine.populateCommand(new TestCommand(), args);
+        assertThat(command.inFlight()).isEqualTo(32);
+    }
+
+    @Test
+    public void testMetadataStoreDefaultsToNull(){
+        TestCommand command = CommandLine.populateCommand(new TestCommand(), new String[]{});
+        assertThat(command.metadataStore()).isNull();
+    }
+
+    @Test
+    public void testMetadataStore(){
+        String[] args = {"--metadata-store", "com.github.macgregor.alexandria.stores.EmbeddedMetadataStore"};
+        TestCommand command = CommandLine.populateCommand(new TestCommand(), args);
+        assertThat(command.metadataStore()).isEqualTo("com.github.macgregor.alexandria.stores.EmbeddedMetadataStore");
+    }
+
     @Test
     public void testDisclaimerFooterEnabledDefaultsToTrue(){
         TestCommand command = CommandLine.populateCommand(new TestCommand(), new String[]{});
@@ -33,6 +33,16 @@ public class ApplicationTest {
         verify(alexandria, times(1)).convert();
     }
 
+    @Test
+    public void testConvertIsSkippedWhenPipelined() throws Exception {
+        Application application = Mockito.spy(new Application());
+        Alexandria alexandria = alexandriaSpy(application);
+        alexandria.context().config().pipeline(true);
+        application.call();
+        verify(alexandria, never()).convert();
+        verify(alexandria, times(1)).syncWithRemote();
+    }
+
     private Alexandria alexandriaSpy(Application application) throws Exception {
         Alexandria alexandria = spy(new Alexandria());
         Context context = spy(new Context());
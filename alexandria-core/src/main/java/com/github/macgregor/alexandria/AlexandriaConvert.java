@@ -1,11 +1,11 @@
 package com.github.macgregor.alexandria;
 
 import com.github.macgregor.alexandria.exceptions.AlexandriaException;
+import com.github.macgregor.alexandria.markdown.FooterMarkdownConverter;
 import com.github.macgregor.alexandria.markdown.MarkdownConverter;
 import lombok.*;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 
 import java.io.IOException;
@@ -47,7 +47,8 @@ public class AlexandriaConvert {
      *
      * Converted files will be saved to the configured {@link Context#outputPath}, if set. Otherwise the files will be
      * converted in place in the same directory as the markdown file being converted. Files that have been deleted or
-     * marked for deletion will be ignored.
+     * marked for deletion will be ignored. Up to {@link Config#jobs} documents are converted concurrently. Converted
+     * documents are {@link MetadataStore#put staged} with the metadata store, since converting updates their checksums.
      *
      * @see BatchProcess
      *
@@ -59,15 +60,17 @@ public class AlexandriaConvert {
         context.makePathsAbsolute();
 
         BatchProcess<Config.DocumentMetadata> batchProcess = new BatchProcess<>(context);
+        batchProcess.jobs(context.config().jobs());
         batchProcess.execute(context -> context.config().metadata().get(), (context, metadata) -> {
             log.debug(String.format("Converting %s.", metadata.sourceFileName()));
 
-            Config.DocumentMetadata.State state = metadata.determineState();
+            Config.DocumentMetadata.State state = metadata.determineState(context.checksums());
             if(Config.DocumentMetadata.State.DELETED.equals(state) || Config.DocumentMetadata.State.DELETE.equals(state)){
                 log.debug(String.format("Not converting deleted file %s", metadata.sourceFileName()));
                 return;
             }
             AlexandriaConvert.convert(context, metadata, markdownConverter);
+            context.metadataStore().put(context, metadata);
         }, (context, exceptions) -> {
             log.info(String.format("%d out of %d files converted successfully.",
                     context.documentCount()-exceptions.size(), context.documentCount()));
@@ -126,7 +129,14 @@ public class AlexandriaConvert {
     /**
      * Convert the document from markdown using the {@link MarkdownConverter}.
      *
+     * If the disclaimer footer is enabled, a {@link FooterMarkdownConverter} appends it to the source in memory. Other
+     * converters are given an intermediate file with the footer appended, see {@link #addDisclaimer(Context, Config.DocumentMetadata)}.
+     *
+     * Conversions are memoized for the run by the {@link Context#conversions()}, a document that was already converted
+     * isnt rendered again unless its source, footer or the remote uris of the documents it links to changed since.
+     *
      * @see MarkdownConverter
+     * @see ConversionCache
      *
      * @param context  Alexandria context containing information necessary to calculate the converted paths
      * @param metadata  the particular document being processed
@@ -136,13 +146,25 @@ public class AlexandriaConvert {
     protected static void convert(Context context, Config.DocumentMetadata metadata, MarkdownConverter markdownConverter) throws AlexandriaException {
         try {
             Path convertedPath = convertedPath(context, metadata, markdownConverter);
-            Path sourcePath = metadata.sourcePath();
-            if(context.disclaimerFooterEnabled()){
-                AlexandriaConvert.addDisclaimer(context, metadata);
-                sourcePath = AlexandriaConvert.intermediatePath(context, metadata);
+            Optional<String> footer = context.disclaimerFooterEnabled() ? Optional.of(footer(context)) : Optional.empty();
+            boolean intermediate = footer.isPresent() && !(markdownConverter instanceof FooterMarkdownConverter);
+            boolean converted = context.conversions().convert(context, metadata, markdownConverter, convertedPath, footer, () -> {
+                if(!footer.isPresent()){
+                    markdownConverter.convert(metadata, metadata.sourcePath(), convertedPath);
+                } else if(!intermediate){
+                    ((FooterMarkdownConverter) markdownConverter).convert(metadata, metadata.sourcePath(),
+                            FOOTER_SEPARATOR + footer.get(), convertedPath);
+                } else{
+                    AlexandriaConvert.addDisclaimer(context, metadata, footer.get());
+                    markdownConverter.convert(metadata, AlexandriaConvert.intermediatePath(context, metadata), convertedPath);
+                }
+            });
+            if(!converted){
+                log.debug(String.format("%s unchanged since it was last converted, not converting again.", metadata.sourceFileName()));
             }
-            markdownConverter.convert(metadata, sourcePath, convertedPath);
-            metadata.convertedChecksum(Optional.of(FileUtils.checksumCRC32(convertedPath.toFile())));
+            metadata.intermediateConvertedPath(intermediate ?
+                    Optional.of(AlexandriaConvert.intermediatePath(context, metadata)) : Optional.empty());
+            metadata.updateConvertedChecksum(context.checksums(), convertedPath);
             metadata.convertedPath(Optional.of(convertedPath));
             context.convertedPath(metadata, convertedPath);
         } catch(AlexandriaException e){
@@ -156,6 +178,19 @@ public class AlexandriaConvert {
         }
     }
 
+    /**
+     * Load the disclaimer footer, either the custom footer in {@link Context#disclaimerFooterPath} or {@link #DEFAULT_FOOTER}.
+     * A custom footer is only read once per run, see {@link ConversionCache#footer(Path)}.
+     *
+     * @param context  Alexandria context containing the footer path
+     * @return  footer markdown
+     * @throws IOException  problems reading the custom footer
+     */
+    protected static String footer(Context context) throws IOException {
+        return context.disclaimerFooterPath.isPresent() ?
+                context.conversions().footer(context.disclaimerFooterPath.get()) : DEFAULT_FOOTER;
+    }
+
     /**
      * Adds a footer to the bottom of each markdown document before the final conversion to warn readers that they
      * are not viewing the source document and changes will be overwritten.
@@ -164,14 +199,36 @@ public class AlexandriaConvert {
      * used by specifying it in {@link Context#disclaimerFooterPath}, the file should be a markdown file. If no custom
      * path is specified, a static default is provided.
      *
+     * Only needed for converters that cant append the footer themselves, see {@link FooterMarkdownConverter}.
+     *
      * @param context  Alexandria context containing information necessary to calculate the converted paths
      * @param metadata  the particular document being processed
      * @throws AlexandriaException  wrapper for any IOException thrown during conversion to make it integrate with {@link BatchProcess}
      */
     protected static void addDisclaimer(Context context, Config.DocumentMetadata metadata) throws AlexandriaException {
+        String footer;
+        try {
+            footer = footer(context);
+        } catch(IOException e){
+            throw new AlexandriaException.Builder()
+                    .withMessage(String.format("Unexcepted error adding disclaimer footer to %s.", metadata.sourcePath()))
+                    .causedBy(e)
+                    .metadataContext(metadata)
+                    .build();
+        }
+        addDisclaimer(context, metadata, footer);
+    }
+
+    /**
+     * Adds an already loaded footer to the bottom of a markdown document, see {@link #addDisclaimer(Context, Config.DocumentMetadata)}.
+     *
+     * @param context  Alexandria context containing information necessary to calculate the converted paths
+     * @param metadata  the particular document being processed
+     * @param footer  footer markdown
+     * @throws AlexandriaException  wrapper for any IOException thrown during conversion to make it integrate with {@link BatchProcess}
+     */
+    protected static void addDisclaimer(Context context, Config.DocumentMetadata metadata, String footer) throws AlexandriaException {
         try {
-            String footer = context.disclaimerFooterPath.isPresent() ?
-                    Resources.load(context.disclaimerFooterPath.get().toString()) : DEFAULT_FOOTER;
             Path intermediatePath = AlexandriaConvert.intermediatePath(context, metadata);
             metadata.intermediateConvertedPath(Optional.of(intermediatePath));
             Path sourcePath = metadata.sourcePath();
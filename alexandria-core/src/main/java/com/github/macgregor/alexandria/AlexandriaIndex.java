@@ -7,6 +7,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -102,8 +104,9 @@ public class AlexandriaIndex {
      * @return  List of all paths not already indexed, or empty list if no new documents need to be indexed.
      */
     protected static Collection<Path> documentsNotIndexed(Collection<Path> documentsMatched, Collection<Path> documentsAlreadyIndexed){
+        Set<Path> alreadyIndexed = new HashSet<>(documentsAlreadyIndexed);
         return documentsMatched.stream()
-                .filter(p -> !documentsAlreadyIndexed.contains(p))
+                .filter(p -> !alreadyIndexed.contains(p))
                 .collect(Collectors.toList());
     }
 }
@@ -1,15 +1,23 @@
 package com.github.macgregor.alexandria;
 
 import com.github.macgregor.alexandria.exceptions.AlexandriaException;
+import com.github.macgregor.alexandria.remotes.AsyncRemote;
 import com.github.macgregor.alexandria.remotes.Remote;
 import lombok.*;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FileUtils;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 /**
  * Sync indexed documents with the configured remote.
@@ -30,6 +38,9 @@ public class AlexandriaSync {
     @NonNull private Context context;
     @NonNull private Remote remote;
 
+    /** Source paths of documents being synced again because a document they link to changed its remote uri. */
+    private final Set<Path> relinked = ConcurrentHashMap.newKeySet();
+
     /**
      * Instantiate from the context and configure a remote given the {@link Config#remote}.
      *
@@ -47,10 +58,11 @@ public class AlexandriaSync {
      * Execute the sync process with 2 passes allowing rendering that relies on state outside of the source document,
      * like resolving links for documents that dont exist yet, to work without the user invoking the command twice.
      *
-     * This is a little bit of a hack to avoid complicating the sync process with a more elaborate ordering/state resolution
-     * process that would likely involve more work on the {@link Remote} implementation which could get messy quickly.
-     * Simply doing two passes should solve most cases and shouldn't be a huge performance issue. If large numbers of documents
-     * are a problem, implementing parallel rest requests would be a better optimization to implement first.
+     * The second pass only revisits documents that linked to a document whose remote uri changed during the first pass,
+     * usually because it was just created, see {@link #relinkedDocuments()}. Those documents are reconverted and updated on
+     * the remote even though their source hasnt changed. When nothing was created, the second pass is skipped entirely.
+     *
+     * {@link Remote#beforeSync()} is called once before the first pass.
      *
      * @throws AlexandriaException
      */
@@ -59,16 +71,53 @@ public class AlexandriaSync {
 
         context.makePathsAbsolute();
 
+        try {
+            remote.beforeSync();
+        } catch(IOException e){
+            throw new AlexandriaException.Builder()
+                    .withMessage(String.format("Unable to prepare %s for sync.", remote.getClass().getSimpleName()))
+                    .causedBy(e)
+                    .build();
+        }
+
         log.info("Syncing with {}", context.config().remote().baseUrl().get());
         this.sync();
 
         if(remote.twoPassSync()) {
-            log.info("Syncing with {} - Pass 2 (requested by {})",
-                    context.config().remote().baseUrl().get(), remote.getClass().getSimpleName());
-            this.sync();
+            List<Config.DocumentMetadata> documents = relinkedDocuments();
+            if(documents.isEmpty()){
+                log.debug("No links to update, skipping pass 2.");
+                return;
+            }
+
+            log.info("Syncing with {} - Pass 2 (requested by {}) for {} documents with updated links",
+                    context.config().remote().baseUrl().get(), remote.getClass().getSimpleName(), documents.size());
+            documents.forEach(metadata -> relinked.add(metadata.sourcePath()));
+            try {
+                this.sync(documents);
+            } finally {
+                relinked.clear();
+            }
         }
     }
 
+    /**
+     * Documents whose last conversion resolved a link to another document that has since changed its remote uri, e.g.
+     * a relative link that couldnt be resolved because the linked document hadnt been created yet.
+     *
+     * Links are taken from the {@link ConversionCache}, so only links recorded by the {@link com.github.macgregor.alexandria.markdown.LinkResolver}
+     * are considered.
+     *
+     * @return  indexed documents that need to be converted and synced again
+     */
+    protected List<Config.DocumentMetadata> relinkedDocuments(){
+        return context.config().metadata().get().stream()
+                .filter(metadata -> context.conversions().conversion(metadata.sourcePath())
+                        .map(conversion -> !conversion.linksCurrent(context))
+                        .orElse(false))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Execute the sync process.
      *
@@ -76,21 +125,34 @@ public class AlexandriaSync {
      * method is called.
      * <ul>
      *     <li>DELETE: delete document from remote</li>
-     *     <li>CREATE: create document with remote, calculates and sets {@code sourceChecksum} on metadata</li>
-     *     <li>UPDATE: create document with remote, calculates and sets {@code sourceChecksum} on metadata</li>
+     *     <li>CREATE: create document with remote, calculates and sets {@code sourceChecksum} and {@code sourceFingerprint} on metadata</li>
+     *     <li>UPDATE: create document with remote, calculates and sets {@code sourceChecksum} and {@code sourceFingerprint} on metadata</li>
      *     <li>CURRENT: ignore</li>
      *     <li>DELETED: ignore</li>
      * </ul>
      *
-     * {@link Context#save(Context)} will be called after each document is handled to ensure an unexpected problem
+     * Each document's metadata is appended to the {@link SyncJournal} after it is handled to ensure an unexpected problem
      * in the batch wont make the local state differ from the remote state. For example, creating a document and not saving
-     * the {@code remoteUri} would cause Alexandria to create a new document on the remote on the next run.
+     * the {@code remoteUri} would cause Alexandria to create a new document on the remote on the next run. The journal is
+     * folded into the config by {@link Context#save(Context)} once after the batch completes, rather than rewriting the
+     * whole config after every document. Long batches also save periodically, see {@link SaveScheduler}, and save pending
+     * changes if the JVM is shut down before the batch completes.
+     *
+     * Up to {@link Config#jobs} documents are synced concurrently. If {@link Config#pipeline} is enabled, documents are
+     * converted one at a time on a producer thread and handed to the remote as soon as they are ready, so conversion
+     * overlaps with requests to the remote instead of each worker doing both back to back. See
+     * {@link BatchProcess#execute(BatchProcess.Batch, BatchProcess.Task, BatchProcess.Task, BatchProcess.AfterBatch)}.
+     *
+     * If {@link Config#inFlight} is set, documents are instead converted on the calling thread and synced through
+     * {@link AsyncRemote}, keeping up to that many documents outstanding with the remote at once. Remotes that dont
+     * implement {@link AsyncRemote} make their blocking requests on a pool of {@link Config#inFlight} threads, see
+     * {@link AsyncRemote#of(Remote, java.util.concurrent.Executor)}.
      *
      * Because {@link Remote} implementations can have behavior that results in different converted documents even if the
      * source has not changed (e.g. resolving remote links will render the remote uri only after the document they reference
-     * is created), all documents are reconverted before determining their state. This may seem wasteful, especially if all
-     * three Alexandria phases are run at once, it reduces algorithm complexity. If performance becomes a problem, consider
-     * skipping {@link AlexandriaConvert#convert()} when run along with {@link AlexandriaSync#syncWithRemote()}.
+     * is created), all documents are reconverted before determining their state. Conversions are memoized for the run,
+     * see {@link ConversionCache}, so a document already converted by {@link AlexandriaConvert#convert()} or an earlier
+     * pass is only rendered again if its source, footer or the remote uri of a document it links to changed.
      *
      * @see Remote
      * @see com.github.macgregor.alexandria.Config.DocumentMetadata#determineState()
@@ -98,59 +160,231 @@ public class AlexandriaSync {
      * @throws AlexandriaException  Exception wrapping all exceptions thrown while syncing documents
      */
     protected void sync() throws AlexandriaException {
-        BatchProcess<Config.DocumentMetadata> batchProcess = new BatchProcess<>(context);
-        batchProcess.execute(context -> context.config().metadata().get(), (context, metadata) -> {
-            log.debug(String.format("Syncing %s with remote.", metadata.sourceFileName()));
-            remote.validateDocumentMetadata(metadata);
-
-            List<Config.DocumentMetadata.State> unconvertableStates =
-                    Arrays.asList(Config.DocumentMetadata.State.DELETED, Config.DocumentMetadata.State.DELETE);
-            if(!unconvertableStates.contains(metadata.determineState())) {
-                // always convert to catch when AlexandriaSync is run without AlexandriaConvert
-                // this also catches things like markdown converters output changing when the source stays the same,
-                // like resolving relative links to newly created remote URIs
-                AlexandriaConvert.convert(context, metadata, remote.markdownConverter());
+        sync(context.config().metadata().get());
+    }
+
+    /**
+     * Execute the sync process for some of the indexed documents, see {@link #sync()}.
+     *
+     * @param documents  indexed documents to sync
+     * @throws AlexandriaException  Exception wrapping all exceptions thrown while syncing documents
+     */
+    protected void sync(List<Config.DocumentMetadata> documents) throws AlexandriaException {
+        context.saves().start();
+        try {
+            syncBatch(documents, new BatchProcess<>(context));
+        } finally {
+            context.saves().stop();
+        }
+    }
+
+    private void syncBatch(List<Config.DocumentMetadata> documents, BatchProcess<Config.DocumentMetadata> batchProcess) throws AlexandriaException {
+        batchProcess.jobs(context.config().jobs());
+        BatchProcess.AfterBatch<Config.DocumentMetadata> afterBatch = (context, exceptions) -> {
+            log.info(String.format("Synced %d out of %d documents with remote %s",
+                    documents.size() - exceptions.size(), documents.size(),
+                    context.config().remote().baseUrl().orElse(null)));
+            Context.save(context);
+            return BatchProcess.EXCEPTIONS_UNHANDLED;
+        };
+
+        if(context.config().inFlight() > 0){
+            batchProcess.inFlight(context.config().inFlight());
+            ExecutorService executor = remote instanceof AsyncRemote ? null : Executors.newFixedThreadPool(context.config().inFlight());
+            try {
+                AsyncRemote asyncRemote = AsyncRemote.of(remote, executor);
+                batchProcess.executeAsync(context -> documents, (context, metadata) -> {
+                    convertDocument(context, metadata);
+                    return syncDocumentAsync(asyncRemote, context, metadata);
+                }, afterBatch);
+            } finally {
+                if(executor != null){
+                    executor.shutdownNow();
+                }
             }
+        } else if(context.config().pipeline()){
+            batchProcess.execute(context -> documents,
+                    this::convertDocument, this::syncDocument, afterBatch);
+        } else {
+            batchProcess.execute(context -> documents, (context, metadata) -> {
+                convertDocument(context, metadata);
+                syncDocument(context, metadata);
+            }, afterBatch);
+        }
+    }
 
-            long currentChecksum;
-            Config.DocumentMetadata.State state = metadata.determineState();
-            switch(state){
+    /**
+     * Validate and reconvert a document ahead of syncing it, unless it is deleted or marked for deletion.
+     *
+     * @param context  Alexandria context
+     * @param metadata  document to convert
+     * @throws AlexandriaException  the document is invalid for the remote or couldnt be converted
+     * @throws IOException  problems determining the document state
+     */
+    protected void convertDocument(Context context, Config.DocumentMetadata metadata) throws AlexandriaException, IOException {
+        log.debug(String.format("Syncing %s with remote.", metadata.sourceFileName()));
+        remote.validateDocumentMetadata(metadata);
+
+        List<Config.DocumentMetadata.State> unconvertableStates =
+                Arrays.asList(Config.DocumentMetadata.State.DELETED, Config.DocumentMetadata.State.DELETE);
+        if(!unconvertableStates.contains(metadata.determineState(context.checksums()))) {
+            // always convert to catch when AlexandriaSync is run without AlexandriaConvert
+            // this also catches things like markdown converters output changing when the source stays the same,
+            // like resolving relative links to newly created remote URIs. Unchanged documents reuse their conversion.
+            AlexandriaConvert.convert(context, metadata, remote.markdownConverter());
+        }
+    }
+
+    /**
+     * Create, update or delete a converted document on the remote based on its current state and journal the result.
+     *
+     * @param context  Alexandria context
+     * @param metadata  converted document to sync
+     * @throws AlexandriaException  the remote request failed
+     * @throws IOException  problems calculating the checksum or writing to the journal
+     */
+    protected void syncDocument(Context context, Config.DocumentMetadata metadata) throws AlexandriaException, IOException {
+        Config.DocumentMetadata.State state = determineState(metadata);
+        if(needsRequest(metadata, state)) {
+            switch (state) {
                 case DELETE:
                     remote.delete(metadata);
-                    log.info(String.format("%s (remote: %s) deleted from remote. Local file will not be removed by Alexandria.", metadata.sourceFileName(), metadata.remoteUri().orElse(null)));
                     break;
                 case CREATE:
-                    if(Resources.fileContentsAreBlank(metadata.sourcePath().toString())){
-                        log.info(String.format("%s has no contents, not creating on remote", metadata.sourceFileName()));
-                    } else{
-                        remote.create(metadata);
-                        currentChecksum = FileUtils.checksumCRC32(metadata.sourcePath().toFile());
-                        metadata.sourceChecksum(Optional.of(currentChecksum));
-                        log.info(String.format("%s (remote: %s) created on remote", metadata.sourceFileName(), metadata.remoteUri().orElse(null)));
-                    }
+                    remote.create(metadata);
                     break;
                 case UPDATE:
-                    if(Resources.fileContentsAreBlank(metadata.sourcePath().toString())){
-                        log.info(String.format("%s has no contents, not updating on remote", metadata.sourceFileName()));
-                    } else {
-                        remote.update(metadata);
-                        currentChecksum = FileUtils.checksumCRC32(metadata.sourcePath().toFile());
-                        metadata.sourceChecksum(Optional.of(currentChecksum));
-                        log.info(String.format("%s (remote: %s) updated on remote.", metadata.sourceFileName(), metadata.remoteUri().orElse(null)));
-                    }
-                    break;
-                case DELETED:
-                case CURRENT:
-                    log.info(String.format("%s (remote: %s) already current with remote: %s", metadata.sourceFileName(), metadata.remoteUri().orElse(null), state));
+                    remote.update(metadata);
                     break;
             }
-            Context.save(context);
-        }, (context, exceptions) -> {
-            log.info(String.format("Synced %d out of %d documents with remote %s",
-                    context.documentCount() - exceptions.size(), context.documentCount(),
-                    context.config().remote().baseUrl().orElse(null)));
-            Context.save(context);
-            return BatchProcess.EXCEPTIONS_UNHANDLED;
+            requestCompleted(metadata, state);
+        }
+        journal(context, metadata);
+    }
+
+    /**
+     * Start creating, updating or deleting a converted document on the remote based on its current state, journaling
+     * the result once the request completes.
+     *
+     * @param remote  asynchronous remote to make the request with
+     * @param context  Alexandria context
+     * @param metadata  converted document to sync
+     * @return  future completed once the document is synced and journaled, exceptionally if the request failed
+     * @throws IOException  problems determining the document state or writing to the journal
+     */
+    protected CompletableFuture<Void> syncDocumentAsync(AsyncRemote remote, Context context, Config.DocumentMetadata metadata) throws IOException {
+        Config.DocumentMetadata.State state = determineState(metadata);
+        if(!needsRequest(metadata, state)){
+            journal(context, metadata);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Config.DocumentMetadata> request;
+        switch (state) {
+            case DELETE:
+                request = remote.deleteAsync(metadata);
+                break;
+            case CREATE:
+                request = remote.createAsync(metadata);
+                break;
+            default:
+                request = remote.updateAsync(metadata);
+                break;
+        }
+        return request.thenAccept(synced -> {
+            try {
+                requestCompleted(metadata, state);
+                journal(context, metadata);
+            } catch(IOException e){
+                throw new CompletionException(e);
+            }
         });
     }
+
+    /**
+     * Determine the state of a converted document. Documents synced again because their links changed are updated even
+     * though they appear current, since converting them refreshes the converted checksum the state is compared against.
+     *
+     * @param metadata  converted document to sync
+     * @return  state that can be used to determine how to sync the document
+     * @throws IOException  problems determining the document state
+     */
+    protected Config.DocumentMetadata.State determineState(Config.DocumentMetadata metadata) throws IOException {
+        Config.DocumentMetadata.State state = metadata.determineState(context.checksums());
+        if(state == Config.DocumentMetadata.State.CURRENT && relinked.contains(metadata.sourcePath())){
+            return Config.DocumentMetadata.State.UPDATE;
+        }
+        return state;
+    }
+
+    /**
+     * Whether a document in the given state needs a request to the remote, logging why not if it doesnt.
+     *
+     * @param metadata  converted document to sync
+     * @param state  current state of the document
+     * @return  true if the document should be deleted, or created or updated and has contents
+     * @throws IOException  problems reading the document
+     */
+    protected boolean needsRequest(Config.DocumentMetadata metadata, Config.DocumentMetadata.State state) throws IOException {
+        switch(state){
+            case DELETE:
+                return true;
+            case CREATE:
+            case UPDATE:
+                if(Resources.fileContentsAreBlank(metadata.sourcePath().toString())){
+                    log.info(String.format("%s has no contents, not %s on remote", metadata.sourceFileName(),
+                            state == Config.DocumentMetadata.State.CREATE ? "creating" : "updating"));
+                    return false;
+                }
+                return true;
+            default:
+                log.info(String.format("%s (remote: %s) already current with remote: %s", metadata.sourceFileName(), metadata.remoteUri().orElse(null), state));
+                return false;
+        }
+    }
+
+    /**
+     * Update the document after a successful request to the remote, calculating and setting {@code sourceChecksum} and
+     * {@code sourceFingerprint} for created and updated documents.
+     *
+     * @param metadata  synced document
+     * @param state  state of the document when it was synced
+     * @throws IOException  problems calculating the checksum
+     */
+    protected void requestCompleted(Config.DocumentMetadata metadata, Config.DocumentMetadata.State state) throws IOException {
+        switch(state){
+            case DELETE:
+                log.info(String.format("%s (remote: %s) deleted from remote. Local file will not be removed by Alexandria.", metadata.sourceFileName(), metadata.remoteUri().orElse(null)));
+                break;
+            case CREATE:
+                metadata.updateSourceChecksum(context.checksums());
+                log.info(String.format("%s (remote: %s) created on remote", metadata.sourceFileName(), metadata.remoteUri().orElse(null)));
+                break;
+            case UPDATE:
+                metadata.updateSourceChecksum(context.checksums());
+                log.info(String.format("%s (remote: %s) updated on remote.", metadata.sourceFileName(), metadata.remoteUri().orElse(null)));
+                break;
+        }
+    }
+
+    /**
+     * Re-index a synced document, since the remote may have set a new remote uri or ids on it, stage it with the
+     * {@link MetadataStore}, append it to the {@link SyncJournal} and save the context if a periodic save is due, see
+     * {@link SaveScheduler}.
+     *
+     * Periodic saves run while other documents are still syncing, so they save a copy of the document taken here
+     * rather than the document itself. A failed periodic save doesnt fail the document, it is already journaled.
+     *
+     * @param context  Alexandria context
+     * @param metadata  synced document
+     * @throws IOException  problems writing to the journal
+     */
+    protected void journal(Context context, Config.DocumentMetadata metadata) throws IOException {
+        context.metadataIndex().add(metadata);
+        Config.DocumentMetadata copy = metadata.copy();
+        context.saves().record(metadata, copy);
+        context.metadataStore().put(context, metadata);
+        SyncJournal.append(context, copy);
+        context.saves().changed();
+    }
 }
@@ -8,7 +8,20 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Generic class to handle wrapping batch processing in robust error handling.
@@ -24,6 +37,21 @@ import java.util.Optional;
  *  <li><b>after batch</b> - call the delegated {@link AfterBatch#execute(Context, Collection)}</li>
  * </ol>
  *
+ * By default tasks are executed one at a time on the calling thread. Setting {@link #jobs} to a value greater than 1
+ * executes tasks concurrently on a fixed size worker pool instead. Tasks must then be safe to run in parallel, which
+ * generally means they should only modify the object they were given. {@link AfterBatch} is still called exactly once
+ * on the calling thread after every task has finished.
+ *
+ * A batch can also be pipelined with {@link #execute(Batch, Task, Task, AfterBatch)}, splitting each task into two stages.
+ * The first stage runs on a single producer thread and hands finished objects to {@link #jobs} consumer threads running
+ * the second stage through a queue holding at most {@link #queueSize} objects. This lets cpu bound work like converting
+ * documents overlap with io bound work like rest requests, while the bounded queue keeps the producer from racing ahead
+ * of the consumers.
+ *
+ * Tasks that return a {@link CompletableFuture}, like requests to an asynchronous remote, can be executed with
+ * {@link #executeAsync(Batch, AsyncTask, AfterBatch)}. Each task is started on the calling thread, which blocks while
+ * {@link #inFlight} tasks are still outstanding, so a single thread can keep many io bound tasks running.
+ *
  * For example, {@link AlexandriaConvert} is implemented roughly as:
  *
  * <pre>
@@ -54,8 +82,20 @@ public class BatchProcess<T> {
     public static final Boolean EXCEPTIONS_HANDLED = true;
     public static final Boolean EXCEPTIONS_UNHANDLED = false;
 
+    /** How often a producer waiting on a full pipeline queue checks that its consumers are still running. */
+    protected static final long ENQUEUE_POLL_MILLIS = 100;
+
     @NonNull private Context context;
-    private Collection<AlexandriaException> exceptions = new ArrayList<>();
+    private Collection<AlexandriaException> exceptions = new ConcurrentLinkedQueue<>();
+
+    /** Number of tasks to execute concurrently. Values less than 2 execute tasks sequentially. Default: 1. */
+    private int jobs = 1;
+
+    /** Maximum number of objects waiting between the stages of a pipelined batch. Default: 16. */
+    private int queueSize = 16;
+
+    /** Maximum number of asynchronous tasks outstanding at once. Default: 16. */
+    private int inFlight = 16;
 
     /**
      * Execute the batch, providing a default {@link AfterBatch} that calls {@link Context#save(Context)} before
@@ -87,19 +127,65 @@ public class BatchProcess<T> {
      * @throws BatchProcessException  Wrapper containing all exceptions thrown while processing the batch
      */
     public void execute(Batch<T> batch, Task<T> task, AfterBatch<T> after) throws BatchProcessException {
-        try {
-            for (T t : batch.collect(context)) {
-                try {
-                    task.execute(context, t);
-                } catch(AlexandriaException e){
-                    if(t instanceof Config.DocumentMetadata && !e.metadata().isPresent()){
-                        e.metadata(Optional.of((Config.DocumentMetadata) t));
-                    }
-                    exceptions.add(e);
-                } catch(Exception e){
-                    exceptions.add(buildAlexandriaException(e, Optional.of(t), Optional.of("Unexpected exception thrown processing task.")));
+        process(batch, collected -> {
+            if(jobs > 1 && collected.size() > 1){
+                executeConcurrently(collected, task);
+            } else {
+                for (T t : collected) {
+                    executeTask(task, t);
                 }
             }
+        }, after);
+    }
+
+    /**
+     * Execute the batch as a two stage pipeline wrapping the delegated methods in robust exception handling.
+     *
+     * Each collected object is passed to {@code stage} on a single producer thread, in the order it was collected.
+     * Objects that complete the stage without an exception are queued for {@code task}, which runs on up to {@link #jobs}
+     * consumer threads. The producer blocks while {@link #queueSize} objects are waiting for a consumer. Objects that fail
+     * the first stage are not passed to {@code task}. Exceptions from both stages are collected and handled the same as
+     * {@link #execute(Batch, Task, AfterBatch)}.
+     *
+     * @param batch  Batch collection delegate
+     * @param stage  First stage task execution delegate
+     * @param task  Second stage task execution delegate
+     * @param after  After batch delegate
+     * @throws BatchProcessException  Wrapper containing all exceptions thrown while processing the batch
+     */
+    public void execute(Batch<T> batch, Task<T> stage, Task<T> task, AfterBatch<T> after) throws BatchProcessException {
+        process(batch, collected -> executePipelined(collected, stage, task), after);
+    }
+
+    /**
+     * Execute the batch with asynchronous tasks wrapping the delegated methods in robust exception handling.
+     *
+     * Each collected object is passed to {@code task} on the calling thread, in the order it was collected, once fewer
+     * than {@link #inFlight} of the futures returned so far are incomplete. Exceptions thrown starting a task or
+     * completing its future are collected and handled the same as {@link #execute(Batch, Task, AfterBatch)}.
+     * {@link AfterBatch} is called once every future has completed.
+     *
+     * @param batch  Batch collection delegate
+     * @param task  Asynchronous task execution delegate
+     * @param after  After batch delegate
+     * @throws BatchProcessException  Wrapper containing all exceptions thrown while processing the batch
+     */
+    public void executeAsync(Batch<T> batch, AsyncTask<T> task, AfterBatch<T> after) throws BatchProcessException {
+        process(batch, collected -> executeInFlight(collected, task), after);
+    }
+
+    /**
+     * Collect the batch, hand it to the execution strategy and call the after batch delegate, collecting any exceptions
+     * thrown along the way.
+     *
+     * @param batch  Batch collection delegate
+     * @param strategy  How the collected objects are executed
+     * @param after  After batch delegate
+     * @throws BatchProcessException  Wrapper containing all exceptions thrown while processing the batch
+     */
+    protected void process(Batch<T> batch, Strategy<T> strategy, AfterBatch<T> after) throws BatchProcessException {
+        try {
+            strategy.execute(batch.collect(context));
         } catch(BatchProcessException e){
             if(e.exceptions().isEmpty()){
                 AlexandriaException alexandriaException = new AlexandriaException(e.getMessage(), e.getCause());
@@ -127,7 +213,7 @@ public class BatchProcess<T> {
         if(exceptions.size() > 0 && exceptionsHandled == EXCEPTIONS_UNHANDLED){
             BatchProcessException exception = new BatchProcessException.Builder()
                     .withMessage("Alexandria batch error.")
-                    .causedBy(exceptions)
+                    .causedBy(new ArrayList<>(exceptions))
                     .build();
             log.error(exception.toString());
             exception.logStacktrace();
@@ -135,6 +221,188 @@ public class BatchProcess<T> {
         }
     }
 
+    /**
+     * Execute a single task, collecting any exception it throws instead of letting it escape.
+     *
+     * @param task  Task execution delegate
+     * @param t  Object to process
+     * @return  true if the task completed without an exception
+     */
+    protected boolean executeTask(Task<T> task, T t){
+        try {
+            task.execute(context, t);
+            return true;
+        } catch(Exception e){
+            collectException(e, t);
+        }
+        return false;
+    }
+
+    /**
+     * Collect an exception thrown processing an object, adding the object for context.
+     *
+     * @param e  exception thrown by a task, unwrapped if it completed a future
+     * @param t  Object being processed
+     */
+    protected void collectException(Throwable e, T t){
+        if(e instanceof AlexandriaException){
+            AlexandriaException alexandriaException = (AlexandriaException) e;
+            if(t instanceof Config.DocumentMetadata && !alexandriaException.metadata().isPresent()){
+                alexandriaException.metadata(Optional.of((Config.DocumentMetadata) t));
+            }
+            exceptions.add(alexandriaException);
+        } else{
+            exceptions.add(buildAlexandriaException(e, Optional.of(t), Optional.of("Unexpected exception thrown processing task.")));
+        }
+    }
+
+    /**
+     * Execute the tasks on a fixed size worker pool of at most {@link #jobs} threads, blocking until all of them
+     * have finished.
+     *
+     * The pool only lives as long as the batch. Exceptions are collected the same way as sequential execution, anything
+     * that still escapes a task (e.g. an {@link Error}) is wrapped and collected when the task's result is retrieved.
+     *
+     * @param collected  objects to process
+     * @param task  Task execution delegate
+     * @throws InterruptedException  the calling thread was interrupted while waiting on the workers
+     */
+    protected void executeConcurrently(Collection<T> collected, Task<T> task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(jobs, collected.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>(collected.size());
+            for (T t : collected) {
+                futures.add(executor.submit(() -> executeTask(task, t)));
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Execute the two stages of a pipelined batch, blocking until all of them have finished.
+     *
+     * The producer always queues one end marker per consumer once it is done, even if it fails, so consumers dont wait
+     * forever on an empty queue. If every consumer dies (e.g. from an {@link Error}) nothing is left to drain the queue,
+     * so the producer stops instead of waiting forever on a full queue, see {@link #enqueue(BlockingQueue, Object, AtomicInteger)}.
+     *
+     * @param collected  objects to process
+     * @param stage  First stage task execution delegate, run on the producer thread
+     * @param task  Second stage task execution delegate, run on the consumer threads
+     * @throws InterruptedException  the calling thread was interrupted while waiting on the workers
+     */
+    protected void executePipelined(Collection<T> collected, Task<T> stage, Task<T> task) throws InterruptedException {
+        int consumers = Math.max(1, Math.min(jobs, collected.size()));
+        BlockingQueue<Optional<T>> queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        AtomicInteger running = new AtomicInteger(consumers);
+        ExecutorService executor = Executors.newFixedThreadPool(consumers + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<>(consumers + 1);
+            futures.add(executor.submit(() -> {
+                try {
+                    for (T t : collected) {
+                        if(executeTask(stage, t) && !enqueue(queue, Optional.of(t), running)){
+                            log.warn("All consumers stopped, not staging the remaining objects.");
+                            break;
+                        }
+                    }
+                } finally {
+                    for (int i = 0; i < consumers; i++) {
+                        if(!enqueue(queue, Optional.empty(), running)){
+                            break;
+                        }
+                    }
+                }
+                return null;
+            }));
+            for (int i = 0; i < consumers; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        for (Optional<T> next = queue.take(); next.isPresent(); next = queue.take()) {
+                            executeTask(task, next.get());
+                        }
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Queue an element for the consumers, waiting for space as long as at least one consumer is still running.
+     *
+     * @param queue  queue shared with the consumers
+     * @param e  element to queue
+     * @param running  number of consumers still taking from the queue
+     * @return  true if the element was queued, false if every consumer stopped first
+     * @throws InterruptedException  the producer was interrupted while waiting for space
+     */
+    protected static <E> boolean enqueue(BlockingQueue<E> queue, E e, AtomicInteger running) throws InterruptedException {
+        while(!queue.offer(e, ENQUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)){
+            if(running.get() <= 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start the asynchronous tasks, keeping at most {@link #inFlight} of them outstanding, and block until all of them
+     * have completed.
+     *
+     * @param collected  objects to process
+     * @param task  Asynchronous task execution delegate
+     * @throws InterruptedException  the calling thread was interrupted while waiting on outstanding tasks
+     */
+    protected void executeInFlight(Collection<T> collected, AsyncTask<T> task) throws InterruptedException {
+        int permits = Math.max(1, inFlight);
+        Semaphore outstanding = new Semaphore(permits);
+        for (T t : collected) {
+            outstanding.acquire();
+            CompletableFuture<?> future;
+            try {
+                future = task.execute(context, t);
+            } catch(Exception e){
+                collectException(e, t);
+                outstanding.release();
+                continue;
+            }
+            if(future == null){
+                outstanding.release();
+                continue;
+            }
+            future.whenComplete((result, e) -> {
+                if(e != null){
+                    collectException(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e, t);
+                }
+                outstanding.release();
+            });
+        }
+        outstanding.acquire(permits);
+    }
+
+    /**
+     * Block until all workers have finished, wrapping and collecting anything that escaped them.
+     *
+     * @param futures  worker results to wait on
+     * @throws InterruptedException  the calling thread was interrupted while waiting on the workers
+     */
+    protected void awaitAll(List<Future<?>> futures) throws InterruptedException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch(ExecutionException e){
+                exceptions.add(buildAlexandriaException(e.getCause(), Optional.empty(), Optional.of("Unexpected exception thrown processing task.")));
+            }
+        }
+    }
+
     /**
      * Convenience method to remove some boiler plate from wrapping exceptions.
      *
@@ -155,6 +423,16 @@ public class BatchProcess<T> {
         return exceptionBuilder.build();
     }
 
+    /**
+     * How collected objects are executed, e.g. sequentially, concurrently or pipelined.
+     *
+     * @param <T>  type of the object being processed
+     */
+    @FunctionalInterface
+    protected interface Strategy<T> {
+        void execute(Collection<T> collected) throws Exception;
+    }
+
     /**
      * Lambda compatible interface that will collect objects to be processed
      *
@@ -188,6 +466,25 @@ public class BatchProcess<T> {
         void execute(Context context, T t) throws Exception;
     }
 
+    /**
+     * Lambda compatible interface that will start processing each object returned by {@link Batch#collect(Context)}
+     * without waiting for it to finish.
+     *
+     * @param <T>  type of the object being processed
+     */
+    @FunctionalInterface
+    public interface AsyncTask<T> {
+        /**
+         * Delegated method to start processing an individual object.
+         *
+         * @param context  Alexandria context that may or may not be needed by caller.
+         * @param t  Object to process
+         * @return  future completed once the object is processed, exceptionally if there was an error
+         * @throws Exception  Error starting to process the object, the rest of the batch will continue processing
+         */
+        CompletableFuture<?> execute(Context context, T t) throws Exception;
+    }
+
     /**
      * Lambda compatible interface that will be called after processing is complete
      *
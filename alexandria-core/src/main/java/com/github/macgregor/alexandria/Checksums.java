@@ -0,0 +1,126 @@
+package com.github.macgregor.alexandria;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Utility class for calculating file checksums without rereading files that havent changed.
+ *
+ * A file is considered unchanged if its {@link Fingerprint} (size, last modified time and file key) is the same as when
+ * the checksum was calculated. Checksums calculated during a run are cached in memory by fingerprint, so checking the
+ * same document several times in a run only reads it once. The cache lives as long as the instance, a run uses the one
+ * on its {@link Context#checksums}. Fingerprints are also persisted on
+ * {@link Config.DocumentMetadata} next to the checksums they describe, so a run with no changes only needs to stat files.
+ */
+public class Checksums {
+    private final Map<Path, Cached> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Calculate the CRC32 checksum of a file, reusing the checksum calculated earlier in this run if the file's
+     * fingerprint hasnt changed since.
+     *
+     * @param path  file to checksum
+     * @return  CRC32 checksum of the file contents
+     * @throws IOException  the file doesnt exist or cant be read
+     */
+    public long crc32(Path path) throws IOException {
+        Fingerprint fingerprint = fingerprint(path);
+        Cached cached = cache.get(path);
+        if(cached != null && cached.fingerprint.equals(fingerprint)){
+            return cached.checksum;
+        }
+        long checksum = FileUtils.checksumCRC32(path.toFile());
+        cache.put(path, new Cached(fingerprint, checksum));
+        return checksum;
+    }
+
+    /**
+     * Determine whether a file still matches a previously recorded checksum.
+     *
+     * If the file's current fingerprint matches the one recorded with the checksum, the file is assumed unchanged and
+     * isnt read. Otherwise the checksum is recalculated and compared.
+     *
+     * @param path  file to check
+     * @param checksum  previously recorded checksum
+     * @param fingerprint  fingerprint recorded along with the checksum, if any
+     * @return  true if the file contents match the checksum
+     * @throws IOException  the file doesnt exist or cant be read
+     */
+    public boolean matches(Path path, long checksum, Optional<Fingerprint> fingerprint) throws IOException {
+        return verify(path, checksum, fingerprint).isPresent();
+    }
+
+    /**
+     * Verify a file still matches a previously recorded checksum, returning its current fingerprint if it does.
+     *
+     * A file that was touched without changing (e.g. rewritten by a git checkout) has a new fingerprint but the same
+     * checksum. Recording the returned fingerprint in place of the old one means it only has to be reread once.
+     *
+     * @param path  file to check
+     * @param checksum  previously recorded checksum
+     * @param fingerprint  fingerprint recorded along with the checksum, if any
+     * @return  the file's current fingerprint if its contents match the checksum, otherwise Optional.empty()
+     * @throws IOException  the file doesnt exist or cant be read
+     */
+    public Optional<Fingerprint> verify(Path path, long checksum, Optional<Fingerprint> fingerprint) throws IOException {
+        Fingerprint current = fingerprint(path);
+        if(fingerprint.isPresent() && fingerprint.get().equals(current)){
+            return fingerprint;
+        }
+        return crc32(path) == checksum ? Optional.of(current) : Optional.empty();
+    }
+
+    /**
+     * Read the fingerprint of a file from its attributes.
+     *
+     * @param path  file to fingerprint
+     * @return  current fingerprint of the file
+     * @throws IOException  the file doesnt exist or its attributes cant be read
+     */
+    public static Fingerprint fingerprint(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return new Fingerprint(attributes.size(), attributes.lastModifiedTime().toMillis(),
+                attributes.fileKey() == null ? null : attributes.fileKey().toString());
+    }
+
+    /**
+     * Cheap to read file attributes that change whenever a file is rewritten.
+     *
+     * The file key identifies the underlying file (e.g. device and inode), catching files replaced by another file with
+     * the same size and modified time. It isnt available on all platforms, in which case it is null.
+     */
+    @Data
+    @Accessors(fluent = true)
+    @NoArgsConstructor @AllArgsConstructor
+    public static class Fingerprint {
+        /** File size in bytes. */
+        @JsonProperty
+        protected long size;
+
+        /** Last modified time in milliseconds since the epoch. */
+        @JsonProperty
+        protected long lastModified;
+
+        /** Platform specific file key, see {@link BasicFileAttributes#fileKey()}. */
+        @JsonProperty
+        protected String fileKey;
+    }
+
+    @AllArgsConstructor
+    private static class Cached {
+        private Fingerprint fingerprint;
+        private long checksum;
+    }
+}
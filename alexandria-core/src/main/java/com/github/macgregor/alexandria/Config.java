@@ -3,7 +3,6 @@ package com.github.macgregor.alexandria;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 import lombok.experimental.Accessors;
-import org.apache.commons.io.FileUtils;
 
 import java.io.IOException;
 import java.net.URI;
@@ -21,6 +20,9 @@ import java.util.*;
  * the config file on disk shouldnt contain any absolute paths or system specific data that will break if committed
  * and used by another contributor.
  *
+ * Settings that have a default but werent part of the original config format are left null until they are set, with
+ * their getter falling back to the default, so saving a config doesnt write every default into it.
+ *
  * @see Context
  * @see Context#load(String)
  * @see Context#save(Context)
@@ -45,6 +47,82 @@ public class Config {
     @JsonProperty
     protected Optional<List<String>> defaultTags = Optional.of(new ArrayList<>());
 
+    /** Number of documents to convert and sync concurrently. See {@link BatchProcess#jobs}. Default: 1 (sequential). */
+    @JsonProperty
+    protected Integer jobs;
+
+    public Integer jobs(){
+        return jobs == null ? 1 : jobs;
+    }
+
+    /** Convert documents on a single thread while {@link #jobs} threads sync already converted documents with the remote. See {@link AlexandriaSync#sync()}. Default: false. */
+    @JsonProperty
+    protected Boolean pipeline;
+
+    public Boolean pipeline(){
+        return pipeline == null ? false : pipeline;
+    }
+
+    /** Maximum number of documents with requests outstanding at once, syncing them through {@link com.github.macgregor.alexandria.remotes.AsyncRemote} from a single thread instead of {@link #jobs} threads. See {@link AlexandriaSync#sync()}. Default: 0 (disabled). */
+    @JsonProperty
+    protected Integer inFlight;
+
+    public Integer inFlight(){
+        return inFlight == null ? 0 : inFlight;
+    }
+
+    /** Save the context while syncing at most once every this many seconds, see {@link SaveScheduler}. Default: 30. 0 disables saving on an interval. */
+    @JsonProperty
+    protected Integer saveInterval;
+
+    public Integer saveInterval(){
+        return saveInterval == null ? 30 : saveInterval;
+    }
+
+    /** Save the context while syncing once this many documents have been synced since the last save, see {@link SaveScheduler}. Default: 500. 0 disables saving by document count. */
+    @JsonProperty
+    protected Integer saveEvery;
+
+    public Integer saveEvery(){
+        return saveEvery == null ? 500 : saveEvery;
+    }
+
+    /** Fully qualified class name of the {@link MetadataStore} that saves indexed documents or their sync state. Default: "com.github.macgregor.alexandria.SyncStateStore" */
+    @JsonProperty
+    protected String metadataStore;
+
+    public String metadataStore(){
+        return metadataStore == null ? "com.github.macgregor.alexandria.SyncStateStore" : metadataStore;
+    }
+
+    /** How the {@link SyncState} of indexed documents is split into files. See {@link SyncState#path(Context, Path)}. Default: NONE (single state file). */
+    @JsonProperty
+    protected StateSharding stateSharding;
+
+    public StateSharding stateSharding(){
+        return stateSharding == null ? StateSharding.NONE : stateSharding;
+    }
+
+    /** Number of shards documents are spread across when {@link #stateSharding} is HASH. Default: 16. */
+    @JsonProperty
+    protected Integer stateShards;
+
+    public Integer stateShards(){
+        return stateShards == null ? 16 : stateShards;
+    }
+
+    /**
+     * Ways of splitting the {@link SyncState} into shards.
+     */
+    public enum StateSharding {
+        /** Single state file. */
+        NONE,
+        /** One shard per top level directory. */
+        DIRECTORY,
+        /** A fixed number of shards, {@link Config#stateShards}, picked by hashing the source path. */
+        HASH
+    }
+
     /**
      * Configuration properties for instantiating and configuring a {@link com.github.macgregor.alexandria.remotes.Remote}.
      */
@@ -53,6 +131,8 @@ public class Config {
     @NoArgsConstructor @AllArgsConstructor
     @ToString
     public static class RemoteConfig{
+        private static final List<Integer> DEFAULT_RETRY_STATUS_CODES = Collections.unmodifiableList(Arrays.asList(429, 502, 503, 504));
+
         /** Fully qualified class name of the {@link com.github.macgregor.alexandria.remotes.Remote} implementation to use. Default: "com.github.macgregor.alexandria.remotes.NoopRemote" */
         @JsonProperty("class")
         protected String clazz = "com.github.macgregor.alexandria.remotes.NoopRemote";
@@ -81,6 +161,128 @@ public class Config {
         @JsonProperty
         protected Integer requestTimeout = 30;
 
+        /** Maximum number of idle connections to keep open to the remote for reuse. Default: 5. */
+        @JsonProperty
+        protected Integer maxIdleConnections;
+
+        public Integer maxIdleConnections(){
+            return maxIdleConnections == null ? 5 : maxIdleConnections;
+        }
+
+        /** Time in seconds an idle connection to the remote is kept open for reuse. Default: 300 seconds. */
+        @JsonProperty
+        protected Integer keepAliveDuration;
+
+        public Integer keepAliveDuration(){
+            return keepAliveDuration == null ? 300 : keepAliveDuration;
+        }
+
+        /** Maximum number of asynchronous requests executed concurrently. Default: 64. */
+        @JsonProperty
+        protected Integer maxRequests;
+
+        public Integer maxRequests(){
+            return maxRequests == null ? 64 : maxRequests;
+        }
+
+        /** Maximum number of asynchronous requests executed concurrently against the remote host. Default: 5. */
+        @JsonProperty
+        protected Integer maxRequestsPerHost;
+
+        public Integer maxRequestsPerHost(){
+            return maxRequestsPerHost == null ? 5 : maxRequestsPerHost;
+        }
+
+        /**
+         * Adjust the number of requests in flight to the remote based on latency and 429/503 responses, starting from
+         * {@link #maxRequestsPerHost}. See {@link com.github.macgregor.alexandria.remotes.ConcurrencyLimiter}. Default: false.
+         */
+        @JsonProperty
+        protected Boolean adaptiveConcurrency;
+
+        public Boolean adaptiveConcurrency(){
+            return adaptiveConcurrency == null ? false : adaptiveConcurrency;
+        }
+
+        /** Lowest number of requests in flight the adaptive limit can be cut to. Default: 1. */
+        @JsonProperty
+        protected Integer minConcurrency;
+
+        public Integer minConcurrency(){
+            return minConcurrency == null ? 1 : minConcurrency;
+        }
+
+        /** Highest number of requests in flight the adaptive limit can be raised to. Default: 64. */
+        @JsonProperty
+        protected Integer maxConcurrency;
+
+        public Integer maxConcurrency(){
+            return maxConcurrency == null ? 64 : maxConcurrency;
+        }
+
+        /** Maximum attempts for idempotent (GET, PUT, DELETE) requests, including the first. 1 disables retries. See {@link com.github.macgregor.alexandria.remotes.RetryPolicy}. Default: 3. */
+        @JsonProperty
+        protected Integer retryMaxAttempts;
+
+        public Integer retryMaxAttempts(){
+            return retryMaxAttempts == null ? 3 : retryMaxAttempts;
+        }
+
+        /** Delay in milliseconds the exponential backoff between attempts starts from. Default: 100. */
+        @JsonProperty
+        protected Long retryBaseDelay;
+
+        public Long retryBaseDelay(){
+            return retryBaseDelay == null ? 100L : retryBaseDelay;
+        }
+
+        /** Longest delay in milliseconds between attempts, including delays requested by the remote with Retry-After. Default: 10000. */
+        @JsonProperty
+        protected Long retryMaxDelay;
+
+        public Long retryMaxDelay(){
+            return retryMaxDelay == null ? 10000L : retryMaxDelay;
+        }
+
+        /** Response status codes that are retried. Default: 429, 502, 503, 504. */
+        @JsonProperty
+        protected List<Integer> retryStatusCodes;
+
+        public List<Integer> retryStatusCodes(){
+            return retryStatusCodes == null ? DEFAULT_RETRY_STATUS_CODES : retryStatusCodes;
+        }
+
+        /** Number of documents requested per page when searching the remote, capped at the remote's maximum. Default: 25. */
+        @JsonProperty
+        protected Integer pageSize;
+
+        public Integer pageSize(){
+            return pageSize == null ? 25 : pageSize;
+        }
+
+        /**
+         * Number of pages requested in the background ahead of the page being read when searching the remote, so paging
+         * through large results isnt a series of serial round trips. 0 requests one page at a time. Default: 0.
+         */
+        @JsonProperty
+        protected Integer pageReadAhead;
+
+        public Integer pageReadAhead(){
+            return pageReadAhead == null ? 0 : pageReadAhead;
+        }
+
+        /**
+         * Prefetch the state of all managed documents from the remote at the start of sync, if the remote supports it,
+         * instead of looking documents up one at a time. See {@link com.github.macgregor.alexandria.remotes.Remote#beforeSync()}.
+         * Default: false.
+         */
+        @JsonProperty
+        protected Boolean prefetch;
+
+        public Boolean prefetch(){
+            return prefetch == null ? false : prefetch;
+        }
+
         /** Defaults extra properties to add to metadata. Metadata set values take precedent */
         @JsonProperty
         protected Optional<Map<String, String>> defaultExtraProps = Optional.empty();
@@ -168,6 +370,16 @@ public class Config {
         @EqualsAndHashCode.Exclude
         protected Optional<Long> convertedChecksum = Optional.empty();
 
+        /** Fingerprint of the source file when {@link #sourceChecksum} was calculated, used to skip rereading unchanged files. Default: none. */
+        @JsonProperty
+        @EqualsAndHashCode.Exclude
+        protected Optional<Checksums.Fingerprint> sourceFingerprint = Optional.empty();
+
+        /** Fingerprint of the converted file when {@link #convertedChecksum} was calculated, used to skip rereading unchanged files. Default: none. */
+        @JsonProperty
+        @EqualsAndHashCode.Exclude
+        protected Optional<Checksums.Fingerprint> convertedFingerprint = Optional.empty();
+
         /** Datetime when file was created on the remote. Remote implementation is responsible for managing. Default: none. */
         @JsonProperty
         @EqualsAndHashCode.Exclude
@@ -230,6 +442,22 @@ public class Config {
             return null;
         }
 
+        /**
+         * Copy of the metadata with its own {@link #tags} and {@link #extraProps}, so it can be read while the original
+         * keeps changing, e.g. by a save while the document is being synced.
+         *
+         * @return  new metadata with the same values
+         */
+        public DocumentMetadata copy(){
+            return new DocumentMetadata(sourcePath, title,
+                    remoteUri,
+                    tags.map(ArrayList::new),
+                    sourceChecksum, convertedChecksum, sourceFingerprint, convertedFingerprint,
+                    createdOn, lastUpdated, deletedOn,
+                    extraProps.map(HashMap::new),
+                    convertedPath, intermediateConvertedPath);
+        }
+
         /**
          * Convenience method for getting the name of the document from {@link #sourcePath}.
          *
@@ -239,10 +467,56 @@ public class Config {
             return sourcePath.toFile().getName();
         }
 
+        /**
+         * Record the checksum and fingerprint of the current {@link #sourcePath}.
+         *
+         * @throws IOException  when problems reading {@link #sourcePath} occur.
+         */
+        public void updateSourceChecksum() throws IOException {
+            updateSourceChecksum(new Checksums());
+        }
+
+        /**
+         * Record the checksum and fingerprint of the current {@link #sourcePath}, reusing checksums already calculated
+         * this run.
+         *
+         * @param checksums  checksums calculated this run, see {@link Context#checksums}
+         * @throws IOException  when problems reading {@link #sourcePath} occur.
+         */
+        public void updateSourceChecksum(Checksums checksums) throws IOException {
+            // fingerprint first, if the file changes in between the stale fingerprint just forces a reread next time
+            sourceFingerprint = Optional.of(Checksums.fingerprint(sourcePath));
+            sourceChecksum = Optional.of(checksums.crc32(sourcePath));
+        }
+
+        /**
+         * Record the checksum and fingerprint of the given converted file.
+         *
+         * @param path  converted file for this document
+         * @throws IOException  when problems reading the converted file occur.
+         */
+        public void updateConvertedChecksum(Path path) throws IOException {
+            updateConvertedChecksum(new Checksums(), path);
+        }
+
+        /**
+         * Record the checksum and fingerprint of the given converted file, reusing checksums already calculated this run.
+         *
+         * @param checksums  checksums calculated this run, see {@link Context#checksums}
+         * @param path  converted file for this document
+         * @throws IOException  when problems reading the converted file occur.
+         */
+        public void updateConvertedChecksum(Checksums checksums, Path path) throws IOException {
+            convertedFingerprint = Optional.of(Checksums.fingerprint(path));
+            convertedChecksum = Optional.of(checksums.crc32(path));
+        }
+
         /**
          * Determine the state of a document when processing the sync phase.
          *
-         * {@link #sourcePath} should be made absolute before calling this or you risk the checksum failing.
+         * {@link #sourcePath} should be made absolute before calling this or you risk the checksum failing. Files are only
+         * reread if their fingerprint changed since the checksum was recorded, see {@link Checksums}. If a reread file
+         * still matches its checksum, its new fingerprint is recorded so it isnt reread again after the next save.
          *
          * @see Context#makePathsAbsolute()
          *
@@ -250,6 +524,20 @@ public class Config {
          * @throws IOException  when problems working with {@link #sourcePath} occur.
          */
         public State determineState() throws IOException {
+            return determineState(new Checksums());
+        }
+
+        /**
+         * Determine the state of a document when processing the sync phase, reusing checksums already calculated this
+         * run.
+         *
+         * @see #determineState()
+         *
+         * @param checksums  checksums calculated this run, see {@link Context#checksums}
+         * @return  state that can be used to determine how to process the document
+         * @throws IOException  when problems working with {@link #sourcePath} occur.
+         */
+        public State determineState(Checksums checksums) throws IOException {
             if(this.deletedOn().isPresent()){
                 return State.DELETED;
             }
@@ -262,18 +550,23 @@ public class Config {
                 return State.CREATE;
             }
 
-            long currentSourceChecksum = FileUtils.checksumCRC32(sourcePath.toFile());
-            if(this.sourceChecksum().isPresent() && !this.sourceChecksum().get().equals(currentSourceChecksum)){
-                return State.UPDATE;
+            // files touched without changing keep their checksum, their new fingerprint is recorded so they arent reread
+            if(this.sourceChecksum().isPresent()){
+                Optional<Checksums.Fingerprint> verified = checksums.verify(sourcePath, this.sourceChecksum().get(), this.sourceFingerprint());
+                if(!verified.isPresent()){
+                    return State.UPDATE;
+                }
+                sourceFingerprint = verified;
             }
 
             // converters can modify rendered output meaning the output can change even when the source doesnt,
             // so we need to check that the previous and current checksums match to know if we need to update or not
             if(convertedPath().isPresent() && convertedChecksum().isPresent()){
-                long currentConvertedChecksum = FileUtils.checksumCRC32(convertedPath().get().toFile());
-                if(!this.convertedChecksum().get().equals(currentConvertedChecksum)){
+                Optional<Checksums.Fingerprint> verified = checksums.verify(convertedPath().get(), this.convertedChecksum().get(), this.convertedFingerprint());
+                if(!verified.isPresent()){
                     return State.UPDATE;
                 }
+                convertedFingerprint = verified;
             }
 
             return State.CURRENT;
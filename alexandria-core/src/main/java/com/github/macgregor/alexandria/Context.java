@@ -1,18 +1,28 @@
 package com.github.macgregor.alexandria;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.macgregor.alexandria.exceptions.AlexandriaException;
 import com.github.macgregor.alexandria.markdown.MarkdownConverter;
 import com.github.macgregor.alexandria.remotes.Remote;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import lombok.ToString;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Runtime context containing arguments passed from the user agent (e.g. search path, files to include or exclude, etc).
@@ -56,15 +66,51 @@ public class Context {
     /** Working Aleandria config containing document index and remote config. */
     @NonNull protected Config config = new Config();
 
-    /** Alexandria config originally loaded from the file system, kept in case of failures saving back to the filesystem. */
+    /** Alexandria config settings originally loaded from the file system, saved along with the working {@link Config#metadata}. */
     @NonNull protected Config originalConfig = new Config();
 
-    /** Cache for tracking absolute converted file paths for indexed metadata. Default: empty map. */
-    protected Map<Config.DocumentMetadata, Path> convertedPaths = new HashMap<>();
+    /** Cache for tracking absolute converted file paths for indexed metadata. Safe to update from concurrent batch tasks. Default: empty map. */
+    protected Map<Config.DocumentMetadata, Path> convertedPaths = new ConcurrentHashMap<>();
 
     /** Remote that has been configured and initialized, can be used to retrieve the remote for any class or method that has the context */
     protected Optional<Remote> remote = Optional.empty();
 
+    /** Hash index over {@link Config#metadata}, built on first lookup. See {@link #metadataIndex()}. */
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    protected volatile MetadataIndex metadataIndex;
+
+    /** Guards rebuilding {@link #metadataIndex}, separate from the context so lookups dont wait on saves. */
+    @EqualsAndHashCode.Exclude @ToString.Exclude @Getter(AccessLevel.NONE)
+    private final Object indexLock = new Object();
+
+    /** Conversions made this run, so documents arent converted again when nothing they depend on changed. See {@link ConversionCache}. */
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    protected ConversionCache conversions = new ConversionCache();
+
+    /** Checksums of documents calculated during this run, so unchanged files are only read once. */
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    protected Checksums checksums = new Checksums();
+
+    /** CRC32 of each {@link SyncState} file as it was last loaded or saved, so unchanged files arent rewritten. */
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    protected Map<Path, Long> stateChecksums = new ConcurrentHashMap<>();
+
+    /** Extra property keys the loaded {@link SyncState} was saved with, used when no remote is configured. See {@link SyncState#managedProperties(Context)}. */
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    protected Set<String> stateProperties = ConcurrentHashMap.newKeySet();
+
+    /** Storage backend for document sync state, created from {@link Config#metadataStore} on first use. See {@link #metadataStore()}. */
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    protected volatile MetadataStore metadataStore;
+
+    /** Guards creating {@link #metadataStore}, separate from the context so store lookups dont wait on saves. */
+    @EqualsAndHashCode.Exclude @ToString.Exclude @Getter(AccessLevel.NONE)
+    private final Object storeLock = new Object();
+
+    /** Coalesces saves made while syncing, see {@link SaveScheduler}. */
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    protected SaveScheduler saves = new SaveScheduler(this);
+
     /**
      * Sets the path to the Alexandria config file. <b>Must be an absolute path</b>.
      *
@@ -135,7 +181,13 @@ public class Context {
             config.metadata(Optional.of(new ArrayList<>()));
         }
         metadata.sourcePath(Resources.absolutePath(configPath.getParent(), metadata.sourcePath()));
+        MetadataIndex index = metadataIndex();
         config.metadata().get().add(metadata);
+        index.add(metadata);
+        MetadataStore store = metadataStore;
+        if(store != null){
+            store.put(this, metadata);
+        }
         return this;
     }
 
@@ -148,14 +200,123 @@ public class Context {
      */
     public Optional<Config.DocumentMetadata> isIndexed(Path path){
         Path absolutePath = Resources.absolutePath(configPath().getParent(), path);
-        if(config.metadata().isPresent()){
-            for(Config.DocumentMetadata metadata : config.metadata().get()){
-                if(metadata.sourcePath().equals(absolutePath)){
-                    return Optional.of(metadata);
-                }
+        return metadataIndex().bySourcePath(absolutePath);
+    }
+
+    /**
+     * Return the {@link Config.DocumentMetadata} with the given {@link Config.DocumentMetadata#remoteUri} if it exists.
+     *
+     * @param remoteUri  remote uri of the document
+     * @return  the matching {@link Config.DocumentMetadata} if it exists or Optional.empty() if it doesnt
+     */
+    public Optional<Config.DocumentMetadata> findByRemoteUri(URI remoteUri){
+        return metadataIndex().byRemoteUri(remoteUri);
+    }
+
+    /**
+     * Return the {@link Config.DocumentMetadata} with the given {@link Config.DocumentMetadata#extraProps} value if it
+     * exists, e.g. a remote's content id for the document.
+     *
+     * @param key  extra property key
+     * @param value  extra property value
+     * @return  the matching {@link Config.DocumentMetadata} if it exists or Optional.empty() if it doesnt
+     */
+    public Optional<Config.DocumentMetadata> findByExtraProperty(String key, String value){
+        return metadataIndex().byExtraProperty(key, value);
+    }
+
+    /**
+     * Return the indexed documents in a directory or any of its subdirectories, ordered by source path, see
+     * {@link MetadataStore#findInDirectory(Context, Path)}.
+     *
+     * @param directory  path to the directory, will be made absolute as needed
+     * @return  matching documents or an empty list if there are none
+     * @throws AlexandriaException  the store class couldnt be instantiated
+     */
+    public List<Config.DocumentMetadata> findInDirectory(Path directory) throws AlexandriaException {
+        Path absolutePath = Resources.absolutePath(configPath().getParent(), directory);
+        return metadataStore().findInDirectory(this, absolutePath);
+    }
+
+    /**
+     * The {@link MetadataStore} configured with {@link Config#metadataStore}, creating it if it hasnt been created yet.
+     *
+     * @return  metadata store
+     * @throws AlexandriaException  the store class couldnt be instantiated
+     */
+    public MetadataStore metadataStore() throws AlexandriaException {
+        MetadataStore store = metadataStore;
+        if(store != null){
+            return store;
+        }
+        synchronized (storeLock) {
+            if(metadataStore == null){
+                metadataStore = Reflection.create(config.metadataStore());
+            }
+            return metadataStore;
+        }
+    }
+
+    /**
+     * Switch to another {@link MetadataStore}, e.g. one selected on the command line, and save the choice to the config.
+     *
+     * The new store is loaded on top of the documents already loaded, so documents and state kept by the previous store
+     * are written to the new one the next time the context is saved. Does nothing if the store is already in use.
+     *
+     * @param clazz  fully qualified class name of the store, see {@link Config#metadataStore}
+     * @throws IOException  the store couldnt be instantiated or loaded
+     */
+    public void useMetadataStore(String clazz) throws IOException {
+        synchronized (storeLock) {
+            if(metadataStore != null && clazz.equals(config.metadataStore())){
+                return;
+            }
+            MetadataStore store = Reflection.create(clazz);
+            config.metadataStore(clazz);
+            originalConfig.metadataStore(clazz);
+            metadataStore = store;
+            store.load(this);
+            for(Config.DocumentMetadata metadata : config.metadata().orElse(new ArrayList<>())){
+                store.put(this, metadata);
+            }
+        }
+    }
+
+    /**
+     * Hash index over {@link Config#metadata}, rebuilt whenever the metadata list has been replaced or added to without
+     * going through {@link #addMetadata(Config.DocumentMetadata)}.
+     *
+     * Documents whose source path, remote uri or extra properties are changed after being indexed should be re-added
+     * with {@link MetadataIndex#add(Config.DocumentMetadata)}, or the whole index dropped with {@link #reindex()}.
+     *
+     * Lookups dont lock the context, which is held while saving, so concurrent conversions resolving links arent held
+     * up by a save in progress. Only rebuilding the index is serialized.
+     *
+     * @return  up to date index over the current metadata
+     */
+    public MetadataIndex metadataIndex(){
+        MetadataIndex index = metadataIndex;
+        if(index != null && index.isFor(config.metadata())){
+            return index;
+        }
+        synchronized (indexLock) {
+            if(metadataIndex == null || !metadataIndex.isFor(config.metadata())){
+                metadataIndex = new MetadataIndex(config.metadata());
             }
+            return metadataIndex;
         }
-        return Optional.empty();
+    }
+
+    /**
+     * Drop the metadata index so it is rebuilt on the next lookup.
+     *
+     * @return  Alexandria context.
+     */
+    public Context reindex(){
+        synchronized (indexLock) {
+            metadataIndex = null;
+        }
+        return this;
     }
 
     /**
@@ -188,6 +349,7 @@ public class Context {
                             m.sourcePath(Resources.absolutePath(configPath.getParent(), m.sourcePath()));
                         });
             }
+            reindex();
         }
         return this;
     }
@@ -212,6 +374,7 @@ public class Context {
                             m.sourcePath(Resources.relativeTo(configPath.getParent(), m.sourcePath()));
                         });
             }
+            reindex();
         }
         return this;
     }
@@ -290,7 +453,11 @@ public class Context {
      *
      * Required context paths will be set to the directory of {@code filePath} and should be appropriately
      * overridden before performing any operations. If the path doesnt exist, a blank {@link Config}
-     * will be created and saved to {@code filePath} when saving.
+     * will be created and saved to {@code filePath} when saving. The file is parsed once, the working config and the
+     * {@link #originalConfig} are both bound from the parsed tree, without the document index for the original since
+     * it is replaced with the working index when saving. The documents' sync state is loaded from the
+     * {@link #metadataStore()}, by default the {@link SyncState} file next to the config. If a {@link SyncJournal} was left behind by a run that didnt finish,
+     * it is replayed on top of the loaded config.
      *
      * @param filePath  path to the config file where remote details and document metadata will be saved
      * @return  Initialized Alexandria context instance that will be provided to operations
@@ -304,34 +471,81 @@ public class Context {
         context.searchPath(Collections.singletonList(path.getParent()));
 
         if(path.toFile().exists()) {
-            Config originalConfig = Jackson.yamlMapper().readValue(path.toFile(), Config.class);
-            Config config = Jackson.yamlMapper().readValue(path.toFile(), Config.class);
-            context.config(config);
-            context.originalConfig(originalConfig);
+            JsonNode tree = Jackson.yamlMapper().readTree(path.toFile());
+            if(tree != null && tree.isObject()) {
+                context.config(Jackson.yamlMapper().treeToValue(tree, Config.class));
+                // the original is only saved with the working metadata, so dont bind the index a second time
+                ((ObjectNode) tree).remove("metadata");
+                context.originalConfig(Jackson.yamlMapper().treeToValue(tree, Config.class));
+            }
             log.debug(String.format("Loaded configuration from %s", path.toString()));
         } else{
             log.debug(String.format("Created default configuration for new file %s", path.toString()));
         }
 
         context.makePathsAbsolute();
+        context.metadataStore().load(context);
+        if(SyncJournal.replay(context) > 0){
+            log.info(String.format("Recovered unsaved sync state from %s", SyncJournal.path(context).toString()));
+        }
         return context;
     }
 
     /**
      * Save the current context config (metadata and remote configuration) to disk.
      *
-     * Not all information is saved, only the config field. See {@link Config} and {@link Context}.
+     * Not all information is saved, only the config field. See {@link Config} and {@link Context}. The documents' sync
+     * state (checksums, remote uris, etc.) is saved to the {@link #metadataStore()} instead of the config, or the documents
+     * altogether if the store {@link MetadataStore#storesDocuments() stores documents}. Saves are serialized
+     * on the context so two threads cant interleave writes to the same file. Source paths are written relative to the
+     * config file, without changing the paths of the working metadata. Any {@link SyncJournal} records are folded into
+     * the saved config, so the journal is removed.
+     *
+     * Files are replaced atomically, so a process killed mid save leaves the previous config rather than a truncated one.
+     * See {@link Resources#saveAtomically(Path, byte[])}. The state is written before the config, and the journal is only
+     * removed after both, so an interrupted save can always be recovered by replaying the journal. To save periodically while syncing, use {@link #saves()}.
      *
      * @param context  context containing configuration to save
      * @throws IOException  problems saving the file
      */
     public static void save(Context context) throws IOException {
-        context.makePathsRelative();
-        Config toSave = context.originalConfig;
-        toSave.metadata(context.config.metadata());
+        save(context, () -> context.config.metadata().orElse(new ArrayList<>()));
+    }
 
-        Jackson.yamlMapper().writeValue(context.configPath().toFile(), toSave);
-        context.makePathsAbsolute();
+    /**
+     * Save the context like {@link #save(Context)}, saving the given documents instead of the indexed ones.
+     *
+     * Used by the {@link SaveScheduler} to save copies of the documents while they are being synced. The documents are
+     * only requested once the save holds the context lock, so no {@link SyncJournal} record appended after they were
+     * requested is cleared without being saved.
+     *
+     * @param context  context containing configuration to save
+     * @param documents  supplies the documents to save
+     * @throws IOException  problems saving the file
+     */
+    protected static void save(Context context, Supplier<List<Config.DocumentMetadata>> documents) throws IOException {
+        synchronized (context) {
+            context.saves().saved();
+            List<Config.DocumentMetadata> metadata = documents.get();
+            Path base = context.configPath().getParent();
+            Set<String> managed = SyncState.managedProperties(context);
+            Config toSave = context.originalConfig;
+            MetadataStore store = context.metadataStore();
+            toSave.metadata(store.storesDocuments() ? Optional.empty() : Optional.of(metadata.stream()
+                    .map(m -> {
+                        Config.DocumentMetadata saved = SyncState.withoutState(m, managed);
+                        if(saved.sourcePath() != null && saved.sourcePath().isAbsolute()){
+                            saved.sourcePath(Resources.relativeTo(base, saved.sourcePath()));
+                        }
+                        return saved;
+                    })
+                    .collect(Collectors.toList())));
+
+            // state first: a config without its state would lose remote ids, the journal is only cleared once both are on disk
+            store.save(context, metadata);
+            Resources.saveAtomically(context.configPath(), Jackson.yamlMapper().writeValueAsBytes(toSave));
+            SyncJournal.clear(context);
+        }
         log.debug(String.format("Saved configuration to %s", context.configPath().toString()));
     }
 
@@ -0,0 +1,229 @@
+package com.github.macgregor.alexandria;
+
+import com.github.macgregor.alexandria.exceptions.AlexandriaException;
+import com.github.macgregor.alexandria.markdown.LinkResolver;
+import com.github.macgregor.alexandria.markdown.MarkdownConverter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Run scoped memo of document conversions, so a document converted by {@link AlexandriaConvert#convert()} isnt rendered
+ * again by each {@link AlexandriaSync} pass unless something it was rendered from has changed.
+ *
+ * A previous conversion of a document is reused as long as:
+ * <ul>
+ *     <li>the source file's {@link Checksums.Fingerprint} hasnt changed</li>
+ *     <li>the disclaimer footer is the same, or still disabled</li>
+ *     <li>the same type of {@link MarkdownConverter} is converting to the same path, and the converted file hasnt been
+ *     changed or removed since</li>
+ *     <li>every link resolved while converting still resolves to the same {@link Config.DocumentMetadata#remoteUri}</li>
+ * </ul>
+ *
+ * Links are recorded by {@link LinkResolver} implementations calling {@link #recordLink(Path, Optional)} as they resolve
+ * them, on the thread doing the conversion. A converter that renders other documents' remote state without recording it
+ * will be reused when it shouldnt be.
+ *
+ * Custom disclaimer footers are also only read once per run, see {@link #footer(Path)}.
+ *
+ * Lives on the {@link Context}, so it is discarded along with the context at the end of a run. Safe to use from concurrent
+ * batch tasks.
+ */
+@ToString
+public class ConversionCache {
+    private static final ThreadLocal<Map<Path, Optional<URI>>> recording = new ThreadLocal<>();
+
+    private final Map<Path, Conversion> conversions = new ConcurrentHashMap<>();
+    private final Map<Path, String> footers = new ConcurrentHashMap<>();
+
+    /**
+     * Convert a document, unless its last conversion this run is still current.
+     *
+     * @param context  Alexandria context used to look up linked documents
+     * @param metadata  document to convert
+     * @param converter  converter that will convert the document
+     * @param converted  absolute path to write the converted document to
+     * @param footer  disclaimer footer added to the source, if enabled
+     * @param conversion  writes the intermediate file as needed and converts the document
+     * @return  true if the document was converted, false if the previous conversion was reused
+     * @throws AlexandriaException  the conversion failed
+     * @throws IOException  problems reading file fingerprints
+     */
+    public boolean convert(Context context, Config.DocumentMetadata metadata, MarkdownConverter converter,
+                           Path converted, Optional<String> footer, Converter conversion) throws AlexandriaException, IOException {
+        Path sourcePath = metadata.sourcePath();
+        if(!Files.exists(sourcePath)){
+            // nothing to fingerprint, leave it to the converter to fail
+            conversions.remove(sourcePath);
+            conversion.convert();
+            return true;
+        }
+
+        Checksums.Fingerprint sourceFingerprint = Checksums.fingerprint(sourcePath);
+        Conversion previous = conversions.get(sourcePath);
+        if(previous != null && previous.isCurrent(context, converter, sourceFingerprint, converted, footer)){
+            return false;
+        }
+
+        conversions.remove(sourcePath);
+        Map<Path, Optional<URI>> links = recordLinks(conversion);
+        if(Files.exists(converted)) {
+            conversions.put(sourcePath, new Conversion(converter.getClass(), sourceFingerprint,
+                    converted, Checksums.fingerprint(converted), footer, Collections.unmodifiableMap(links)));
+        }
+        return true;
+    }
+
+    /**
+     * The last conversion of a document this run.
+     *
+     * @param sourcePath  absolute source path of the document
+     * @return  the conversion or Optional.empty() if it hasnt been converted
+     */
+    public Optional<Conversion> conversion(Path sourcePath){
+        return Optional.ofNullable(conversions.get(sourcePath));
+    }
+
+    /**
+     * Load a custom disclaimer footer, reading the file only the first time it is needed this run.
+     *
+     * @param footerPath  absolute path to the footer markdown
+     * @return  footer markdown
+     * @throws IOException  problems reading the footer
+     */
+    public String footer(Path footerPath) throws IOException {
+        String footer = footers.get(footerPath);
+        if(footer == null){
+            footer = Resources.load(footerPath.toString());
+            footers.putIfAbsent(footerPath, footer);
+        }
+        return footer;
+    }
+
+    /**
+     * Forget all conversions and loaded footers, forcing every document to be converted again.
+     */
+    public void clear(){
+        conversions.clear();
+        footers.clear();
+    }
+
+    /**
+     * Record that the document being converted on this thread resolved a link to another indexed document. Does nothing
+     * outside of {@link #convert(Context, Config.DocumentMetadata, MarkdownConverter, Path, Optional, Converter)}.
+     *
+     * @param target  absolute source path of the linked document
+     * @param remoteUri  remote uri the link was rendered with, or Optional.empty() if it was left as a local link
+     */
+    public static void recordLink(Path target, Optional<URI> remoteUri){
+        Map<Path, Optional<URI>> links = recording.get();
+        if(links != null){
+            links.put(target, remoteUri);
+        }
+    }
+
+    private static Map<Path, Optional<URI>> recordLinks(Converter conversion) throws AlexandriaException {
+        Map<Path, Optional<URI>> previous = recording.get();
+        Map<Path, Optional<URI>> links = new HashMap<>();
+        recording.set(links);
+        try {
+            conversion.convert();
+        } finally {
+            if(previous == null){
+                recording.remove();
+            } else {
+                recording.set(previous);
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Conversion of a single document.
+     */
+    @FunctionalInterface
+    public interface Converter {
+        /**
+         * @throws AlexandriaException  the conversion failed
+         */
+        void convert() throws AlexandriaException;
+    }
+
+    /**
+     * Inputs and output of a document conversion.
+     */
+    @ToString
+    @Getter @Accessors(fluent = true)
+    @AllArgsConstructor
+    public static class Conversion {
+        /** Type of converter used. */
+        private Class<?> converter;
+
+        /** Fingerprint of the source file before it was converted. */
+        private Checksums.Fingerprint sourceFingerprint;
+
+        /** Absolute path the document was converted to. */
+        private Path converted;
+
+        /** Fingerprint of the converted file after it was written. */
+        private Checksums.Fingerprint convertedFingerprint;
+
+        /** Footer added to the source, if enabled. */
+        private Optional<String> footer;
+
+        /** Absolute source paths of linked documents and the remote uri each link was rendered with. */
+        private Map<Path, Optional<URI>> links;
+
+        /**
+         * Whether converting the document again would give the same result.
+         *
+         * @param context  Alexandria context used to look up linked documents
+         * @param converter  converter that would convert the document
+         * @param sourceFingerprint  current fingerprint of the source
+         * @param converted  path the document would be converted to
+         * @param footer  footer that would be added to the source
+         * @return  true if all inputs and the converted file are unchanged
+         * @throws IOException  problems reading the converted file's fingerprint
+         */
+        public boolean isCurrent(Context context, MarkdownConverter converter, Checksums.Fingerprint sourceFingerprint,
+                                 Path converted, Optional<String> footer) throws IOException {
+            if(!this.converter.equals(converter.getClass()) || !this.sourceFingerprint.equals(sourceFingerprint)
+                    || !this.converted.equals(converted) || !this.footer.equals(footer)){
+                return false;
+            }
+            if(!Files.exists(converted) || !convertedFingerprint.equals(Checksums.fingerprint(converted))){
+                return false;
+            }
+            return linksCurrent(context);
+        }
+
+        /**
+         * Whether every link resolved during the conversion would still resolve to the same remote uri, e.g. false once
+         * a linked document has been created on the remote.
+         *
+         * @param context  Alexandria context used to look up linked documents
+         * @return  true if no linked document's remote uri has changed
+         */
+        public boolean linksCurrent(Context context){
+            for(Map.Entry<Path, Optional<URI>> link : links.entrySet()){
+                Optional<URI> remoteUri = context.isIndexed(link.getKey()).flatMap(Config.DocumentMetadata::remoteUri);
+                if(!Objects.equals(link.getValue(), remoteUri)){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
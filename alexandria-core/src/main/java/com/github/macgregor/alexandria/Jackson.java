@@ -15,6 +15,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Static configuration of the Jackson parser
@@ -25,6 +27,7 @@ import java.time.format.DateTimeFormatter;
 public class Jackson {
     private static ObjectMapper yamlMapper;
     private static ObjectMapper jsonMapper;
+    private static final Map<Class<?>, ObjectReader> jsonReaders = new ConcurrentHashMap<>();
 
     /**
      * Retrieve the yaml mapper, creating it if it doesnt exist.
@@ -50,6 +53,19 @@ public class Jackson {
         return jsonMapper;
     }
 
+    /**
+     * Retrieve a json reader bound to a type, creating it if it doesnt exist.
+     *
+     * Readers are immutable and cache the deserializer for their type, so reusing one avoids looking it up again for
+     * every value read, e.g. each element of a page of remote documents.
+     *
+     * @param type  type the reader binds to
+     * @return  reader from the {@link #jsonMapper()} for the type
+     */
+    public static ObjectReader jsonReader(Class<?> type){
+        return jsonReaders.computeIfAbsent(type, t -> jsonMapper().readerFor(t));
+    }
+
     /**
      * Converts a string to a {@link ZonedDateTime} instance using a provided {@link DateTimeFormatter}
      */
@@ -0,0 +1,235 @@
+package com.github.macgregor.alexandria;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Hash index over {@link Config#metadata} for constant time lookups by source path, remote uri or extra property, and a
+ * sorted index over source paths for finding the documents in a directory.
+ *
+ * The index is built lazily from the metadata list it was created for and is considered stale once {@link Context}
+ * replaces the list or documents are added to it without going through {@link #add(Config.DocumentMetadata)}, see
+ * {@link #isFor(Optional)}. Keys are captured when a document is indexed, so a document whose key changes afterwards (e.g.
+ * a remote uri set after creating the document) needs to be {@link #add(Config.DocumentMetadata) re-added} to be found
+ * by the new key. Hits are always checked against the document's current value, entries whose key changed are dropped
+ * rather than returned. The position of each document in the list is kept as well, so a document can be
+ * {@link #replace(Config.DocumentMetadata, Config.DocumentMetadata) replaced} without searching the list for it.
+ *
+ * Lookups and additions are safe to call from concurrent batch tasks.
+ */
+public class MetadataIndex {
+    private final List<Config.DocumentMetadata> metadata;
+    private volatile int indexedSize;
+    private final Map<Config.DocumentMetadata, Integer> positions = new IdentityHashMap<>();
+    private final Map<Path, Config.DocumentMetadata> bySourcePath = new ConcurrentHashMap<>();
+    private final Map<URI, Config.DocumentMetadata> byRemoteUri = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Config.DocumentMetadata>> byExtraProperty = new ConcurrentHashMap<>();
+    private volatile NavigableMap<Path, Config.DocumentMetadata> bySortedSourcePath;
+
+    /**
+     * Index the given metadata.
+     *
+     * @param metadata  metadata list to index, usually {@link Config#metadata}
+     */
+    public MetadataIndex(Optional<List<Config.DocumentMetadata>> metadata){
+        this.metadata = metadata.orElse(Collections.emptyList());
+        synchronized (this.metadata) {
+            for (int i = 0; i < this.metadata.size(); i++) {
+                index(this.metadata.get(i), false);
+                positions.putIfAbsent(this.metadata.get(i), i);
+            }
+            this.indexedSize = this.metadata.size();
+        }
+    }
+
+    /**
+     * Whether this index is still up to date for the given metadata list.
+     *
+     * @param metadata  current {@link Config#metadata}
+     * @return  true if the list is the one indexed and no documents were added to it behind the index's back
+     */
+    public boolean isFor(Optional<List<Config.DocumentMetadata>> metadata){
+        return this.metadata == metadata.orElse(Collections.emptyList()) && indexedSize == this.metadata.size();
+    }
+
+    /**
+     * Index a document that was added to the indexed metadata list, or re-index one whose keys changed or that replaced
+     * another document in the list. The document replaces any other document indexed under the same keys.
+     *
+     * @param metadata  document to index
+     */
+    public void add(Config.DocumentMetadata metadata){
+        synchronized (this.metadata) {
+            index(metadata, true);
+            int last = this.metadata.size() - 1;
+            if(last >= 0 && this.metadata.get(last) == metadata){
+                positions.putIfAbsent(metadata, last);
+            }
+            indexedSize = this.metadata.size();
+        }
+    }
+
+    /**
+     * Replace a document in the indexed metadata list with another, e.g. a newer copy of the same document, and index
+     * the replacement in its place.
+     *
+     * @param existing  document currently in the list
+     * @param replacement  document to put in its place
+     * @return  true if the existing document was found in the list and replaced
+     */
+    public boolean replace(Config.DocumentMetadata existing, Config.DocumentMetadata replacement){
+        synchronized (this.metadata) {
+            Integer position = positions.remove(existing);
+            if(position == null || position >= this.metadata.size() || this.metadata.get(position) != existing){
+                // the list was changed without going through the index, fall back to searching it
+                position = positionOf(existing);
+            }
+            if(position < 0){
+                return false;
+            }
+            this.metadata.set(position, replacement);
+            positions.put(replacement, position);
+            index(replacement, true);
+            indexedSize = this.metadata.size();
+            return true;
+        }
+    }
+
+    /**
+     * Find the document with the given absolute source path.
+     *
+     * @param sourcePath  absolute source path
+     * @return  matching document or Optional.empty()
+     */
+    public Optional<Config.DocumentMetadata> bySourcePath(Path sourcePath){
+        return lookup(bySourcePath, sourcePath, Config.DocumentMetadata::sourcePath);
+    }
+
+    /**
+     * Find the document with the given remote uri.
+     *
+     * @param remoteUri  remote uri of the document
+     * @return  matching document or Optional.empty()
+     */
+    public Optional<Config.DocumentMetadata> byRemoteUri(URI remoteUri){
+        return lookup(byRemoteUri, remoteUri, m -> m.remoteUri().orElse(null));
+    }
+
+    /**
+     * Find the document with the given {@link Config.DocumentMetadata#extraProps} value, for example a remote's id for
+     * the document. The index for a property key is built the first time it is looked up.
+     *
+     * @param key  extra property key
+     * @param value  extra property value
+     * @return  matching document or Optional.empty()
+     */
+    public Optional<Config.DocumentMetadata> byExtraProperty(String key, String value){
+        Map<String, Config.DocumentMetadata> index = byExtraProperty.computeIfAbsent(key, k -> {
+            Map<String, Config.DocumentMetadata> byValue = new ConcurrentHashMap<>();
+            synchronized (metadata) {
+                for (Config.DocumentMetadata m : metadata) {
+                    put(byValue, m, d -> d.getExtraProperty(k), false);
+                }
+            }
+            return byValue;
+        });
+        return lookup(index, value, m -> m.getExtraProperty(key));
+    }
+
+    /**
+     * Find the documents in a directory or any of its subdirectories, ordered by source path. A sorted index over source
+     * paths is built the first time it is needed, after which a lookup is a range scan over just the directory's
+     * documents.
+     *
+     * @param directory  absolute path to the directory
+     * @return  matching documents or an empty list
+     */
+    public List<Config.DocumentMetadata> inDirectory(Path directory){
+        NavigableMap<Path, Config.DocumentMetadata> sorted = bySortedSourcePath;
+        if(sorted == null){
+            synchronized (metadata) {
+                if(bySortedSourcePath == null){
+                    NavigableMap<Path, Config.DocumentMetadata> bySourcePath = new ConcurrentSkipListMap<>();
+                    for (Config.DocumentMetadata m : metadata) {
+                        put(bySourcePath, m, Config.DocumentMetadata::sourcePath, false);
+                    }
+                    bySortedSourcePath = bySourcePath;
+                }
+                sorted = bySortedSourcePath;
+            }
+        }
+
+        List<Config.DocumentMetadata> found = new ArrayList<>();
+        // paths sort by their string form, so everything under the directory sorts after it and before its next sibling.
+        // siblings sharing the directory's name as a prefix (e.g. docs-old for docs) can sort in between and are skipped.
+        for(Map.Entry<Path, Config.DocumentMetadata> entry : sorted.tailMap(directory, false).entrySet()){
+            Path sourcePath = entry.getKey();
+            if(!sourcePath.toString().startsWith(directory.toString())){
+                break;
+            }
+            if(sourcePath.startsWith(directory) && sourcePath.equals(entry.getValue().sourcePath())){
+                found.add(entry.getValue());
+            }
+        }
+        return found;
+    }
+
+    private int positionOf(Config.DocumentMetadata m){
+        for (int i = 0; i < metadata.size(); i++) {
+            if(metadata.get(i) == m){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void index(Config.DocumentMetadata m, boolean replace){
+        put(bySourcePath, m, Config.DocumentMetadata::sourcePath, replace);
+        if(bySortedSourcePath != null){
+            put(bySortedSourcePath, m, Config.DocumentMetadata::sourcePath, replace);
+        }
+        put(byRemoteUri, m, d -> d.remoteUri().orElse(null), replace);
+        for (Map.Entry<String, Map<String, Config.DocumentMetadata>> entry : byExtraProperty.entrySet()) {
+            put(entry.getValue(), m, d -> d.getExtraProperty(entry.getKey()), replace);
+        }
+    }
+
+    /**
+     * Index a document by its current key. Unless replacing, documents already indexed under the key win, matching the
+     * first document in the list when more than one share a key, as long as their key hasnt changed since.
+     */
+    private static <K> void put(Map<K, Config.DocumentMetadata> index, Config.DocumentMetadata m,
+                                Function<Config.DocumentMetadata, K> keyOf, boolean replace){
+        K key = keyOf.apply(m);
+        if(key == null){
+            return;
+        }
+        Config.DocumentMetadata existing = index.putIfAbsent(key, m);
+        if(existing != null && (replace || !key.equals(keyOf.apply(existing)))){
+            index.put(key, m);
+        }
+    }
+
+    private static <K> Optional<Config.DocumentMetadata> lookup(Map<K, Config.DocumentMetadata> index, K key,
+                                                                  Function<Config.DocumentMetadata, K> currentKey){
+        if(key == null){
+            return Optional.empty();
+        }
+        Config.DocumentMetadata found = index.get(key);
+        if(found != null && !key.equals(currentKey.apply(found))){
+            index.remove(key, found);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(found);
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.macgregor.alexandria;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage backend for the sync state of indexed documents (checksums, remote uris, timestamps and remote managed
+ * properties), configured with {@link Config#metadataStore}.
+ *
+ * By default the documents themselves ({@code sourcePath}, {@code title}, {@code tags} and user defined
+ * {@code extraProps}) are kept in the config file and the store is responsible for the state Alexandria manages for
+ * them, which is what changes on every sync. A store can take over the documents as well, see {@link #storesDocuments()},
+ * leaving only user configuration in the config file. Implementations are created by class name, like
+ * {@link com.github.macgregor.alexandria.remotes.Remote}s, and need a public no argument constructor. The default is {@link SyncStateStore}.
+ *
+ * Documents that changed are handed to the store with {@link #put(Context, Config.DocumentMetadata)} as soon as they
+ * change, so a store can commit only those instead of comparing every document on each save.
+ *
+ * @see Context#load(String)
+ * @see Context#save(Context)
+ */
+public interface MetadataStore {
+
+    /**
+     * Apply stored state to the context's indexed documents.
+     *
+     * Called once by {@link Context#load(String)}, after the config is loaded and its paths are absolute. State for
+     * documents that are no longer indexed should be ignored, and state already set on a document in the config should
+     * take precedence over stored state. Documents whose remote uri or extra properties are set should be re-added to
+     * {@link Context#metadataIndex()}. A store that {@link #storesDocuments() stores documents} adds the stored documents
+     * that arent in the config to {@link Config#metadata} instead of ignoring them.
+     *
+     * @param context  Alexandria context with the indexed documents
+     * @return  number of indexed documents state was applied to
+     * @throws IOException  the store couldnt be read
+     */
+    int load(Context context) throws IOException;
+
+    /**
+     * Commit the current state of all the context's indexed documents.
+     *
+     * Called by {@link Context#save(Context)}, so once at the end of each {@link BatchProcess} and whenever the
+     * {@link SaveScheduler} saves while syncing. Periodic saves pass copies of the documents rather than the indexed
+     * ones, which other threads may still be changing, so the store should save the documents it is given. Each file the store writes must be replaced atomically, so a failed or
+     * interrupted save leaves every file readable. A store spread over several files, like sharded {@link SyncState}
+     * files, can be left with some files from the new save and some from the previous one. The {@link SyncJournal} is
+     * only cleared after the store returns, so documents synced since the last save are replayed on top of it on the
+     * next load. The state must be durable when this returns, the config is only written afterwards.
+     *
+     * @param context  Alexandria context with the indexed documents
+     * @param documents  documents to save, in index order
+     * @throws IOException  the state couldnt be committed
+     */
+    void save(Context context, List<Config.DocumentMetadata> documents) throws IOException;
+
+    /**
+     * Find an indexed document by its source path.
+     *
+     * @param context  Alexandria context with the indexed documents
+     * @param sourcePath  absolute source path
+     * @return  the matching document or Optional.empty()
+     */
+    Optional<Config.DocumentMetadata> find(Context context, Path sourcePath);
+
+    /**
+     * Find the indexed documents in a directory or any of its subdirectories, ordered by source path.
+     *
+     * @param context  Alexandria context with the indexed documents
+     * @param directory  absolute path to the directory
+     * @return  matching documents or an empty list
+     */
+    List<Config.DocumentMetadata> findInDirectory(Context context, Path directory);
+
+    /**
+     * Stage a document that changed, e.g. one that was just converted or synced, to be committed by the next
+     * {@link #save(Context, List)}. Called from concurrent batch tasks once the document is done changing, so it
+     * shouldnt block on a save in progress. Does nothing by default, for stores that save every document anyway.
+     *
+     * @param context  Alexandria context with the indexed documents
+     * @param metadata  document that changed
+     */
+    default void put(Context context, Config.DocumentMetadata metadata){
+    }
+
+    /**
+     * Whether the store keeps the documents themselves, not just their state. If it does {@link Context#save(Context)}
+     * leaves {@link Config#metadata} out of the config file. Default: false.
+     *
+     * @return  true if the store keeps whole documents
+     */
+    default boolean storesDocuments(){
+        return false;
+    }
+}
@@ -1,22 +1,32 @@
 package com.github.macgregor.alexandria;
 
 import lombok.NonNull;
-import org.apache.commons.io.FileUtils;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.filefilter.*;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.stream.Collectors;
 
 /**
  * Find files along a set of directories that based on include/exclude patterns.
  *
- * Makes use of {@link FileUtils#listFiles(File, IOFileFilter, IOFileFilter)} to do most of the work.
+ * Directories matching an exclude pattern (e.g. {@code node_modules}, {@code **\/target}) are pruned instead of walked,
+ * so nothing under them is visited. Starting directories and the first few levels below them are walked in parallel on
+ * the common {@link ForkJoinPool}, deeper subtrees are walked with {@link Files#walkFileTree(Path, Set, int, FileVisitor)}.
  */
+@Slf4j
 public class PathFinder{
 
+    /** Directory depth below each starting directory up to which subdirectories are walked as separate tasks. */
+    protected static final int FORK_DEPTH = 2;
+
     private Collection<Path> startingDirs;
     private List<String> include;
     private List<String> exclude;
@@ -170,7 +180,8 @@ public class PathFinder{
     /**
      * Find all files using the builder properties.
      *
-     * Files will only be included if they match any of the include patterns and none of the exclude filters.
+     * Files will only be included if they match any of the include patterns and none of the exclude filters. Directories
+     * matching any of the exclude patterns arent descended into, so files under them are excluded as well.
      *
      * Patterns can be wildcards against any file names (see {@link WildcardFileFilter}, specified relative to any
      * {@link PathFinder#startingDirs} path (see {@link RelativeFileFilter}) or a glob pattern (see {@link GlobFileFilter}).
@@ -178,20 +189,26 @@ public class PathFinder{
      * @return  List of matching {@link File} or an empty list.
      */
     public Collection<File> files(){
-        IOFileFilter dirFilter = recursive ? TrueFileFilter.INSTANCE : null;
         IOFileFilter includeFilter = FileFilterUtils.or(
                 new WildcardFileFilter(include),
                 new GlobFileFilter(include),
                 new RelativeFileFilter((List<Path>) startingDirs, include));
-        IOFileFilter excludeFilter = new NotFileFilter(FileFilterUtils.or(
+        IOFileFilter excludeFilter = FileFilterUtils.or(
                     new WildcardFileFilter(exclude),
                     new GlobFileFilter(exclude),
-                    new RelativeFileFilter((List<Path>) startingDirs, exclude)));
-        IOFileFilter fileFilter = new AndFileFilter(includeFilter, excludeFilter);
+                    new RelativeFileFilter((List<Path>) startingDirs, exclude));
+        IOFileFilter fileFilter = new AndFileFilter(includeFilter, new NotFileFilter(excludeFilter));
 
-        return startingDirs.stream()
-                .map(d -> FileUtils.listFiles(d.toFile(), fileFilter, dirFilter))
-                .flatMap(Collection::stream)
+        List<Walker> walkers = startingDirs.stream()
+                .map(d -> new Walker(d, 0, fileFilter, excludeFilter))
+                .collect(Collectors.toList());
+        return ForkJoinPool.commonPool().invoke(new RecursiveTask<List<Path>>() {
+            @Override
+            protected List<Path> compute() {
+                return joinAll(walkers);
+            }
+        }).stream()
+                .map(Path::toFile)
                 .collect(Collectors.toList());
     }
 
@@ -206,6 +223,108 @@ public class PathFinder{
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Walks a directory, collecting files accepted by the file filter and pruning directories accepted by the exclude
+     * filter. The directory itself is never pruned, it has already been checked by whoever created the walker.
+     *
+     * Near the starting directory each subdirectory is forked as its own walker so large subtrees are walked in
+     * parallel. Beyond {@link PathFinder#FORK_DEPTH} the rest of the subtree is walked sequentially by this task.
+     * Unreadable directories are logged and skipped.
+     */
+    protected class Walker extends RecursiveTask<List<Path>> {
+        private final Path dir;
+        private final int depth;
+        private final IOFileFilter fileFilter;
+        private final IOFileFilter excludeFilter;
+
+        protected Walker(Path dir, int depth, IOFileFilter fileFilter, IOFileFilter excludeFilter){
+            this.dir = dir;
+            this.depth = depth;
+            this.fileFilter = fileFilter;
+            this.excludeFilter = excludeFilter;
+        }
+
+        @Override
+        protected List<Path> compute() {
+            if(recursive && depth < FORK_DEPTH){
+                return walkForked();
+            }
+            return walk();
+        }
+
+        /**
+         * List the directory's files, forking a walker for each subdirectory that isnt excluded.
+         */
+        private List<Path> walkForked() {
+            List<Path> found = new ArrayList<>();
+            List<Walker> subdirs = new ArrayList<>();
+            try(DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+                for (Path child : children) {
+                    if (Files.isDirectory(child)) {
+                        if (!excludeFilter.accept(child.toFile())) {
+                            subdirs.add(new Walker(child, depth + 1, fileFilter, excludeFilter));
+                        }
+                    } else if (fileFilter.accept(child.toFile())) {
+                        found.add(child);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn(String.format("Skipping unreadable directory %s", dir.toString()), e);
+                return found;
+            }
+            found.addAll(joinAll(subdirs));
+            return found;
+        }
+
+        /**
+         * Walk the rest of the subtree on this thread, honoring {@link PathFinder#recursive}.
+         */
+        private List<Path> walk() {
+            List<Path> found = new ArrayList<>();
+            try {
+                Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), recursive ? Integer.MAX_VALUE : 1,
+                        new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path subdir, BasicFileAttributes attrs) {
+                        if (!subdir.equals(dir) && excludeFilter.accept(subdir.toFile())) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (!attrs.isDirectory() && fileFilter.accept(file.toFile())) {
+                            found.add(file);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        log.warn(String.format("Skipping unreadable path %s", file.toString()), e);
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                log.warn(String.format("Skipping unreadable directory %s", dir.toString()), e);
+            }
+            return found;
+        }
+
+    }
+
+    /**
+     * Fork all walkers from within a fork join task and collect their results in order.
+     */
+    private static List<Path> joinAll(List<Walker> walkers){
+        ForkJoinTask.invokeAll(walkers);
+        return walkers.stream()
+                .map(ForkJoinTask::join)
+                .flatMap(Collection::stream)
+                .collect(Collectors.toList());
+    }
+
     /**
      * File filter that matches glob patterns against absolute file paths.
      *
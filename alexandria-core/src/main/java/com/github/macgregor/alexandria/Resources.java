@@ -8,10 +8,15 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -61,6 +66,45 @@ public class Resources {
         FileUtils.writeStringToFile(path.toFile(), content, (String) null);
     }
 
+    /**
+     * Replace the contents of a file so it is either left untouched or completely written, never truncated.
+     *
+     * The content is written to a temporary file in the same directory and flushed to disk, then moved over the file
+     * in a single atomic rename. If the file system doesnt support atomic moves, the temporary file is moved over the
+     * file normally. The directory is synced afterwards where the platform allows it, so the rename survives a crash.
+     *
+     * @param path  absolute path to the file to replace
+     * @param content  file contents to write
+     * @throws IOException  problems writing or moving the file
+     */
+    public static void saveAtomically(Path path, byte[] content) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while(buffer.hasRemaining()){
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch(AtomicMoveNotSupportedException e){
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch(IOException e){
+            // directories cant be opened for syncing on some platforms, e.g. windows
+        }
+    }
+
     /**
      * Load the contents of the file located at the file path. See {@link FileUtils#readFileToString(File, String)}
      *
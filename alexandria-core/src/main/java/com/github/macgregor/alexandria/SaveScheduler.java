@@ -0,0 +1,195 @@
+package com.github.macgregor.alexandria;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces saves of the {@link Context} while documents are being synced.
+ *
+ * Each synced document is recorded in the {@link SyncJournal} right away, so nothing is lost if Alexandria dies, but the
+ * journal keeps growing and has to be replayed on the next load until the config is saved. Saving after every document
+ * would rewrite the whole config once per document instead. The scheduler saves at most once every
+ * {@link Config#saveInterval} seconds or {@link Config#saveEvery} documents, whichever comes first, and the batch saves
+ * once more when it completes.
+ *
+ * While a batch is running, {@link #addShutdownHook()} makes sure pending changes are saved if the JVM is shut down
+ * (e.g. ctrl-c) before the batch completes.
+ *
+ * Other tasks and remote callbacks keep changing documents while a periodic save runs, so between {@link #start()} and
+ * {@link #stop()} periodic saves dont read the live metadata. They save a snapshot of the documents taken when the batch
+ * started, with each synced document replaced by the copy {@link #record(Config.DocumentMetadata, Config.DocumentMetadata)}
+ * was given when it was journaled. A failed periodic save is logged rather than failing the document that triggered it,
+ * its changes stay in the {@link SyncJournal} until the next save.
+ *
+ * Safe to use from concurrent batch tasks. If a save is already in progress, tasks dont wait for it to finish.
+ */
+@Slf4j
+public class SaveScheduler {
+    private final Context context;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ReentrantLock saving = new ReentrantLock();
+    private volatile long lastSaved = System.nanoTime();
+    private Thread shutdownHook;
+    private List<Config.DocumentMetadata> snapshot;
+    private Map<Config.DocumentMetadata, Integer> positions;
+
+    /**
+     * @param context  context to save
+     */
+    public SaveScheduler(Context context){
+        this.context = context;
+    }
+
+    /**
+     * Start saving snapshots of the documents instead of the live metadata and add the shutdown hook, see
+     * {@link #addShutdownHook()}. Call before any task of the batch starts changing documents.
+     */
+    public synchronized void start(){
+        snapshot = new ArrayList<>();
+        positions = new IdentityHashMap<>();
+        for(Config.DocumentMetadata metadata : context.config().metadata().orElse(new ArrayList<>())){
+            positions.put(metadata, snapshot.size());
+            snapshot.add(metadata.copy());
+        }
+        addShutdownHook();
+    }
+
+    /**
+     * Go back to saving the live metadata and remove the shutdown hook, once no task is changing documents anymore.
+     */
+    public synchronized void stop(){
+        removeShutdownHook();
+        snapshot = null;
+        positions = null;
+    }
+
+    /**
+     * Replace a document in the snapshot saved by periodic saves. Must be called before the document is appended to
+     * the {@link SyncJournal}, a save clears the journal, so its records have to be in the snapshot it saved.
+     *
+     * @param metadata  live document metadata
+     * @param copy  copy of the document that no longer changes, see {@link Config.DocumentMetadata#copy()}
+     */
+    public synchronized void record(Config.DocumentMetadata metadata, Config.DocumentMetadata copy){
+        if(positions != null){
+            Integer position = positions.get(metadata);
+            if(position != null){
+                snapshot.set(position, copy);
+            }
+        }
+    }
+
+    /**
+     * Documents a periodic save should save, the snapshot if a batch is running or the live metadata otherwise.
+     *
+     * @return  documents to save
+     */
+    protected synchronized List<Config.DocumentMetadata> documents(){
+        if(snapshot != null){
+            return new ArrayList<>(snapshot);
+        }
+        return context.config().metadata().orElse(new ArrayList<>());
+    }
+
+    /**
+     * Record that a document changed, saving the context if a save is due.
+     */
+    public void changed(){
+        if(isDue(pending.incrementAndGet()) && saving.tryLock()){
+            try {
+                if(isDue(pending.get())){
+                    log.debug(String.format("Saving %d changed documents", pending.get()));
+                    Context.save(context, this::documents);
+                }
+            } catch(IOException e){
+                log.warn(String.format("Unable to save %s, changes are kept in the journal until the next save", context.configPath()), e);
+            } finally {
+                saving.unlock();
+            }
+        }
+    }
+
+    /**
+     * Save the context if any document changed since it was last saved.
+     *
+     * @throws IOException  problems saving the context
+     */
+    public void flush() throws IOException {
+        if(pending.get() > 0){
+            Context.save(context, this::documents);
+        }
+    }
+
+    /**
+     * Number of changed documents that havent been saved yet.
+     *
+     * @return  changes since the last save
+     */
+    public int pending(){
+        return pending.get();
+    }
+
+    /**
+     * Called by {@link Context#save(Context)} before reading the documents, so changes made while it is saving are
+     * counted towards the next save.
+     */
+    protected void saved(){
+        pending.set(0);
+        lastSaved = System.nanoTime();
+    }
+
+    /**
+     * Whether enough documents changed or enough time passed since the last save.
+     *
+     * @param changes  changes since the last save
+     * @return  true if the context should be saved
+     */
+    protected boolean isDue(int changes){
+        if(changes <= 0){
+            return false;
+        }
+        Integer every = context.config().saveEvery();
+        Integer interval = context.config().saveInterval();
+        return (every != null && every > 0 && changes >= every)
+                || (interval != null && interval > 0 && System.nanoTime() - lastSaved >= TimeUnit.SECONDS.toNanos(interval));
+    }
+
+    /**
+     * Flush pending changes if the JVM shuts down before {@link #removeShutdownHook()} is called. Does nothing if the
+     * hook is already registered.
+     */
+    public synchronized void addShutdownHook(){
+        if(shutdownHook == null){
+            shutdownHook = new Thread(() -> {
+                try {
+                    flush();
+                } catch(IOException e){
+                    log.warn(String.format("Unable to save %s on shutdown", context.configPath()), e);
+                }
+            }, "alexandria-save");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    /**
+     * Remove the shutdown hook added by {@link #addShutdownHook()}, if any.
+     */
+    public synchronized void removeShutdownHook(){
+        if(shutdownHook != null){
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch(IllegalStateException e){
+                // already shutting down, let the hook finish saving
+            }
+            shutdownHook = null;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.macgregor.alexandria;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Append only journal of document metadata changes made while syncing.
+ *
+ * Saving the {@link Context} rewrites the entire config file, which gets expensive when done after every document in a
+ * large index. Instead, each document's metadata is appended to the journal as a single json line as soon as it has
+ * been synced. The journal is folded back into the config the next time {@link Context#save(Context)} completes, which
+ * removes the journal file.
+ *
+ * If Alexandria dies before the config is saved, {@link Context#load(String)} will replay the journal on top of the
+ * loaded config so work done with the remote (e.g. a newly created {@code remoteUri}) isnt lost.
+ *
+ * The journal lives next to the config file with a {@code .journal} suffix, e.g. {@code .alexandria.journal}.
+ */
+@Slf4j
+public class SyncJournal {
+    public static final String JOURNAL_SUFFIX = ".journal";
+
+    /**
+     * Path to the journal for the given context.
+     *
+     * @param context  Alexandria context
+     * @return  absolute path to the journal file, which may not exist
+     */
+    public static Path path(Context context){
+        return Paths.get(context.configPath().toString() + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Append the current state of a document's metadata to the journal.
+     *
+     * The record is written with a source path relative to {@link Context#configPath}, the same as when saving the
+     * config, without modifying the metadata itself. Appends are serialized on the context so records written from
+     * concurrent batch tasks dont interleave.
+     *
+     * @param context  Alexandria context containing the config path
+     * @param metadata  document metadata to record
+     * @throws IOException  problems writing to the journal
+     */
+    public static void append(Context context, Config.DocumentMetadata metadata) throws IOException {
+        ObjectNode record = Jackson.jsonMapper().valueToTree(metadata);
+        record.put("sourcePath", Resources.relativeTo(context.configPath().getParent(), metadata.sourcePath()).toString());
+        byte[] line = (Jackson.jsonMapper().writeValueAsString(record) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+
+        synchronized (context) {
+            Files.write(path(context), line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        log.debug(String.format("Journaled %s to %s", metadata.sourceFileName(), path(context).toString()));
+    }
+
+    /**
+     * Apply any journaled records to the context's config.
+     *
+     * Records are applied in the order they were written, so the last record for a document wins. A record replaces
+     * indexed metadata with the same source path, otherwise it is added to the index. Malformed records (e.g. a partial
+     * line written as the process was killed) are skipped. Replayed documents are {@link MetadataStore#put staged} with
+     * the metadata store as changed. The journal file is left in place until the config is saved.
+     *
+     * @param context  Alexandria context with absolute paths
+     * @return  number of records applied
+     * @throws IOException  problems reading the journal
+     */
+    public static int replay(Context context) throws IOException {
+        Path journal = path(context);
+        if(!Files.exists(journal)){
+            return 0;
+        }
+
+        int applied = 0;
+        for(String line : Files.readAllLines(journal, StandardCharsets.UTF_8)){
+            if(line.trim().isEmpty()){
+                continue;
+            }
+            Config.DocumentMetadata record;
+            try {
+                record = Jackson.jsonMapper().readValue(line, Config.DocumentMetadata.class);
+            } catch(IOException e){
+                log.warn(String.format("Skipping unreadable journal record in %s", journal.toString()), e);
+                continue;
+            }
+            record.sourcePath(context.absolutePath(record.sourcePath()));
+
+            Optional<Config.DocumentMetadata> existing = context.isIndexed(record.sourcePath());
+            if(!existing.isPresent() || !context.metadataIndex().replace(existing.get(), record)){
+                context.addMetadata(record);
+            } else {
+                context.metadataStore().put(context, record);
+            }
+            applied++;
+        }
+        log.debug(String.format("Replayed %d records from %s", applied, journal.toString()));
+        return applied;
+    }
+
+    /**
+     * Remove the journal once its records have been folded into the saved config.
+     *
+     * @param context  Alexandria context
+     * @throws IOException  problems removing the journal
+     */
+    public static void clear(Context context) throws IOException {
+        Files.deleteIfExists(path(context));
+    }
+}
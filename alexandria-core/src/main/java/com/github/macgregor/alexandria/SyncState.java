@@ -0,0 +1,519 @@
+package com.github.macgregor.alexandria;
+
+import com.github.macgregor.alexandria.remotes.Remote;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Binary sidecar holding the sync state of indexed documents, kept out of the config file.
+ *
+ * Most of a {@link Config.DocumentMetadata} is machine state written by Alexandria and the remote: checksums,
+ * fingerprints, the remote uri, timestamps and the {@code extraProps} the remote manages itself, see
+ * {@link Remote#managedProperties()}. Keeping it in the yaml config meant every save reserialized all of it and produced
+ * large diffs. The config now only keeps what a user edits for each document ({@code sourcePath}, {@code title},
+ * {@code tags} and any other {@code extraProps}), the state is saved here by {@link Context#save(Context)}.
+ *
+ * State values that are still present in the config are treated as overrides when loading, so existing configs and
+ * remote uris added by hand for documents that already exist on the remote keep working. They are moved into the state
+ * file the next time the config is saved. Extra properties the remote doesnt manage are only ever read from the config,
+ * so removing one from the config removes it.
+ *
+ * The state lives next to the config file with a {@code .state} suffix, e.g. {@code .alexandria.state}, and should be
+ * committed along with it. It is a header, including the managed extra property keys it was saved with, followed by
+ * one record per document, keyed by the source path relative to the config, with the numeric fields at fixed offsets
+ * in the record. Timestamps are stored as epoch seconds and nanoseconds so they round trip exactly.
+ *
+ * For very large repositories the state can be split into shards in a {@code .state.d} directory, see
+ * {@link Config#stateSharding}. Only shards whose documents changed are rewritten on save, and documents in different
+ * parts of the repository no longer conflict on the same file.
+ */
+@Slf4j
+public class SyncState {
+    public static final String STATE_SUFFIX = ".state";
+    public static final String SHARD_DIRECTORY_SUFFIX = ".state.d";
+
+    /** "ALXS", identifies the file type. */
+    protected static final int MAGIC = 0x414C5853;
+    protected static final int VERSION = 2;
+    /** Version 1 stored timestamps as epoch millis and all extra properties, it is still read so existing state migrates. */
+    private static final int VERSION_1 = 1;
+
+    private static final int REMOTE_URI = 1;
+    private static final int SOURCE_CHECKSUM = 1 << 1;
+    private static final int CONVERTED_CHECKSUM = 1 << 2;
+    private static final int SOURCE_FINGERPRINT = 1 << 3;
+    private static final int CONVERTED_FINGERPRINT = 1 << 4;
+    private static final int CREATED_ON = 1 << 5;
+    private static final int LAST_UPDATED = 1 << 6;
+    private static final int DELETED_ON = 1 << 7;
+
+    /**
+     * Path to the state file for the given context.
+     *
+     * @param context  Alexandria context
+     * @return  absolute path to the state file, which may not exist
+     */
+    public static Path path(Context context){
+        return Paths.get(context.configPath().toString() + STATE_SUFFIX);
+    }
+
+    /**
+     * Copy of a document's metadata without its sync state, as it is saved to the config file.
+     *
+     * @param metadata  document metadata
+     * @param managedProperties  extra property keys saved with the state, see {@link #managedProperties(Context)}
+     * @return  new metadata with only the source path, title, tags and user defined extra properties
+     */
+    public static Config.DocumentMetadata withoutState(Config.DocumentMetadata metadata, Set<String> managedProperties){
+        Config.DocumentMetadata config = new Config.DocumentMetadata();
+        config.sourcePath(metadata.sourcePath());
+        config.title(metadata.title());
+        config.tags(metadata.tags());
+        Map<String, String> extraProps = new TreeMap<>(metadata.extraProps().orElse(new HashMap<>()));
+        extraProps.keySet().removeAll(managedProperties);
+        config.extraProps(extraProps.isEmpty() ? Optional.empty() : Optional.of(extraProps));
+        return config;
+    }
+
+    /**
+     * Extra property keys saved with the sync state rather than the config.
+     *
+     * These are the keys declared by the configured remote, see {@link Remote#managedProperties()}. If the remote hasnt
+     * been configured, e.g. when only converting documents, the keys the state was last saved with are used, so the
+     * split doesnt depend on which goal saved the config.
+     *
+     * @param context  Alexandria context
+     * @return  managed extra property keys
+     */
+    public static Set<String> managedProperties(Context context){
+        return context.remote().map(Remote::managedProperties).orElse(context.stateProperties());
+    }
+
+    /**
+     * Directory holding the state shards for the given context, see {@link Config#stateSharding}.
+     *
+     * @param context  Alexandria context
+     * @return  absolute path to the shard directory, which may not exist
+     */
+    public static Path shardPath(Context context){
+        return Paths.get(context.configPath().toString() + SHARD_DIRECTORY_SUFFIX);
+    }
+
+    /**
+     * State file a document's state is saved to, based on {@link Config#stateSharding}.
+     *
+     * <ul>
+     *     <li>NONE: the single state file, see {@link #path(Context)}</li>
+     *     <li>DIRECTORY: one shard per top level directory under the config's directory, {@code dir-<name>.state}, with
+     *     documents directly in the config's directory in {@code root.state}</li>
+     *     <li>HASH: one of {@link Config#stateShards} shards picked by the hash of the relative source path,
+     *     {@code bucket-<n>.state}</li>
+     * </ul>
+     *
+     * @param context  Alexandria context
+     * @param relativePath  source path of the document relative to {@link Context#configPath}
+     * @return  absolute path to the state file
+     */
+    public static Path path(Context context, Path relativePath){
+        switch(context.config().stateSharding()){
+            case DIRECTORY:
+                return shardPath(context).resolve(relativePath.getNameCount() > 1 ?
+                        String.format("dir-%s%s", relativePath.getName(0).toString(), STATE_SUFFIX) : "root" + STATE_SUFFIX);
+            case HASH:
+                int bucket = Math.floorMod(relativePath.toString().hashCode(), Math.max(1, context.config().stateShards()));
+                return shardPath(context).resolve(String.format("bucket-%d%s", bucket, STATE_SUFFIX));
+            default:
+                return path(context);
+        }
+    }
+
+    /**
+     * Save the sync state of all indexed documents.
+     *
+     * Each state file is only rewritten if its contents changed since it was loaded or last saved, so with
+     * {@link Config#stateSharding} enabled a sync only rewrites the shards of documents whose state changed. State files
+     * of the layout that isnt configured and shards that no longer have any documents are removed. Files are replaced atomically,
+     * see {@link Resources#saveAtomically(Path, byte[])}, one at a time. Shards arent committed together, an interrupted
+     * save is recovered from the {@link SyncJournal}, see {@link MetadataStore#save(Context, List)}.
+     *
+     * Source paths are written relative to {@link Context#configPath}, whether or not the metadata paths are currently
+     * absolute. Only the {@link #managedProperties(Context)} of each document's extra properties are saved.
+     *
+     * @param context  Alexandria context with the indexed documents
+     * @return  number of state files written
+     * @throws IOException  problems writing the state files
+     */
+    public static int save(Context context) throws IOException {
+        return save(context, context.config().metadata().orElse(new ArrayList<>()));
+    }
+
+    /**
+     * Save the sync state of the given documents, see {@link #save(Context)}.
+     *
+     * @param context  Alexandria context
+     * @param documents  documents to save, see {@link MetadataStore#save(Context, List)}
+     * @return  number of state files written
+     * @throws IOException  problems writing the state files
+     */
+    public static int save(Context context, List<Config.DocumentMetadata> documents) throws IOException {
+        Path base = context.configPath().getParent();
+        Set<String> managed = new TreeSet<>(managedProperties(context));
+        Map<Path, List<Record>> files = new TreeMap<>();
+        if(context.config().stateSharding() == Config.StateSharding.NONE){
+            files.put(path(context), new ArrayList<>());
+        }
+        for(Config.DocumentMetadata metadata : documents){
+            Path sourcePath = metadata.sourcePath().isAbsolute() ?
+                    Resources.relativeTo(base, metadata.sourcePath()) : metadata.sourcePath();
+            files.computeIfAbsent(path(context, sourcePath), p -> new ArrayList<>()).add(new Record(sourcePath.toString(), metadata));
+        }
+
+        int written = 0;
+        for(Map.Entry<Path, List<Record>> file : files.entrySet()){
+            if(save(context, file.getKey(), managed, file.getValue())){
+                written++;
+            }
+        }
+        for(Path stale : stateFiles(context)){
+            if(!files.containsKey(stale)){
+                Files.delete(stale);
+                context.stateChecksums().remove(stale);
+            }
+        }
+        if(Files.isDirectory(shardPath(context))){
+            try(Stream<Path> shards = Files.list(shardPath(context))) {
+                if(!shards.findAny().isPresent()){
+                    Files.delete(shardPath(context));
+                }
+            }
+        }
+        context.stateProperties().retainAll(managed);
+        context.stateProperties().addAll(managed);
+        log.debug(String.format("Saved sync state to %d of %d state files", written, files.size()));
+        return written;
+    }
+
+    /**
+     * Apply the saved sync state to the context's indexed documents.
+     *
+     * Both the single state file and any shards are read, so changing {@link Config#stateSharding} migrates existing
+     * state the next time it is saved. Records for documents that are no longer indexed are ignored. State still present
+     * in the config file takes precedence over the saved state, and extra properties in the config are added on top of
+     * the saved managed ones. The managed keys the state was saved with are kept in {@link Context#stateProperties}.
+     *
+     * @param context  Alexandria context with absolute paths
+     * @return  number of indexed documents state was applied to
+     * @throws IOException  a state file is unreadable
+     */
+    public static int load(Context context) throws IOException {
+        int applied = 0;
+        for(Path state : stateFiles(context)){
+            applied += load(context, state);
+        }
+        return applied;
+    }
+
+    private static boolean save(Context context, Path state, Set<String> managed, List<Record> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(managed.size());
+            for(String key : managed){
+                writeString(out, key);
+            }
+            out.writeInt(records.size());
+            for(Record record : records){
+                writeString(out, record.sourcePath);
+                write(out, record.metadata, managed);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        Long previous = context.stateChecksums().get(state);
+        if(previous != null && previous == crc.getValue() && Files.exists(state)){
+            return false;
+        }
+        Resources.saveAtomically(state, bytes.toByteArray());
+        context.stateChecksums().put(state, crc.getValue());
+        log.debug(String.format("Saved sync state for %d documents to %s", records.size(), state.toString()));
+        return true;
+    }
+
+    private static int load(Context context, Path state) throws IOException {
+        // read into the heap rather than mapping the file, a mapped file cant be replaced by saveAtomically on windows
+        // until the mapping is garbage collected
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(state));
+
+        int applied = 0;
+        try {
+            if(buffer.getInt() != MAGIC){
+                throw new IOException(String.format("%s is not an Alexandria state file.", state.toString()));
+            }
+            int version = buffer.getInt();
+            if(version != VERSION && version != VERSION_1){
+                throw new IOException(String.format("Unsupported state file version %d in %s.", version, state.toString()));
+            }
+            if(version != VERSION_1){
+                int keys = buffer.getInt();
+                for(int i = 0; i < keys; i++){
+                    context.stateProperties().add(readString(buffer));
+                }
+            }
+            int count = buffer.getInt();
+            for(int i = 0; i < count; i++){
+                Path sourcePath = context.absolutePath(Paths.get(readString(buffer)));
+                Config.DocumentMetadata saved = read(buffer, version);
+                Optional<Config.DocumentMetadata> indexed = context.isIndexed(sourcePath);
+                if(indexed.isPresent()){
+                    merge(indexed.get(), saved);
+                    context.metadataIndex().add(indexed.get());
+                    applied++;
+                }
+            }
+        } catch(BufferUnderflowException | URISyntaxException | DateTimeException e){
+            throw new IOException(String.format("Corrupt state file %s.", state.toString()), e);
+        }
+
+        buffer.rewind();
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        context.stateChecksums().put(state, crc.getValue());
+        log.debug(String.format("Loaded sync state for %d documents from %s", applied, state.toString()));
+        return applied;
+    }
+
+    /**
+     * All existing state files for the context, the single state file and any shards.
+     *
+     * @param context  Alexandria context
+     * @return  absolute paths of existing state files
+     * @throws IOException  problems listing the shard directory
+     */
+    protected static List<Path> stateFiles(Context context) throws IOException {
+        List<Path> states = new ArrayList<>();
+        if(Files.exists(path(context))){
+            states.add(path(context));
+        }
+        if(Files.isDirectory(shardPath(context))){
+            try(Stream<Path> shards = Files.list(shardPath(context))) {
+                shards.filter(shard -> shard.getFileName().toString().endsWith(STATE_SUFFIX))
+                        .sorted()
+                        .forEach(states::add);
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Fill in state missing from a document's metadata with its saved state.
+     *
+     * @param metadata  indexed document, possibly with state overrides from the config
+     * @param saved  saved state of the document
+     */
+    public static void merge(Config.DocumentMetadata metadata, Config.DocumentMetadata saved){
+        if(!metadata.remoteUri().isPresent()) metadata.remoteUri(saved.remoteUri());
+        if(!metadata.sourceChecksum().isPresent()) metadata.sourceChecksum(saved.sourceChecksum());
+        if(!metadata.convertedChecksum().isPresent()) metadata.convertedChecksum(saved.convertedChecksum());
+        if(!metadata.sourceFingerprint().isPresent()) metadata.sourceFingerprint(saved.sourceFingerprint());
+        if(!metadata.convertedFingerprint().isPresent()) metadata.convertedFingerprint(saved.convertedFingerprint());
+        if(!metadata.createdOn().isPresent()) metadata.createdOn(saved.createdOn());
+        if(!metadata.lastUpdated().isPresent()) metadata.lastUpdated(saved.lastUpdated());
+        if(!metadata.deletedOn().isPresent()) metadata.deletedOn(saved.deletedOn());
+
+        Map<String, String> extraProps = new HashMap<>(saved.extraProps().orElse(new HashMap<>()));
+        extraProps.putAll(metadata.extraProps().orElse(new HashMap<>()));
+        metadata.extraProps(Optional.of(extraProps));
+    }
+
+    /**
+     * Serialize a single document's sync state in the state file record format, for {@link MetadataStore}s keeping
+     * documents as separate entries.
+     *
+     * @param metadata  document metadata
+     * @param managed  extra property keys to save, see {@link #managedProperties(Context)}
+     * @return  serialized state
+     * @throws IOException  problems serializing the state
+     */
+    public static byte[] encode(Config.DocumentMetadata metadata, Set<String> managed) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out, metadata, managed);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Read a single document's sync state written by {@link #encode(Config.DocumentMetadata, Set)}.
+     *
+     * @param buffer  buffer positioned at the start of the state
+     * @return  metadata with only the sync state set
+     * @throws IOException  the state is corrupt
+     */
+    public static Config.DocumentMetadata decode(ByteBuffer buffer) throws IOException {
+        try {
+            return read(buffer, VERSION);
+        } catch(BufferUnderflowException | URISyntaxException | DateTimeException e){
+            throw new IOException("Corrupt document state.", e);
+        }
+    }
+
+    private static void write(DataOutputStream out, Config.DocumentMetadata metadata, Set<String> managed) throws IOException {
+        int flags = 0;
+        flags |= metadata.remoteUri().isPresent() ? REMOTE_URI : 0;
+        flags |= metadata.sourceChecksum().isPresent() ? SOURCE_CHECKSUM : 0;
+        flags |= metadata.convertedChecksum().isPresent() ? CONVERTED_CHECKSUM : 0;
+        flags |= metadata.sourceFingerprint().isPresent() ? SOURCE_FINGERPRINT : 0;
+        flags |= metadata.convertedFingerprint().isPresent() ? CONVERTED_FINGERPRINT : 0;
+        flags |= metadata.createdOn().isPresent() ? CREATED_ON : 0;
+        flags |= metadata.lastUpdated().isPresent() ? LAST_UPDATED : 0;
+        flags |= metadata.deletedOn().isPresent() ? DELETED_ON : 0;
+        out.writeInt(flags);
+
+        out.writeLong(metadata.sourceChecksum().orElse(0L));
+        out.writeLong(metadata.convertedChecksum().orElse(0L));
+        writeFingerprint(out, metadata.sourceFingerprint());
+        writeFingerprint(out, metadata.convertedFingerprint());
+        writeInstant(out, metadata.createdOn());
+        writeInstant(out, metadata.lastUpdated());
+        writeInstant(out, metadata.deletedOn());
+
+        writeString(out, metadata.remoteUri().map(URI::toString).orElse(null));
+        writeString(out, metadata.sourceFingerprint().map(Checksums.Fingerprint::fileKey).orElse(null));
+        writeString(out, metadata.convertedFingerprint().map(Checksums.Fingerprint::fileKey).orElse(null));
+        writeString(out, metadata.createdOn().map(date -> date.getZone().getId()).orElse(null));
+        writeString(out, metadata.lastUpdated().map(date -> date.getZone().getId()).orElse(null));
+        writeString(out, metadata.deletedOn().map(date -> date.getZone().getId()).orElse(null));
+        Map<String, String> extraProps = new TreeMap<>(metadata.extraProps().orElse(new HashMap<>()));
+        extraProps.keySet().retainAll(managed);
+        out.writeInt(extraProps.size());
+        for(Map.Entry<String, String> prop : extraProps.entrySet()){
+            writeString(out, prop.getKey());
+            writeString(out, prop.getValue());
+        }
+    }
+
+    private static Config.DocumentMetadata read(ByteBuffer buffer, int version) throws URISyntaxException {
+        Config.DocumentMetadata metadata = new Config.DocumentMetadata();
+        int flags = buffer.getInt();
+
+        long sourceChecksum = buffer.getLong();
+        long convertedChecksum = buffer.getLong();
+        Checksums.Fingerprint sourceFingerprint = new Checksums.Fingerprint(buffer.getLong(), buffer.getLong(), null);
+        Checksums.Fingerprint convertedFingerprint = new Checksums.Fingerprint(buffer.getLong(), buffer.getLong(), null);
+        Instant createdOn = readInstant(buffer, version);
+        Instant lastUpdated = readInstant(buffer, version);
+        Instant deletedOn = readInstant(buffer, version);
+
+        String remoteUri = readString(buffer);
+        sourceFingerprint.fileKey(readString(buffer));
+        convertedFingerprint.fileKey(readString(buffer));
+        String createdOnZone = readString(buffer);
+        String lastUpdatedZone = readString(buffer);
+        String deletedOnZone = readString(buffer);
+        Map<String, String> extraProps = new HashMap<>();
+        int props = buffer.getInt();
+        for(int i = 0; i < props; i++){
+            extraProps.put(readString(buffer), readString(buffer));
+        }
+
+        metadata.remoteUri((flags & REMOTE_URI) != 0 ? Optional.of(new URI(remoteUri)) : Optional.empty());
+        metadata.sourceChecksum((flags & SOURCE_CHECKSUM) != 0 ? Optional.of(sourceChecksum) : Optional.empty());
+        metadata.convertedChecksum((flags & CONVERTED_CHECKSUM) != 0 ? Optional.of(convertedChecksum) : Optional.empty());
+        metadata.sourceFingerprint((flags & SOURCE_FINGERPRINT) != 0 ? Optional.of(sourceFingerprint) : Optional.empty());
+        metadata.convertedFingerprint((flags & CONVERTED_FINGERPRINT) != 0 ? Optional.of(convertedFingerprint) : Optional.empty());
+        metadata.createdOn((flags & CREATED_ON) != 0 ? Optional.of(date(createdOn, createdOnZone)) : Optional.empty());
+        metadata.lastUpdated((flags & LAST_UPDATED) != 0 ? Optional.of(date(lastUpdated, lastUpdatedZone)) : Optional.empty());
+        metadata.deletedOn((flags & DELETED_ON) != 0 ? Optional.of(date(deletedOn, deletedOnZone)) : Optional.empty());
+        metadata.extraProps(Optional.of(extraProps));
+        return metadata;
+    }
+
+    private static void writeFingerprint(DataOutputStream out, Optional<Checksums.Fingerprint> fingerprint) throws IOException {
+        out.writeLong(fingerprint.map(Checksums.Fingerprint::size).orElse(0L));
+        out.writeLong(fingerprint.map(Checksums.Fingerprint::lastModified).orElse(0L));
+    }
+
+    private static void writeInstant(DataOutputStream out, Optional<ZonedDateTime> date) throws IOException {
+        Instant instant = date.map(ZonedDateTime::toInstant).orElse(Instant.EPOCH);
+        out.writeLong(instant.getEpochSecond());
+        out.writeInt(instant.getNano());
+    }
+
+    private static Instant readInstant(ByteBuffer buffer, int version){
+        if(version == VERSION_1){
+            return Instant.ofEpochMilli(buffer.getLong());
+        }
+        return Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+    }
+
+    private static ZonedDateTime date(Instant instant, String zone){
+        return ZonedDateTime.ofInstant(instant, ZoneId.of(zone));
+    }
+
+    /**
+     * Write a length prefixed UTF-8 string, or a length of -1 for null.
+     *
+     * @param out  stream to write to
+     * @param value  string to write, nullable
+     * @throws IOException  problems writing to the stream
+     */
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        if(value == null){
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @AllArgsConstructor
+    private static class Record {
+        private String sourcePath;
+        private Config.DocumentMetadata metadata;
+    }
+
+    /**
+     * Read a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param buffer  buffer positioned at the start of the string
+     * @return  the string, or null
+     */
+    public static String readString(ByteBuffer buffer){
+        int length = buffer.getInt();
+        if(length < 0){
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
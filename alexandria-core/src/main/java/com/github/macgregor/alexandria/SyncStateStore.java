@@ -0,0 +1,34 @@
+package com.github.macgregor.alexandria;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Default {@link MetadataStore}, keeping the sync state in binary {@link SyncState} files next to the config, optionally
+ * sharded with {@link Config#stateSharding}. Documents are kept in the config and looked up through the
+ * {@link Context#metadataIndex()}.
+ */
+public class SyncStateStore implements MetadataStore {
+
+    @Override
+    public int load(Context context) throws IOException {
+        return SyncState.load(context);
+    }
+
+    @Override
+    public void save(Context context, List<Config.DocumentMetadata> documents) throws IOException {
+        SyncState.save(context, documents);
+    }
+
+    @Override
+    public Optional<Config.DocumentMetadata> find(Context context, Path sourcePath) {
+        return context.metadataIndex().bySourcePath(sourcePath);
+    }
+
+    @Override
+    public List<Config.DocumentMetadata> findInDirectory(Context context, Path directory) {
+        return context.metadataIndex().inDirectory(directory);
+    }
+}
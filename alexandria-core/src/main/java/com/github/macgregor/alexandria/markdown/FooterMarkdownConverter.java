@@ -0,0 +1,30 @@
+package com.github.macgregor.alexandria.markdown;
+
+import com.github.macgregor.alexandria.AlexandriaConvert;
+import com.github.macgregor.alexandria.Config;
+import com.github.macgregor.alexandria.exceptions.AlexandriaException;
+
+import java.nio.file.Path;
+
+/**
+ * A {@link MarkdownConverter} that can append the disclaimer footer to a document in memory while converting it.
+ *
+ * Without it, {@link AlexandriaConvert} writes the source with the footer appended to an intermediate file for the
+ * converter to read back, an extra write and read of every document per conversion that also leaves {@code -int} files
+ * in the output directory.
+ *
+ * @see AlexandriaConvert#DEFAULT_FOOTER
+ */
+public interface FooterMarkdownConverter extends MarkdownConverter {
+
+    /**
+     * Convert a document as if the footer had been appended to the end of the source file.
+     *
+     * @param metadata  metadata details about the document being converted
+     * @param source  absolute path to the markdown source document that is being converted
+     * @param footer  markdown to append to the source, including the {@link AlexandriaConvert#FOOTER_SEPARATOR}
+     * @param converted  absolute path that should be used to write the converted document to
+     * @throws AlexandriaException  the document couldnt be converted for some reason
+     */
+    void convert(Config.DocumentMetadata metadata, Path source, String footer, Path converted) throws AlexandriaException;
+}
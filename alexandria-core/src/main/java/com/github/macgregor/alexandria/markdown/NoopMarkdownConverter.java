@@ -9,21 +9,29 @@ import java.nio.file.Path;
 
 /**
  * Noop implementation of {@link MarkdownConverter} that just copies the markdown source document
- * to the converted path without any extra processing.
+ * to the converted path without any extra processing, other than appending the disclaimer footer.
  *
  * Can be used for remotes that support markdown natively.
  */
 @Slf4j
-public class NoopMarkdownConverter implements MarkdownConverter {
+public class NoopMarkdownConverter implements FooterMarkdownConverter {
 
     /**
      * {@inheritDoc}
      */
     @Override
     public void convert(Config.DocumentMetadata metadata, Path source, Path converted) throws AlexandriaException {
+        convert(metadata, source, "", converted);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void convert(Config.DocumentMetadata metadata, Path source, String footer, Path converted) throws AlexandriaException {
         log.debug("Noop - Copying {} to {}.", source, converted);
         try {
-            Resources.save(converted.toString(), Resources.load(source.toString()));
+            Resources.save(converted.toString(), Resources.load(source.toString()) + footer);
         } catch(Exception e){
             throw new AlexandriaException.Builder()
                     .withMessage(String.format("Unexcepted error converting %s to %s",
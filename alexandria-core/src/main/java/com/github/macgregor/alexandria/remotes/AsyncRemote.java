@@ -0,0 +1,73 @@
+package com.github.macgregor.alexandria.remotes;
+
+import com.github.macgregor.alexandria.AlexandriaSync;
+import com.github.macgregor.alexandria.Config;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link Remote} that can create, update and delete documents without blocking the calling thread.
+ *
+ * {@link AlexandriaSync} uses the asynchronous methods when {@link Config#inFlight} is set, keeping up to that many
+ * documents outstanding with the remote from a single thread. The futures have the same contract as their blocking
+ * counterparts, completing with the updated metadata they were given, or exceptionally with the {@link java.io.IOException}
+ * the blocking method would have thrown.
+ *
+ * Remotes that only implement the blocking methods can be adapted with {@link #of(Remote, Executor)}.
+ *
+ * @see AsyncRemoteAdapter
+ */
+public interface AsyncRemote extends Remote {
+
+    /**
+     * Asynchronous {@link Remote#create(Config.DocumentMetadata)}.
+     *
+     * @param metadata  document to create
+     * @return  future completed with the updated metadata once the document is created
+     */
+    CompletableFuture<Config.DocumentMetadata> createAsync(Config.DocumentMetadata metadata);
+
+    /**
+     * Asynchronous {@link Remote#update(Config.DocumentMetadata)}.
+     *
+     * @param metadata  document to update
+     * @return  future completed with the updated metadata once the document is updated
+     */
+    CompletableFuture<Config.DocumentMetadata> updateAsync(Config.DocumentMetadata metadata);
+
+    /**
+     * Asynchronous {@link Remote#delete(Config.DocumentMetadata)}.
+     *
+     * @param metadata  document to delete
+     * @return  future completed with the updated metadata once the document is deleted
+     */
+    CompletableFuture<Config.DocumentMetadata> deleteAsync(Config.DocumentMetadata metadata);
+
+    /**
+     * Use a remote asynchronously.
+     *
+     * @param remote  remote to use
+     * @param executor  executor blocking remotes run their requests on, unused if the remote is already an {@link AsyncRemote}
+     * @return  the remote itself if it implements {@link AsyncRemote}, otherwise an {@link AsyncRemoteAdapter} for it
+     */
+    static AsyncRemote of(Remote remote, Executor executor){
+        if(remote instanceof AsyncRemote){
+            return (AsyncRemote) remote;
+        }
+        return new AsyncRemoteAdapter(remote, executor);
+    }
+
+    /**
+     * Convenience method for an already failed future, e.g. when a request cant be started.
+     *
+     * @param cause  failure
+     * @param <T>  future result type
+     * @return  future completed exceptionally with the cause
+     */
+    static <T> CompletableFuture<T> failed(Throwable cause){
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(cause);
+        return future;
+    }
+}
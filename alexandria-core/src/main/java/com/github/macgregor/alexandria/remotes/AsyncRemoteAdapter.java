@@ -0,0 +1,118 @@
+package com.github.macgregor.alexandria.remotes;
+
+import com.github.macgregor.alexandria.Config;
+import com.github.macgregor.alexandria.markdown.MarkdownConverter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapts a blocking {@link Remote} to {@link AsyncRemote} by running its blocking methods on an {@link Executor}.
+ *
+ * This doesnt save any threads, every outstanding request still occupies an executor thread, but lets remotes that
+ * dont support asynchronous requests be used the same way as those that do. All other methods delegate to the remote.
+ */
+@ToString
+@Getter @Accessors(fluent = true)
+@AllArgsConstructor
+public class AsyncRemoteAdapter implements AsyncRemote {
+
+    @NonNull private Remote remote;
+    @NonNull private Executor executor;
+
+    @Override
+    public CompletableFuture<Config.DocumentMetadata> createAsync(Config.DocumentMetadata metadata) {
+        return submit(remote::create, metadata);
+    }
+
+    @Override
+    public CompletableFuture<Config.DocumentMetadata> updateAsync(Config.DocumentMetadata metadata) {
+        return submit(remote::update, metadata);
+    }
+
+    @Override
+    public CompletableFuture<Config.DocumentMetadata> deleteAsync(Config.DocumentMetadata metadata) {
+        return submit(remote::delete, metadata);
+    }
+
+    @Override
+    public void configure(Config.RemoteConfig config) {
+        remote.configure(config);
+    }
+
+    @Override
+    public void validateRemoteConfig() throws IllegalStateException {
+        remote.validateRemoteConfig();
+    }
+
+    @Override
+    public void validateDocumentMetadata(Config.DocumentMetadata metadata) throws IllegalStateException {
+        remote.validateDocumentMetadata(metadata);
+    }
+
+    @Override
+    public void beforeSync() throws IOException {
+        remote.beforeSync();
+    }
+
+    @Override
+    public void create(Config.DocumentMetadata metadata) throws IOException {
+        remote.create(metadata);
+    }
+
+    @Override
+    public void update(Config.DocumentMetadata metadata) throws IOException {
+        remote.update(metadata);
+    }
+
+    @Override
+    public void delete(Config.DocumentMetadata metadata) throws IOException {
+        remote.delete(metadata);
+    }
+
+    @Override
+    public MarkdownConverter markdownConverter() {
+        return remote.markdownConverter();
+    }
+
+    @Override
+    public void markdownConverter(MarkdownConverter markdownConverter) {
+        remote.markdownConverter(markdownConverter);
+    }
+
+    @Override
+    public boolean twoPassSync() {
+        return remote.twoPassSync();
+    }
+
+    /**
+     * Run a blocking remote method on the executor, completing the future with the exception it throws unwrapped.
+     */
+    private CompletableFuture<Config.DocumentMetadata> submit(BlockingRequest request, Config.DocumentMetadata metadata){
+        CompletableFuture<Config.DocumentMetadata> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    request.execute(metadata);
+                    future.complete(metadata);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch(Exception e){
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @FunctionalInterface
+    private interface BlockingRequest {
+        void execute(Config.DocumentMetadata metadata) throws IOException;
+    }
+}
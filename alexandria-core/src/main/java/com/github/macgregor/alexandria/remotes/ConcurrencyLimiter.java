@@ -0,0 +1,272 @@
+package com.github.macgregor.alexandria.remotes;
+
+import com.github.macgregor.alexandria.Config;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive limit on the number of requests in flight to a remote.
+ *
+ * A fixed number of concurrent requests will either underuse a remote that has capacity to spare or overload one that
+ * is busy. The limiter adjusts the limit as requests complete, additive increase/multiplicative decrease style:
+ * <ul>
+ *     <li>every successful request while the limit is being hit raises it by {@code 1/limit}, roughly one more request
+ *     per round trip</li>
+ *     <li>a request rejected with a 429 or 503, or timing out, cuts it by {@link #BACKOFF_RATIO}</li>
+ *     <li>every {@link #WINDOW} requests, the p90 latency of the window is compared to a slowly moving baseline. If it has
+ *     grown more than {@link #LATENCY_TOLERANCE} times the baseline, the limit is cut by {@link #LATENCY_BACKOFF_RATIO}</li>
+ * </ul>
+ * The limit always stays between {@link Config.RemoteConfig#minConcurrency} and {@link Config.RemoteConfig#maxConcurrency}.
+ *
+ * Like the {@link okhttp3.OkHttpClient}, a remote should create one limiter and share it across all of its
+ * {@link RemoteDocument} requests, see {@link Requests#limiter(Config.RemoteConfig)}. Changes to the limit are logged,
+ * the current state can be read from the limiter to tune the configuration.
+ */
+@Slf4j
+public class ConcurrencyLimiter {
+    /** Number of latency samples per window. */
+    public static final int WINDOW = 50;
+
+    /** Ratio the limit is cut to when the remote rejects a request or times out. */
+    public static final double BACKOFF_RATIO = 0.5;
+
+    /** Ratio the limit is cut to when p90 latency rises. */
+    public static final double LATENCY_BACKOFF_RATIO = 0.9;
+
+    /** How many times the baseline p90 latency a window can reach before the limit is cut. */
+    public static final double LATENCY_TOLERANCE = 2.0;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double limit;
+    private int inFlight = 0;
+    private final Queue<CompletableFuture<Long>> waiting = new ArrayDeque<>();
+
+    private final long[] window = new long[WINDOW];
+    private int samples = 0;
+    private long baselineLatency = -1;
+    private long lastLatency = -1;
+
+    private long increases = 0;
+    private long decreases = 0;
+
+    /**
+     * Create a limiter.
+     *
+     * @param initialLimit  starting limit, clamped between the minimum and maximum
+     * @param minLimit  lowest the limit can be cut to, at least 1
+     * @param maxLimit  highest the limit can be raised to
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit){
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Wait until fewer requests than the current limit are in flight and claim a slot for a new one. Every call must
+     * be followed by one of the {@code release} methods once the request completes. Blocks the calling thread, use
+     * {@link #acquireAsync()} from asynchronous code.
+     *
+     * @return  start time of the request in nanoseconds, to pass to {@code release}
+     * @throws InterruptedException  interrupted while waiting for a slot
+     */
+    public synchronized long acquire() throws InterruptedException {
+        while(inFlight >= (int) limit){
+            wait();
+        }
+        inFlight++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Claim a slot for a new request without blocking. If the limit is being hit, the request waits in a queue and the
+     * returned future is completed by the thread that releases the next free slot, so anything chained to the future
+     * shouldnt block. Waiting requests are given slots in the order they asked for them. Every completed future must be
+     * followed by one of the {@code release} methods once the request completes. Cancelling a future that hasnt
+     * completed yet gives up its place in the queue.
+     *
+     * @return  future completed with the start time of the request in nanoseconds, to pass to {@code release}
+     */
+    public CompletableFuture<Long> acquireAsync(){
+        synchronized (this) {
+            if(inFlight < (int) limit && waiting.isEmpty()){
+                inFlight++;
+                return CompletableFuture.completedFuture(System.nanoTime());
+            }
+            CompletableFuture<Long> slot = new CompletableFuture<>();
+            waiting.add(slot);
+            return slot;
+        }
+    }
+
+    /**
+     * Release the slot for a request that received a response.
+     *
+     * @param start  value returned by {@link #acquire()} or {@link #acquireAsync()}
+     * @param code  response status code
+     */
+    public void release(long start, int code){
+        if(code == 429 || code == 503){
+            releaseOverloaded(String.format("%d response", code));
+        } else {
+            releaseSuccess(System.nanoTime() - start);
+        }
+        dispatch();
+    }
+
+    /**
+     * Release the slot for a request that failed without a response. Timeouts count against the limit, other failures
+     * (e.g. connection refused) dont say anything about the remote's load and dont change it.
+     *
+     * @param start  value returned by {@link #acquire()} or {@link #acquireAsync()}
+     * @param e  request failure
+     */
+    public void release(long start, IOException e){
+        if(e instanceof SocketTimeoutException){
+            releaseOverloaded("timeout");
+        } else {
+            synchronized (this) {
+                inFlight--;
+                notifyAll();
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * Hand free slots to requests waiting in {@link #acquireAsync()}. Futures are completed outside the lock, since
+     * completing them runs whatever was chained to them on this thread.
+     */
+    private void dispatch(){
+        while(true) {
+            List<CompletableFuture<Long>> ready = new ArrayList<>();
+            synchronized (this) {
+                while(inFlight < (int) limit && !waiting.isEmpty()){
+                    inFlight++;
+                    ready.add(waiting.poll());
+                }
+            }
+            if(ready.isEmpty()){
+                return;
+            }
+
+            int abandoned = 0;
+            for(CompletableFuture<Long> slot : ready){
+                if(!slot.complete(System.nanoTime())){
+                    abandoned++;
+                }
+            }
+            if(abandoned == 0){
+                return;
+            }
+            synchronized (this) {
+                inFlight -= abandoned;
+                notifyAll();
+            }
+        }
+    }
+
+    private synchronized void releaseOverloaded(String reason){
+        inFlight--;
+        cut(BACKOFF_RATIO, reason);
+        notifyAll();
+    }
+
+    private synchronized void releaseSuccess(long latency){
+        boolean limited = inFlight >= (int) limit;
+        inFlight--;
+        lastLatency = latency;
+
+        window[samples++] = latency;
+        if(samples == WINDOW){
+            long p90 = p90();
+            samples = 0;
+            if(baselineLatency < 0 || p90 < baselineLatency){
+                baselineLatency = p90;
+            } else if(p90 > baselineLatency * LATENCY_TOLERANCE){
+                cut(LATENCY_BACKOFF_RATIO, String.format("p90 latency rising to %dms", TimeUnit.NANOSECONDS.toMillis(p90)));
+                notifyAll();
+                return;
+            } else {
+                // let the baseline drift so a permanent change in the remote's latency isnt treated as load forever
+                baselineLatency = (long) (baselineLatency * 0.9 + p90 * 0.1);
+            }
+        }
+
+        if(limited && limit < maxLimit){
+            int previous = (int) limit;
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+            if((int) limit > previous){
+                increases++;
+                log.debug(String.format("Concurrency limit raised to %d", (int) limit));
+            }
+        }
+        notifyAll();
+    }
+
+    private void cut(double ratio, String reason){
+        int previous = (int) limit;
+        limit = Math.max(minLimit, limit * ratio);
+        if((int) limit < previous){
+            decreases++;
+            log.info(String.format("Concurrency limit cut from %d to %d after %s", previous, (int) limit, reason));
+        }
+    }
+
+    private long p90(){
+        long[] sorted = Arrays.copyOf(window, WINDOW);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(WINDOW * 0.9) - 1];
+    }
+
+    /** @return  current limit on requests in flight */
+    public synchronized int limit(){
+        return (int) limit;
+    }
+
+    /** @return  number of requests currently in flight */
+    public synchronized int inFlight(){
+        return inFlight;
+    }
+
+    /** @return  number of requests waiting in {@link #acquireAsync()} for a slot */
+    public synchronized int queued(){
+        return waiting.size();
+    }
+
+    /** @return  number of times the limit was raised */
+    public synchronized long increases(){
+        return increases;
+    }
+
+    /** @return  number of times the limit was cut */
+    public synchronized long decreases(){
+        return decreases;
+    }
+
+    /** @return  latency baseline in milliseconds that p90 latency is compared to, or -1 before the first full window */
+    public synchronized long baselineLatencyMillis(){
+        return baselineLatency < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(baselineLatency);
+    }
+
+    /** @return  latency of the last successful request in milliseconds, or -1 if there hasnt been one */
+    public synchronized long lastLatencyMillis(){
+        return lastLatency < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(lastLatency);
+    }
+
+    @Override
+    public synchronized String toString(){
+        return String.format("ConcurrencyLimiter(limit=%d, inFlight=%d, min=%d, max=%d, increases=%d, decreases=%d, baselineLatencyMillis=%d)",
+                (int) limit, inFlight, minLimit, maxLimit, increases, decreases, baselineLatencyMillis());
+    }
+}
@@ -6,6 +6,8 @@ import com.github.macgregor.alexandria.Config;
 import com.github.macgregor.alexandria.markdown.MarkdownConverter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * Defines an interface for interacting with a remote document source.
@@ -42,6 +44,30 @@ public interface Remote {
      */
     default void validateDocumentMetadata(Config.DocumentMetadata metadata) throws IllegalStateException {}
 
+    /**
+     * Keys of {@link com.github.macgregor.alexandria.Config.DocumentMetadata#extraProps} the remote sets itself, such as
+     * its own id for a document. Defaults to none.
+     *
+     * Managed properties are saved with the documents' sync state, see {@link com.github.macgregor.alexandria.SyncState}.
+     * All other extra properties are treated as user defined and stay in the config file.
+     *
+     * @return  extra property keys managed by the remote
+     */
+    default Set<String> managedProperties(){
+        return Collections.emptySet();
+    }
+
+    /**
+     * Called once at the start of {@link AlexandriaSync#syncWithRemote()}, before any documents are synced.
+     *
+     * Remotes can use this to fetch what they need about all indexed documents in a few requests, rather than a request
+     * per document while syncing. Implementations should only do so when {@link Config.RemoteConfig#prefetch} is
+     * enabled. Defaults to doing nothing.
+     *
+     * @throws IOException  Errors with any requests made to the remote.
+     */
+    default void beforeSync() throws IOException {}
+
     /**
      * Called to create a new document on the remote.
      * <p>
@@ -112,11 +138,12 @@ public interface Remote {
      * This is needed when a {@link Remote} relies on state that may change after a sync, such as resolving relative
      * links into a remote URI for newly created documents. Users would need to run sync once to create the documents,
      * then a second time so that the {@link MarkdownConverter} can properly resolve the file system links to the documents
-     * that were just created.
+     * that were just created. The second pass only revisits documents with links to documents whose remote uri changed,
+     * so it costs next to nothing when no documents were created.
      *
      * Switch to false if you know you dont need it and efficiencies is a concern.
      *
-     * @return true if {@link AlexandriaSync#syncWithRemote()} should always run twice for a remote, or false to run once
+     * @return true if {@link AlexandriaSync#syncWithRemote()} should run a second pass for a remote, or false to run once
      */
     default boolean twoPassSync(){
         return true;
@@ -1,9 +1,9 @@
 package com.github.macgregor.alexandria.remotes;
 
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.databind.JavaType;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.github.macgregor.alexandria.Jackson;
 import com.github.macgregor.alexandria.exceptions.HttpException;
 import lombok.*;
@@ -13,10 +13,16 @@ import okhttp3.*;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -49,6 +55,10 @@ import java.util.concurrent.TimeUnit;
  * }
  * </pre>
  *
+ * Each request method also has an asynchronous variant, e.g. {@link #getAsync()}, that enqueues the request with the
+ * {@link OkHttpClient}'s dispatcher instead of blocking the calling thread. The returned future completes with the same
+ * result, or exceptionally with the same {@link HttpException}, as the blocking method.
+ *
  * @param <T>  POJO representing the remote document for both requests and responses
  */
 @Slf4j
@@ -63,9 +73,18 @@ public class RemoteDocument<T>{
     /** Class matching T used to prevent runtime type erasure by JVM */
     @NonNull private Class<T> entity;
 
-    /** Timeout for all requests. Default: 30 seconds. */
+    /** Timeout for all requests when no {@link #client} is provided. Default: 30 seconds. */
     @Builder.Default private Integer requestTimeout = 30;
 
+    /** Shared client used to make requests, see {@link Requests#client(com.github.macgregor.alexandria.Config.RemoteConfig)}. Default: a new client per request. */
+    private OkHttpClient client;
+
+    /** Optional limit on requests in flight, shared across a remote's requests the same as {@link #client}. See {@link ConcurrencyLimiter}. */
+    private ConcurrencyLimiter limiter;
+
+    /** Optional policy for retrying failed idempotent requests, see {@link Requests#retryPolicy(com.github.macgregor.alexandria.Config.RemoteConfig)}. Default: no retries. */
+    private RetryPolicy retryPolicy;
+
     /** Headers to add to requests. */
     @Singular private Map<String, String> headers;
 
@@ -87,6 +106,12 @@ public class RemoteDocument<T>{
     /** what field in the response contains the T entities to parse */
     @Builder.Default private String pageListResponseField = "list";
 
+    /** number of items requested per page, see {@link com.github.macgregor.alexandria.Config.RemoteConfig#pageSize}. Default: 25. */
+    @Builder.Default private Integer pageSize = 25;
+
+    /** number of pages requested ahead of the one being read, see {@link com.github.macgregor.alexandria.Config.RemoteConfig#pageReadAhead}. Default: 0. */
+    @Builder.Default private Integer pageReadAhead = 0;
+
     /**
      * Get a single document from the remote, parsing the request result into a POJO.
      *
@@ -229,6 +254,45 @@ public class RemoteDocument<T>{
         }
     }
 
+    /**
+     * Asynchronous {@link #get()}.
+     *
+     * @return  future completed with the parsed remote document, or exceptionally with an {@link HttpException}
+     */
+    public CompletableFuture<T> getAsync(){
+        return requestAsync("GET", () -> Requests.requestBuilder(route(), headers).get().build(), true);
+    }
+
+    /**
+     * Asynchronous {@link #put(Object)}.
+     *
+     * @param t  The new values for the remote object
+     * @return  future completed with the parsed response, or exceptionally with an {@link HttpException}
+     */
+    public CompletableFuture<T> putAsync(T t){
+        return requestAsync("PUT", () -> Requests.requestBuilder(route(), headers).put(requestBody(t)).build(), true);
+    }
+
+    /**
+     * Asynchronous {@link #post(Object)}.
+     *
+     * @param t  The values to create the remote document with.
+     * @return  future completed with the parsed response, or exceptionally with an {@link HttpException}
+     */
+    public CompletableFuture<T> postAsync(T t){
+        return requestAsync("POST", () -> Requests.requestBuilder(route(), headers).post(requestBody(t)).build(), true);
+    }
+
+    /**
+     * Asynchronous {@link #delete()}.
+     *
+     * @return  future completed once the document is deleted, or exceptionally with an {@link HttpException}
+     */
+    public CompletableFuture<Void> deleteAsync(){
+        return requestAsync("DELETE", () -> Requests.requestBuilder(route(), headers).delete().build(), false)
+                .thenApply(t -> null);
+    }
+
     /**
      * Convert the given POJO into a json object to use in a request body.
      *
@@ -280,7 +344,18 @@ public class RemoteDocument<T>{
         return Requests.routeBuilder(baseUrl, pathSegments, queryParameters).build();
     }
 
+    /**
+     * Client used to make requests.
+     *
+     * Remotes should provide a shared {@link #client} so connections can be reused across requests. If none was provided,
+     * a new client is created with {@link #requestTimeout}, which wont reuse connections.
+     *
+     * @return  {@link OkHttpClient}
+     */
     protected OkHttpClient client(){
+        if(client != null){
+            return client;
+        }
         return new OkHttpClient.Builder()
                 .connectTimeout(requestTimeout, TimeUnit.SECONDS)
                 .writeTimeout(requestTimeout, TimeUnit.SECONDS)
@@ -291,36 +366,220 @@ public class RemoteDocument<T>{
     /**
      * Perform the request with the remote api, adding some standard error checking.
      *
+     * If there is a {@link #retryPolicy}, idempotent requests that fail without a response or with a retryable status
+     * are retried after a backoff, blocking the calling thread.
+     *
      * @param request  The request to perform.
      * @return  Response from the remote api
      * @throws HttpException  If a non 20X status code results from the request or an unchecked exception occurs.
      */
     protected Response doRequest(Request request) throws HttpException {
+        logRequest(request);
+
+        for(int attempt = 1; ; attempt++) {
+            Call call = client().newCall(request);
+            long start = acquire(request);
+
+            Response response;
+            try {
+                response = call.execute();
+                log.debug(response.toString());
+            } catch (IOException e) {
+                log.debug("Request error", e);
+                if (limiter != null) {
+                    limiter.release(start, e);
+                }
+                if (retryPolicy != null && retryPolicy.shouldRetry(request, attempt)) {
+                    sleep(request, retryDelay(request, attempt, Optional.empty(), e.toString()));
+                    continue;
+                }
+                throw new HttpException.Builder()
+                        .withMessage(String.format("Unable to make request %s %s", request.method(), request.url().toString()))
+                        .causedBy(e)
+                        .requestContext(request)
+                        .build();
+            }
+            if (limiter != null) {
+                limiter.release(start, response.code());
+            }
+
+            if (!isAllowed(response) && retryPolicy != null && retryPolicy.shouldRetry(request, attempt, response)) {
+                response.close();
+                sleep(request, retryDelay(request, attempt, Optional.of(response), Integer.toString(response.code())));
+                continue;
+            }
+            return checkResponse(request, response);
+        }
+    }
+
+    /**
+     * Asynchronous {@link #doRequest(Request)}, enqueuing the request with the client's dispatcher.
+     *
+     * If there is a {@link #limiter}, the request waits in the limiter's queue until it is allowed in flight, without
+     * blocking the calling thread. Retries are scheduled after their backoff instead of blocking any thread.
+     *
+     * @param request  The request to perform.
+     * @return  future completed with the response from the remote api, or exceptionally with an {@link HttpException}
+     *          if a non 20X status code results from the request or the request couldnt be made.
+     */
+    protected CompletableFuture<Response> doRequestAsync(Request request){
+        logRequest(request);
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        enqueue(request, 1, future);
+        return future;
+    }
+
+    /**
+     * Enqueue an attempt of an asynchronous request, completing the future once it succeeds or can no longer be retried.
+     */
+    private void enqueue(Request request, int attempt, CompletableFuture<Response> future){
+        acquireAsync().whenComplete((start, error) -> {
+            if(error != null){
+                future.completeExceptionally(error);
+                return;
+            }
+            try {
+                enqueue(request, attempt, future, start);
+            } catch (RuntimeException e) {
+                if(limiter != null){
+                    limiter.release(start, new IOException(e));
+                }
+                future.completeExceptionally(e);
+            }
+        });
+    }
+
+    private void enqueue(Request request, int attempt, CompletableFuture<Response> future, long start){
+        client().newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                log.debug("Request error", e);
+                if(limiter != null){
+                    limiter.release(start, e);
+                }
+                if(retryPolicy != null && retryPolicy.shouldRetry(request, attempt)){
+                    retryAsync(request, attempt, future, retryDelay(request, attempt, Optional.empty(), e.toString()));
+                    return;
+                }
+                future.completeExceptionally(new HttpException.Builder()
+                        .withMessage(String.format("Unable to make request %s %s", request.method(), request.url().toString()))
+                        .causedBy(e)
+                        .requestContext(request)
+                        .build());
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                log.debug(response.toString());
+                if(limiter != null){
+                    limiter.release(start, response.code());
+                }
+                if(!isAllowed(response) && retryPolicy != null && retryPolicy.shouldRetry(request, attempt, response)){
+                    response.close();
+                    retryAsync(request, attempt, future, retryDelay(request, attempt, Optional.of(response), Integer.toString(response.code())));
+                    return;
+                }
+                try {
+                    future.complete(checkResponse(request, response));
+                } catch (HttpException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Schedule the next attempt of an asynchronous request. Anything thrown while enqueuing the attempt completes the
+     * future, since the scheduler would otherwise swallow it and leave the caller waiting forever.
+     */
+    private void retryAsync(Request request, int attempt, CompletableFuture<Response> future, long delayMillis){
+        RetryPolicy.schedule(() -> {
+            try {
+                enqueue(request, attempt + 1, future);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, delayMillis);
+    }
+
+    private void logRequest(Request request){
         log.debug(request.toString());
         if(request.body() != null) {
             try {
                 log.debug(Requests.bodyToString(request));
             } catch (IOException e) {}
         }
+    }
 
-        Call call = client().newCall(request);
+    /**
+     * Determine and log the backoff before retrying a failed attempt.
+     */
+    private long retryDelay(Request request, int attempt, Optional<Response> response, String reason){
+        long delay = retryPolicy.delayMillis(attempt, response);
+        log.info(String.format("Retrying %s %s in %dms, attempt %d of %d failed: %s", request.method(),
+                request.url().toString(), delay, attempt, retryPolicy.maxAttempts(), reason));
+        return delay;
+    }
 
-        Response response = null;
+    private void sleep(Request request, long delayMillis) throws HttpException {
         try {
-            response = call.execute();
-            log.debug(response.toString());
-        } catch (IOException e) {
-            log.debug("Request error", e);
+            TimeUnit.MILLISECONDS.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new HttpException.Builder()
-                    .withMessage(String.format("Unable to make request %s %s", request.method(), request.url().toString()))
+                    .withMessage(String.format("Interrupted waiting to retry request %s %s", request.method(), request.url().toString()))
+                    .causedBy(e)
+                    .requestContext(request)
+                    .build();
+        }
+    }
+
+    /**
+     * Claim a slot with the {@link #limiter}, if any, without blocking, see {@link ConcurrencyLimiter#acquireAsync()}.
+     *
+     * @return  future completed with the start time of the request for {@link ConcurrencyLimiter#release(long, int)}
+     */
+    protected CompletableFuture<Long> acquireAsync(){
+        if(limiter == null){
+            return CompletableFuture.completedFuture(System.nanoTime());
+        }
+        return limiter.acquireAsync();
+    }
+
+    /**
+     * Wait for the {@link #limiter}, if any, to allow another request in flight. Only used by the blocking
+     * {@link #doRequest(Request)}, see {@link #acquireAsync()}.
+     *
+     * @param request  The request about to be performed.
+     * @return  start time of the request for {@link ConcurrencyLimiter#release(long, int)}
+     * @throws HttpException  interrupted while waiting
+     */
+    protected long acquire(Request request) throws HttpException {
+        if(limiter == null){
+            return System.nanoTime();
+        }
+        try {
+            return limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpException.Builder()
+                    .withMessage(String.format("Interrupted waiting to make request %s %s", request.method(), request.url().toString()))
                     .causedBy(e)
                     .requestContext(request)
-                    .responseContext(response)
                     .build();
         }
+    }
 
-        if((allowableStatusCodes.isEmpty() && response.isSuccessful()) ||
-                allowableStatusCodes.contains(response.code())){
+    /**
+     * Check the response status against {@link #allowableStatusCodes}, or 20X if none are set.
+     *
+     * @param request  The request that was performed.
+     * @param response  Response from the remote api
+     * @return  the response if its status is allowed
+     * @throws HttpException  If the status code isnt allowed.
+     */
+    protected Response checkResponse(Request request, Response response) throws HttpException {
+        if(isAllowed(response)){
             return response;
         } else{
             String expected = allowableStatusCodes.isEmpty() ? "20X" : StringUtils.join(allowableStatusCodes, ",");
@@ -333,6 +592,68 @@ public class RemoteDocument<T>{
         }
     }
 
+    /**
+     * Whether the response status is one of {@link #allowableStatusCodes}, or 20X if none are set.
+     *
+     * @param response  Response from the remote api
+     * @return  true if the status is allowed
+     */
+    protected boolean isAllowed(Response response){
+        return (allowableStatusCodes.isEmpty() && response.isSuccessful()) || allowableStatusCodes.contains(response.code());
+    }
+
+    /**
+     * Build and enqueue a request, parsing the response once it completes. Exceptions are wrapped the same way as the
+     * blocking request methods, with the request added for context.
+     *
+     * @param method  request method, used in error messages
+     * @param requestSupplier  builds the request
+     * @param parse  whether to parse the response body, otherwise the future completes with null and the response is closed
+     * @return  future completed with the parsed response, or exceptionally with an {@link HttpException}
+     */
+    private CompletableFuture<T> requestAsync(String method, RequestSupplier requestSupplier, boolean parse){
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Request request;
+        try {
+            request = requestSupplier.get();
+        } catch(Exception e){
+            future.completeExceptionally(new HttpException.Builder()
+                    .withMessage(String.format("Unexpected error executing %s", method))
+                    .causedBy(e)
+                    .build());
+            return future;
+        }
+
+        doRequestAsync(request).whenComplete((response, error) -> {
+            try {
+                if(error != null){
+                    throw error;
+                }
+                if(parse){
+                    future.complete(parseResponse(response));
+                } else{
+                    response.close();
+                    future.complete(null);
+                }
+            } catch(HttpException e){
+                e.request(Optional.of(request));
+                future.completeExceptionally(e);
+            } catch(Throwable e){
+                future.completeExceptionally(new HttpException.Builder()
+                        .withMessage(String.format("Unexpected error executing %s", method))
+                        .causedBy(e)
+                        .requestContext(request)
+                        .build());
+            }
+        });
+        return future;
+    }
+
+    @FunctionalInterface
+    private interface RequestSupplier {
+        Request get() throws Exception;
+    }
+
     /**
      * Iterable class used for pagination.
      *
@@ -361,13 +682,13 @@ public class RemoteDocument<T>{
         }
 
         /**
-         * Return the first result from the paged request.
+         * Return the first result from the paged request. Pages arent read ahead, since only the first is needed.
          *
          * @return  The first object in the paged request or null if there are no results.
          * @throws HttpException  If a non 20X status code results from the request or an unchecked exception occurs.
          */
         public T first() throws HttpException {
-            Iterator<T> iterator = iterator();
+            Iterator<T> iterator = new RemoteDocumentIterator(requestBuilder.build().toBuilder().pageReadAhead(0));
             try{
                 if(iterator.hasNext()){
                     return iterator.next();
@@ -412,9 +733,11 @@ public class RemoteDocument<T>{
 
         private RemoteDocumentBuilder requestBuilder;
         private Iterator<T> current;
-        private Integer pageSize = 25;
+        private Integer pageSize;
+        private Integer pageReadAhead;
         private Integer offset = 0;
         private boolean finished = false;
+        private final Deque<CompletableFuture<List<T>>> readAhead = new ArrayDeque<>();
 
         /**
          * Constructor that takes a {@link RemoteDocumentBuilder} to create paged requests.
@@ -423,6 +746,9 @@ public class RemoteDocument<T>{
          */
         protected RemoteDocumentIterator(RemoteDocumentBuilder requestBuilder){
             this.requestBuilder = requestBuilder;
+            RemoteDocument remoteDocument = requestBuilder.build();
+            this.pageSize = Math.max(1, remoteDocument.pageSize);
+            this.pageReadAhead = Math.max(0, remoteDocument.pageReadAhead);
         }
 
         /**
@@ -430,7 +756,8 @@ public class RemoteDocument<T>{
          *
          * Responsible for making the actual request to the remote api to prime the current page, whether this is the first
          * request of if the current page has been exhausted. Will make n+1 requests to the remote where n is the number
-         * of pages available.
+         * of pages available, plus up to {@link RemoteDocumentBuilder#pageReadAhead} pages past the end that were
+         * requested ahead of time.
          *
          * @see #nextPage()
          *
@@ -465,29 +792,54 @@ public class RemoteDocument<T>{
          *     api to specify page offset</li>
          *     <li>{@link RemoteDocumentBuilder#pageListResponseField} - what field in the response contains the T entities
          *     to parse</li>
+         *     <li>{@link RemoteDocumentBuilder#pageSize} - number of items per page</li>
+         *     <li>{@link RemoteDocumentBuilder#pageReadAhead} - number of pages to request ahead of the one returned</li>
          * </ul>
          *
+         * With read ahead, the following pages are requested asynchronously before waiting on this one, so they download
+         * while the caller works through the current page. Pages requested past the last one are left to complete in the
+         * background and discarded.
+         *
          * @return  {@link Iterator} for the next page of data
          * @throws RuntimeException  Wrapper for any exceptions that occur making the request or processing results. The
          *                           {@link Iterator} interface wont let us throw checked exceptions.
          */
         protected Iterator<T> nextPage() {
-            RemoteDocument remoteDocument = requestBuilder
-                    .queryParameter(requestBuilder.pageSizeRequestParameter, pageSize.toString())
-                    .queryParameter(requestBuilder.pageOffsetRequestParameter, offset.toString())
-                    .build();
+            if(pageReadAhead == 0){
+                return fetchPage();
+            }
+
+            while(readAhead.size() <= pageReadAhead){
+                readAhead.add(fetchPageAsync());
+            }
+            List<T> parsedResults;
+            try {
+                parsedResults = readAhead.poll().join();
+            } catch(CompletionException e){
+                finished = true;
+                readAhead.clear();
+                throw new RuntimeException(e.getCause());
+            }
+            if(parsedResults.size() == 0){
+                finished = true;
+                readAhead.clear();
+            }
+            return parsedResults.iterator();
+        }
+
+        /**
+         * Fetch the page at the current offset, blocking until it has been parsed.
+         */
+        private Iterator<T> fetchPage() {
+            RemoteDocument remoteDocument = nextPageDocument();
             Request request = null;
             try {
                 request = Requests.requestBuilder(remoteDocument.route(), remoteDocument.headers).get().build();
-                Response response = remoteDocument.doRequest(request);
-
-                JsonFactory factory = new JsonFactory();
-                ObjectMapper mapper = new ObjectMapper(factory);
-                JsonNode rootNode = mapper.readTree(response.body().charStream());
-                JsonNode results = rootNode.get(remoteDocument.pageListResponseField);
-                JavaType type = mapper.getTypeFactory().constructCollectionType(List.class, remoteDocument.entity);
-                List<T> parsedResults = Jackson.jsonMapper().readValue(results.toString(), type);
-                offset += pageSize;
+                List<T> parsedResults;
+                try(Response response = remoteDocument.doRequest(request)) {
+                    parsedResults = parsePage(response.body().byteStream(), remoteDocument.pageListResponseField,
+                            Jackson.jsonReader(remoteDocument.entity));
+                }
                 if(parsedResults.size() == 0){
                     finished = true;
                 }
@@ -498,11 +850,95 @@ public class RemoteDocument<T>{
                 throw new RuntimeException(e);
             } catch(Exception e){
                 finished = true;
-                throw new RuntimeException(new HttpException.Builder()
-                        .withMessage("Unexpected error fetching next page from remote")
-                        .causedBy(e)
-                        .requestContext(request)
-                        .build());
+                throw new RuntimeException(pageException(e, request));
+            }
+        }
+
+        /**
+         * Enqueue a request for the page at the current offset, parsing it on the client's dispatcher thread.
+         *
+         * @return  future completed with the parsed page, or exceptionally with an {@link HttpException}
+         */
+        private CompletableFuture<List<T>> fetchPageAsync() {
+            RemoteDocument remoteDocument = nextPageDocument();
+            Request request;
+            try {
+                request = Requests.requestBuilder(remoteDocument.route(), remoteDocument.headers).get().build();
+            } catch(Exception e){
+                return AsyncRemote.failed(pageException(e, null));
+            }
+
+            CompletableFuture<Response> response = remoteDocument.doRequestAsync(request);
+            return response.handle((r, error) -> {
+                if(error != null){
+                    if(error instanceof HttpException){
+                        ((HttpException) error).request(Optional.of(request));
+                        throw new CompletionException(error);
+                    }
+                    throw new CompletionException(pageException(error, request));
+                }
+                try(Response closeable = r) {
+                    return parsePage(closeable.body().byteStream(), remoteDocument.pageListResponseField,
+                            Jackson.jsonReader(remoteDocument.entity));
+                } catch(Exception e){
+                    throw new CompletionException(pageException(e, request));
+                }
+            });
+        }
+
+        /**
+         * Build the request document for the page at the current offset and advance the offset to the following page.
+         */
+        private RemoteDocument nextPageDocument() {
+            RemoteDocument remoteDocument = requestBuilder
+                    .queryParameter(requestBuilder.pageSizeRequestParameter, pageSize.toString())
+                    .queryParameter(requestBuilder.pageOffsetRequestParameter, offset.toString())
+                    .build();
+            offset += pageSize;
+            return remoteDocument;
+        }
+
+        private static HttpException pageException(Throwable e, Request request) {
+            return new HttpException.Builder()
+                    .withMessage("Unexpected error fetching next page from remote")
+                    .causedBy(e)
+                    .requestContext(request)
+                    .build();
+        }
+
+        /**
+         * Stream a page of results out of a response body, binding each element of the list field straight to the entity
+         * as it is read. Other fields are skipped without being parsed into a tree.
+         *
+         * @param body  response body
+         * @param listField  name of the top level field containing the entities, see {@link RemoteDocumentBuilder#pageListResponseField}
+         * @param reader  reader bound to the entity type, see {@link Jackson#jsonReader(Class)}
+         * @param <T>  entity type
+         * @return  entities in the page, in order
+         * @throws IOException  the body isnt a json object containing a list field
+         */
+        protected static <T> List<T> parsePage(InputStream body, String listField, ObjectReader reader) throws IOException {
+            try(JsonParser parser = reader.getFactory().createParser(body)) {
+                if(parser.nextToken() != JsonToken.START_OBJECT){
+                    throw new JsonParseException(parser, "Expected page response to be a json object");
+                }
+                while(parser.nextToken() == JsonToken.FIELD_NAME){
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if(!listField.equals(field)){
+                        parser.skipChildren();
+                        continue;
+                    }
+                    if(value != JsonToken.START_ARRAY){
+                        throw new JsonParseException(parser, String.format("Expected page response field %s to be a list", listField));
+                    }
+                    List<T> results = new ArrayList<>();
+                    while(parser.nextToken() != JsonToken.END_ARRAY){
+                        results.add(reader.readValue(parser));
+                    }
+                    return results;
+                }
+                throw new JsonParseException(parser, String.format("Page response missing field %s", listField));
             }
         }
     }
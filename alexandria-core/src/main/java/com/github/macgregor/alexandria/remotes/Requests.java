@@ -1,18 +1,79 @@
 package com.github.macgregor.alexandria.remotes;
 
+import com.github.macgregor.alexandria.Config;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okio.Buffer;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for making rest requests
  */
 public class Requests {
 
+    /**
+     * Create an {@link OkHttpClient} configured from the remote config.
+     *
+     * The client owns a connection pool and dispatcher, so a remote should create one client and share it across
+     * all of its {@link RemoteDocument} requests to reuse connections to the remote instead of paying for a new
+     * TCP/TLS handshake on every request.
+     *
+     * When {@link Config.RemoteConfig#adaptiveConcurrency} is enabled the {@link ConcurrencyLimiter} decides how many
+     * requests are in flight, so the dispatcher allows up to {@link Config.RemoteConfig#maxConcurrency} per host.
+     *
+     * @param config  remote config with timeout, connection pool and dispatcher settings
+     * @return  {@link OkHttpClient}
+     */
+    public static OkHttpClient client(Config.RemoteConfig config){
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.maxRequests());
+        dispatcher.setMaxRequestsPerHost(config.adaptiveConcurrency() ?
+                Math.max(config.maxRequestsPerHost(), config.maxConcurrency()) : config.maxRequestsPerHost());
+
+        return new OkHttpClient.Builder()
+                .connectTimeout(config.requestTimeout(), TimeUnit.SECONDS)
+                .writeTimeout(config.requestTimeout(), TimeUnit.SECONDS)
+                .readTimeout(config.requestTimeout(), TimeUnit.SECONDS)
+                .connectionPool(new ConnectionPool(config.maxIdleConnections(), config.keepAliveDuration(), TimeUnit.SECONDS))
+                .dispatcher(dispatcher)
+                .build();
+    }
+
+    /**
+     * Create a {@link ConcurrencyLimiter} configured from the remote config, to be shared by all of a remote's
+     * {@link RemoteDocument} requests the same as its client.
+     *
+     * @param config  remote config with concurrency settings
+     * @return  {@link ConcurrencyLimiter} starting at {@link Config.RemoteConfig#maxRequestsPerHost}, or null if
+     *          {@link Config.RemoteConfig#adaptiveConcurrency} is disabled
+     */
+    public static ConcurrencyLimiter limiter(Config.RemoteConfig config){
+        if(!config.adaptiveConcurrency()){
+            return null;
+        }
+        return new ConcurrencyLimiter(config.maxRequestsPerHost(), config.minConcurrency(), config.maxConcurrency());
+    }
+
+    /**
+     * Create a {@link RetryPolicy} configured from the remote config.
+     *
+     * @param config  remote config with retry settings
+     * @return  {@link RetryPolicy}, or null if {@link Config.RemoteConfig#retryMaxAttempts} disables retries
+     */
+    public static RetryPolicy retryPolicy(Config.RemoteConfig config){
+        if(config.retryMaxAttempts() < 2){
+            return null;
+        }
+        return new RetryPolicy(config);
+    }
+
     /**
      * Create a {@link Request.Builder} from the provided route, adding all headers
      *
@@ -0,0 +1,145 @@
+package com.github.macgregor.alexandria.remotes;
+
+import com.github.macgregor.alexandria.Config;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When and how long to wait before retrying a failed request.
+ *
+ * Only idempotent requests ({@link #IDEMPOTENT_METHODS}) are retried, since retrying a POST that timed out
+ * after the remote received it could create a duplicate document. A request is retried if it failed without a response
+ * (e.g. the connection was reset or timed out) or the response status is one of {@link #retryableStatusCodes}, up to
+ * {@link #maxAttempts} attempts in total.
+ *
+ * The delay before each retry is "full jitter" exponential backoff, a random delay between 0 and
+ * {@code baseDelayMillis * 2^(attempt - 1)} capped at {@link #maxDelayMillis}, so concurrent requests that failed
+ * together dont all retry together. If the response has a {@code Retry-After} header, the remote's delay is used
+ * instead, still capped at {@link #maxDelayMillis}.
+ *
+ * @see Requests#retryPolicy(Config.RemoteConfig)
+ */
+@ToString
+@Getter @Accessors(fluent = true)
+@AllArgsConstructor
+public class RetryPolicy {
+    public static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList("GET", "HEAD", "PUT", "DELETE"));
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "alexandria-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Maximum number of attempts, including the first. Values less than 2 disable retries. */
+    private int maxAttempts;
+
+    /** Delay in milliseconds the exponential backoff starts from. */
+    private long baseDelayMillis;
+
+    /** Longest delay in milliseconds before any retry, including delays requested with {@code Retry-After}. */
+    private long maxDelayMillis;
+
+    /** Response status codes worth retrying. */
+    @NonNull private Collection<Integer> retryableStatusCodes;
+
+    /**
+     * Create a retry policy from the remote config.
+     *
+     * @param config  remote config with retry settings
+     */
+    public RetryPolicy(Config.RemoteConfig config){
+        this(config.retryMaxAttempts(), config.retryBaseDelay(), config.retryMaxDelay(), new HashSet<>(config.retryStatusCodes()));
+    }
+
+    /**
+     * Whether a request that failed without a response should be retried.
+     *
+     * @param request  failed request
+     * @param attempt  attempt that failed, starting at 1
+     * @return  true if the request is idempotent and has attempts left
+     */
+    public boolean shouldRetry(Request request, int attempt){
+        return attempt < maxAttempts && IDEMPOTENT_METHODS.contains(request.method());
+    }
+
+    /**
+     * Whether a request that received an unacceptable response should be retried.
+     *
+     * @param request  failed request
+     * @param attempt  attempt that failed, starting at 1
+     * @param response  response to the attempt
+     * @return  true if the request is idempotent, has attempts left and the response status is retryable
+     */
+    public boolean shouldRetry(Request request, int attempt, Response response){
+        return shouldRetry(request, attempt) && retryableStatusCodes.contains(response.code());
+    }
+
+    /**
+     * Delay before retrying a failed attempt.
+     *
+     * @param attempt  attempt that failed, starting at 1
+     * @param response  response to the attempt, if there was one
+     * @return  delay in milliseconds
+     */
+    public long delayMillis(int attempt, Optional<Response> response){
+        Optional<Long> retryAfter = response.flatMap(RetryPolicy::retryAfterMillis);
+        if(retryAfter.isPresent()){
+            return Math.max(0, Math.min(maxDelayMillis, retryAfter.get()));
+        }
+        long backoff = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        return backoff <= 0 ? 0 : ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+
+    /**
+     * Run a task after a delay without blocking the calling thread, used to retry asynchronous requests.
+     *
+     * Tasks run one at a time on a single shared thread, so they must not block, and they must handle their own
+     * exceptions since anything thrown is swallowed by the scheduler.
+     *
+     * @param task  task to run
+     * @param delayMillis  delay in milliseconds
+     */
+    public static void schedule(Runnable task, long delayMillis){
+        scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Parse the {@code Retry-After} header, which is either a number of seconds or an http date.
+     *
+     * @param response  response that may have the header
+     * @return  requested delay in milliseconds, or Optional.empty() if there is no valid header
+     */
+    protected static Optional<Long> retryAfterMillis(Response response){
+        String retryAfter = response.header("Retry-After");
+        if(retryAfter == null){
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+        } catch(NumberFormatException e){}
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Optional.of(date.toInstant().toEpochMilli() - System.currentTimeMillis());
+        } catch(Exception e){
+            return Optional.empty();
+        }
+    }
+}
@@ -12,7 +12,9 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -21,8 +23,12 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class AlexandriaConvertTest {
 
@@ -132,7 +138,96 @@ public class AlexandriaConvertTest {
 
         PathFinder pathFinder = new PathFinder();
         pathFinder.startingInPath(out.toPath());
-        assertThat(pathFinder.files()).hasSize(4);
+        assertThat(pathFinder.files()).hasSize(2);
+    }
+
+    @Test
+    public void testConvertReusesConversionWhenUnchanged() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        NoopMarkdownConverter converter = spy(new NoopMarkdownConverter());
+
+        AlexandriaConvert.convert(context, metadata, converter);
+        AlexandriaConvert.convert(context, metadata, converter);
+
+        verify(converter, times(1)).convert(any(), any(), any(String.class), any());
+        assertThat(metadata.convertedPath()).isPresent();
+        assertThat(metadata.convertedChecksum()).isPresent();
+    }
+
+    @Test
+    public void testConvertReconvertsWhenSourceChanges() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        NoopMarkdownConverter converter = spy(new NoopMarkdownConverter());
+
+        AlexandriaConvert.convert(context, metadata, converter);
+        Resources.save(metadata.sourcePath().toString(), Resources.load(metadata.sourcePath().toString()) + "\nmore", true);
+        AlexandriaConvert.convert(context, metadata, converter);
+
+        verify(converter, times(2)).convert(any(), any(), any(String.class), any());
+        assertThat(Resources.load(metadata.convertedPath().get().toString())).contains("more");
+    }
+
+    @Test
+    public void testConvertReconvertsWhenFooterChanges() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        NoopMarkdownConverter converter = spy(new NoopMarkdownConverter());
+
+        AlexandriaConvert.convert(context, metadata, converter);
+        context.disclaimerFooterEnabled(false);
+        AlexandriaConvert.convert(context, metadata, converter);
+
+        verify(converter, times(2)).convert(any(), any(), any(String.class), any());
+    }
+
+    @Test
+    public void testConvertReconvertsWhenConvertedFileRemoved() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        NoopMarkdownConverter converter = spy(new NoopMarkdownConverter());
+
+        AlexandriaConvert.convert(context, metadata, converter);
+        Files.delete(metadata.convertedPath().get());
+        AlexandriaConvert.convert(context, metadata, converter);
+
+        verify(converter, times(2)).convert(any(), any(), any(String.class), any());
+        assertThat(metadata.convertedPath().get()).exists();
+    }
+
+    @Test
+    public void testConvertReconvertsWhenLinkedRemoteUriChanges() throws Exception {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        Config.DocumentMetadata linked = TestData.minimalDocumentMetadata(context, folder);
+        NoopMarkdownConverter converter = spy(new NoopMarkdownConverter());
+        doAnswer(invocation -> {
+            ConversionCache.recordLink(linked.sourcePath(), linked.remoteUri());
+            return invocation.callRealMethod();
+        }).when(converter).convert(eq(metadata), any(), any(String.class), any());
+
+        AlexandriaConvert.convert(context, metadata, converter);
+        linked.remoteUri(Optional.of(new URI("https://www.google.com")));
+        AlexandriaConvert.convert(context, metadata, converter);
+        AlexandriaConvert.convert(context, metadata, converter);
+
+        verify(converter, times(2)).convert(eq(metadata), any(), any(String.class), any());
+        assertThat(context.conversions().conversion(metadata.sourcePath()).get().links())
+                .containsEntry(linked.sourcePath(), Optional.of(new URI("https://www.google.com")));
+    }
+
+    @Test
+    public void testConvertDoesntReuseConversionAcrossContexts() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        NoopMarkdownConverter converter = spy(new NoopMarkdownConverter());
+
+        AlexandriaConvert.convert(context, metadata, converter);
+        context.conversions(new ConversionCache());
+        AlexandriaConvert.convert(context, metadata, converter);
+
+        verify(converter, times(2)).convert(any(), any(), any(String.class), any());
     }
 
     @Test
@@ -208,9 +303,46 @@ public class AlexandriaConvertTest {
         Context context = TestData.minimalContext(folder);
         context.disclaimerFooterEnabled(true);
         Config.DocumentMetadata documentMetadata = TestData.completeDocumentMetadata(context, folder);
+        Path intermediatePath = documentMetadata.intermediateConvertedPath().get();
+        Files.deleteIfExists(intermediatePath);
         AlexandriaConvert.convert(context, documentMetadata, new NoopMarkdownConverter());
+        String expected = Resources.load(documentMetadata.sourcePath().toString()) +
+                AlexandriaConvert.FOOTER_SEPARATOR +
+                AlexandriaConvert.DEFAULT_FOOTER;
+        String finContents = Resources.load(documentMetadata.convertedPath().get().toString());
+        assertThat(finContents).isEqualTo(expected);
+        assertThat(documentMetadata.intermediateConvertedPath()).isEmpty();
+        assertThat(intermediatePath).doesNotExist();
+    }
+
+    @Test
+    public void convertAddFooterWithIntermediateFileWhenConverterCantAppendFooter() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        context.disclaimerFooterEnabled(true);
+        Config.DocumentMetadata documentMetadata = TestData.completeDocumentMetadata(context, folder);
+        MarkdownConverter converter = (metadata, source, converted) -> {
+            try {
+                Resources.save(converted.toString(), Resources.load(source.toString()));
+            } catch(IOException e){
+                throw new AlexandriaException(e);
+            }
+        };
+        AlexandriaConvert.convert(context, documentMetadata, converter);
         String intContents = Resources.load(documentMetadata.intermediateConvertedPath().get().toString());
         String finContents = Resources.load(documentMetadata.convertedPath().get().toString());
         assertThat(finContents).isEqualTo(intContents);
+        assertThat(finContents).endsWith(AlexandriaConvert.FOOTER_SEPARATOR + AlexandriaConvert.DEFAULT_FOOTER);
+    }
+
+    @Test
+    public void convertLoadsCustomFooterOnce() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Path disclaimerPath = folder.newFile("custom_footer").getAbsoluteFile().toPath();
+        Resources.save(disclaimerPath.toString(), "Custom Footer");
+        context.disclaimerFooterPath(Optional.of(disclaimerPath));
+
+        assertThat(AlexandriaConvert.footer(context)).isEqualTo("Custom Footer");
+        Resources.save(disclaimerPath.toString(), "Changed Footer", true);
+        assertThat(AlexandriaConvert.footer(context)).isEqualTo("Custom Footer");
     }
 }
@@ -2,6 +2,9 @@ package com.github.macgregor.alexandria;
 
 import com.github.macgregor.alexandria.exceptions.AlexandriaException;
 import com.github.macgregor.alexandria.exceptions.BatchProcessException;
+import com.github.macgregor.alexandria.markdown.MarkdownConverter;
+import com.github.macgregor.alexandria.markdown.NoopMarkdownConverter;
+import com.github.macgregor.alexandria.remotes.AsyncRemote;
 import com.github.macgregor.alexandria.remotes.Remote;
 import org.junit.Rule;
 import org.junit.Test;
@@ -13,6 +16,7 @@ import java.net.URISyntaxException;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -61,7 +65,124 @@ public class AlexandriaSyncTest {
         Remote remote = spy(context.remote().get());
         AlexandriaSync alexandriaSync = new AlexandriaSync(context, remote);
         alexandriaSync.syncWithRemote();
-        verify(remote, times(2)).create(metadata);
+        verify(remote, times(1)).create(metadata);
+    }
+
+    @Test
+    public void testSyncCallsBeforeSyncOnce() throws BatchProcessException, IOException {
+        Context context = TestData.minimalContext(folder);
+        Remote remote = spy(context.remote().get());
+        AlexandriaSync alexandriaSync = new AlexandriaSync(context, remote);
+        alexandriaSync.syncWithRemote();
+        verify(remote, times(1)).beforeSync();
+    }
+
+    @Test
+    public void testSyncWrapsBeforeSyncException() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Remote remote = spy(context.remote().get());
+        doThrow(new IOException("boom")).when(remote).beforeSync();
+        AlexandriaSync alexandriaSync = new AlexandriaSync(context, remote);
+        assertThatThrownBy(alexandriaSync::syncWithRemote)
+                .isInstanceOf(AlexandriaException.class)
+                .hasCauseInstanceOf(IOException.class);
+        verify(remote, times(0)).create(any());
+    }
+
+    @Test
+    public void testSyncConcurrentlyCreatesAllDocuments() throws URISyntaxException, IOException {
+        Context context = TestData.completeContext(folder);
+        context.config().jobs(4);
+        Remote remote = spy(context.remote().get());
+        AlexandriaSync alexandriaSync = new AlexandriaSync(context, remote);
+        alexandriaSync.syncWithRemote();
+        for(Config.DocumentMetadata metadata : context.config().metadata().get()){
+            if(metadata.remoteUri().isPresent()){
+                continue;
+            }
+            verify(remote, times(1)).create(metadata);
+            assertThat(metadata.sourceChecksum()).isPresent();
+        }
+    }
+
+    @Test
+    public void testSyncPipelinedCreatesAllDocuments() throws URISyntaxException, IOException {
+        Context context = TestData.completeContext(folder);
+        context.config().jobs(2);
+        context.config().pipeline(true);
+        Remote remote = spy(context.remote().get());
+        AlexandriaSync alexandriaSync = new AlexandriaSync(context, remote);
+        alexandriaSync.syncWithRemote();
+        for(Config.DocumentMetadata metadata : context.config().metadata().get()){
+            if(metadata.remoteUri().isPresent()){
+                continue;
+            }
+            verify(remote, times(1)).create(metadata);
+            assertThat(metadata.sourceChecksum()).isPresent();
+        }
+    }
+
+    @Test
+    public void testSyncInFlightCreatesAllDocuments() throws URISyntaxException, IOException {
+        Context context = TestData.completeContext(folder);
+        context.config().inFlight(4);
+        Remote remote = spy(context.remote().get());
+        AlexandriaSync alexandriaSync = new AlexandriaSync(context, remote);
+        alexandriaSync.syncWithRemote();
+        for(Config.DocumentMetadata metadata : context.config().metadata().get()){
+            if(metadata.remoteUri().isPresent()){
+                continue;
+            }
+            verify(remote, times(1)).create(metadata);
+            assertThat(metadata.sourceChecksum()).isPresent();
+        }
+        assertThat(SyncJournal.path(context)).doesNotExist();
+    }
+
+    @Test
+    public void testSyncSavesPeriodicallyWhileSyncing() throws URISyntaxException, IOException {
+        Context context = TestData.completeContext(folder);
+        context.config().jobs(4);
+        context.config().saveEvery(1);
+        SaveScheduler saves = spy(context.saves());
+        context.saves(saves);
+        AlexandriaSync alexandriaSync = new AlexandriaSync(context, context.remote().get());
+        alexandriaSync.syncWithRemote();
+        verify(saves, atLeastOnce()).changed();
+        verify(saves, atLeastOnce()).addShutdownHook();
+        verify(saves, atLeastOnce()).removeShutdownHook();
+        assertThat(saves.pending()).isEqualTo(0);
+        assertThat(SyncJournal.path(context)).doesNotExist();
+    }
+
+    @Test
+    public void testSyncInFlightUsesAsyncRemote() throws URISyntaxException, IOException {
+        Context context = TestData.completeContext(folder);
+        context.config().inFlight(4);
+        AsyncRemote remote = mock(AsyncRemote.class);
+        when(remote.twoPassSync()).thenReturn(false);
+        when(remote.markdownConverter()).thenReturn(context.remote().get().markdownConverter());
+        when(remote.createAsync(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.getArgument(0)));
+        when(remote.updateAsync(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.getArgument(0)));
+        when(remote.deleteAsync(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.getArgument(0)));
+
+        AlexandriaSync alexandriaSync = new AlexandriaSync(context, remote);
+        alexandriaSync.syncWithRemote();
+        verify(remote, atLeastOnce()).createAsync(any());
+        verify(remote, times(0)).create(any());
+    }
+
+    @Test
+    public void testSyncInFlightCollectsFailedRequests() throws URISyntaxException, IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().inFlight(4);
+        AsyncRemote remote = mock(AsyncRemote.class);
+        when(remote.markdownConverter()).thenReturn(context.remote().get().markdownConverter());
+        when(remote.createAsync(any())).thenReturn(AsyncRemote.failed(new IOException("boom")));
+
+        AlexandriaSync alexandriaSync = new AlexandriaSync(context, remote);
+        assertThatThrownBy(alexandriaSync::syncWithRemote).isInstanceOf(BatchProcessException.class);
+        assertThat(context.config().metadata().get().get(0).sourceChecksum()).isEmpty();
     }
 
     @Test
@@ -83,7 +204,7 @@ public class AlexandriaSyncTest {
         Remote remote = spy(context.remote().get());
         AlexandriaSync alexandriaSync = new AlexandriaSync(context, remote);
         alexandriaSync.syncWithRemote();
-        verify(remote, times(2)).delete(metadata);
+        verify(remote, times(1)).delete(metadata);
     }
 
     @Test
@@ -153,4 +274,54 @@ public class AlexandriaSyncTest {
         verify(remote, times(0)).update(metadata);
         verify(remote, times(0)).create(metadata);
     }
+
+    @Test
+    public void testSyncSkipsSecondPassWhenNoLinksChanged() throws BatchProcessException, IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        Remote remote = spy(context.remote().get());
+        NoopMarkdownConverter converter = spy(new NoopMarkdownConverter());
+        doReturn(converter).when(remote).markdownConverter();
+        AlexandriaSync alexandriaSync = new AlexandriaSync(context, remote);
+        alexandriaSync.syncWithRemote();
+        verify(remote, times(1)).create(metadata);
+        verify(converter, times(1)).convert(eq(metadata), any(), any(String.class), any());
+    }
+
+    @Test
+    public void testSyncSecondPassUpdatesDocumentsLinkingToCreatedDocuments() throws BatchProcessException, IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata linking = context.config().metadata().get().get(0);
+        Config.DocumentMetadata linked = TestData.minimalDocumentMetadata(context, folder);
+        Config.DocumentMetadata unrelated = TestData.minimalDocumentMetadata(context, folder);
+        Remote remote = spy(context.remote().get());
+        doAnswer(invocation -> {
+            Config.DocumentMetadata metadata = invocation.getArgument(0);
+            metadata.remoteUri(Optional.of(new URI("https://remote/" + metadata.sourceFileName())));
+            return null;
+        }).when(remote).create(any());
+        NoopMarkdownConverter converter = spy(new NoopMarkdownConverter());
+        doAnswer(invocation -> {
+            ConversionCache.recordLink(linked.sourcePath(), linked.remoteUri());
+            return invocation.callRealMethod();
+        }).when(converter).convert(eq(linking), any(), any(String.class), any());
+        doReturn(converter).when(remote).markdownConverter();
+
+        AlexandriaSync alexandriaSync = new AlexandriaSync(context, remote);
+        alexandriaSync.syncWithRemote();
+        verify(remote, times(1)).create(linking);
+        verify(remote, times(1)).update(linking);
+        verify(converter, times(2)).convert(eq(linking), any(), any(String.class), any());
+        verify(remote, times(1)).create(linked);
+        verify(remote, times(0)).update(linked);
+        verify(converter, times(1)).convert(eq(unrelated), any(), any(String.class), any());
+        assertThat(alexandriaSync.relinked()).isEmpty();
+    }
+
+    @Test
+    public void testRelinkedDocumentsIgnoresDocumentsNotConverted() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        AlexandriaSync alexandriaSync = new AlexandriaSync(context, context.remote().get());
+        assertThat(alexandriaSync.relinkedDocuments()).isEmpty();
+    }
 }
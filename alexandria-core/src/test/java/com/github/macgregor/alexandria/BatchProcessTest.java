@@ -9,6 +9,12 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -227,4 +233,206 @@ public class BatchProcessTest {
         BatchProcessException batchProcessException = (BatchProcessException)thrown;
         assertThat(batchProcessException).isEqualTo(expected);
     }
+
+    @Test
+    public void testBatchProcessConcurrentExecutesAllTasks() throws BatchProcessException {
+        BatchProcess<String> batchProcess = new BatchProcess<>(context);
+        batchProcess.jobs(4);
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+        batchProcess.execute(context -> Arrays.asList("a", "b", "c", "d", "e", "f"), (context, item) -> processed.add(item),
+                (context, exceptions) -> BatchProcess.EXCEPTIONS_UNHANDLED);
+        assertThat(processed).containsExactlyInAnyOrder("a", "b", "c", "d", "e", "f");
+    }
+
+    @Test
+    public void testBatchProcessConcurrentCollectsAllExceptions(){
+        BatchProcess<Config.DocumentMetadata> batchProcess = new BatchProcess<>(context);
+        batchProcess.jobs(4);
+        List<Config.DocumentMetadata> documents = new ArrayList<>();
+        for(int i = 0; i < 10; i++){
+            Config.DocumentMetadata documentMetadata = new Config.DocumentMetadata();
+            documentMetadata.title(Integer.toString(i));
+            documents.add(documentMetadata);
+        }
+
+        Throwable thrown = catchThrowable(() -> {
+            batchProcess.execute(context -> documents, (context, item) -> {
+                throw new AlexandriaException();
+            }, (context, exceptions) -> BatchProcess.EXCEPTIONS_UNHANDLED);
+        });
+
+        assertThat(thrown).isInstanceOf(BatchProcessException.class);
+        BatchProcessException batchProcessException = (BatchProcessException)thrown;
+        assertThat(batchProcessException.exceptions()).hasSize(10);
+        assertThat(batchProcessException.exceptions())
+                .extracting(e -> e.metadata().get())
+                .containsExactlyInAnyOrderElementsOf(documents);
+    }
+
+    @Test
+    public void testBatchProcessConcurrentCallsAfterBatchOnce(){
+        BatchProcess<String> batchProcess = new BatchProcess<>(context);
+        batchProcess.jobs(4);
+        AtomicInteger afterCalls = new AtomicInteger();
+        assertThatCode(() ->
+                batchProcess.execute(context -> Arrays.asList("a", "b", "c", "d"), (context, item) -> {
+                    throw new RuntimeException();
+                }, (context, exceptions) -> {
+                    afterCalls.incrementAndGet();
+                    assertThat(exceptions).hasSize(4);
+                    return BatchProcess.EXCEPTIONS_HANDLED;
+                })).doesNotThrowAnyException();
+        assertThat(afterCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testBatchProcessPipelinedRunsBothStages() throws BatchProcessException {
+        BatchProcess<String> batchProcess = new BatchProcess<>(context);
+        batchProcess.jobs(3);
+        batchProcess.queueSize(2);
+        Set<String> staged = ConcurrentHashMap.newKeySet();
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+        batchProcess.execute(context -> Arrays.asList("a", "b", "c", "d", "e", "f"),
+                (context, item) -> staged.add(item),
+                (context, item) -> {
+                    assertThat(staged).contains(item);
+                    processed.add(item);
+                },
+                (context, exceptions) -> BatchProcess.EXCEPTIONS_UNHANDLED);
+        assertThat(processed).containsExactlyInAnyOrder("a", "b", "c", "d", "e", "f");
+    }
+
+    @Test
+    public void testBatchProcessPipelinedSkipsTaskWhenStageFails(){
+        BatchProcess<String> batchProcess = new BatchProcess<>(context);
+        batchProcess.jobs(2);
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+        assertThatCode(() ->
+                batchProcess.execute(context -> Arrays.asList("a", "b", "c"),
+                        (context, item) -> {
+                            if("b".equals(item)){
+                                throw new AlexandriaException();
+                            }
+                        },
+                        (context, item) -> processed.add(item),
+                        (context, exceptions) -> {
+                            assertThat(exceptions).hasSize(1);
+                            return BatchProcess.EXCEPTIONS_HANDLED;
+                        })).doesNotThrowAnyException();
+        assertThat(processed).containsExactlyInAnyOrder("a", "c");
+    }
+
+    @Test
+    public void testBatchProcessPipelinedCollectsExceptionsFromBothStages(){
+        BatchProcess<String> batchProcess = new BatchProcess<>(context);
+        batchProcess.jobs(2);
+        Throwable thrown = catchThrowable(() ->
+                batchProcess.execute(context -> Arrays.asList("a", "b", "c", "d"),
+                        (context, item) -> {
+                            if("a".equals(item)){
+                                throw new AlexandriaException();
+                            }
+                        },
+                        (context, item) -> {
+                            throw new RuntimeException();
+                        },
+                        (context, exceptions) -> BatchProcess.EXCEPTIONS_UNHANDLED));
+        assertThat(thrown).isInstanceOf(BatchProcessException.class);
+        assertThat(((BatchProcessException)thrown).exceptions()).hasSize(4);
+    }
+
+    @Test(timeout = 10000)
+    public void testBatchProcessPipelinedStopsWhenAllConsumersDie(){
+        BatchProcess<String> batchProcess = new BatchProcess<>(context);
+        batchProcess.jobs(2);
+        batchProcess.queueSize(1);
+        AtomicInteger staged = new AtomicInteger();
+        Throwable thrown = catchThrowable(() ->
+                batchProcess.execute(context -> Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h"),
+                        (context, item) -> staged.incrementAndGet(),
+                        (context, item) -> {
+                            throw new AssertionError();
+                        },
+                        (context, exceptions) -> BatchProcess.EXCEPTIONS_UNHANDLED));
+        assertThat(thrown).isInstanceOf(BatchProcessException.class);
+        assertThat(((BatchProcessException)thrown).exceptions()).hasSize(2);
+        assertThat(staged.get()).isLessThan(8);
+    }
+
+    @Test
+    public void testBatchProcessAsyncExecutesAllTasks() throws BatchProcessException {
+        BatchProcess<String> batchProcess = new BatchProcess<>(context);
+        batchProcess.inFlight(2);
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+        batchProcess.executeAsync(context -> Arrays.asList("a", "b", "c", "d", "e", "f"),
+                (context, item) -> CompletableFuture.runAsync(() -> processed.add(item)),
+                (context, exceptions) -> BatchProcess.EXCEPTIONS_UNHANDLED);
+        assertThat(processed).containsExactlyInAnyOrder("a", "b", "c", "d", "e", "f");
+    }
+
+    @Test
+    public void testBatchProcessAsyncLimitsTasksInFlight() throws BatchProcessException {
+        BatchProcess<String> batchProcess = new BatchProcess<>(context);
+        batchProcess.inFlight(3);
+        AtomicInteger outstanding = new AtomicInteger();
+        AtomicInteger maxOutstanding = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            batchProcess.executeAsync(context -> Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h"), (context, item) -> {
+                maxOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+                return CompletableFuture.runAsync(() -> {
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(20);
+                    } catch (InterruptedException e) {}
+                    outstanding.decrementAndGet();
+                }, executor);
+            }, (context, exceptions) -> BatchProcess.EXCEPTIONS_UNHANDLED);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(outstanding.get()).isEqualTo(0);
+        assertThat(maxOutstanding.get()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void testBatchProcessAsyncCollectsExceptionsFromFutures(){
+        BatchProcess<Config.DocumentMetadata> batchProcess = new BatchProcess<>(context);
+        Config.DocumentMetadata documentMetadata = new Config.DocumentMetadata();
+
+        Throwable thrown = catchThrowable(() -> {
+            batchProcess.executeAsync(context -> Arrays.asList(documentMetadata), (context, item) ->
+                    CompletableFuture.runAsync(() -> {}).thenRun(() -> {
+                        throw new IllegalStateException("boom");
+                    }), (context, exceptions) -> BatchProcess.EXCEPTIONS_UNHANDLED);
+        });
+
+        assertThat(thrown).isInstanceOf(BatchProcessException.class);
+        AlexandriaException exception = ((BatchProcessException) thrown).exceptions().iterator().next();
+        assertThat(exception.getCause()).isInstanceOf(IllegalStateException.class);
+        assertThat(exception.metadata()).contains(documentMetadata);
+    }
+
+    @Test
+    public void testBatchProcessAsyncCollectsExceptionsStartingTasks(){
+        BatchProcess<Config.DocumentMetadata> batchProcess = new BatchProcess<>(context);
+        batchProcess.inFlight(1);
+        Config.DocumentMetadata documentMetadata = new Config.DocumentMetadata();
+        Set<Config.DocumentMetadata> processed = ConcurrentHashMap.newKeySet();
+        Config.DocumentMetadata other = new Config.DocumentMetadata();
+        other.title("other");
+
+        Throwable thrown = catchThrowable(() -> {
+            batchProcess.executeAsync(context -> Arrays.asList(documentMetadata, other), (context, item) -> {
+                if(item == documentMetadata){
+                    throw new AlexandriaException();
+                }
+                processed.add(item);
+                return CompletableFuture.completedFuture(null);
+            }, (context, exceptions) -> BatchProcess.EXCEPTIONS_UNHANDLED);
+        });
+
+        assertThat(thrown).isInstanceOf(BatchProcessException.class);
+        assertThat(((BatchProcessException) thrown).exceptions().iterator().next().metadata()).contains(documentMetadata);
+        assertThat(processed).containsExactly(other);
+    }
 }
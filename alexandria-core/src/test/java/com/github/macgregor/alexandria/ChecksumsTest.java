@@ -0,0 +1,102 @@
+package com.github.macgregor.alexandria;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ChecksumsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCrc32MatchesFileChecksum() throws IOException {
+        Path path = folder.newFile().toPath();
+        Resources.save(path.toString(), "foo");
+        assertThat(new Checksums().crc32(path)).isEqualTo(FileUtils.checksumCRC32(path.toFile()));
+    }
+
+    @Test
+    public void testCrc32RereadsChangedFile() throws IOException {
+        Path path = folder.newFile().toPath();
+        Resources.save(path.toString(), "foo");
+        Checksums checksums = new Checksums();
+        long before = checksums.crc32(path);
+        Resources.save(path.toString(), "foobar");
+        assertThat(checksums.crc32(path)).isNotEqualTo(before);
+    }
+
+    @Test
+    public void testCrc32CacheIsScopedToInstance() throws IOException {
+        Path path = folder.newFile().toPath();
+        FileTime modified = FileTime.fromMillis(1000000L);
+        Resources.save(path.toString(), "foo");
+        Files.setLastModifiedTime(path, modified);
+        Checksums checksums = new Checksums();
+        long before = checksums.crc32(path);
+
+        Resources.save(path.toString(), "bar");
+        Files.setLastModifiedTime(path, modified);
+        assertThat(checksums.crc32(path)).isEqualTo(before);
+        assertThat(new Checksums().crc32(path)).isEqualTo(FileUtils.checksumCRC32(path.toFile())).isNotEqualTo(before);
+    }
+
+    @Test
+    public void testFingerprintChangesWithModifiedTime() throws IOException {
+        Path path = folder.newFile().toPath();
+        Checksums.Fingerprint before = Checksums.fingerprint(path);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(before.lastModified() - 10000));
+        assertThat(Checksums.fingerprint(path)).isNotEqualTo(before);
+    }
+
+    @Test
+    public void testFingerprintThrowsOnMissingFile() {
+        assertThatThrownBy(() -> Checksums.fingerprint(folder.getRoot().toPath().resolve("missing")))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testMatchesSkipsReadWhenFingerprintUnchanged() throws IOException {
+        Path path = folder.newFile().toPath();
+        Resources.save(path.toString(), "foo");
+        assertThat(new Checksums().matches(path, -1L, Optional.of(Checksums.fingerprint(path)))).isTrue();
+    }
+
+    @Test
+    public void testVerifyReturnsCurrentFingerprintOfTouchedFile() throws IOException {
+        Path path = folder.newFile().toPath();
+        Resources.save(path.toString(), "foo");
+        Checksums.Fingerprint before = Checksums.fingerprint(path);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(before.lastModified() - 10000));
+
+        Optional<Checksums.Fingerprint> verified = new Checksums().verify(path, FileUtils.checksumCRC32(path.toFile()), Optional.of(before));
+        assertThat(verified).contains(Checksums.fingerprint(path));
+        assertThat(new Checksums().verify(path, -1L, Optional.of(before))).isEmpty();
+    }
+
+    @Test
+    public void testMatchesRereadsWithoutFingerprint() throws IOException {
+        Path path = folder.newFile().toPath();
+        Resources.save(path.toString(), "foo");
+        assertThat(new Checksums().matches(path, -1L, Optional.empty())).isFalse();
+        assertThat(new Checksums().matches(path, FileUtils.checksumCRC32(path.toFile()), Optional.empty())).isTrue();
+    }
+
+    @Test
+    public void testFingerprintRoundTripsThroughJson() throws IOException {
+        Path path = folder.newFile().toPath();
+        Checksums.Fingerprint fingerprint = Checksums.fingerprint(path);
+        String json = Jackson.jsonMapper().writeValueAsString(fingerprint);
+        assertThat(Jackson.jsonMapper().readValue(json, Checksums.Fingerprint.class)).isEqualTo(fingerprint);
+    }
+}
@@ -120,6 +120,23 @@ public class ConfigLoadTest {
         assertThat(config).isNotNull();
     }
 
+    @Test
+    public void testLoadHandlesBlankFile() throws IOException {
+        File blank = folder.newFile("blank_config.yaml");
+        Context context = Context.load(blank.getPath());
+        assertThat(context.config()).isNotNull();
+        assertThat(context.documentCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLoadOriginalConfigKeepsSettingsWithoutMetadata() throws IOException, URISyntaxException {
+        Context context = Context.load("src/test/resources/config.yaml");
+        assertThat(context.originalConfig().defaultTags()).isEqualTo(expected().defaultTags());
+        assertThat(context.originalConfig().remote().clazz()).isEqualTo(expected().remote().clazz());
+        assertThat(context.originalConfig().metadata().get()).isEmpty();
+        assertThat(context.documentCount()).isEqualTo(1);
+    }
+
     @Test
     public void testLoadHandlesMissingFile() throws IOException {
         String doesntExist = new File(folder.getRoot(), "missing_config.yaml").getPath();
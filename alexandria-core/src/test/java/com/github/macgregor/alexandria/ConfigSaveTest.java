@@ -7,6 +7,9 @@ import org.junit.rules.TemporaryFolder;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -87,6 +90,19 @@ public class ConfigSaveTest {
                 .isEqualTo(Resources.absolutePath(context.configPath().getParent(), expected.sourcePath()));
     }
 
+    @Test
+    public void testSaveKeepsWorkingPathsAbsolute() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        Path sourcePath = metadata.sourcePath();
+        Context.save(context);
+
+        assertThat(metadata.sourcePath()).isEqualTo(sourcePath);
+        assertThat(context.isIndexed(sourcePath)).contains(metadata);
+        assertThat(Resources.load(context.configPath().toString()))
+                .doesNotContain(context.configPath().getParent().toString());
+    }
+
     @Test
     public void testSaveMetadataTitle() throws IOException, URISyntaxException {
         Context context = TestData.minimalContext(folder);
@@ -183,6 +199,31 @@ public class ConfigSaveTest {
         Context.save(context);
     }
 
+    @Test
+    public void testDontSaveUnsetDefaults() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Context.save(context);
+
+        String saved = new String(Files.readAllBytes(context.configPath()), StandardCharsets.UTF_8);
+        assertThat(saved).doesNotContain("jobs", "saveEvery", "metadataStore", "maxRequests", "retryStatusCodes", "pageSize");
+        Config reloaded = Context.load(context.configPath().toString()).config();
+        assertThat(reloaded.jobs()).isEqualTo(1);
+        assertThat(reloaded.saveEvery()).isEqualTo(500);
+        assertThat(reloaded.remote().retryStatusCodes()).containsExactly(429, 502, 503, 504);
+    }
+
+    @Test
+    public void testSaveChangedDefaults() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.originalConfig().jobs(4);
+        context.originalConfig().remote().pageSize(50);
+        Context.save(context);
+
+        Config reloaded = Context.load(context.configPath().toString()).config();
+        assertThat(reloaded.jobs()).isEqualTo(4);
+        assertThat(reloaded.remote().pageSize()).isEqualTo(50);
+    }
+
     private Config saveAndReload(Config config) throws IOException {
         Context context = TestData.minimalContext(folder);
         context.config(config);
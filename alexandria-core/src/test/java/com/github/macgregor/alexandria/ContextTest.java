@@ -5,11 +5,19 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class ContextTest {
 
@@ -40,6 +48,127 @@ public class ContextTest {
         assertThat(context.isIndexed(folder.getRoot().toPath())).isEmpty();
     }
 
+    @Test
+    public void testContextIsIndexedFindsAddedMetadata() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(folder);
+        context.isIndexed(metadata.sourcePath());
+        context.addMetadata(metadata);
+        assertThat(context.isIndexed(metadata.sourcePath())).contains(metadata);
+    }
+
+    @Test
+    public void testContextIsIndexedFindsMetadataAfterListReplaced() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(folder);
+        assertThat(context.isIndexed(metadata.sourcePath())).isEmpty();
+        context.config().metadata(Optional.of(new ArrayList<>(Collections.singletonList(metadata))));
+        assertThat(context.isIndexed(metadata.sourcePath())).contains(metadata);
+    }
+
+    @Test
+    public void testContextIsIndexedFindsMetadataAfterPathsMadeRelativeAndAbsolute() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(context, folder);
+        context.makePathsRelative();
+        context.makePathsAbsolute();
+        assertThat(context.isIndexed(metadata.sourcePath())).contains(metadata);
+    }
+
+    @Test
+    public void testContextFindByRemoteUri() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(context, folder);
+        assertThat(context.findByRemoteUri(new URI("https://www.google.com"))).isEmpty();
+        metadata.remoteUri(Optional.of(new URI("https://www.google.com")));
+        context.metadataIndex().add(metadata);
+        assertThat(context.findByRemoteUri(new URI("https://www.google.com"))).contains(metadata);
+    }
+
+    @Test
+    public void testContextFindByRemoteUriIgnoresStaleEntry() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(folder);
+        metadata.remoteUri(Optional.of(new URI("https://www.google.com")));
+        context.addMetadata(metadata);
+        metadata.remoteUri(Optional.of(new URI("https://www.bing.com")));
+        assertThat(context.findByRemoteUri(new URI("https://www.google.com"))).isEmpty();
+    }
+
+    @Test
+    public void testContextFindByExtraProperty() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(folder);
+        metadata.setExtraProperty("contentId", "1234");
+        context.addMetadata(metadata);
+        assertThat(context.findByExtraProperty("contentId", "1234")).contains(metadata);
+        assertThat(context.findByExtraProperty("contentId", "5678")).isEmpty();
+    }
+
+    @Test
+    public void testContextIsIndexedReturnsFirstDuplicate() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata first = TestData.minimalDocumentMetadata(folder);
+        Config.DocumentMetadata second = TestData.minimalDocumentMetadata(first.sourcePath());
+        second.title("other");
+        context.config().metadata(Optional.of(new ArrayList<>(Arrays.asList(first, second))));
+        assertThat(context.isIndexed(first.sourcePath()).get()).isSameAs(first);
+    }
+
+    @Test(timeout = 10000)
+    public void testMetadataIndexLookupsDontWaitOnContextLock() throws Exception {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        context.reindex();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread saving = new Thread(() -> {
+            synchronized (context) {
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {}
+            }
+        });
+        saving.start();
+        locked.await();
+        try {
+            assertThat(context.isIndexed(metadata.sourcePath())).contains(metadata);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testMetadataIndexReplaceKeepsPosition() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().metadata(Optional.of(new ArrayList<>()));
+        Config.DocumentMetadata first = TestData.minimalDocumentMetadata(context, folder);
+        Config.DocumentMetadata second = TestData.minimalDocumentMetadata(context, folder);
+        Config.DocumentMetadata replacement = TestData.minimalDocumentMetadata(first.sourcePath());
+
+        assertThat(context.metadataIndex().replace(first, replacement)).isTrue();
+        assertThat(context.config().metadata().get()).containsExactly(replacement, second);
+        assertThat(context.config().metadata().get().get(0)).isSameAs(replacement);
+        assertThat(context.isIndexed(first.sourcePath()).get()).isSameAs(replacement);
+    }
+
+    @Test
+    public void testMetadataIndexReplaceFindsMovedDocument() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().metadata(Optional.of(new ArrayList<>()));
+        Config.DocumentMetadata first = TestData.minimalDocumentMetadata(context, folder);
+        Config.DocumentMetadata second = TestData.minimalDocumentMetadata(context, folder);
+        Config.DocumentMetadata replacement = TestData.minimalDocumentMetadata(second.sourcePath());
+        MetadataIndex index = context.metadataIndex();
+        Collections.swap(context.config().metadata().get(), 0, 1);
+
+        assertThat(index.replace(second, replacement)).isTrue();
+        assertThat(context.config().metadata().get().get(0)).isSameAs(replacement);
+        assertThat(context.config().metadata().get().get(1)).isSameAs(first);
+        assertThat(index.replace(second, replacement)).isFalse();
+    }
+
     @Test
     public void testContextMetadataCountReturnsZeroWhenNoMetadata() throws IOException {
         Context context = TestData.minimalContext(folder);
@@ -107,4 +236,123 @@ public class ContextTest {
         context.makePathsRelative();
         assertThat(context.disclaimerFooterPath()).isEmpty();
     }
+
+    @Test
+    public void testContextFindInDirectoryFindsNestedDocuments() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Path docs = folder.getRoot().toPath().resolve("docs");
+        Config.DocumentMetadata readme = documentAt(context, docs.resolve("readme.md"));
+        Config.DocumentMetadata nested = documentAt(context, docs.resolve("guide").resolve("intro.md"));
+        documentAt(context, folder.getRoot().toPath().resolve("docs-old").resolve("readme.md"));
+        documentAt(context, folder.getRoot().toPath().resolve("other.md"));
+
+        assertThat(context.findInDirectory(docs)).containsExactly(nested, readme);
+        assertThat(context.findInDirectory(Paths.get("docs"))).containsExactly(nested, readme);
+    }
+
+    @Test
+    public void testContextFindInDirectoryFindsMetadataAddedAfterLookup() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Path docs = folder.getRoot().toPath().resolve("docs");
+        assertThat(context.findInDirectory(docs)).isEmpty();
+        Config.DocumentMetadata readme = documentAt(context, docs.resolve("readme.md"));
+        assertThat(context.findInDirectory(docs)).containsExactly(readme);
+    }
+
+    @Test
+    public void testContextFindInDirectoryIgnoresMovedDocuments() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Path docs = folder.getRoot().toPath().resolve("docs");
+        Config.DocumentMetadata readme = documentAt(context, docs.resolve("readme.md"));
+        context.findInDirectory(docs);
+        readme.sourcePath(folder.getRoot().toPath().resolve("readme.md"));
+        assertThat(context.findInDirectory(docs)).isEmpty();
+    }
+
+    @Test
+    public void testContextUseMetadataStoreLoadsAndSavesChoice() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.metadataStore();
+        context.useMetadataStore(CountingMetadataStore.class.getName());
+
+        assertThat(context.metadataStore()).isInstanceOf(CountingMetadataStore.class);
+        assertThat(((CountingMetadataStore) context.metadataStore()).loads).isEqualTo(1);
+        assertThat(context.originalConfig().metadataStore()).isEqualTo(CountingMetadataStore.class.getName());
+
+        MetadataStore store = context.metadataStore();
+        context.useMetadataStore(CountingMetadataStore.class.getName());
+        assertThat(context.metadataStore()).isSameAs(store);
+    }
+
+    @Test
+    public void testContextMetadataStoreDefaultsToSyncState() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        assertThat(context.metadataStore()).isInstanceOf(SyncStateStore.class);
+        assertThat(context.metadataStore()).isSameAs(context.metadataStore());
+    }
+
+    @Test
+    public void testContextLoadAndSaveUseConfiguredMetadataStore() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().metadataStore(CountingMetadataStore.class.getName());
+        context.originalConfig().metadataStore(CountingMetadataStore.class.getName());
+        Context.save(context);
+        assertThat(((CountingMetadataStore) context.metadataStore()).saves).isEqualTo(1);
+        assertThat(SyncState.path(context)).doesNotExist();
+
+        Context loaded = Context.load(context.configPath().toString());
+        assertThat(loaded.metadataStore()).isInstanceOf(CountingMetadataStore.class);
+        assertThat(((CountingMetadataStore) loaded.metadataStore()).loads).isEqualTo(1);
+    }
+
+    @Test
+    public void testContextSaveWritesStateBeforeConfig() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Context.save(context);
+        String saved = Resources.load(context.configPath().toString());
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.title("changed");
+        SyncJournal.append(context, metadata);
+
+        context.metadataStore(new FailingMetadataStore());
+        assertThatThrownBy(() -> Context.save(context)).isInstanceOf(IOException.class);
+        assertThat(Resources.load(context.configPath().toString())).isEqualTo(saved);
+        assertThat(SyncJournal.path(context)).exists();
+    }
+
+    private static Config.DocumentMetadata documentAt(Context context, Path sourcePath){
+        Config.DocumentMetadata metadata = new Config.DocumentMetadata();
+        metadata.sourcePath(sourcePath);
+        metadata.title(sourcePath.getFileName().toString());
+        context.addMetadata(metadata);
+        return metadata;
+    }
+
+    public static class FailingMetadataStore extends SyncStateStore {
+        @Override
+        public int load(Context context) {
+            return 0;
+        }
+
+        @Override
+        public void save(Context context, List<Config.DocumentMetadata> documents) throws IOException {
+            throw new IOException("disk full");
+        }
+    }
+
+    public static class CountingMetadataStore extends SyncStateStore {
+        private int loads = 0;
+        private int saves = 0;
+
+        @Override
+        public int load(Context context) {
+            loads++;
+            return 0;
+        }
+
+        @Override
+        public void save(Context context, List<Config.DocumentMetadata> documents) {
+            saves++;
+        }
+    }
 }
@@ -8,7 +8,9 @@ import org.junit.rules.TemporaryFolder;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Collections;
@@ -161,4 +163,47 @@ public class DocumentMetadataTest {
         metadata.sourceChecksum(Optional.empty());
         assertThat(metadata.determineState()).isEqualTo(Config.DocumentMetadata.State.CURRENT);
     }
+
+    @Test
+    public void determinesStateCurrentWhenFingerprintUnchanged() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.remoteUri(Optional.of(new URI("foo")));
+        metadata.sourceChecksum(Optional.of(-1L));
+        metadata.sourceFingerprint(Optional.of(Checksums.fingerprint(metadata.sourcePath())));
+        assertThat(metadata.determineState()).isEqualTo(Config.DocumentMetadata.State.CURRENT);
+    }
+
+    @Test
+    public void determinesStateUpdateWhenFingerprintChanged() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.remoteUri(Optional.of(new URI("foo")));
+        metadata.updateSourceChecksum();
+        Resources.save(metadata.sourcePath().toString(), "changed contents");
+        assertThat(metadata.determineState()).isEqualTo(Config.DocumentMetadata.State.UPDATE);
+    }
+
+    @Test
+    public void determinesStateRecordsFingerprintOfTouchedFile() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.remoteUri(Optional.of(new URI("foo")));
+        metadata.updateSourceChecksum();
+        Checksums.Fingerprint before = metadata.sourceFingerprint().get();
+        Files.setLastModifiedTime(metadata.sourcePath(), FileTime.fromMillis(before.lastModified() - 10000));
+
+        assertThat(metadata.determineState()).isEqualTo(Config.DocumentMetadata.State.CURRENT);
+        assertThat(metadata.sourceFingerprint()).contains(Checksums.fingerprint(metadata.sourcePath()));
+        assertThat(metadata.sourceFingerprint().get()).isNotEqualTo(before);
+    }
+
+    @Test
+    public void updateSourceChecksumSetsChecksumAndFingerprint() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.updateSourceChecksum();
+        assertThat(metadata.sourceChecksum()).contains(FileUtils.checksumCRC32(metadata.sourcePath().toFile()));
+        assertThat(metadata.sourceFingerprint()).contains(Checksums.fingerprint(metadata.sourcePath()));
+    }
 }
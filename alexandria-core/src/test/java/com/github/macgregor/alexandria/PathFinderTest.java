@@ -47,6 +47,38 @@ public class PathFinderTest {
         testPathFinder(pathFinder, "readme-a.md");
     }
 
+    @Test
+    public void testPathFinderPrunesExcludedDirectories() throws IOException {
+        PathFinder pathFinder = new PathFinder()
+                .startingIn(projectBase().toString())
+                .excluding("exclude");
+        testPathFinder(pathFinder, "readme-a.md", "readme-a.txt", "readme-b.md", "readme-b.txt");
+    }
+
+    @Test
+    public void testPathFinderPrunesExcludedDirectoriesBelowForkDepth() throws IOException {
+        PathFinder pathFinder = new PathFinder()
+                .startingIn(projectBase().toString())
+                .excluding("subdir");
+        testPathFinder(pathFinder, "readme-a.md", "readme-b.md", "ignore-a.md", "ignore-b.md");
+    }
+
+    @Test
+    public void testPathFinderPrunesGlobExcludedDirectories() throws IOException {
+        PathFinder pathFinder = new PathFinder()
+                .startingIn(projectBase().toString())
+                .excluding("**/exclude");
+        testPathFinder(pathFinder, "readme-a.md", "readme-a.txt", "readme-b.md", "readme-b.txt");
+    }
+
+    @Test
+    public void testPathFinderNonRecursiveIgnoresDirectories() throws IOException {
+        PathFinder pathFinder = new PathFinder()
+                .startingIn(moduleABase().toString())
+                .recursive(false);
+        assertThat(pathFinder.files()).isEmpty();
+    }
+
     @Test
     public void testPathFinderIncludeAndExcludeExactFilename() throws IOException {
         PathFinder pathFinder = new PathFinder()
@@ -11,6 +11,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -48,6 +49,29 @@ public class ResourcesTest {
                 .withMessageContaining("Refusing to overwrite existing file.");
     }
 
+    @Test
+    public void testSaveAtomicallyNewFile() throws IOException {
+        File f = new File(folder.getRoot(), "out");
+        Resources.saveAtomically(f.toPath(), "hello".getBytes(StandardCharsets.UTF_8));
+        assertThat(f).hasContent("hello");
+    }
+
+    @Test
+    public void testSaveAtomicallyReplacesFileWithoutLeavingTempFiles() throws IOException {
+        File f = new File(folder.getRoot(), "out");
+        Resources.saveAtomically(f.toPath(), "hello".getBytes(StandardCharsets.UTF_8));
+        Resources.saveAtomically(f.toPath(), "world".getBytes(StandardCharsets.UTF_8));
+        assertThat(f).hasContent("world");
+        assertThat(folder.getRoot().list()).containsExactly("out");
+    }
+
+    @Test
+    public void testSaveAtomicallyCreatesParentDirectories() throws IOException {
+        File f = new File(folder.getRoot(), "subdir/out");
+        Resources.saveAtomically(f.toPath(), "hello".getBytes(StandardCharsets.UTF_8));
+        assertThat(f).hasContent("hello");
+    }
+
     @Test
     public void testSaveRefusesToOverwriteDirectory() throws IOException {
         File f = folder.newFolder("subdir");
@@ -0,0 +1,157 @@
+package com.github.macgregor.alexandria;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SaveSchedulerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testChangedSavesAfterSaveEveryDocuments() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().saveEvery(2);
+        context.saves().changed();
+        assertThat(context.configPath()).doesNotExist();
+        assertThat(context.saves().pending()).isEqualTo(1);
+
+        context.saves().changed();
+        assertThat(context.configPath()).exists();
+        assertThat(context.saves().pending()).isEqualTo(0);
+    }
+
+    @Test
+    public void testChangedDoesntSaveBeforeInterval() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().saveEvery(0);
+        context.config().saveInterval(3600);
+        context.saves().changed();
+        assertThat(context.configPath()).doesNotExist();
+    }
+
+    @Test
+    public void testChangedDoesntSaveWhenDisabled() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().saveEvery(0);
+        context.config().saveInterval(0);
+        for(int i = 0; i < 10; i++){
+            context.saves().changed();
+        }
+        assertThat(context.configPath()).doesNotExist();
+        assertThat(context.saves().pending()).isEqualTo(10);
+    }
+
+    @Test
+    public void testChangedFoldsJournalIntoSave() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        context.config().saveEvery(1);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.remoteUri(Optional.of(new URI("https://www.google.com")));
+        SyncJournal.append(context, metadata);
+
+        context.saves().changed();
+        assertThat(SyncJournal.path(context)).doesNotExist();
+        assertThat(Context.load(context.configPath().toString()).config().metadata().get().get(0).remoteUri())
+                .isEqualTo(metadata.remoteUri());
+    }
+
+    @Test
+    public void testChangedSavesRecordedCopiesWhileStarted() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        context.config().saveEvery(1);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        context.saves().start();
+        try {
+            metadata.remoteUri(Optional.of(new URI("https://www.google.com/syncing")));
+            context.saves().changed();
+            assertThat(Context.load(context.configPath().toString()).config().metadata().get().get(0).remoteUri()).isEmpty();
+
+            Config.DocumentMetadata copy = metadata.copy();
+            context.saves().record(metadata, copy);
+            metadata.remoteUri(Optional.of(new URI("https://www.google.com/changed")));
+            context.saves().changed();
+            assertThat(Context.load(context.configPath().toString()).config().metadata().get().get(0).remoteUri())
+                    .isEqualTo(copy.remoteUri());
+        } finally {
+            context.saves().stop();
+        }
+
+        context.saves().changed();
+        assertThat(Context.load(context.configPath().toString()).config().metadata().get().get(0).remoteUri())
+                .isEqualTo(metadata.remoteUri());
+    }
+
+    @Test
+    public void testChangedKeepsJournalWhenSaveFails() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().saveEvery(1);
+        context.metadataStore(new ContextTest.FailingMetadataStore());
+        SyncJournal.append(context, context.config().metadata().get().get(0));
+
+        context.saves().changed();
+        assertThat(SyncJournal.path(context)).exists();
+    }
+
+    @Test
+    public void testIsDueWaitsForInterval() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().saveEvery(0);
+        context.config().saveInterval(1);
+        assertThat(context.saves().isDue(1)).isFalse();
+        context.config().saveInterval(0);
+        assertThat(context.saves().isDue(1)).isFalse();
+    }
+
+    @Test
+    public void testIsDueIgnoresNoChanges() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().saveEvery(1);
+        assertThat(context.saves().isDue(0)).isFalse();
+    }
+
+    @Test
+    public void testFlushSavesPendingChanges() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().saveEvery(0);
+        context.config().saveInterval(0);
+        context.saves().changed();
+        context.saves().flush();
+        assertThat(context.configPath()).exists();
+        assertThat(context.saves().pending()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFlushWithoutChangesDoesntSave() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.saves().flush();
+        assertThat(context.configPath()).doesNotExist();
+    }
+
+    @Test
+    public void testSaveResetsPendingChanges() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().saveEvery(0);
+        context.config().saveInterval(0);
+        context.saves().changed();
+        Context.save(context);
+        assertThat(context.saves().pending()).isEqualTo(0);
+    }
+
+    @Test
+    public void testShutdownHookCanBeAddedAndRemovedRepeatedly() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.saves().addShutdownHook();
+        context.saves().addShutdownHook();
+        context.saves().removeShutdownHook();
+        context.saves().removeShutdownHook();
+    }
+}
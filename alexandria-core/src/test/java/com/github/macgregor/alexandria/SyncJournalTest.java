@@ -0,0 +1,136 @@
+package com.github.macgregor.alexandria;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SyncJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testJournalPathIsNextToConfig() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        assertThat(SyncJournal.path(context).toString()).isEqualTo(context.configPath().toString() + ".journal");
+    }
+
+    @Test
+    public void testAppendWritesOneLinePerRecord() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(context, folder);
+        SyncJournal.append(context, metadata);
+        SyncJournal.append(context, metadata);
+        assertThat(Files.readAllLines(SyncJournal.path(context))).hasSize(2);
+    }
+
+    @Test
+    public void testAppendWritesRelativeSourcePath() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(context, folder);
+        SyncJournal.append(context, metadata);
+        assertThat(Files.readAllLines(SyncJournal.path(context)).get(0))
+                .contains(String.format("\"sourcePath\":\"%s\"", metadata.sourcePath().getFileName().toString()));
+        assertThat(metadata.sourcePath().isAbsolute()).isTrue();
+    }
+
+    @Test
+    public void testReplayWithoutJournalDoesNothing() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        assertThat(SyncJournal.replay(context)).isEqualTo(0);
+    }
+
+    @Test
+    public void testReplayReplacesIndexedMetadata() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(context, folder);
+        metadata.remoteUri(Optional.of(new URI("https://www.google.com")));
+        SyncJournal.append(context, metadata);
+        metadata.remoteUri(Optional.empty());
+        int documentCount = context.documentCount();
+
+        assertThat(SyncJournal.replay(context)).isEqualTo(1);
+        assertThat(context.documentCount()).isEqualTo(documentCount);
+        assertThat(context.isIndexed(metadata.sourcePath()).get().remoteUri()).contains(new URI("https://www.google.com"));
+    }
+
+    @Test
+    public void testReplayReplacesMetadataInPlace() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().metadata(Optional.of(new ArrayList<>()));
+        Config.DocumentMetadata first = TestData.minimalDocumentMetadata(context, folder);
+        Config.DocumentMetadata second = TestData.minimalDocumentMetadata(context, folder);
+        SyncJournal.append(context, first);
+
+        SyncJournal.replay(context);
+        assertThat(context.config().metadata().get()).hasSize(2);
+        assertThat(context.config().metadata().get().get(0)).isNotSameAs(first).isEqualTo(first);
+        assertThat(context.config().metadata().get().get(1)).isSameAs(second);
+    }
+
+    @Test
+    public void testReplayAddsUnindexedMetadata() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(folder);
+        SyncJournal.append(context, metadata);
+
+        SyncJournal.replay(context);
+        assertThat(context.isIndexed(metadata.sourcePath())).isPresent();
+    }
+
+    @Test
+    public void testReplayLastRecordWins() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(context, folder);
+        metadata.sourceChecksum(Optional.of(1L));
+        SyncJournal.append(context, metadata);
+        metadata.sourceChecksum(Optional.of(2L));
+        SyncJournal.append(context, metadata);
+
+        SyncJournal.replay(context);
+        assertThat(context.isIndexed(metadata.sourcePath()).get().sourceChecksum()).contains(2L);
+    }
+
+    @Test
+    public void testReplaySkipsPartialRecord() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(context, folder);
+        SyncJournal.append(context, metadata);
+        Files.write(SyncJournal.path(context), "{\"sourcePath\":\"trunc".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertThat(SyncJournal.replay(context)).isEqualTo(1);
+    }
+
+    @Test
+    public void testSaveClearsJournal() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(context, folder);
+        SyncJournal.append(context, metadata);
+
+        Context.save(context);
+        assertThat(SyncJournal.path(context)).doesNotExist();
+    }
+
+    @Test
+    public void testLoadReplaysJournal() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(context, folder);
+        Context.save(context);
+        metadata.remoteUri(Optional.of(new URI("https://www.google.com")));
+        SyncJournal.append(context, metadata);
+
+        Context reloaded = Context.load(context.configPath().toString());
+        assertThat(reloaded.isIndexed(metadata.sourcePath()).get().remoteUri()).contains(new URI("https://www.google.com"));
+    }
+}
@@ -0,0 +1,426 @@
+package com.github.macgregor.alexandria;
+
+import com.github.macgregor.alexandria.remotes.Remote;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SyncStateTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStatePathIsNextToConfig() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        assertThat(SyncState.path(context).toString()).isEqualTo(context.configPath().toString() + ".state");
+    }
+
+    @Test
+    public void testLoadWithoutStateDoesNothing() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        assertThat(SyncState.load(context)).isEqualTo(0);
+    }
+
+    @Test
+    public void testSaveAndLoadRoundTripsState() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        managing(context, "convertedPath");
+        Config.DocumentMetadata metadata = TestData.completeDocumentMetadata(context, folder);
+        metadata.lastUpdated(Optional.of(ZonedDateTime.of(2019, 3, 4, 5, 6, 7, 123456789, ZoneId.of("America/New_York"))));
+        metadata.sourceFingerprint(Optional.of(new Checksums.Fingerprint(10, 20, "key")));
+        metadata.convertedFingerprint(Optional.of(new Checksums.Fingerprint(30, 40, null)));
+        metadata.convertedChecksum(Optional.of(50L));
+        Config.DocumentMetadata expected = copy(metadata);
+        SyncState.save(context);
+
+        clearState(metadata);
+        assertThat(SyncState.load(context)).isEqualTo(context.documentCount());
+        assertThat(metadata.remoteUri()).isEqualTo(expected.remoteUri());
+        assertThat(metadata.sourceChecksum()).isEqualTo(expected.sourceChecksum());
+        assertThat(metadata.convertedChecksum()).isEqualTo(expected.convertedChecksum());
+        assertThat(metadata.sourceFingerprint()).isEqualTo(expected.sourceFingerprint());
+        assertThat(metadata.convertedFingerprint()).isEqualTo(expected.convertedFingerprint());
+        assertThat(metadata.createdOn()).isEqualTo(expected.createdOn());
+        assertThat(metadata.lastUpdated()).isEqualTo(expected.lastUpdated());
+        assertThat(metadata.deletedOn()).isEqualTo(expected.deletedOn());
+        assertThat(metadata.extraProps()).isEqualTo(expected.extraProps());
+    }
+
+    @Test
+    public void testLoadKeepsMissingStateEmpty() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        SyncState.save(context);
+        SyncState.load(context);
+        assertThat(metadata.remoteUri()).isEmpty();
+        assertThat(metadata.convertedFingerprint()).isEmpty();
+        assertThat(metadata.deletedOn()).isEmpty();
+    }
+
+    @Test
+    public void testLoadPrefersStateFromConfig() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        managing(context, "saved", "override");
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.remoteUri(Optional.of(new URI("https://saved")));
+        metadata.extraProps(Optional.of(new HashMap<>(Collections.singletonMap("saved", "saved"))));
+        SyncState.save(context);
+
+        metadata.remoteUri(Optional.of(new URI("https://override")));
+        metadata.extraProps(Optional.of(new HashMap<>(Collections.singletonMap("override", "override"))));
+        SyncState.load(context);
+        assertThat(metadata.remoteUri()).contains(new URI("https://override"));
+        assertThat(metadata.extraProps().get())
+                .containsEntry("saved", "saved")
+                .containsEntry("override", "override");
+    }
+
+    @Test
+    public void testSaveOnlyKeepsManagedExtraProps() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        managing(context, "managed");
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.setExtraProperty("managed", "managed");
+        metadata.setExtraProperty("user", "user");
+        SyncState.save(context);
+
+        metadata.extraProps(Optional.empty());
+        SyncState.load(context);
+        assertThat(metadata.extraProps().get())
+                .containsEntry("managed", "managed")
+                .doesNotContainKey("user");
+    }
+
+    @Test
+    public void testManagedPropertiesFallBackToSavedState() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        managing(context, "managed");
+        SyncState.save(context);
+
+        Context reloaded = Context.load(context.configPath().toString());
+        assertThat(reloaded.remote()).isEmpty();
+        assertThat(SyncState.managedProperties(reloaded)).containsExactly("managed");
+    }
+
+    @Test
+    public void testLoadReadsVersion1State() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        ZonedDateTime createdOn = ZonedDateTime.of(2018, 6, 22, 18, 42, 59, 652000000, ZoneId.of("UTC"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SyncState.MAGIC);
+            out.writeInt(1);
+            out.writeInt(1);
+            writeString(out, Resources.relativeTo(context.configPath().getParent(), metadata.sourcePath()).toString());
+            out.writeInt(1 << 5);
+            for(int i = 0; i < 6; i++){
+                out.writeLong(0L);
+            }
+            out.writeLong(createdOn.toInstant().toEpochMilli());
+            out.writeLong(0L);
+            out.writeLong(0L);
+            for(String value : Arrays.asList(null, null, null, "UTC", null, null)){
+                writeString(out, value);
+            }
+            out.writeInt(1);
+            writeString(out, "user");
+            writeString(out, "user");
+        }
+        Files.write(SyncState.path(context), bytes.toByteArray());
+
+        assertThat(SyncState.load(context)).isEqualTo(1);
+        assertThat(metadata.createdOn()).contains(createdOn);
+        assertThat(metadata.extraProps().get()).containsEntry("user", "user");
+        assertThat(context.stateProperties()).isEmpty();
+    }
+
+    @Test
+    public void testLoadIgnoresDocumentsNoLongerIndexed() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.minimalDocumentMetadata(context, folder);
+        metadata.remoteUri(Optional.of(new URI("https://www.google.com")));
+        SyncState.save(context);
+
+        context.config().metadata().get().remove(metadata);
+        assertThat(SyncState.load(context)).isEqualTo(context.documentCount());
+    }
+
+    @Test
+    public void testLoadReindexesRemoteUri() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.remoteUri(Optional.of(new URI("https://www.google.com")));
+        SyncState.save(context);
+
+        metadata.remoteUri(Optional.empty());
+        context.reindex();
+        SyncState.load(context);
+        assertThat(context.findByRemoteUri(new URI("https://www.google.com"))).contains(metadata);
+    }
+
+    @Test
+    public void testLoadRejectsOtherFiles() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        Files.write(SyncState.path(context), "not state".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> SyncState.load(context)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testLoadRejectsTruncatedFiles() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        TestData.completeDocumentMetadata(context, folder);
+        SyncState.save(context);
+        byte[] saved = Files.readAllBytes(SyncState.path(context));
+        Files.write(SyncState.path(context), Arrays.copyOf(saved, saved.length - 5));
+        assertThatThrownBy(() -> SyncState.load(context)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testSaveKeepsStateOutOfConfig() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        managing(context, "contentId");
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.remoteUri(Optional.of(new URI("https://www.google.com")));
+        metadata.setExtraProperty("contentId", "5678");
+        metadata.sourceChecksum(Optional.of(1234L));
+        metadata.createdOn(Optional.of(ZonedDateTime.parse("2018-06-22T18:42:59.652+0000", DateTimeFormatter.ofPattern(Config.ALEXANDRIA_DATETIME_PATTERN))));
+        Context.save(context);
+
+        String config = Resources.load(context.configPath().toString());
+        assertThat(config).contains(metadata.title());
+        assertThat(config).doesNotContain("google").doesNotContain("1234").doesNotContain("createdOn").doesNotContain("5678");
+        assertThat(SyncState.path(context)).exists();
+
+        Config.DocumentMetadata reloaded = Context.load(context.configPath().toString()).config().metadata().get().get(0);
+        assertThat(reloaded.remoteUri()).isEqualTo(metadata.remoteUri());
+        assertThat(reloaded.sourceChecksum()).isEqualTo(metadata.sourceChecksum());
+        assertThat(reloaded.createdOn()).isEqualTo(metadata.createdOn());
+        assertThat(reloaded.getExtraProperty("contentId")).isEqualTo("5678");
+    }
+
+    @Test
+    public void testSaveKeepsUserExtraPropsInConfig() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        managing(context, "contentId");
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.setExtraProperty("contentId", "5678");
+        metadata.setExtraProperty("parentUri", "https://parent");
+        Context.save(context);
+
+        assertThat(Resources.load(context.configPath().toString())).contains("parentUri").contains("https://parent");
+        Config.DocumentMetadata reloaded = Context.load(context.configPath().toString()).config().metadata().get().get(0);
+        assertThat(reloaded.extraProps().get())
+                .containsEntry("contentId", "5678")
+                .containsEntry("parentUri", "https://parent");
+    }
+
+    @Test
+    public void testUserExtraPropsRemovedFromConfigStayRemoved() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        managing(context, "contentId");
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.setExtraProperty("parentUri", "https://parent");
+        Context.save(context);
+
+        String config = Resources.load(context.configPath().toString());
+        Resources.save(context.configPath().toString(), config.replaceAll("(?m)^.*parentUri.*$", ""));
+        Config.DocumentMetadata reloaded = Context.load(context.configPath().toString()).config().metadata().get().get(0);
+        assertThat(reloaded.hasExtraProperty("parentUri")).isFalse();
+    }
+
+    @Test
+    public void testWithoutStateKeepsUserConfig() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.completeDocumentMetadata(context, folder);
+        metadata.setExtraProperty("user", "user");
+        Config.DocumentMetadata config = SyncState.withoutState(metadata, Collections.singleton("convertedPath"));
+        assertThat(config.sourcePath()).isEqualTo(metadata.sourcePath());
+        assertThat(config.title()).isEqualTo(metadata.title());
+        assertThat(config.tags()).isEqualTo(metadata.tags());
+        assertThat(config.remoteUri()).isEmpty();
+        assertThat(config.sourceChecksum()).isEmpty();
+        assertThat(config.extraProps()).contains(Collections.singletonMap("user", "user"));
+    }
+
+    @Test
+    public void testWithoutStateOmitsEmptyExtraProps() throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        Config.DocumentMetadata metadata = TestData.completeDocumentMetadata(context, folder);
+        assertThat(SyncState.withoutState(metadata, Collections.singleton("convertedPath")).extraProps()).isEmpty();
+    }
+
+    @Test
+    public void testStatePathWithDirectorySharding() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().stateSharding(Config.StateSharding.DIRECTORY);
+        assertThat(SyncState.path(context, Paths.get("docs", "guide", "readme.md")))
+                .isEqualTo(SyncState.shardPath(context).resolve("dir-docs.state"));
+        assertThat(SyncState.path(context, Paths.get("readme.md")))
+                .isEqualTo(SyncState.shardPath(context).resolve("root.state"));
+    }
+
+    @Test
+    public void testStatePathWithHashSharding() throws IOException {
+        Context context = TestData.minimalContext(folder);
+        context.config().stateSharding(Config.StateSharding.HASH);
+        context.config().stateShards(4);
+        Path relativePath = Paths.get("docs", "readme.md");
+        assertThat(SyncState.path(context, relativePath))
+                .isEqualTo(SyncState.shardPath(context).resolve(String.format("bucket-%d.state", Math.floorMod(relativePath.toString().hashCode(), 4))));
+    }
+
+    @Test
+    public void testSaveWithDirectoryShardingWritesShardPerDirectory() throws IOException, URISyntaxException {
+        Context context = shardedContext(Config.StateSharding.DIRECTORY);
+        assertThat(SyncState.save(context)).isEqualTo(3);
+        assertThat(SyncState.path(context)).doesNotExist();
+        assertThat(SyncState.shardPath(context).resolve("dir-a.state")).exists();
+        assertThat(SyncState.shardPath(context).resolve("dir-b.state")).exists();
+        assertThat(SyncState.shardPath(context).resolve("root.state")).exists();
+    }
+
+    @Test
+    public void testSaveAndLoadRoundTripsShardedState() throws IOException, URISyntaxException {
+        Context context = shardedContext(Config.StateSharding.HASH);
+        SyncState.save(context);
+        for(Config.DocumentMetadata metadata : context.config().metadata().get()){
+            metadata.remoteUri(Optional.empty());
+        }
+
+        assertThat(SyncState.load(context)).isEqualTo(context.documentCount());
+        for(Config.DocumentMetadata metadata : context.config().metadata().get()){
+            assertThat(metadata.remoteUri()).contains(new URI("https://" + metadata.title()));
+        }
+    }
+
+    @Test
+    public void testSaveOnlyRewritesChangedShards() throws IOException, URISyntaxException {
+        Context context = shardedContext(Config.StateSharding.DIRECTORY);
+        SyncState.save(context);
+        Config.DocumentMetadata changed = context.config().metadata().get().get(0);
+        changed.remoteUri(Optional.of(new URI("https://changed")));
+
+        assertThat(SyncState.save(context)).isEqualTo(1);
+        assertThat(SyncState.save(context)).isEqualTo(0);
+    }
+
+    @Test
+    public void testSaveRewritesShardChangedOnDisk() throws IOException, URISyntaxException {
+        Context context = shardedContext(Config.StateSharding.DIRECTORY);
+        SyncState.save(context);
+        Files.delete(SyncState.shardPath(context).resolve("dir-a.state"));
+        assertThat(SyncState.save(context)).isEqualTo(1);
+        assertThat(SyncState.shardPath(context).resolve("dir-a.state")).exists();
+    }
+
+    @Test
+    public void testSaveMigratesBetweenLayouts() throws IOException, URISyntaxException {
+        Context context = shardedContext(Config.StateSharding.NONE);
+        SyncState.save(context);
+
+        context.config().stateSharding(Config.StateSharding.DIRECTORY);
+        SyncState.load(context);
+        SyncState.save(context);
+        assertThat(SyncState.path(context)).doesNotExist();
+        assertThat(SyncState.stateFiles(context)).hasSize(3);
+
+        context.config().stateSharding(Config.StateSharding.NONE);
+        SyncState.save(context);
+        assertThat(SyncState.path(context)).exists();
+        assertThat(SyncState.shardPath(context)).doesNotExist();
+    }
+
+    @Test
+    public void testSaveRemovesEmptyShards() throws IOException, URISyntaxException {
+        Context context = shardedContext(Config.StateSharding.DIRECTORY);
+        SyncState.save(context);
+        Config.DocumentMetadata removed = context.config().metadata().get().stream()
+                .filter(metadata -> metadata.title().equals("b"))
+                .findFirst().get();
+        context.config().metadata().get().remove(removed);
+
+        SyncState.save(context);
+        assertThat(SyncState.shardPath(context).resolve("dir-b.state")).doesNotExist();
+    }
+
+    private static void managing(Context context, String... keys){
+        Remote remote = mock(Remote.class);
+        when(remote.managedProperties()).thenReturn(new HashSet<>(Arrays.asList(keys)));
+        context.remote(Optional.of(remote));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if(value == null){
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Config.DocumentMetadata copy(Config.DocumentMetadata metadata){
+        Config.DocumentMetadata copy = new Config.DocumentMetadata();
+        SyncState.merge(copy, metadata);
+        return copy;
+    }
+
+    private Context shardedContext(Config.StateSharding sharding) throws IOException, URISyntaxException {
+        Context context = TestData.minimalContext(folder);
+        context.config().stateSharding(sharding);
+        context.config().metadata(Optional.of(new ArrayList<>()));
+        for(String directory : Arrays.asList("a", "b", null)){
+            String title = directory == null ? "root" : directory;
+            Path sourcePath = directory == null ? folder.getRoot().toPath().resolve("root.md")
+                    : folder.getRoot().toPath().resolve(directory).resolve(title + ".md");
+            Files.createDirectories(sourcePath.getParent());
+            Files.write(sourcePath, title.getBytes(StandardCharsets.UTF_8));
+            Config.DocumentMetadata metadata = new Config.DocumentMetadata();
+            metadata.sourcePath(sourcePath);
+            metadata.title(title);
+            metadata.remoteUri(Optional.of(new URI("https://" + title)));
+            context.config().metadata().get().add(metadata);
+        }
+        context.reindex();
+        return context;
+    }
+
+    private static void clearState(Config.DocumentMetadata metadata){
+        metadata.remoteUri(Optional.empty());
+        metadata.sourceChecksum(Optional.empty());
+        metadata.convertedChecksum(Optional.empty());
+        metadata.sourceFingerprint(Optional.empty());
+        metadata.convertedFingerprint(Optional.empty());
+        metadata.createdOn(Optional.empty());
+        metadata.lastUpdated(Optional.empty());
+        metadata.deletedOn(Optional.empty());
+        metadata.extraProps(Optional.of(new HashMap<>()));
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.macgregor.alexandria.remotes;
+
+import com.github.macgregor.alexandria.Config;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AsyncRemoteAdapterTest {
+
+    @Test
+    public void testOfReturnsAsyncRemote(){
+        AsyncRemote remote = mock(AsyncRemote.class);
+        assertThat(AsyncRemote.of(remote, Runnable::run)).isSameAs(remote);
+    }
+
+    @Test
+    public void testOfAdaptsBlockingRemote(){
+        Remote remote = new NoopRemote();
+        AsyncRemote asyncRemote = AsyncRemote.of(remote, Runnable::run);
+        assertThat(asyncRemote).isInstanceOf(AsyncRemoteAdapter.class);
+        assertThat(((AsyncRemoteAdapter) asyncRemote).remote()).isSameAs(remote);
+    }
+
+    @Test
+    public void testCreateAsyncCallsCreate() throws Exception {
+        Remote remote = mock(Remote.class);
+        Config.DocumentMetadata metadata = new Config.DocumentMetadata();
+        assertThat(new AsyncRemoteAdapter(remote, Runnable::run).createAsync(metadata).get()).isSameAs(metadata);
+        verify(remote).create(metadata);
+    }
+
+    @Test
+    public void testUpdateAsyncCallsUpdate() throws Exception {
+        Remote remote = mock(Remote.class);
+        Config.DocumentMetadata metadata = new Config.DocumentMetadata();
+        assertThat(new AsyncRemoteAdapter(remote, Runnable::run).updateAsync(metadata).get()).isSameAs(metadata);
+        verify(remote).update(metadata);
+    }
+
+    @Test
+    public void testDeleteAsyncCallsDelete() throws Exception {
+        Remote remote = mock(Remote.class);
+        Config.DocumentMetadata metadata = new Config.DocumentMetadata();
+        assertThat(new AsyncRemoteAdapter(remote, Runnable::run).deleteAsync(metadata).get()).isSameAs(metadata);
+        verify(remote).delete(metadata);
+    }
+
+    @Test
+    public void testAsyncCompletesExceptionallyWithBlockingException() throws IOException {
+        Remote remote = mock(Remote.class);
+        IOException exception = new IOException("boom");
+        doThrow(exception).when(remote).create(any());
+        CompletableFuture<Config.DocumentMetadata> future = new AsyncRemoteAdapter(remote, Runnable::run)
+                .createAsync(new Config.DocumentMetadata());
+        assertThatThrownBy(future::get).isInstanceOf(ExecutionException.class).hasCause(exception);
+    }
+
+    @Test
+    public void testAsyncCompletesExceptionallyWhenRejected() {
+        CompletableFuture<Config.DocumentMetadata> future = new AsyncRemoteAdapter(mock(Remote.class), r -> {
+            throw new RejectedExecutionException();
+        }).createAsync(new Config.DocumentMetadata());
+        assertThat(future).isCompletedExceptionally();
+    }
+
+    @Test
+    public void testAdapterDelegatesToRemote() throws IOException {
+        Remote remote = mock(Remote.class);
+        when(remote.twoPassSync()).thenReturn(false);
+        AsyncRemoteAdapter adapter = new AsyncRemoteAdapter(remote, Runnable::run);
+        adapter.beforeSync();
+        adapter.validateRemoteConfig();
+        assertThat(adapter.twoPassSync()).isFalse();
+        verify(remote).beforeSync();
+        verify(remote).validateRemoteConfig();
+    }
+
+    @Test
+    public void testFailedIsCompletedExceptionally(){
+        assertThat(AsyncRemote.failed(new IOException())).isCompletedExceptionally();
+    }
+}
@@ -0,0 +1,223 @@
+package com.github.macgregor.alexandria.remotes;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void testInitialLimitClampedToMinAndMax(){
+        assertThat(new ConcurrencyLimiter(100, 1, 10).limit()).isEqualTo(10);
+        assertThat(new ConcurrencyLimiter(0, 2, 10).limit()).isEqualTo(2);
+        assertThat(new ConcurrencyLimiter(5, 0, 10).limit()).isEqualTo(5);
+    }
+
+    @Test
+    public void testAcquireTracksInFlight() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10);
+        long start = limiter.acquire();
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        limiter.release(start, 200);
+        assertThat(limiter.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testAcquireBlocksAtLimit() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+        long start = limiter.acquire();
+        Thread waiting = new Thread(() -> {
+            try {
+                limiter.release(limiter.acquire(), 200);
+            } catch (InterruptedException e) {}
+        });
+        waiting.start();
+        waiting.join(100);
+        assertThat(waiting.isAlive()).isTrue();
+
+        limiter.release(start, 200);
+        waiting.join(1000);
+        assertThat(waiting.isAlive()).isFalse();
+        assertThat(limiter.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testAcquireAsyncCompletesUnderLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10);
+        CompletableFuture<Long> slot = limiter.acquireAsync();
+        assertThat(slot).isDone();
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        limiter.release(slot.get(), 200);
+        assertThat(limiter.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testAcquireAsyncQueuesAtLimitWithoutBlocking() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+        long start = limiter.acquire();
+        CompletableFuture<Long> first = limiter.acquireAsync();
+        CompletableFuture<Long> second = limiter.acquireAsync();
+        assertThat(first).isNotDone();
+        assertThat(second).isNotDone();
+        assertThat(limiter.queued()).isEqualTo(2);
+
+        limiter.release(start, 200);
+        assertThat(first).isDone();
+        assertThat(second).isNotDone();
+        assertThat(limiter.inFlight()).isEqualTo(1);
+
+        limiter.release(first.get(), 200);
+        assertThat(second).isDone();
+        limiter.release(second.get(), 200);
+        assertThat(limiter.inFlight()).isEqualTo(0);
+        assertThat(limiter.queued()).isEqualTo(0);
+    }
+
+    @Test
+    public void testAcquireAsyncCancelledGivesUpSlot() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+        long start = limiter.acquire();
+        CompletableFuture<Long> cancelled = limiter.acquireAsync();
+        CompletableFuture<Long> waiting = limiter.acquireAsync();
+        cancelled.cancel(false);
+
+        limiter.release(start, 200);
+        assertThat(waiting).isDone();
+        assertThat(limiter.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAcquireAsyncWaitsAfterOverload() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10);
+        long first = limiter.acquire();
+        long second = limiter.acquire();
+        CompletableFuture<Long> waiting = limiter.acquireAsync();
+
+        limiter.release(first, 429);
+        assertThat(limiter.limit()).isEqualTo(1);
+        assertThat(waiting).isNotDone();
+
+        limiter.release(second, 200);
+        assertThat(waiting).isDone();
+    }
+
+    @Test
+    public void testLimitRaisedWhileLimited() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 10);
+        limiter.release(limiter.acquire(), 200);
+        assertThat(limiter.limit()).isEqualTo(2);
+        assertThat(limiter.increases()).isEqualTo(1);
+
+        // roughly one more per round trip at the limit
+        for(int i = 0; i < 3; i++) {
+            long first = limiter.acquire();
+            limiter.release(limiter.acquire(), 200);
+            limiter.release(first, 200);
+        }
+        assertThat(limiter.limit()).isEqualTo(3);
+    }
+
+    @Test
+    public void testLimitNotRaisedWhenUnderused() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 10);
+        for(int i = 0; i < 10; i++){
+            limiter.release(limiter.acquire(), 200);
+        }
+        assertThat(limiter.limit()).isEqualTo(4);
+    }
+
+    @Test
+    public void testLimitNotRaisedAboveMax() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 2);
+        for(int i = 0; i < 10; i++){
+            long first = limiter.acquire();
+            if(limiter.limit() > 1){
+                limiter.release(limiter.acquire(), 200);
+            }
+            limiter.release(first, 200);
+        }
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+
+    @Test
+    public void testLimitCutOn429() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 1, 10);
+        limiter.release(limiter.acquire(), 429);
+        assertThat(limiter.limit()).isEqualTo(4);
+        assertThat(limiter.decreases()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLimitCutOn503() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 1, 10);
+        limiter.release(limiter.acquire(), 503);
+        assertThat(limiter.limit()).isEqualTo(4);
+    }
+
+    @Test
+    public void testLimitNotCutOnOtherErrors() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 1, 10);
+        limiter.release(limiter.acquire(), 404);
+        limiter.release(limiter.acquire(), 500);
+        limiter.release(limiter.acquire(), new ConnectException());
+        assertThat(limiter.limit()).isEqualTo(8);
+        assertThat(limiter.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLimitCutOnTimeout() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 1, 10);
+        limiter.release(limiter.acquire(), new SocketTimeoutException());
+        assertThat(limiter.limit()).isEqualTo(4);
+        assertThat(limiter.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLimitNotCutBelowMin() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 3, 10);
+        for(int i = 0; i < 5; i++){
+            limiter.release(limiter.acquire(), 503);
+        }
+        assertThat(limiter.limit()).isEqualTo(3);
+    }
+
+    @Test
+    public void testLimitCutWhenLatencyRises() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 10);
+        for(int i = 0; i < ConcurrencyLimiter.WINDOW; i++){
+            limiter.acquire();
+            limiter.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(10), 200);
+        }
+        assertThat(limiter.baselineLatencyMillis()).isGreaterThanOrEqualTo(10);
+        assertThat(limiter.limit()).isEqualTo(10);
+
+        for(int i = 0; i < ConcurrencyLimiter.WINDOW; i++){
+            limiter.acquire();
+            limiter.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100), 200);
+        }
+        assertThat(limiter.limit()).isEqualTo(9);
+        assertThat(limiter.decreases()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLatencyBaselineDrifts() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 10);
+        for(int i = 0; i < ConcurrencyLimiter.WINDOW; i++){
+            limiter.acquire();
+            limiter.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100), 200);
+        }
+        long baseline = limiter.baselineLatencyMillis();
+        for(int i = 0; i < ConcurrencyLimiter.WINDOW; i++){
+            limiter.acquire();
+            limiter.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(150), 200);
+        }
+        assertThat(limiter.baselineLatencyMillis()).isGreaterThan(baseline);
+        assertThat(limiter.limit()).isEqualTo(10);
+    }
+}
@@ -1,18 +1,25 @@
 package com.github.macgregor.alexandria.remotes;
 
+import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.github.macgregor.alexandria.Jackson;
 import com.github.macgregor.alexandria.exceptions.HttpException;
 import lombok.EqualsAndHashCode;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.LogManager;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -110,6 +117,158 @@ public class RemoteDocumentPagingTest {
         assertThat(result).isNull();
     }
 
+    @Test
+    public void testRemoteDocumentPagingUsesPageSize() throws Exception {
+        List<TestDocument> expected = expected(10);
+        mockResponses(Arrays.asList(
+                new MockResponse().setBody(expectedPageBody(expected, 0, 5)),
+                new MockResponse().setBody(expectedPageBody(expected, 5, 5)),
+                new MockResponse().setBody(expectedPageBody(expected, 10, 5))
+        ));
+        RemoteDocument<TestDocument> test = remoteDocumentBuilder.pageSize(5).build();
+
+        List<TestDocument> results = new ArrayList<>();
+        test.getPaged().forEach(results::add);
+        assertThat(results).containsExactlyElementsOf(expected);
+        assertThat(server.takeRequest().getRequestUrl().queryParameter("count")).isEqualTo("5");
+        assertThat(server.takeRequest().getRequestUrl().queryParameter("startIndex")).isEqualTo("5");
+    }
+
+    @Test
+    public void testRemoteDocumentPagingReadAhead() throws Exception {
+        List<TestDocument> expected = expected(50);
+        server.setDispatcher(pageDispatcher(expected));
+        RemoteDocument<TestDocument> test = remoteDocumentBuilder.pageSize(10).pageReadAhead(2).build();
+
+        List<TestDocument> results = new ArrayList<>();
+        test.getPaged().forEach(results::add);
+        assertThat(results).containsExactlyElementsOf(expected);
+        assertThat(server.getRequestCount()).isGreaterThanOrEqualTo(6);
+    }
+
+    @Test
+    public void testRemoteDocumentPagingReadAheadRequestsPagesBeforeTheyAreRead() throws Exception {
+        server.setDispatcher(pageDispatcher(expected(20)));
+        RemoteDocument<TestDocument> test = remoteDocumentBuilder.pageSize(10).pageReadAhead(1).build();
+
+        Iterator<TestDocument> iterator = test.getPaged().iterator();
+        assertThat(iterator.hasNext()).isTrue();
+        assertThat(Arrays.asList(
+                server.takeRequest(5, TimeUnit.SECONDS).getRequestUrl().queryParameter("startIndex"),
+                server.takeRequest(5, TimeUnit.SECONDS).getRequestUrl().queryParameter("startIndex")))
+                .containsExactlyInAnyOrder("0", "10");
+    }
+
+    @Test
+    public void testRemoteDocumentPagingReadAheadWrapsExceptionsInRuntimeException() throws IOException {
+        Dispatcher pages = pageDispatcher(expected(10));
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if("10".equals(request.getRequestUrl().queryParameter("startIndex"))){
+                    return new MockResponse().setResponseCode(404);
+                }
+                return pages.dispatch(request);
+            }
+        });
+        RemoteDocument<TestDocument> test = remoteDocumentBuilder.pageSize(10).pageReadAhead(1).build();
+
+        Iterator<TestDocument> iterator = test.getPaged().iterator();
+        for(int i = 0; i < 10; i++){
+            assertThat(iterator.hasNext()).isTrue();
+            iterator.next();
+        }
+        assertThatThrownBy(() -> iterator.hasNext())
+                .isInstanceOf(RuntimeException.class)
+                .hasCauseInstanceOf(HttpException.class);
+    }
+
+    @Test
+    public void testRemoteDocumentPagingFirstResultDoesntReadAhead() throws IOException {
+        List<TestDocument> expected = expected(10);
+        mockResponses(Arrays.asList(
+                new MockResponse().setBody(expectedPageBody(expected, 0, 10))
+        ));
+        RemoteDocument<TestDocument> test = remoteDocumentBuilder.pageReadAhead(3).build();
+
+        assertThat(test.getPaged().first().id).isEqualTo(0);
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRemoteDocumentPagingSkipsOtherFields() throws IOException {
+        String body = "{\"links\": {\"next\": [1, {\"list\": []}]}, \"itemsPerPage\": 2, " +
+                "\"list\": [{\"id\": 0, \"name\": \"foo-0\", \"extra\": {\"a\": [1]}}, {\"id\": 1, \"name\": \"foo-1\"}], \"startIndex\": 0}";
+
+        List<TestDocument> page = parse(body);
+        assertThat(page).containsExactlyElementsOf(expected(2));
+    }
+
+    @Test
+    public void testRemoteDocumentPagingEmptyList() throws IOException {
+        assertThat(parse("{\"list\": []}")).isEmpty();
+    }
+
+    @Test
+    public void testRemoteDocumentPagingMissingListField() {
+        assertThatThrownBy(() -> parse("{\"itemsPerPage\": 2}"))
+                .isInstanceOf(JsonParseException.class)
+                .hasMessageContaining("missing field list");
+    }
+
+    @Test
+    public void testRemoteDocumentPagingListFieldNotAList() {
+        assertThatThrownBy(() -> parse("{\"list\": {\"id\": 0}}"))
+                .isInstanceOf(JsonParseException.class)
+                .hasMessageContaining("to be a list");
+    }
+
+    @Test
+    public void testRemoteDocumentPagingResponseNotAnObject() {
+        assertThatThrownBy(() -> parse("[]"))
+                .isInstanceOf(JsonParseException.class);
+    }
+
+    @Test
+    public void testRemoteDocumentPagingWrapsParseErrors() throws IOException {
+        mockResponses(Arrays.asList(
+                new MockResponse().setBody("{\"list\": [{\"id\": ")
+        ));
+        RemoteDocument<TestDocument> test = remoteDocumentBuilder.build();
+
+        assertThatThrownBy(() -> test.getPaged().iterator().hasNext())
+                .isInstanceOf(RuntimeException.class)
+                .hasCauseInstanceOf(HttpException.class);
+    }
+
+    @Test
+    public void testRemoteDocumentPagingReusesReader() {
+        assertThat(Jackson.jsonReader(TestDocument.class)).isSameAs(Jackson.jsonReader(TestDocument.class));
+    }
+
+    private List<TestDocument> parse(String body) throws IOException {
+        return RemoteDocument.RemoteDocumentIterator.parsePage(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                "list", Jackson.jsonReader(TestDocument.class));
+    }
+
+    /**
+     * Respond with the page requested by the count and startIndex parameters, since pages read ahead can arrive in any order.
+     */
+    public static Dispatcher pageDispatcher(List<TestDocument> expected){
+        return new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                int offset = Integer.parseInt(request.getRequestUrl().queryParameter("startIndex"));
+                int count = Integer.parseInt(request.getRequestUrl().queryParameter("count"));
+                try {
+                    return new MockResponse().setBody(expectedPageBody(expected, offset, count));
+                } catch (JsonProcessingException e) {
+                    return new MockResponse().setResponseCode(500);
+                }
+            }
+        };
+    }
+
     public static String expectedPageBody(List<TestDocument> expected, int offset, int count) throws JsonProcessingException {
         return String.format("{\"itemsPerPage\": %d,\n\"list\": %s,\n\"startIndex\": %d\n}", count, Jackson.jsonMapper().writeValueAsString(expectedPage(expected, offset, count)), offset);
     }
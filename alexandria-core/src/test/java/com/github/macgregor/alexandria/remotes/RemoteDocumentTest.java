@@ -5,6 +5,7 @@ import com.github.macgregor.alexandria.exceptions.HttpException;
 import okhttp3.*;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import okio.Buffer;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
@@ -12,7 +13,11 @@ import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.LogManager;
 
 import static org.assertj.core.api.Assertions.*;
@@ -307,6 +312,277 @@ public class RemoteDocumentTest {
         assertThatThrownBy(() -> test.get()).isInstanceOf(HttpException.class);
     }
 
+    @Test
+    public void testGetAsyncParsesGenericTypeFromResponse() throws Exception {
+        MockWebServer server = setup(new MockResponse().setBody(Jackson.jsonMapper().writeValueAsString(expected())));
+        RemoteDocument<TestDocument> test = minimalBuilder().baseUrl(server.url("foo").toString()).build();
+        assertThat(test.getAsync().get()).isEqualTo(expected());
+        assertThat(server.takeRequest().getMethod()).isEqualTo("GET");
+    }
+
+    @Test
+    public void testPutAsyncSendsRequestBody() throws Exception {
+        MockWebServer server = setup(new MockResponse().setBody(Jackson.jsonMapper().writeValueAsString(expected())));
+        RemoteDocument<TestDocument> test = minimalBuilder().baseUrl(server.url("foo").toString()).build();
+        assertThat(test.putAsync(expected()).get()).isEqualTo(expected());
+        RecordedRequest request = server.takeRequest();
+        assertThat(request.getMethod()).isEqualTo("PUT");
+        assertThat(request.getBody().readUtf8()).isEqualTo(Jackson.jsonMapper().writeValueAsString(expected()));
+    }
+
+    @Test
+    public void testPostAsyncParsesGenericTypeFromResponse() throws Exception {
+        MockWebServer server = setup(new MockResponse().setBody(Jackson.jsonMapper().writeValueAsString(expected())));
+        RemoteDocument<TestDocument> test = minimalBuilder().baseUrl(server.url("foo").toString()).build();
+        assertThat(test.postAsync(expected()).get()).isEqualTo(expected());
+        assertThat(server.takeRequest().getMethod()).isEqualTo("POST");
+    }
+
+    @Test
+    public void testDeleteAsyncCompletes() throws Exception {
+        MockWebServer server = setup(new MockResponse().setResponseCode(204));
+        RemoteDocument<TestDocument> test = minimalBuilder().baseUrl(server.url("foo").toString()).build();
+        assertThat(test.deleteAsync().get()).isNull();
+        assertThat(server.takeRequest().getMethod()).isEqualTo("DELETE");
+    }
+
+    @Test
+    public void testAsyncCompletesExceptionallyOnUnexpectedStatus() throws IOException {
+        MockWebServer server = setup(new MockResponse().setResponseCode(500));
+        RemoteDocument<TestDocument> test = minimalBuilder().baseUrl(server.url("foo").toString()).build();
+        CompletableFuture<TestDocument> future = test.getAsync();
+        assertThatThrownBy(future::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(HttpException.class);
+        HttpException exception = (HttpException) catchThrowable(future::get).getCause();
+        assertThat(exception.request()).isPresent();
+        assertThat(exception.response().get().code()).isEqualTo(500);
+    }
+
+    @Test
+    public void testAsyncConsidersExpectedResponseCodesAsSuccessful() throws Exception {
+        MockWebServer server = setup(new MockResponse().setResponseCode(404));
+        RemoteDocument<TestDocument> test = minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .allowableStatusCode(404)
+                .build();
+        assertThatCode(() -> test.deleteAsync().get()).doesNotThrowAnyException();
+    }
+
+    @Test
+    public void testAsyncWrapsCallException() throws IOException {
+        MockWebServer server = setup(new MockResponse().setResponseCode(204));
+        server.shutdown();
+        RemoteDocument<TestDocument> test = minimalBuilder().baseUrl(server.url("foo").toString()).build();
+        assertThatThrownBy(() -> test.getAsync().get()).hasCauseInstanceOf(HttpException.class);
+    }
+
+    @Test
+    public void testAsyncWrapsUncheckedException() {
+        RemoteDocument<TestDocument> test = spy(minimalBuilder().build());
+        doReturn(null).when(test).route();
+        assertThatThrownBy(() -> test.getAsync().get()).hasCauseInstanceOf(HttpException.class);
+    }
+
+    @Test
+    public void testDoRequestReleasesLimiter() throws IOException {
+        MockWebServer server = setup(new MockResponse().setResponseCode(200));
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 10);
+        RemoteDocument<TestDocument> test = minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .limiter(limiter)
+                .build();
+        test.get();
+        assertThat(limiter.inFlight()).isEqualTo(0);
+        assertThat(limiter.lastLatencyMillis()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    public void testDoRequestCutsLimiterOnOverload() throws IOException {
+        MockWebServer server = setup(new MockResponse().setResponseCode(503));
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 10);
+        RemoteDocument<TestDocument> test = minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .limiter(limiter)
+                .build();
+        assertThatThrownBy(() -> test.get()).isInstanceOf(HttpException.class);
+        assertThat(limiter.inFlight()).isEqualTo(0);
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDoRequestAsyncReleasesLimiter() throws Exception {
+        MockWebServer server = setup(new MockResponse().setResponseCode(429));
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 10);
+        RemoteDocument<TestDocument> test = minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .limiter(limiter)
+                .build();
+        assertThatThrownBy(() -> test.getAsync().get()).hasCauseInstanceOf(HttpException.class);
+        assertThat(limiter.inFlight()).isEqualTo(0);
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDoRequestAsyncDoesntBlockAtLimit() throws Exception {
+        MockWebServer server = setup(new MockResponse().setBody(Jackson.jsonMapper().writeValueAsString(expected())));
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+        RemoteDocument<TestDocument> test = minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .limiter(limiter)
+                .build();
+        long start = limiter.acquire();
+        CompletableFuture<TestDocument> future = test.getAsync();
+        assertThat(limiter.queued()).isEqualTo(1);
+        assertThat(server.getRequestCount()).isEqualTo(0);
+
+        limiter.release(start, 200);
+        assertThat(future.get()).isEqualTo(expected());
+        assertThat(limiter.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLimiterCopiedToBuilder(){
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 10);
+        RemoteDocument<TestDocument> test = minimalBuilder().limiter(limiter).build();
+        assertThat(test.toBuilder().build().limiter()).isSameAs(limiter);
+    }
+
+    @Test
+    public void testDoRequestRetriesRetryableStatus() throws Exception {
+        MockWebServer server = setup(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody(Jackson.jsonMapper().writeValueAsString(expected())));
+        RemoteDocument<TestDocument> test = minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .retryPolicy(retryPolicy())
+                .build();
+        assertThat(test.get()).isEqualTo(expected());
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDoRequestGivesUpAfterMaxAttempts() throws IOException {
+        MockWebServer server = setup(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        RemoteDocument<TestDocument> test = minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .retryPolicy(retryPolicy())
+                .build();
+        assertThatThrownBy(() -> test.get()).isInstanceOf(HttpException.class);
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testDoRequestDoesntRetryPost() throws IOException {
+        MockWebServer server = setup(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(200));
+        RemoteDocument<TestDocument> test = minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .retryPolicy(retryPolicy())
+                .build();
+        assertThatThrownBy(() -> test.post(expected())).isInstanceOf(HttpException.class);
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDoRequestDoesntRetryAllowedStatus() throws IOException {
+        MockWebServer server = setup(new MockResponse().setResponseCode(503));
+        RemoteDocument<TestDocument> test = minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .allowableStatusCode(503)
+                .retryPolicy(retryPolicy())
+                .build();
+        test.delete();
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDoRequestHonorsRetryAfter() throws Exception {
+        MockWebServer server = setup(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setResponseCode(204));
+        RemoteDocument<TestDocument> test = minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .retryPolicy(new RetryPolicy(3, 1, 5000, Arrays.asList(429)))
+                .build();
+        long start = System.currentTimeMillis();
+        test.delete();
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(1000);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDoRequestAsyncRetriesRetryableStatus() throws Exception {
+        MockWebServer server = setup(new MockResponse().setResponseCode(502));
+        server.enqueue(new MockResponse().setBody(Jackson.jsonMapper().writeValueAsString(expected())));
+        RemoteDocument<TestDocument> test = minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .retryPolicy(retryPolicy())
+                .build();
+        assertThat(test.putAsync(expected()).get()).isEqualTo(expected());
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDoRequestAsyncGivesUpAfterMaxAttempts() throws IOException {
+        MockWebServer server = setup(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        RemoteDocument<TestDocument> test = minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .retryPolicy(retryPolicy())
+                .build();
+        assertThatThrownBy(() -> test.getAsync().get()).hasCauseInstanceOf(HttpException.class);
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testDoRequestAsyncRetryWaitingForLimiterDoesntHoldUpOtherRetries() throws Exception {
+        RetryPolicy retryPolicy = new RetryPolicy(3, 1, 1000, Arrays.asList(503));
+        MockWebServer limitedServer = setup(new MockResponse().setResponseCode(503).setHeader("Retry-After", "1"));
+        limitedServer.enqueue(new MockResponse().setBody(Jackson.jsonMapper().writeValueAsString(expected())));
+        MockWebServer otherServer = setup(new MockResponse().setResponseCode(503).setHeader("Retry-After", "1"));
+        otherServer.enqueue(new MockResponse().setBody(Jackson.jsonMapper().writeValueAsString(expected())));
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+        RemoteDocument<TestDocument> limited = minimalBuilder()
+                .baseUrl(limitedServer.url("foo").toString())
+                .retryPolicy(retryPolicy)
+                .limiter(limiter)
+                .build();
+        RemoteDocument<TestDocument> other = minimalBuilder()
+                .baseUrl(otherServer.url("foo").toString())
+                .retryPolicy(retryPolicy)
+                .build();
+
+        CompletableFuture<TestDocument> limitedFuture = limited.getAsync();
+        limitedServer.takeRequest();
+        while(limiter.inFlight() > 0){
+            Thread.sleep(10);
+        }
+        long start = limiter.acquire();
+
+        assertThat(other.getAsync().get(5, TimeUnit.SECONDS)).isEqualTo(expected());
+        assertThat(limitedFuture).isNotDone();
+
+        limiter.release(start, 200);
+        assertThat(limitedFuture.get(5, TimeUnit.SECONDS)).isEqualTo(expected());
+    }
+
+    @Test
+    public void testDoRequestAsyncCompletesWhenRetryCantBeEnqueued() throws Exception {
+        MockWebServer server = setup(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(200));
+        RemoteDocument<TestDocument> test = spy(minimalBuilder()
+                .baseUrl(server.url("foo").toString())
+                .retryPolicy(retryPolicy())
+                .build());
+        doCallRealMethod().doThrow(new IllegalStateException("broken")).when(test).acquireAsync();
+        assertThatThrownBy(() -> test.getAsync().get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(HttpException.class)
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+    }
+
     @Test
     public void testRouteStartsWithBaseUrl(){
         RemoteDocument<TestDocument> test = minimalBuilder().build();
@@ -345,6 +621,14 @@ public class RemoteDocumentTest {
         assertThat(test.client().connectTimeoutMillis()).isEqualTo(45000);
     }
 
+    @Test
+    public void testClientUsesProvidedClient(){
+        OkHttpClient client = new OkHttpClient();
+        RemoteDocument<TestDocument> test = minimalBuilder().client(client).build();
+        assertThat(test.client()).isSameAs(client);
+        assertThat(test.toBuilder().build().client()).isSameAs(client);
+    }
+
     public static TestDocument expected(){
         TestDocument testDocument = new TestDocument();
         testDocument.id = 1;
@@ -377,6 +661,10 @@ public class RemoteDocumentTest {
                 .entity(TestDocument.class);
     }
 
+    protected RetryPolicy retryPolicy(){
+        return new RetryPolicy(3, 1, 10, Arrays.asList(429, 502, 503, 504));
+    }
+
     protected MockWebServer setup(MockResponse mockResponse) throws IOException {
         MockWebServer server = new MockWebServer();
         server.enqueue(mockResponse);
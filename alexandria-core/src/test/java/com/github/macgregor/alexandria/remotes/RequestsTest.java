@@ -1,9 +1,13 @@
 package com.github.macgregor.alexandria.remotes;
 
+import com.github.macgregor.alexandria.Config;
 import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import org.junit.Test;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 public class RequestsTest {
 
     @Test
@@ -23,4 +27,54 @@ public class RequestsTest {
         Request.Builder builder = new Request.Builder();
         Requests.addHeaders(builder, null);
     }
+
+    @Test
+    public void testRequestsClientUsesRemoteConfig(){
+        Config.RemoteConfig config = new Config.RemoteConfig();
+        config.requestTimeout(45);
+        config.maxRequests(10);
+        config.maxRequestsPerHost(3);
+        OkHttpClient client = Requests.client(config);
+        assertThat(client.readTimeoutMillis()).isEqualTo(45000);
+        assertThat(client.writeTimeoutMillis()).isEqualTo(45000);
+        assertThat(client.connectTimeoutMillis()).isEqualTo(45000);
+        assertThat(client.dispatcher().getMaxRequests()).isEqualTo(10);
+        assertThat(client.dispatcher().getMaxRequestsPerHost()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRequestsClientAllowsMaxConcurrencyWhenAdaptive(){
+        Config.RemoteConfig config = new Config.RemoteConfig();
+        config.maxRequestsPerHost(3);
+        config.adaptiveConcurrency(true);
+        config.maxConcurrency(20);
+        assertThat(Requests.client(config).dispatcher().getMaxRequestsPerHost()).isEqualTo(20);
+    }
+
+    @Test
+    public void testRequestsLimiterNullWhenNotAdaptive(){
+        assertThat(Requests.limiter(new Config.RemoteConfig())).isNull();
+    }
+
+    @Test
+    public void testRequestsLimiterStartsAtMaxRequestsPerHost(){
+        Config.RemoteConfig config = new Config.RemoteConfig();
+        config.maxRequestsPerHost(3);
+        config.adaptiveConcurrency(true);
+        assertThat(Requests.limiter(config).limit()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRequestsRetryPolicyNullWhenRetriesDisabled(){
+        Config.RemoteConfig config = new Config.RemoteConfig();
+        config.retryMaxAttempts(1);
+        assertThat(Requests.retryPolicy(config)).isNull();
+    }
+
+    @Test
+    public void testRequestsRetryPolicyUsesRemoteConfig(){
+        Config.RemoteConfig config = new Config.RemoteConfig();
+        config.retryMaxAttempts(5);
+        assertThat(Requests.retryPolicy(config).maxAttempts()).isEqualTo(5);
+    }
 }
@@ -0,0 +1,110 @@
+package com.github.macgregor.alexandria.remotes;
+
+import com.github.macgregor.alexandria.Config;
+import okhttp3.*;
+import org.junit.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(3, 100, 1000, Arrays.asList(429, 503));
+
+    @Test
+    public void testRetryPolicyFromRemoteConfig(){
+        Config.RemoteConfig config = new Config.RemoteConfig();
+        RetryPolicy retryPolicy = new RetryPolicy(config);
+        assertThat(retryPolicy.maxAttempts()).isEqualTo(3);
+        assertThat(retryPolicy.baseDelayMillis()).isEqualTo(100);
+        assertThat(retryPolicy.maxDelayMillis()).isEqualTo(10000);
+        assertThat(retryPolicy.retryableStatusCodes()).containsExactlyInAnyOrder(429, 502, 503, 504);
+    }
+
+    @Test
+    public void testShouldRetryIdempotentRequests(){
+        assertThat(policy.shouldRetry(request("GET"), 1)).isTrue();
+        assertThat(policy.shouldRetry(request("PUT"), 1)).isTrue();
+        assertThat(policy.shouldRetry(request("DELETE"), 1)).isTrue();
+    }
+
+    @Test
+    public void testShouldntRetryPost(){
+        assertThat(policy.shouldRetry(request("POST"), 1)).isFalse();
+    }
+
+    @Test
+    public void testShouldntRetryAfterMaxAttempts(){
+        assertThat(policy.shouldRetry(request("GET"), 2)).isTrue();
+        assertThat(policy.shouldRetry(request("GET"), 3)).isFalse();
+    }
+
+    @Test
+    public void testShouldRetryRetryableStatusCodes(){
+        assertThat(policy.shouldRetry(request("GET"), 1, response(503))).isTrue();
+        assertThat(policy.shouldRetry(request("GET"), 1, response(429))).isTrue();
+        assertThat(policy.shouldRetry(request("GET"), 1, response(500))).isFalse();
+        assertThat(policy.shouldRetry(request("GET"), 1, response(404))).isFalse();
+    }
+
+    @Test
+    public void testDelayBackoffIsBoundedExponentially(){
+        for(int i = 0; i < 100; i++) {
+            assertThat(policy.delayMillis(1, Optional.empty())).isBetween(0L, 100L);
+            assertThat(policy.delayMillis(2, Optional.empty())).isBetween(0L, 200L);
+            assertThat(policy.delayMillis(3, Optional.empty())).isBetween(0L, 400L);
+            assertThat(policy.delayMillis(10, Optional.empty())).isBetween(0L, 1000L);
+        }
+    }
+
+    @Test
+    public void testDelayBackoffDoesntOverflow(){
+        assertThat(policy.delayMillis(100, Optional.empty())).isBetween(0L, 1000L);
+    }
+
+    @Test
+    public void testDelayHonorsRetryAfterSeconds(){
+        Response response = response(503).newBuilder().header("Retry-After", "0").build();
+        assertThat(policy.delayMillis(1, Optional.of(response))).isEqualTo(0);
+    }
+
+    @Test
+    public void testDelayCapsRetryAfter(){
+        Response response = response(503).newBuilder().header("Retry-After", "120").build();
+        assertThat(policy.delayMillis(1, Optional.of(response))).isEqualTo(1000);
+    }
+
+    @Test
+    public void testDelayHonorsRetryAfterDate(){
+        String date = ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(60).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        Response response = response(503).newBuilder().header("Retry-After", date).build();
+        assertThat(RetryPolicy.retryAfterMillis(response).get()).isBetween(55000L, 60000L);
+        assertThat(policy.delayMillis(1, Optional.of(response))).isEqualTo(1000);
+    }
+
+    @Test
+    public void testDelayIgnoresInvalidRetryAfter(){
+        Response response = response(503).newBuilder().header("Retry-After", "soon").build();
+        assertThat(RetryPolicy.retryAfterMillis(response)).isEmpty();
+        assertThat(policy.delayMillis(1, Optional.of(response))).isBetween(0L, 100L);
+    }
+
+    private Request request(String method){
+        RequestBody body = method.equals("GET") ? null : RequestBody.create(RemoteDocument.JSON, "{}");
+        return new Request.Builder().url("https://www.google.com").method(method, method.equals("DELETE") ? null : body).build();
+    }
+
+    private Response response(int code){
+        return new Response.Builder()
+                .request(request("GET"))
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .build();
+    }
+}
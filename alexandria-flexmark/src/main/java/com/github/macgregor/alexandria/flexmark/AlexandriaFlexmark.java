@@ -23,18 +23,28 @@ import static com.vladsch.flexmark.parser.Parser.FENCED_CODE_CONTENT_BLOCK;
 /**
  * Configure Flexmark markdown library, registering optional {@link Extension}s to customize
  * rendering and parsing of HTML.
+ *
+ * The {@link Parser} and {@link HtmlRenderer} are built once, the first time either is retrieved, from the same
+ * {@link #options()}. Once built they are immutable and safe to share between threads converting documents
+ * concurrently, Flexmark creates all per document state when parsing or rendering. Extensions and options can't be
+ * changed after that without calling {@link #reset()}.
+ *
+ * Each instance gets its own {@link LocalLinkExtension}, so instances configured with different {@link Context}s
+ * don't resolve links against each other's index.
  */
 @Slf4j
 @NoArgsConstructor
 public class AlexandriaFlexmark implements Context.ContextAware {
 
-    /** Default extensions added along with {@link AlexandriaFlexmark#registeredExtensions}. */
+    /**
+     * Stateless default extensions shared by all instances, added along with {@link AlexandriaFlexmark#registeredExtensions}
+     * and a {@link LocalLinkExtension} for the instance.
+     */
     public static final Extension[] DEFAULT_EXTENSIONS = new Extension[]{
             AutolinkExtension.create(),
             StrikethroughExtension.create(),
             TaskListExtension.create(),
-            TablesExtension.create(),
-            LocalLinkExtension.create(new AlexandriaRemoteUriLinkResolver())
+            TablesExtension.create()
     };
 
     /** Default options added along with {@link AlexandriaFlexmark#options}. */
@@ -50,10 +60,10 @@ public class AlexandriaFlexmark implements Context.ContextAware {
     protected MutableDataSet options = null;
 
     /** Flexmark html renderer used to create the HTML document. */
-    protected HtmlRenderer htmlRenderer = null;
+    protected volatile HtmlRenderer htmlRenderer = null;
 
     /** Flexmark parser used to parse the markdown document. */
-    protected Parser parser = null;
+    protected volatile Parser parser = null;
 
     protected Context context;
 
@@ -65,31 +75,31 @@ public class AlexandriaFlexmark implements Context.ContextAware {
      *
      * @param extension the {@link Extension} to register
      */
-    public void registerExtension(Extension extension){
+    public synchronized void registerExtension(Extension extension){
         if(htmlRenderer != null || parser != null){
             throw new IllegalStateException("Extension registered after HtmlRenderer or Parser initialized.");
         }
         registeredExtensions().add(extension);
+        if(extension instanceof Context.ContextAware){
+            ((Context.ContextAware) extension).alexandriaContext(context);
+        }
     }
 
     /**
      * Return the registered extensions, creating the underlying list and adding {@link AlexandriaFlexmark#DEFAULT_EXTENSIONS}
-     * as needed.
+     * and a {@link LocalLinkExtension} as needed.
      *
      * @return  initialized set of extensions that will be added to the {@link Parser} and {@link HtmlRenderer}
      */
-    public Set<Extension> registeredExtensions(){
+    public synchronized Set<Extension> registeredExtensions(){
         if(registeredExtensions == null){
-            registeredExtensions = new HashSet<>(4);
+            registeredExtensions = new HashSet<>(8);
             for(Extension e : DEFAULT_EXTENSIONS){
                 registeredExtensions.add(e);
             }
-
+            registeredExtensions.add(LocalLinkExtension.create(new AlexandriaRemoteUriLinkResolver()));
+            propagateContext();
         }
-        registeredExtensions.stream()
-                .filter(e -> e instanceof Context.ContextAware)
-                .map(e -> (Context.ContextAware)e)
-                .forEach(e -> e.alexandriaContext(context));
         return registeredExtensions;
     }
 
@@ -98,7 +108,7 @@ public class AlexandriaFlexmark implements Context.ContextAware {
      *
      * @return  flexmark options
      */
-    public MutableDataSet options(){
+    public synchronized MutableDataSet options(){
         if(options == null) {
             options = new MutableDataSet();
             options.setFrom(DEFAULT_OPTIONS);
@@ -109,55 +119,92 @@ public class AlexandriaFlexmark implements Context.ContextAware {
 
     /**
      * Set additional options to set on the {@link Parser} and {@link HtmlRenderer}
+     *
+     * Options must be set before the Parser and HtmlRenderer are instantiated, see
+     * {@link AlexandriaFlexmark#registerExtension(Extension)}.
+     *
      * @param key
      * @param value
      * @param <T>
      */
-    public <T> void setOption(DataKey<T> key, T value){
+    public synchronized <T> void setOption(DataKey<T> key, T value){
+        if(htmlRenderer != null || parser != null){
+            throw new IllegalStateException("Option set after HtmlRenderer or Parser initialized.");
+        }
         options().set(key, value);
     }
 
     /**
      * Retrieve the {@link Parser}, creating it if it doesnt exist
      *
-     * @return  flexmark parser
+     * @return  flexmark parser, safe to use from multiple threads
      */
     public Parser parser(){
-        if(parser == null) {
-            parser = Parser.builder(options()).build();
+        Parser built = parser;
+        if(built == null) {
+            synchronized (this) {
+                if(parser == null){
+                    parser = Parser.builder(options()).build();
+                }
+                built = parser;
+            }
         }
-        return parser;
+        return built;
     }
 
     /**
      * Retrieve the {@link HtmlRenderer}, creating it if it doesnt exist
      *
-     * @return  flexmark html renderer
+     * @return  flexmark html renderer, safe to use from multiple threads
      */
-    public  HtmlRenderer renderer(){
-        if(htmlRenderer == null){
-            htmlRenderer = HtmlRenderer.builder(options()).build();
+    public HtmlRenderer renderer(){
+        HtmlRenderer built = htmlRenderer;
+        if(built == null) {
+            synchronized (this) {
+                if(htmlRenderer == null){
+                    htmlRenderer = HtmlRenderer.builder(options()).build();
+                }
+                built = htmlRenderer;
+            }
         }
-        return htmlRenderer;
+        return built;
     }
 
     /**
      * Reset the {@link AlexandriaFlexmark} instance's state, used for testing primarily.
      */
-    public void reset(){
+    public synchronized void reset(){
         options = null;
         registeredExtensions = null;
         htmlRenderer = null;
         parser = null;
     }
 
+    /**
+     * Set the context on this instance and any {@link Context.ContextAware} extensions. Since the Parser and
+     * HtmlRenderer hold on to the extensions rather than copies, this also applies to an already built Parser and
+     * HtmlRenderer.
+     *
+     * @param context  Alexandria context
+     */
     @Override
-    public void alexandriaContext(Context context) {
+    public synchronized void alexandriaContext(Context context) {
         this.context = context;
+        propagateContext();
     }
 
     @Override
     public Context alexandriaContext() {
         return this.context;
     }
+
+    private void propagateContext(){
+        if(registeredExtensions == null){
+            return;
+        }
+        registeredExtensions.stream()
+                .filter(e -> e instanceof Context.ContextAware)
+                .map(e -> (Context.ContextAware)e)
+                .forEach(e -> e.alexandriaContext(context));
+    }
 }
@@ -2,6 +2,7 @@ package com.github.macgregor.alexandria.flexmark;
 
 import com.github.macgregor.alexandria.Config;
 import com.github.macgregor.alexandria.Context;
+import com.github.macgregor.alexandria.ConversionCache;
 import com.github.macgregor.alexandria.exceptions.AlexandriaException;
 import com.github.macgregor.alexandria.flexmark.links.LocalLinkExtension;
 import com.github.macgregor.alexandria.markdown.LinkResolver;
@@ -87,6 +88,8 @@ public class AlexandriaRemoteUriLinkResolver implements LinkResolver, Context.Co
      * if possible, otherwise the link is left alone.
      *
      * Assumes that {@link AlexandriaRemoteUriLinkResolver#isValid(String, String)} has been called and returns true.
+     * The resolution is recorded with {@link ConversionCache#recordLink(Path, java.util.Optional)}, so the document is
+     * converted again if the linked document's remote URI changes.
      *
      * @param linkText  the text part of the parsed link e.g. "some text" in {@code [some text](./foo.md)}
      * @param link  the URL part of a parsed link, e.g. "./foo.md" in {@code [some text](./foo.md)}
@@ -104,6 +107,7 @@ public class AlexandriaRemoteUriLinkResolver implements LinkResolver, Context.Co
 
         Path p = context.absolutePath(Paths.get(link));
         Config.DocumentMetadata metadata = context.isIndexed(p).get();
+        ConversionCache.recordLink(metadata.sourcePath(), metadata.remoteUri());
         if(metadata.remoteUri().isPresent()){
             return metadata.remoteUri().get();
         } else{
@@ -24,10 +24,10 @@ public class LocalLinkExtension implements Parser.ParserExtension, HtmlRenderer.
     public static final LinkType RELATIVE_LINK = new LinkType("RELATIVE");
 
     private LinkResolver alexandriaFlexmarkLinkResolver;
-    private Context context;
-    private LocalLinkNodeRenderer.Factory relativeLinkNodeRendererFactory;
-    private LocalLinkResolver.Factory relativeLinkResolverFactory;
-    private LocalLinkRefProcessor.Factory relativeLinkRefProcessorFactory;
+    @EqualsAndHashCode.Exclude private Context context;
+    @EqualsAndHashCode.Exclude private LocalLinkNodeRenderer.Factory relativeLinkNodeRendererFactory;
+    @EqualsAndHashCode.Exclude private LocalLinkResolver.Factory relativeLinkResolverFactory;
+    @EqualsAndHashCode.Exclude private LocalLinkRefProcessor.Factory relativeLinkRefProcessorFactory;
 
     public LocalLinkExtension(LinkResolver alexandriaFlexmarkLinkResolver){
         this.alexandriaFlexmarkLinkResolver = alexandriaFlexmarkLinkResolver;
@@ -1,11 +1,16 @@
 package com.github.macgregor.alexandria.flexmark;
 
 import com.github.macgregor.alexandria.Context;
+import com.github.macgregor.alexandria.flexmark.links.LocalLinkExtension;
 import com.vladsch.flexmark.Extension;
+import com.vladsch.flexmark.html.HtmlRenderer;
 import com.vladsch.flexmark.parser.Parser;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.*;
+import java.util.concurrent.*;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
@@ -47,14 +52,12 @@ public class AlexandriaFlexmarkTest {
 
     @Test
     public void testAlexandriaFlexmarkAddsDefaultExtensions(){
-        assertThat(flexmark.registeredExtensions())
-                .containsExactlyInAnyOrder(AlexandriaFlexmark.DEFAULT_EXTENSIONS);
+        assertDefaultExtensions(flexmark.registeredExtensions());
     }
 
     @Test
     public void testAlexandriaFlexmarkOptionsAddsDefaultExtensions(){
-        assertThat(flexmark.options().get(Parser.EXTENSIONS))
-                .containsExactlyInAnyOrder(AlexandriaFlexmark.DEFAULT_EXTENSIONS);
+        assertDefaultExtensions(flexmark.options().get(Parser.EXTENSIONS));
     }
 
     @Test
@@ -72,8 +75,7 @@ public class AlexandriaFlexmarkTest {
         Extension extension = mock(Extension.class);
         flexmark.registerExtension(extension);
         flexmark.reset();
-        assertThat(flexmark.registeredExtensions())
-                .containsExactlyInAnyOrder(AlexandriaFlexmark.DEFAULT_EXTENSIONS);
+        assertDefaultExtensions(flexmark.registeredExtensions());
     }
 
     @Test
@@ -103,4 +105,88 @@ public class AlexandriaFlexmarkTest {
         }
 
     }
+
+    @Test
+    public void testAlexandriaFlexmarkInstancesDontShareLinkExtension(){
+        Context context = mock(Context.class);
+        AlexandriaFlexmark other = new AlexandriaFlexmark();
+        other.alexandriaContext(mock(Context.class));
+        flexmark.alexandriaContext(context);
+
+        assertThat(localLinkExtension(flexmark.registeredExtensions())).isNotSameAs(localLinkExtension(other.registeredExtensions()));
+        assertThat(localLinkExtension(other.registeredExtensions()).alexandriaContext()).isNotEqualTo(context);
+    }
+
+    @Test
+    public void testAlexandriaFlexmarkSetsAlexandriaContextOnExtensionsAfterParserRetrieved(){
+        flexmark.parser();
+        Context context = mock(Context.class);
+        flexmark.alexandriaContext(context);
+        assertThat(localLinkExtension(flexmark.registeredExtensions()).alexandriaContext()).isEqualTo(context);
+    }
+
+    @Test
+    public void testAlexandriaFlexmarkSetOptionThrowsErrorAfterParserRetrieved(){
+        flexmark.parser();
+        assertThatThrownBy(() -> flexmark.setOption(Parser.CODE_SOFT_LINE_BREAKS, false))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testAlexandriaFlexmarkBuildsParserAndRendererOnceConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Parser>> parsers = new ArrayList<>();
+            List<Future<HtmlRenderer>> renderers = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                parsers.add(executor.submit(() -> flexmark.parser()));
+                renderers.add(executor.submit(() -> flexmark.renderer()));
+            }
+            Set<Parser> distinctParsers = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<Parser> parser : parsers) {
+                distinctParsers.add(parser.get());
+            }
+            Set<HtmlRenderer> distinctRenderers = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<HtmlRenderer> renderer : renderers) {
+                distinctRenderers.add(renderer.get());
+            }
+            assertThat(distinctParsers).hasSize(1);
+            assertThat(distinctRenderers).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAlexandriaFlexmarkRendersConcurrently() throws Exception {
+        String expected = flexmark.renderer().render(flexmark.parser().parse("# Title\n\n* item **bold**\n"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> rendered = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                rendered.add(executor.submit(() ->
+                        flexmark.renderer().render(flexmark.parser().parse("# Title\n\n* item **bold**\n"))));
+            }
+            for (Future<String> html : rendered) {
+                assertThat(html.get()).isEqualTo(expected);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertDefaultExtensions(Iterable<Extension> extensions){
+        assertThat(extensions).contains(AlexandriaFlexmark.DEFAULT_EXTENSIONS);
+        assertThat(extensions).hasSize(AlexandriaFlexmark.DEFAULT_EXTENSIONS.length + 1);
+        assertThat(localLinkExtension(extensions)).isNotNull();
+    }
+
+    private LocalLinkExtension localLinkExtension(Iterable<Extension> extensions){
+        for(Extension e : extensions){
+            if(e instanceof LocalLinkExtension){
+                return (LocalLinkExtension) e;
+            }
+        }
+        return null;
+    }
 }
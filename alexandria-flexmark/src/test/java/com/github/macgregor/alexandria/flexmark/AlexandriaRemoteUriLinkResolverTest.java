@@ -3,6 +3,7 @@ package com.github.macgregor.alexandria.flexmark;
 import com.github.macgregor.alexandria.Config;
 import com.github.macgregor.alexandria.Context;
 import com.github.macgregor.alexandria.exceptions.AlexandriaException;
+import com.github.macgregor.alexandria.markdown.NoopMarkdownConverter;
 import com.github.macgregor.alexandria.flexmark.links.LocalLinkRefProcessor;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
 import com.vladsch.flexmark.util.sequence.BasedSequenceImpl;
@@ -16,6 +17,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -105,6 +107,22 @@ public class AlexandriaRemoteUriLinkResolverTest {
         assertThat(remoteUriRelativeLinkResolver.resolve("link text", "./readme.md")).isEqualTo(localUri);
     }
 
+    @Test
+    public void testResolveRecordsLinkForConversionCache() throws Exception {
+        File f = folder.newFile("readme.md");
+        URI remoteUri = new URI("https://www.google.com");
+        Config.DocumentMetadata linked = TestData.minimalDocumentMetadata(context, f.toPath());
+        linked.remoteUri(Optional.of(remoteUri));
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        Path converted = folder.newFile("converted.html").toPath();
+
+        context.conversions().convert(context, metadata, new NoopMarkdownConverter(), converted, Optional.empty(),
+                () -> remoteUriRelativeLinkResolver.resolve("link text", "./readme.md"));
+
+        assertThat(context.conversions().conversion(metadata.sourcePath()).get().links())
+                .containsEntry(linked.sourcePath(), Optional.of(remoteUri));
+    }
+
     @Test
     public void testRelativeLinkProcessorMatchesBasicGithubStyleRelativeLinks(){
         assertThat(remoteUriRelativeLinkResolver.wants("[link text](./foo.txt)"));
@@ -14,6 +14,8 @@ import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -22,6 +24,8 @@ import java.util.stream.Collectors;
  */
 @Getter @Setter @Accessors(fluent = true)
 public abstract class AlexandriaMojo extends AbstractMojo {
+    /** Prefix of the plugin context key the initialized {@link Alexandria} is shared under, see {@link #init()}. */
+    public static final String SHARED_ALEXANDRIA_KEY = Alexandria.class.getName() + ":";
 
     /** Automatically set by Maven, user cannot override. */
     @Parameter(defaultValue = "${project}", required = true, readonly = true)
@@ -106,6 +110,47 @@ public abstract class AlexandriaMojo extends AbstractMojo {
     @Parameter( property = "alexandria.timeout", defaultValue = "30")
     protected Integer timeout = 30;
 
+    /**
+     * Number of documents to convert and sync concurrently.
+     *
+     * Maven Property: alexandria.jobs
+     * Maps to: {@link Config#jobs}
+     * Defaults to: value in the Alexandria config file, or 1 (sequential) if not set
+     */
+    @Parameter( property = "alexandria.jobs")
+    protected Integer jobs;
+
+    /**
+     * Convert documents while already converted documents are synced with the remote.
+     *
+     * Maven Property: alexandria.pipeline
+     * Maps to: {@link Config#pipeline}
+     * Defaults to: value in the Alexandria config file, or false if not set
+     */
+    @Parameter( property = "alexandria.pipeline")
+    protected Boolean pipeline;
+
+    /**
+     * Number of documents to keep outstanding with the remote at once, syncing them asynchronously from a single thread.
+     *
+     * Maven Property: alexandria.inFlight
+     * Maps to: {@link Config#inFlight}
+     * Defaults to: value in the Alexandria config file, or 0 (disabled) if not set
+     */
+    @Parameter( property = "alexandria.inFlight")
+    protected Integer inFlight;
+
+    /**
+     * Fully qualified class name of the metadata store that saves indexed documents, e.g.
+     * com.github.macgregor.alexandria.stores.EmbeddedMetadataStore.
+     *
+     * Maven Property: alexandria.metadataStore
+     * Maps to: {@link Config#metadataStore}
+     * Defaults to: value in the Alexandria config file, or the config file itself if not set
+     */
+    @Parameter( property = "alexandria.metadataStore")
+    protected String metadataStore;
+
     /**
      * Whether or not to fail the overall maven build if the plugin execution fails. If set to false, any errors
      * encountered will be logged at warning level.
@@ -142,6 +187,12 @@ public abstract class AlexandriaMojo extends AbstractMojo {
     /**
      * Initialize the Alexandria context from the Maven plugin parameters for implementing mojo classes to use.
      *
+     * The initialized instance is shared with the other Alexandria goals run on the same project in the same Maven
+     * session through the plugin context, see {@link #getPluginContext()}. So a build running index, convert and sync
+     * loads the config once and all three goals use the same remote, converter and conversions. Each goal still applies
+     * its own plugin parameters to the shared context. The remote is configured once, by the first goal that needs it,
+     * and reconfigured if a later goal sets a different {@link #timeout}.
+     *
      * @return initialized {@link Context}
      * @throws IOException Alexandria metadata file cannot be loaded properly, (see {@link Context#load(String)}
      */
@@ -153,10 +204,35 @@ public abstract class AlexandriaMojo extends AbstractMojo {
         if(configPath == null){
             configPath = Paths.get(rootDir(), ".alexandria").toString();
         }
-        alexandria.context(Context.load(Paths.get(configPath).toAbsolutePath().toString()));
+        String absoluteConfigPath = Paths.get(configPath).toAbsolutePath().toString();
+        Optional<Alexandria> shared = sharedAlexandria(absoluteConfigPath);
+        if(shared.isPresent()){
+            getLog().debug("Alexandria - reusing context loaded by a previous goal from " + absoluteConfigPath);
+            alexandria = shared.get();
+        } else {
+            alexandria.context(Context.load(absoluteConfigPath));
+            shareAlexandria(absoluteConfigPath);
+        }
         alexandria.context().searchPath(inputs.stream().map(Paths::get).collect(Collectors.toList()));
         alexandria.context().outputPath(Optional.of(Paths.get(outputPath)));
+        Integer previousTimeout = alexandria.context().config().remote().requestTimeout();
         alexandria.context().config().remote().requestTimeout(timeout);
+        if(alexandria.context().remote().isPresent() && !Objects.equals(previousTimeout, timeout)){
+            getLog().debug("Alexandria - reconfiguring remote with request timeout " + timeout);
+            alexandria.context().remote().get().configure(alexandria.context().config().remote());
+        }
+        if(jobs != null){
+            alexandria.context().config().jobs(jobs);
+        }
+        if(pipeline != null){
+            alexandria.context().config().pipeline(pipeline);
+        }
+        if(inFlight != null){
+            alexandria.context().config().inFlight(inFlight);
+        }
+        if(metadataStore != null){
+            alexandria.context().useMetadataStore(metadataStore);
+        }
         alexandria.context().disclaimerFooterEnabled(disclaimerFooterEnabled);
         if(disclaimerFooterPath != null){
             alexandria.context().disclaimerFooterPath(Optional.of(Paths.get(disclaimerFooterPath)));
@@ -170,6 +246,43 @@ public abstract class AlexandriaMojo extends AbstractMojo {
         return alexandria;
     }
 
+    /**
+     * Alexandria instance initialized by a previous goal this session for the same config file.
+     *
+     * @param absoluteConfigPath  absolute path to the config file
+     * @return  shared instance or Optional.empty() if this is the first goal to use the config
+     */
+    protected Optional<Alexandria> sharedAlexandria(String absoluteConfigPath){
+        Map<String, Object> pluginContext = pluginContext();
+        if(pluginContext == null){
+            return Optional.empty();
+        }
+        Object shared = pluginContext.get(SHARED_ALEXANDRIA_KEY + absoluteConfigPath);
+        return shared instanceof Alexandria ? Optional.of((Alexandria) shared) : Optional.empty();
+    }
+
+    /**
+     * Share this goal's Alexandria instance with goals run after it this session.
+     *
+     * @param absoluteConfigPath  absolute path to the config file the instance was loaded from
+     */
+    protected void shareAlexandria(String absoluteConfigPath){
+        Map<String, Object> pluginContext = pluginContext();
+        if(pluginContext != null){
+            pluginContext.put(SHARED_ALEXANDRIA_KEY + absoluteConfigPath, alexandria);
+        }
+    }
+
+    /**
+     * Typed view of {@link #getPluginContext()}, which Maven declares as a raw map keyed by strings.
+     *
+     * @return  plugin context or null if Maven didnt set one
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> pluginContext(){
+        return (Map<String, Object>) getPluginContext();
+    }
+
     /**
      * Debug logging of Maven plugin configuration.
      */
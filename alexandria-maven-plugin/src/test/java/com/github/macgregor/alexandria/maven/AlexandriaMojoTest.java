@@ -2,6 +2,8 @@ package com.github.macgregor.alexandria.maven;
 
 import com.github.macgregor.alexandria.Alexandria;
 import com.github.macgregor.alexandria.Context;
+import com.github.macgregor.alexandria.remotes.Remote;
+import com.github.macgregor.alexandria.stores.EmbeddedMetadataStore;
 import edu.emory.mathcs.backport.java.util.Collections;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -14,6 +16,9 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -236,6 +241,59 @@ public class AlexandriaMojoTest {
         assertThat(context.config().remote().requestTimeout()).isEqualTo(45);
     }
 
+    @Test
+    public void testInitKeepsConfigJobsWhenNotSet() throws IOException {
+        testAlexandriaMojo.init();
+        assertThat(context.config().jobs()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInitSetsJobs() throws IOException {
+        testAlexandriaMojo.jobs(4);
+        testAlexandriaMojo.init();
+        assertThat(context.config().jobs()).isEqualTo(4);
+    }
+
+    @Test
+    public void testInitKeepsConfigPipelineWhenNotSet() throws IOException {
+        testAlexandriaMojo.init();
+        assertThat(context.config().pipeline()).isFalse();
+    }
+
+    @Test
+    public void testInitSetsPipeline() throws IOException {
+        testAlexandriaMojo.pipeline(true);
+        testAlexandriaMojo.init();
+        assertThat(context.config().pipeline()).isTrue();
+    }
+
+    @Test
+    public void testInitKeepsConfigInFlightWhenNotSet() throws IOException {
+        testAlexandriaMojo.init();
+        assertThat(context.config().inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testInitSetsInFlight() throws IOException {
+        testAlexandriaMojo.inFlight(32);
+        testAlexandriaMojo.init();
+        assertThat(context.config().inFlight()).isEqualTo(32);
+    }
+
+    @Test
+    public void testInitKeepsConfigMetadataStoreWhenNotSet() throws IOException {
+        testAlexandriaMojo.init();
+        assertThat(context.config().metadataStore()).isEqualTo("com.github.macgregor.alexandria.SyncStateStore");
+    }
+
+    @Test
+    public void testInitSetsMetadataStore() throws IOException {
+        testAlexandriaMojo.metadataStore("com.github.macgregor.alexandria.stores.EmbeddedMetadataStore");
+        testAlexandriaMojo.init();
+        assertThat(context.config().metadataStore()).isEqualTo("com.github.macgregor.alexandria.stores.EmbeddedMetadataStore");
+        assertThat(context.metadataStore()).isInstanceOf(EmbeddedMetadataStore.class);
+    }
+
     @Test
     public void testFailBuildDefaultsToFalse(){
         assertThat(testAlexandriaMojo.failBuild()).isFalse();
@@ -267,4 +325,76 @@ public class AlexandriaMojoTest {
         assertThat(context.disclaimerFooterPath()).isPresent();
         assertThat(context.disclaimerFooterPath().get()).isEqualTo(Paths.get("foo"));
     }
+
+    @Test
+    public void testInitSharesAlexandriaWithPluginContext() throws IOException {
+        Map<String, Object> pluginContext = new HashMap<>();
+        testAlexandriaMojo.setPluginContext(pluginContext);
+        testAlexandriaMojo.init();
+        assertThat(pluginContext).containsValue(alexandria);
+    }
+
+    @Test
+    public void testInitReusesAlexandriaFromPreviousGoal() throws IOException {
+        clearInvocations(alexandria);
+        Map<String, Object> pluginContext = new HashMap<>();
+        testAlexandriaMojo.setPluginContext(pluginContext);
+        testAlexandriaMojo.init();
+
+        TestAlexandriaMojo nextGoal = nextGoal(pluginContext);
+        nextGoal.jobs(4);
+        assertThat(nextGoal.init()).isSameAs(alexandria);
+        assertThat(nextGoal.alexandria().context()).isSameAs(context);
+        assertThat(context.config().jobs()).isEqualTo(4);
+        verify(alexandria, times(1)).context(any());
+    }
+
+    @Test
+    public void testInitReconfiguresRemoteWhenTimeoutChanges() throws IOException {
+        Remote remote = mock(Remote.class);
+        context.remote(Optional.of(remote));
+        Map<String, Object> pluginContext = new HashMap<>();
+        testAlexandriaMojo.setPluginContext(pluginContext);
+        testAlexandriaMojo.init();
+        verify(remote, never()).configure(any());
+
+        TestAlexandriaMojo nextGoal = nextGoal(pluginContext);
+        nextGoal.init();
+        verify(remote, never()).configure(any());
+
+        nextGoal.timeout(60);
+        nextGoal.init();
+        assertThat(context.config().remote().requestTimeout()).isEqualTo(60);
+        verify(remote, times(1)).configure(context.config().remote());
+    }
+
+    @Test
+    public void testInitDoesntReuseAlexandriaForOtherConfig() throws IOException {
+        Map<String, Object> pluginContext = new HashMap<>();
+        testAlexandriaMojo.setPluginContext(pluginContext);
+        testAlexandriaMojo.init();
+
+        TestAlexandriaMojo nextGoal = nextGoal(pluginContext);
+        nextGoal.configPath("other");
+        assertThat(nextGoal.init()).isNotSameAs(alexandria);
+        assertThat(pluginContext).hasSize(2);
+    }
+
+    @Test
+    public void testInitWithoutPluginContextLoadsContext() throws IOException {
+        clearInvocations(alexandria);
+        testAlexandriaMojo.init();
+        testAlexandriaMojo.init();
+        verify(alexandria, times(2)).context(any());
+    }
+
+    private TestAlexandriaMojo nextGoal(Map<String, Object> pluginContext){
+        TestAlexandriaMojo nextGoal = new TestAlexandriaMojo();
+        nextGoal.project(parentProject);
+        nextGoal.mavenSession(session);
+        nextGoal.setLog(log);
+        nextGoal.outputPath("foo");
+        nextGoal.setPluginContext(pluginContext);
+        return nextGoal;
+    }
 }
@@ -11,7 +11,6 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
 
@@ -22,7 +21,7 @@ import java.nio.file.Path;
 @Slf4j
 @AllArgsConstructor
 @Data
-public class JiveMarkdownConverter implements MarkdownConverter, Context.ContextAware {
+public class JiveMarkdownConverter implements FooterMarkdownConverter, Context.ContextAware {
 
     private Context context;
     private JiveFlexmarkExtension jiveFlexmarkExtension;
@@ -36,6 +35,9 @@ public class JiveMarkdownConverter implements MarkdownConverter, Context.Context
     /**
      * Uses Flexmark to convert markdown to html and resolve relative links to their remote URIs.
      *
+     * Safe to call concurrently for different documents, all threads share the same {@link AlexandriaFlexmark} parser
+     * and renderer.
+     *
      * @see {@link AlexandriaFlexmark}
      * @see {@link JiveFlexmarkExtension}
      *
@@ -46,6 +48,20 @@ public class JiveMarkdownConverter implements MarkdownConverter, Context.Context
      */
     @Override
     public void convert(Config.DocumentMetadata metadata, Path source, Path converted) throws AlexandriaException {
+        convert(metadata, source, "", converted);
+    }
+
+    /**
+     * Uses Flexmark to convert markdown to html with the footer appended to the source in memory.
+     *
+     * @param metadata  metadata details about the document being converted
+     * @param source  absolute path to the markdown source document that is being converted
+     * @param footer  markdown to append to the source
+     * @param converted  absolute path that should be used to write the converted document to
+     * @throws AlexandriaException
+     */
+    @Override
+    public void convert(Config.DocumentMetadata metadata, Path source, String footer, Path converted) throws AlexandriaException {
         if(context == null || flexmark.alexandriaContext() == null){
             throw new AlexandriaException.Builder()
                     .withMessage("Tried to convert documents without setting Alexandria context. JiveMarkdownConverter requires context to function properly.")
@@ -53,7 +69,7 @@ public class JiveMarkdownConverter implements MarkdownConverter, Context.Context
                     .build();
         }
         try {
-            Document document = flexmark.parser().parseReader(new FileReader(source.toFile()));
+            Document document = flexmark.parser().parse(Resources.load(source.toString()) + footer);
             Resources.save(converted.toString(), flexmark.renderer().render(document));
         } catch(IOException e){
             throw new AlexandriaException.Builder()
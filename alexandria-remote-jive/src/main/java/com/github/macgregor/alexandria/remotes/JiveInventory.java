@@ -0,0 +1,133 @@
+package com.github.macgregor.alexandria.remotes;
+
+import com.github.macgregor.alexandria.Config;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory snapshot of Alexandria managed Jive content taken at the start of sync, see {@link JiveRemote#takeInventory()}.
+ *
+ * Content is indexed by the {@value JiveRemote#JIVE_TRACKING_TAG} values it was searched for and by the Jive object id in
+ * its html uri (e.g. 1234 for {@code https://jive.com/docs/DOC-1234}), the same two keys
+ * {@link JiveRemote#findDocument(Config.DocumentMetadata)} searches the remote by. The inventory also remembers which
+ * keys were searched for, so a miss on a key that was part of the inventory can be told apart from a key added after it
+ * was taken.
+ *
+ * Safe to read and update from concurrent sync tasks.
+ */
+@Slf4j
+@ToString
+public class JiveInventory {
+    private final Map<String, JiveData.JiveContent> byTrackingTag = new ConcurrentHashMap<>();
+    private final Map<String, JiveData.JiveContent> byObjectId = new ConcurrentHashMap<>();
+    private final Set<String> searchedTrackingTags = ConcurrentHashMap.newKeySet();
+    private final Set<String> searchedObjectIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Record a page of results from a search for the given tracking tags.
+     *
+     * @param trackingTags  tracking tags that were searched for
+     * @param results  content returned by the search
+     */
+    public void addTrackingTagResults(Collection<String> trackingTags, Iterable<JiveData.JiveContent> results){
+        for(JiveData.JiveContent content : results){
+            add(content);
+            if(content.tags != null){
+                for(String tag : content.tags){
+                    if(trackingTags.contains(tag)){
+                        byTrackingTag.put(tag, content);
+                    }
+                }
+            }
+        }
+        searchedTrackingTags.addAll(trackingTags);
+    }
+
+    /**
+     * Record a page of results from a search for the given object ids.
+     *
+     * @param objectIds  object ids that were searched for
+     * @param results  content returned by the search
+     */
+    public void addObjectIdResults(Collection<String> objectIds, Iterable<JiveData.JiveContent> results){
+        for(JiveData.JiveContent content : results){
+            add(content);
+        }
+        searchedObjectIds.addAll(objectIds);
+    }
+
+    /**
+     * Find the inventoried content for a document by its tracking tag, then by the object id in its remote uri.
+     *
+     * @param metadata  document to find
+     * @return  matching content or null if the document wasnt part of the inventory or wasnt found on the remote
+     */
+    public JiveData.JiveContent find(Config.DocumentMetadata metadata){
+        JiveData.JiveContent content = null;
+        if(metadata.hasExtraProperty(JiveRemote.JIVE_TRACKING_TAG)){
+            content = byTrackingTag.get(metadata.getExtraProperty(JiveRemote.JIVE_TRACKING_TAG));
+        }
+        if(content == null && metadata.remoteUri().isPresent()){
+            String objectId = objectId(metadata.remoteUri().get());
+            if(objectId != null){
+                content = byObjectId.get(objectId);
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Whether the document's tracking tag or remote uri was searched for when taking the inventory.
+     *
+     * @param metadata  document to check
+     * @return  true if the inventory searched for the document
+     */
+    public boolean searchedFor(Config.DocumentMetadata metadata){
+        if(metadata.hasExtraProperty(JiveRemote.JIVE_TRACKING_TAG)
+                && searchedTrackingTags.contains(metadata.getExtraProperty(JiveRemote.JIVE_TRACKING_TAG))){
+            return true;
+        }
+        if(metadata.remoteUri().isPresent()){
+            String objectId = objectId(metadata.remoteUri().get());
+            return objectId != null && searchedObjectIds.contains(objectId);
+        }
+        return false;
+    }
+
+    /**
+     * @return  number of distinct documents in the inventory, by object id
+     */
+    public int size(){
+        return byObjectId.size();
+    }
+
+    private void add(JiveData.JiveContent content){
+        if(content.resources != null && content.resources.get("html") != null){
+            String html = content.resources.get("html").ref;
+            try {
+                String objectId = objectId(new URI(html));
+                if(objectId != null){
+                    byObjectId.put(objectId, content);
+                }
+            } catch (URISyntaxException | RuntimeException e) {
+                log.warn(String.format("Leaving content %s out of the inventory, unable to parse html uri %s.",
+                        content.contentID, html), e);
+            }
+        }
+    }
+
+    private static String objectId(URI uri){
+        try {
+            return JiveUtils.jiveObjectId(uri);
+        } catch(IllegalStateException e){
+            return null;
+        }
+    }
+}
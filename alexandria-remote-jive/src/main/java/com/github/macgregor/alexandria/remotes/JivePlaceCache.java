@@ -0,0 +1,100 @@
+package com.github.macgregor.alexandria.remotes;
+
+import com.github.macgregor.alexandria.Config;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Parent places looked up during a sync, keyed by the user defined {@value JiveRemote#JIVE_PARENT_URI}.
+ *
+ * Looking up a parent place can take several paged {@code GET baseUrl/places} requests, see
+ * {@link JiveRemote#findParentPlace(Config.DocumentMetadata)}, and documents usually share a handful of places. Each
+ * place is looked up once and the result, including not finding the place at all, is reused for every document with the
+ * same parent uri. Concurrent lookups of the same place are merged, only the first caller makes the requests while the
+ * others wait for its result. A lookup that fails isnt cached, so the next document to ask tries again.
+ *
+ * Safe to use from concurrent sync tasks.
+ */
+@ToString
+public class JivePlaceCache {
+    private final Map<String, CompletableFuture<Optional<JiveData.JivePlace>>> places = new ConcurrentHashMap<>();
+
+    /**
+     * Look up a parent place from the remote.
+     */
+    @FunctionalInterface
+    public interface PlaceLookup {
+        /**
+         * @return  the matching place or Optional.empty() if it wasnt found
+         * @throws IOException  there was a problem with the requests
+         */
+        Optional<JiveData.JivePlace> find() throws IOException;
+    }
+
+    /**
+     * Get the cached place for a parent uri, looking it up if this is the first time it was asked for.
+     *
+     * @param parentUri  {@value JiveRemote#JIVE_PARENT_URI} of the document
+     * @param lookup  requests to find the place on the remote
+     * @return  the matching place or Optional.empty() if it wasnt found
+     * @throws IOException  there was a problem with the requests, for this caller or the one it was waiting on
+     */
+    public Optional<JiveData.JivePlace> get(String parentUri, PlaceLookup lookup) throws IOException {
+        CompletableFuture<Optional<JiveData.JivePlace>> place = new CompletableFuture<>();
+        CompletableFuture<Optional<JiveData.JivePlace>> existing = places.putIfAbsent(parentUri, place);
+        if(existing != null){
+            return await(existing);
+        }
+
+        try {
+            Optional<JiveData.JivePlace> found = lookup.find();
+            place.complete(found);
+            return found;
+        } catch(IOException | RuntimeException e){
+            places.remove(parentUri, place);
+            place.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Whether a parent uri has been looked up or is being looked up.
+     *
+     * @param parentUri  {@value JiveRemote#JIVE_PARENT_URI} of the document
+     * @return  true if a later {@link #get(String, PlaceLookup)} wont make any requests of its own
+     */
+    public boolean contains(String parentUri){
+        return places.containsKey(parentUri);
+    }
+
+    /**
+     * @return  number of places looked up, whether they were found or not
+     */
+    public int size(){
+        return places.size();
+    }
+
+    private static Optional<JiveData.JivePlace> await(CompletableFuture<Optional<JiveData.JivePlace>> place) throws IOException {
+        try {
+            return place.get();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for parent place lookup.");
+        } catch(ExecutionException e){
+            if(e.getCause() instanceof IOException){
+                throw (IOException) e.getCause();
+            }
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
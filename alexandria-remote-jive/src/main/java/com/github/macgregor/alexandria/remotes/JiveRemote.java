@@ -18,9 +18,13 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 /**
  * Implements the Jive rest api for create/update/delete of documents.
@@ -36,6 +40,7 @@ import java.util.concurrent.TimeUnit;
  *   supportsNativeMarkdown: false
  *   datetimeFormat: "yyyy-MM-dd'T'HH:mm:ss.SSSZ"
  *   requestTimeout: 60
+ *   prefetch: true
  *   class: "com.github.macgregor.alexandria.remotes.jive.JiveRemote"
  *   defaultExtraProps:
  *      jiveParentUri: "https://jive.com/groups/alexandria-test-group"
@@ -78,48 +83,78 @@ import java.util.concurrent.TimeUnit;
  *  or {@value JIVE_CONTENT_ID}</li>
  * </ul>
  *
+ * Creates, updates and deletes can also be made asynchronously, see {@link AsyncRemote}. The request modifying the
+ * document is enqueued with the shared {@link OkHttpClient}, but any lookups needed first (e.g. {@link #findDocument(Config.DocumentMetadata)}
+ * for documents missing a {@value #JIVE_CONTENT_ID}) are still made on the calling thread. Enabling
+ * {@link Config.RemoteConfig#prefetch} avoids most of them.
+ *
  * @see <a href="https://developers.jivesoftware.com/api/v3/cloud/rest/index.html">Introduction to the Jive REST API</a>
  */
 @Slf4j
 @ToString
 @Getter @Setter @Accessors(fluent = true)
 @NoArgsConstructor
-public class JiveRemote implements Remote, Context.ContextAware {
+public class JiveRemote implements AsyncRemote, Context.ContextAware {
     public static final String JIVE_CONTENT_ID = "jiveContentId";
     public static final String JIVE_PARENT_URI = "jiveParentUri";
     public static final String JIVE_PARENT_API_URI = "jiveParentApiUri";
     public static final String JIVE_PARENT_PLACE_ID = "jiveParentPlaceId";
     public static final String JIVE_TRACKING_TAG = "jiveTrackingTag";
 
+    /** Jive object type of documents, used in entityDescriptor searches. */
+    public static final int JIVE_DOCUMENT_TYPE = 102;
+
+    /** Number of tracking tags or object ids searched for per request when taking an inventory. */
+    public static final int INVENTORY_BATCH_SIZE = 25;
+
+    /** Largest page Jive will return, larger {@link Config.RemoteConfig#pageSize} values are capped to it. */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /** Extra properties set by the remote, everything else (e.g. {@value #JIVE_PARENT_URI}) is user defined. */
+    private static final Set<String> MANAGED_PROPERTIES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            JIVE_CONTENT_ID, JIVE_PARENT_API_URI, JIVE_PARENT_PLACE_ID, JIVE_TRACKING_TAG)));
+
     @NonNull protected OkHttpClient client;
     @NonNull protected Config.RemoteConfig config;
     @NonNull protected MarkdownConverter markdownConverter;
     @NonNull protected Context context;
 
+    /** Adaptive limit on requests in flight shared by all requests when {@link Config.RemoteConfig#adaptiveConcurrency} is enabled, otherwise null. */
+    protected ConcurrencyLimiter limiter;
+
+    /** Policy for retrying failed idempotent requests, null if {@link Config.RemoteConfig#retryMaxAttempts} disables retries. */
+    protected RetryPolicy retryPolicy;
+
+    /** Managed content fetched by {@link #beforeSync()} when {@link Config.RemoteConfig#prefetch} is enabled, otherwise null. */
+    protected JiveInventory inventory;
+
+    /** Parent places already looked up by {@link #findParentPlace(Config.DocumentMetadata)}, shared by all documents. */
+    protected JivePlaceCache places = new JivePlaceCache();
+
     /**
-     * Create {@link JiveRemote} with a default {@link OkHttpClient}.
+     * Create {@link JiveRemote} with a shared {@link OkHttpClient} configured from the remote config.
      *
      * @param config  remote configuration with at least {@link Config.RemoteConfig#clazz} set.
      */
     public JiveRemote(Config.RemoteConfig config){
-        client = new OkHttpClient.Builder()
-                .connectTimeout(config.requestTimeout(), TimeUnit.SECONDS)
-                .writeTimeout(config.requestTimeout(), TimeUnit.SECONDS)
-                .readTimeout(config.requestTimeout(), TimeUnit.SECONDS)
-                .build();
+        this.client = Requests.client(config);
+        this.limiter = Requests.limiter(config);
+        this.retryPolicy = Requests.retryPolicy(config);
         this.config = config;
     }
 
     /**
      * {@inheritDoc}
+     *
+     * Creates the {@link OkHttpClient}, {@link ConcurrencyLimiter} and {@link RetryPolicy} shared by all requests to the
+     * remote. See {@link Requests#client(Config.RemoteConfig)}, {@link Requests#limiter(Config.RemoteConfig)} and
+     * {@link Requests#retryPolicy(Config.RemoteConfig)}.
      */
     @Override
     public void configure(Config.RemoteConfig config){
-        this.client = new OkHttpClient.Builder()
-                .connectTimeout(config.requestTimeout(), TimeUnit.SECONDS)
-                .writeTimeout(config.requestTimeout(), TimeUnit.SECONDS)
-                .readTimeout(config.requestTimeout(), TimeUnit.SECONDS)
-                .build();
+        this.client = Requests.client(config);
+        this.limiter = Requests.limiter(config);
+        this.retryPolicy = Requests.retryPolicy(config);
         this.config = config;
     }
 
@@ -153,6 +188,39 @@ public class JiveRemote implements Remote, Context.ContextAware {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * {@value #JIVE_CONTENT_ID}, {@value #JIVE_PARENT_API_URI}, {@value #JIVE_PARENT_PLACE_ID} and
+     * {@value #JIVE_TRACKING_TAG}. {@value #JIVE_PARENT_URI} is user defined and stays in the config.
+     */
+    @Override
+    public Set<String> managedProperties() {
+        return MANAGED_PROPERTIES;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * When {@link Config.RemoteConfig#prefetch} is enabled, takes an inventory of all documents already on the remote
+     * so {@link #findDocument(Config.DocumentMetadata)} doesnt need a request per document. If the inventory cant be
+     * taken, documents are looked up individually as usual.
+     *
+     * @see #takeInventory()
+     */
+    @Override
+    public void beforeSync() {
+        if(!config.prefetch()){
+            return;
+        }
+        try {
+            takeInventory();
+        } catch(Exception e){
+            inventory = null;
+            log.warn("Unable to take inventory of remote documents, documents will be looked up individually.", e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -165,10 +233,51 @@ public class JiveRemote implements Remote, Context.ContextAware {
      */
     @Override
     public void create(Config.DocumentMetadata metadata) throws IOException {
+        if(prepareCreate(metadata)) {
+            RemoteDocument<JiveData.JiveContent> jiveContent = remoteJiveContentBuilder()
+                    .build();
+            JiveData.JiveContent content = jiveContent.post(JiveData.documentPostBody(context, metadata));
+            updateMetadata(metadata, content);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Makes the same requests as {@link #create(Config.DocumentMetadata)}, only the {@code POST baseUrl/contents} is
+     * made asynchronously.
+     */
+    @Override
+    public CompletableFuture<Config.DocumentMetadata> createAsync(Config.DocumentMetadata metadata) {
+        try {
+            if(!prepareCreate(metadata)){
+                return CompletableFuture.completedFuture(metadata);
+            }
+            RemoteDocument<JiveData.JiveContent> jiveContent = remoteJiveContentBuilder()
+                    .build();
+            return jiveContent.postAsync(JiveData.documentPostBody(context, metadata))
+                    .thenApply(content -> updateMetadata(metadata, content));
+        } catch(Exception e){
+            return AsyncRemote.failed(e);
+        }
+    }
+
+    /**
+     * Look for a document about to be created on the remote, in case it was already created, and look up its parent
+     * place as needed.
+     *
+     * @param metadata  document to create
+     * @return  true if the document still needs to be created
+     * @throws IOException  there was a problem with the requests
+     */
+    protected boolean prepareCreate(Config.DocumentMetadata metadata) throws IOException {
+        boolean newTrackingTag = !metadata.hasExtraProperty(JIVE_TRACKING_TAG);
         JiveUtils.setTrackingTagAsNeeded(context, metadata);
         boolean found = false;
         try {
-            JiveData.JiveContent content = findDocument(metadata);
+            // a tracking tag generated just now cant be on the remote, with an inventory there is nothing else to look for
+            JiveData.JiveContent content = inventory != null && newTrackingTag && !metadata.remoteUri().isPresent()
+                    ? null : findDocument(metadata);
             if(content != null){
                 found = true;
             }
@@ -182,17 +291,13 @@ public class JiveRemote implements Remote, Context.ContextAware {
 
         if(found){
             log.debug(String.format("Document %s (%s) already exists on remote. Not recreating.", metadata.sourceFileName(), metadata.remoteUri().get()));
-            return;
+            return false;
         }
 
         if(JiveUtils.needsParentPlaceUri(context, metadata)){
             findParentPlace(metadata);
         }
-
-        RemoteDocument<JiveData.JiveContent> jiveContent = remoteJiveContentBuilder()
-                .build();
-        JiveData.JiveContent content = jiveContent.post(JiveData.documentPostBody(context, metadata));
-        updateMetadata(metadata, content);
+        return true;
     }
 
     /**
@@ -208,6 +313,42 @@ public class JiveRemote implements Remote, Context.ContextAware {
      */
     @Override
     public void update(Config.DocumentMetadata metadata) throws IOException {
+        String contentId = prepareUpdate(metadata);
+        RemoteDocument<JiveData.JiveContent> jiveContent = remoteJiveContentBuilder()
+                .pathSegment(contentId)
+                .build();
+        JiveData.JiveContent content = jiveContent.put(JiveData.documentPostBody(context, metadata));
+        updateMetadata(metadata, content);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Makes the same requests as {@link #update(Config.DocumentMetadata)}, only the
+     * {@code PUT baseUrl/contents/$&#123;{@value #JIVE_CONTENT_ID}&#125;} is made asynchronously.
+     */
+    @Override
+    public CompletableFuture<Config.DocumentMetadata> updateAsync(Config.DocumentMetadata metadata) {
+        try {
+            String contentId = prepareUpdate(metadata);
+            RemoteDocument<JiveData.JiveContent> jiveContent = remoteJiveContentBuilder()
+                    .pathSegment(contentId)
+                    .build();
+            return jiveContent.putAsync(JiveData.documentPostBody(context, metadata))
+                    .thenApply(content -> updateMetadata(metadata, content));
+        } catch(Exception e){
+            return AsyncRemote.failed(e);
+        }
+    }
+
+    /**
+     * Look up the identifiers needed to update a document as needed.
+     *
+     * @param metadata  document to update
+     * @return  the document's {@value #JIVE_CONTENT_ID}
+     * @throws IOException  there was a problem with the requests
+     */
+    protected String prepareUpdate(Config.DocumentMetadata metadata) throws IOException {
         JiveUtils.setTrackingTagAsNeeded(context, metadata);
         if(JiveUtils.needsContentId(metadata)){
             findDocument(metadata);
@@ -217,13 +358,9 @@ public class JiveRemote implements Remote, Context.ContextAware {
         if(JiveUtils.needsParentPlaceUri(context, metadata)){
             findParentPlace(metadata);
         }
-
-        RemoteDocument<JiveData.JiveContent> jiveContent = remoteJiveContentBuilder()
-                .pathSegment(contentId)
-                .build();
-        JiveData.JiveContent content = jiveContent.put(JiveData.documentPostBody(context, metadata));
-        updateMetadata(metadata, content);
+        return contentId;
     }
+
     /**
      * {@inheritDoc}
      *
@@ -242,6 +379,48 @@ public class JiveRemote implements Remote, Context.ContextAware {
      */
     @Override
     public void delete(Config.DocumentMetadata metadata) throws IOException {
+        String contentId = prepareDelete(metadata);
+        if(contentId != null) {
+            remoteJiveContentBuilder()
+                    .pathSegment(contentId)
+                    .build()
+                    .delete();
+        }
+        metadata.deletedOn(Optional.of(ZonedDateTime.now(ZoneOffset.UTC)));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Makes the same requests as {@link #delete(Config.DocumentMetadata)}, only the
+     * {@code DELETE baseUrl/contents/$&#123;{@value #JIVE_CONTENT_ID}&#125;} is made asynchronously.
+     */
+    @Override
+    public CompletableFuture<Config.DocumentMetadata> deleteAsync(Config.DocumentMetadata metadata) {
+        try {
+            String contentId = prepareDelete(metadata);
+            CompletableFuture<Void> deleted = contentId == null ? CompletableFuture.completedFuture(null) :
+                    remoteJiveContentBuilder()
+                            .pathSegment(contentId)
+                            .build()
+                            .deleteAsync();
+            return deleted.thenApply(v -> {
+                metadata.deletedOn(Optional.of(ZonedDateTime.now(ZoneOffset.UTC)));
+                return metadata;
+            });
+        } catch(Exception e){
+            return AsyncRemote.failed(e);
+        }
+    }
+
+    /**
+     * Look for a document about to be deleted on the remote.
+     *
+     * @param metadata  document to delete
+     * @return  the document's {@value #JIVE_CONTENT_ID}, or null if it wasnt found and is assumed to already be deleted
+     * @throws IOException  there was a problem with the request
+     */
+    protected String prepareDelete(Config.DocumentMetadata metadata) throws IOException {
         boolean deleted = false;
         try{
             JiveData.JiveContent content = findDocument(metadata);
@@ -258,16 +437,9 @@ public class JiveRemote implements Remote, Context.ContextAware {
 
         if(deleted){
             log.debug("Looking for document wasnt found, assuming its already deleted.");
-            metadata.deletedOn(Optional.of(ZonedDateTime.now(ZoneOffset.UTC)));
-            return;
+            return null;
         }
-
-        String contentId = context.getExtraPropertiesForDocument(metadata).get(JIVE_CONTENT_ID);
-        remoteJiveContentBuilder()
-                .pathSegment(contentId)
-                .build()
-                .delete();
-        metadata.deletedOn(Optional.of(ZonedDateTime.now(ZoneOffset.UTC)));
+        return context.getExtraPropertiesForDocument(metadata).get(JIVE_CONTENT_ID);
     }
 
     /**
@@ -277,6 +449,10 @@ public class JiveRemote implements Remote, Context.ContextAware {
      * is not the uri we need to make rest requests. There is an sort of identifier in this uri, but we have to extract it
      * and then run a search for it to get the {@value JIVE_CONTENT_ID} which we can use to modify the document.
      *
+     * If an inventory was taken (see {@link #takeInventory()}) the document is looked up there first. A document the
+     * inventory searched for but didnt find isnt on the remote, so only documents added after the inventory was taken
+     * are searched for individually.
+     *
      * @see <a href="https://developers.jivesoftware.com/api/v3/cloud/rest/ContentService.html#getContents(List%3CString%3E,%20String,%20int,%20int,%20String,%20boolean,%20boolean)">Jive REST API - Get Contents</a>
      * @see <a href="https://community.jivesoftware.com/docs/DOC-153931">Finding the Content ID and Place ID using Jive v3 API</a>
      *
@@ -287,11 +463,24 @@ public class JiveRemote implements Remote, Context.ContextAware {
     public JiveData.JiveContent findDocument(Config.DocumentMetadata metadata) throws IOException {
         log.debug(String.format("Missing jive content id for %s, attempting to retrieve from remote.", metadata.sourceFileName()));
 
+        if(inventory != null){
+            JiveData.JiveContent content = inventory.find(metadata);
+            if(content != null){
+                log.debug(String.format("Found %s in remote inventory.", metadata.sourceFileName()));
+                updateMetadata(metadata, content);
+                return content;
+            }
+            if(inventory.searchedFor(metadata)){
+                log.debug(String.format("%s not found in remote inventory.", metadata.sourceFileName()));
+                return null;
+            }
+        }
+
         String filter;
         if(metadata.hasExtraProperty(JIVE_TRACKING_TAG)){
             filter = String.format("tag(%s)", context.getExtraPropertiesForDocument(metadata).get(JIVE_TRACKING_TAG));
         } else if (metadata.remoteUri().isPresent()){
-            filter = String.format("entityDescriptor(102,%s)", JiveUtils.jiveObjectId(metadata.remoteUri().get()));
+            filter = String.format("entityDescriptor(%s)", entityDescriptors(Collections.singletonList(JiveUtils.jiveObjectId(metadata.remoteUri().get()))));
         } else{
             throw new AlexandriaException.Builder()
                     .withMessage("Not enough information to find document on remote. Manual intervention may be necessary.")
@@ -309,6 +498,91 @@ public class JiveRemote implements Remote, Context.ContextAware {
         return content;
     }
 
+    /**
+     * Fetch all indexed documents that are on the remote in as few requests as possible.
+     *
+     * Rather than a {@code GET baseUrl/contents} request per document, documents are searched for
+     * {@value #INVENTORY_BATCH_SIZE} at a time, by {@value #JIVE_TRACKING_TAG} if they have one, otherwise by the object id
+     * in their {@link Config.DocumentMetadata#remoteUri}:
+     * <ul>
+     *     <li>api/core/v3/contents?filter=tag(tag1,tag2,...)</li>
+     *     <li>api/core/v3/contents?filter=entityDescriptor(102,id1,102,id2,...)</li>
+     * </ul>
+     * Documents that were already deleted are skipped.
+     *
+     * @see <a href="https://developers.jivesoftware.com/api/v3/cloud/rest/ContentService.html#getContents(List%3CString%3E,%20String,%20int,%20int,%20String,%20boolean,%20boolean)">Jive REST API - Get Contents</a>
+     *
+     * @return  the inventory, also used by {@link #findDocument(Config.DocumentMetadata)} from now on
+     * @throws IOException  there was a problem with the requests
+     */
+    public JiveInventory takeInventory() throws IOException {
+        List<String> trackingTags = new ArrayList<>();
+        List<String> objectIds = new ArrayList<>();
+        for(Config.DocumentMetadata metadata : context.config().metadata().orElse(Collections.emptyList())){
+            if(metadata.deletedOn().isPresent()){
+                continue;
+            }
+            if(metadata.hasExtraProperty(JIVE_TRACKING_TAG)){
+                trackingTags.add(metadata.getExtraProperty(JIVE_TRACKING_TAG));
+            } else if(metadata.remoteUri().isPresent()){
+                try {
+                    objectIds.add(JiveUtils.jiveObjectId(metadata.remoteUri().get()));
+                } catch(IllegalStateException e){
+                    log.debug(String.format("Not taking inventory of %s: %s", metadata.sourceFileName(), e.getMessage()));
+                }
+            }
+        }
+
+        JiveInventory inventory = new JiveInventory();
+        for(int i = 0; i < trackingTags.size(); i += INVENTORY_BATCH_SIZE){
+            List<String> batch = trackingTags.subList(i, Math.min(i + INVENTORY_BATCH_SIZE, trackingTags.size()));
+            inventory.addTrackingTagResults(batch, searchContents(String.format("tag(%s)", String.join(",", batch))));
+        }
+        for(int i = 0; i < objectIds.size(); i += INVENTORY_BATCH_SIZE){
+            List<String> batch = objectIds.subList(i, Math.min(i + INVENTORY_BATCH_SIZE, objectIds.size()));
+            inventory.addObjectIdResults(batch, searchContents(String.format("entityDescriptor(%s)", entityDescriptors(batch))));
+        }
+
+        log.info(String.format("Found %d of %d indexed documents on remote.", inventory.size(), trackingTags.size() + objectIds.size()));
+        this.inventory = inventory;
+        return inventory;
+    }
+
+    /**
+     * Jive's entityDescriptor filter takes (object type, object id) pairs, so every id needs its own type,
+     * e.g. {@code 102,1234,102,5678} for two documents.
+     */
+    protected static String entityDescriptors(List<String> objectIds){
+        return objectIds.stream()
+                .map(id -> JIVE_DOCUMENT_TYPE + "," + id)
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Collect all pages of a content search, treating a 404 as no results.
+     */
+    private List<JiveData.JiveContent> searchContents(String filter) throws HttpException {
+        RemoteDocument<JiveData.JiveContent> pagedJiveContent = remoteJiveContentBuilder()
+                .queryParameter("filter", filter)
+                .build();
+        List<JiveData.JiveContent> results = new ArrayList<>();
+        try {
+            for (JiveData.JiveContent content : pagedJiveContent.getPaged()) {
+                results.add(content);
+            }
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof HttpException) {
+                HttpException exception = (HttpException) e.getCause();
+                if (exception.response().isPresent() && exception.response().get().code() == 404) {
+                    return results;
+                }
+                throw exception;
+            }
+            throw e;
+        }
+        return results;
+    }
+
     /**
      * Find a parent place's api identifiers from the human accessible uri.
      *
@@ -327,6 +601,9 @@ public class JiveRemote implements Remote, Context.ContextAware {
      * really is a last resort as it is slow and is a coin toss on whether you will find the place or not. For best results,
      * the Jive user Alexandria uses should be made a member, owner or follower of the places it will be using.
      *
+     * Each parent uri is only looked up once per sync and the result is shared by every document with the same parent,
+     * see {@link JivePlaceCache}.
+     *
      * @see <a href="https://developers.jivesoftware.com/api/v3/cloud/rest/PlaceService.html#getPlaces(List%3CString%3E,%20String,%20int,%20int,%20String)">Jive REST API - Get Places</a>
      * @see <a href="https://community.jivesoftware.com/docs/DOC-153931">Finding the Content ID and Place ID using Jive v3 API</a>
      *
@@ -338,6 +615,20 @@ public class JiveRemote implements Remote, Context.ContextAware {
 
         String parentPlaceUrl = context.getExtraPropertiesForDocument(metadata).get(JIVE_PARENT_URI);
         String parentPlaceName = JiveUtils.jiveParentPlaceName(parentPlaceUrl);
+        Optional<JiveData.JivePlace> place = places.get(parentPlaceUrl, () -> searchPlaces(parentPlaceName));
+
+        if(place.isPresent()){
+            updateMetadata(metadata, place.get());
+        } else {
+            log.warn(String.format("Parent Place %s (%s) not found. Document will not be part of any Jive place.", parentPlaceName, parentPlaceUrl));
+        }
+    }
+
+    /**
+     * Run the place queries described in {@link #findParentPlace(Config.DocumentMetadata)} until one finds a place with
+     * a matching name, treating a 404 as no results.
+     */
+    private Optional<JiveData.JivePlace> searchPlaces(String parentPlaceName) throws IOException {
         List<String> filters = Arrays.asList("relationship(member)", "relationship(following)", "relationship(owner)",
                 String.format("search(%s)", parentPlaceName));
 
@@ -348,14 +639,10 @@ public class JiveRemote implements Remote, Context.ContextAware {
                     .build();
             try {
                 for (JiveData.JivePlace place : jivePlaces.getPaged()) {
-                    if (place.displayName.equals(parentPlaceName)) {
-                        updateMetadata(metadata, place);
-                        break;
+                    if (place.displayName.equals(parentPlaceName) && place.resources != null && place.resources.containsKey("self")) {
+                        return Optional.of(place);
                     }
                 }
-                if(!JiveUtils.needsParentPlaceUri(context, metadata)){
-                    break;
-                }
             } catch (Exception e) {
                 if (e.getCause() instanceof HttpException) {
                     HttpException exception = (HttpException) e.getCause();
@@ -367,10 +654,7 @@ public class JiveRemote implements Remote, Context.ContextAware {
                 }
             }
         }
-
-        if(JiveUtils.needsParentPlaceUri(context, metadata)){
-            log.warn(String.format("Parent Place %s (%s) not found. Document will not be part of any Jive place.", parentPlaceName, parentPlaceUrl));
-        }
+        return Optional.empty();
     }
 
     /**
@@ -430,6 +714,15 @@ public class JiveRemote implements Remote, Context.ContextAware {
         return metadata;
     }
 
+    /**
+     * Page size for searches, {@link Config.RemoteConfig#pageSize} capped at {@value #MAX_PAGE_SIZE}.
+     *
+     * @return  number of items to request per page
+     */
+    protected int pageSize(){
+        return Math.max(1, Math.min(MAX_PAGE_SIZE, config.pageSize()));
+    }
+
     /**
      * Base {@link RemoteDocument.RemoteDocumentBuilder} for jive content requests.
      *
@@ -438,6 +731,11 @@ public class JiveRemote implements Remote, Context.ContextAware {
     protected RemoteDocument.RemoteDocumentBuilder remoteJivePlaceBuilder(){
         return RemoteDocument.<JiveData.JivePlace>builder()
                 .baseUrl(config.baseUrl().get())
+                .client(client)
+                .limiter(limiter)
+                .retryPolicy(retryPolicy)
+                .pageSize(pageSize())
+                .pageReadAhead(config.pageReadAhead())
                 .pathSegment("places")
                 .entity(JiveData.JivePlace.class)
                 .header("Authorization", Credentials.basic(config.username().get(), config.password().get()))
@@ -452,6 +750,11 @@ public class JiveRemote implements Remote, Context.ContextAware {
     protected RemoteDocument.RemoteDocumentBuilder remoteJiveContentBuilder(){
         return RemoteDocument.<JiveData.JiveContent>builder()
                 .baseUrl(config.baseUrl().get())
+                .client(client)
+                .limiter(limiter)
+                .retryPolicy(retryPolicy)
+                .pageSize(pageSize())
+                .pageReadAhead(config.pageReadAhead())
                 .pathSegment("contents")
                 .entity(JiveData.JiveContent.class)
                 .header("Authorization", Credentials.basic(config.username().get(), config.password().get()))
@@ -93,6 +93,18 @@ public class JiveMarkdownConverterTest {
         assertThat(Resources.load(Paths.get(outDir.toString(), "readme.html").toString())).isEqualTo("<p><del>strikethrough</del></p>\n");
     }
 
+    @Test
+    public void testConvertAppendsFooter() throws IOException, URISyntaxException {
+        File subDir = folder.newFolder("foo");
+        File f = new File(subDir, "readme.md");
+        Resources.save(f.getPath(), "# Header");
+        File outDir = folder.newFolder("output");
+
+        jiveMarkdownConverter.convert(mock(Config.DocumentMetadata.class), f.toPath(), "\n\nFooter", Paths.get(outDir.toString(), "readme.html"));
+        assertThat(Resources.load(Paths.get(outDir.toString(), "readme.html").toString())).isEqualTo("<h1>Header</h1>\n<p>Footer</p>\n");
+        assertThat(Resources.load(f.getPath())).isEqualTo("# Header");
+    }
+
     @Test
     public void testConvertIOExceptionWrappedInAlexandriaException(){
         assertThatThrownBy(() -> jiveMarkdownConverter.convert(
@@ -25,8 +25,17 @@ import java.nio.file.Paths;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.LogManager;
 
+import static com.github.macgregor.alexandria.remotes.JiveRemote.JIVE_CONTENT_ID;
 import static com.github.macgregor.alexandria.remotes.JiveRemote.JIVE_TRACKING_TAG;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -99,6 +108,124 @@ public class JiveRemoteTest {
                 .hasMessageContaining("Unexpected error fetching next page from remote");
     }
 
+    @Test
+    public void testBeforeSyncWithoutPrefetchDoesntTakeInventory() throws IOException {
+        JiveRemote jiveRemote = setup(Collections.emptyList());
+        jiveRemote.beforeSync();
+        assertThat(jiveRemote.inventory()).isNull();
+    }
+
+    @Test
+    public void testBeforeSyncFallsBackWhenInventoryFails() throws IOException, URISyntaxException {
+        JiveRemote jiveRemote = setup(new MockResponse().setResponseCode(500));
+        jiveRemote.config().prefetch(true);
+        TestData.documentForUpdate(jiveRemote.alexandriaContext(), folder);
+
+        jiveRemote.beforeSync();
+        assertThat(jiveRemote.inventory()).isNull();
+    }
+
+    @Test
+    public void testTakeInventoryFindsDocumentsByTrackingTag() throws IOException, URISyntaxException {
+        JiveRemote jiveRemote = setup(Arrays.asList(
+                new MockResponse().setBody(Resources.load("src/test/resources/DOC-1072237-Paged.json")),
+                new MockResponse().setBody("{\"itemsPerPage\": 1,\n\"list\": [],\n\"startIndex\": 1\n}")
+        ));
+        Config.DocumentMetadata metadata = TestData.documentForUpdate(jiveRemote.alexandriaContext(), folder);
+        metadata.setExtraProperty(JIVE_TRACKING_TAG, "foo");
+        metadata.extraProps().get().remove(JIVE_CONTENT_ID);
+
+        JiveInventory inventory = jiveRemote.takeInventory();
+        assertThat(inventory.searchedFor(metadata)).isTrue();
+        assertThat(inventory.size()).isEqualTo(1);
+
+        // no more responses queued, so this can only be answered from the inventory
+        assertThat(jiveRemote.findDocument(metadata)).isNotNull();
+        assertThat(metadata.extraProps().get().get(JIVE_CONTENT_ID)).isEqualTo("1278973");
+    }
+
+    @Test
+    public void testTakeInventoryFindsDocumentsByObjectId() throws IOException, URISyntaxException {
+        JiveRemote jiveRemote = setup(Arrays.asList(
+                new MockResponse().setBody(Resources.load("src/test/resources/DOC-1072237-Paged.json")),
+                new MockResponse().setBody("{\"itemsPerPage\": 1,\n\"list\": [],\n\"startIndex\": 1\n}")
+        ));
+        Config.DocumentMetadata metadata = TestData.documentForUpdate(jiveRemote.alexandriaContext(), folder);
+        metadata.extraProps().get().remove(JIVE_TRACKING_TAG);
+        metadata.extraProps().get().remove(JIVE_CONTENT_ID);
+        metadata.remoteUri(Optional.of(new URI("https://jive.com/docs/DOC-1072237")));
+
+        jiveRemote.takeInventory();
+        assertThat(jiveRemote.findDocument(metadata)).isNotNull();
+        assertThat(metadata.extraProps().get().get(JIVE_CONTENT_ID)).isEqualTo("1278973");
+    }
+
+    @Test
+    public void testTakeInventorySkipsDeletedDocuments() throws IOException, URISyntaxException {
+        JiveRemote jiveRemote = setup(Collections.emptyList());
+        Config.DocumentMetadata metadata = TestData.documentForUpdate(jiveRemote.alexandriaContext(), folder);
+        metadata.deletedOn(Optional.of(ZonedDateTime.now()));
+
+        assertThat(jiveRemote.takeInventory().searchedFor(metadata)).isFalse();
+    }
+
+    @Test
+    public void testFindDocumentFallsBackToRemoteWhenNotInInventory() throws IOException, URISyntaxException {
+        JiveRemote jiveRemote = setup(Arrays.asList(
+                new MockResponse().setBody(Resources.load("src/test/resources/DOC-1072237-Paged.json")),
+                new MockResponse().setBody("{\"itemsPerPage\": 1,\n\"list\": [],\n\"startIndex\": 1\n}")
+        ));
+        Config.DocumentMetadata metadata = TestData.documentForUpdate(jiveRemote.alexandriaContext(), folder);
+        metadata.extraProps().get().remove(JIVE_CONTENT_ID);
+
+        // inventory taken before the document was indexed
+        jiveRemote.inventory(new JiveInventory());
+        assertThat(jiveRemote.findDocument(metadata)).isNotNull();
+        assertThat(metadata.extraProps().get().get(JIVE_CONTENT_ID)).isEqualTo("1278973");
+    }
+
+    @Test
+    public void testFindDocumentTrustsInventoryMiss() throws IOException, URISyntaxException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("{\"itemsPerPage\": 1,\n\"list\": [],\n\"startIndex\": 1\n}"));
+        JiveRemote jiveRemote = setup(server);
+        Config.DocumentMetadata metadata = TestData.documentForUpdate(jiveRemote.alexandriaContext(), folder);
+        metadata.extraProps().get().remove(JIVE_CONTENT_ID);
+
+        jiveRemote.takeInventory();
+        assertThat(jiveRemote.findDocument(metadata)).isNull();
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testTakeInventorySearchesObjectIdsAsEntityDescriptorPairs() throws IOException, URISyntaxException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("{\"itemsPerPage\": 1,\n\"list\": [],\n\"startIndex\": 1\n}"));
+        JiveRemote jiveRemote = setup(server);
+        Config.DocumentMetadata first = TestData.documentForUpdate(jiveRemote.alexandriaContext(), folder);
+        first.remoteUri(Optional.of(new URI("https://jive.com/docs/DOC-1234")));
+        Config.DocumentMetadata second = TestData.documentForUpdate(jiveRemote.alexandriaContext(), folder);
+        second.remoteUri(Optional.of(new URI("https://jive.com/docs/DOC-5678")));
+
+        jiveRemote.takeInventory();
+        assertThat(server.takeRequest().getRequestUrl().queryParameter("filter"))
+                .isEqualTo("entityDescriptor(102,1234,102,5678)");
+    }
+
+    @Test
+    public void testCreateWithInventorySkipsLookupForNewTrackingTag() throws IOException, URISyntaxException {
+        JiveRemote jiveRemote = spy(setup(Arrays.asList(
+                new MockResponse().setBody(Resources.load("src/test/resources/DOC-1072237.json")))));
+        jiveRemote.inventory(new JiveInventory());
+        Config.DocumentMetadata metadata = TestData.documentForCreate(jiveRemote.alexandriaContext(), folder);
+        metadata.extraProps().get().remove(JIVE_TRACKING_TAG);
+
+        jiveRemote.create(metadata);
+        verify(jiveRemote, times(0)).findDocument(any());
+        assertThat(metadata.extraProps().get().get(JIVE_CONTENT_ID)).isEqualTo("1278973");
+        assertThat(metadata.extraProps().get()).containsKey(JIVE_TRACKING_TAG);
+    }
+
     @Test
     public void testCreateDuplicateDocument() throws IOException, URISyntaxException {
         JiveRemote jiveRemote = setup(Arrays.asList(
@@ -415,6 +542,109 @@ public class JiveRemoteTest {
         assertThatThrownBy(() -> jiveRemote.delete(metadata)).isInstanceOf(HttpException.class);
     }
 
+    @Test
+    public void testCreateAsyncUpdatesMetadataFromResponse() throws Exception {
+        JiveRemote jiveRemote = setup(Arrays.asList(
+                new MockResponse().setResponseCode(404),
+                new MockResponse().setBody(Resources.load("src/test/resources/DOC-1072237.json"))));
+
+        Config.DocumentMetadata metadata = TestData.documentForCreate(jiveRemote.alexandriaContext(), folder);
+        assertThat(jiveRemote.createAsync(metadata).get()).isSameAs(metadata);
+
+        assertThat(metadata.lastUpdated().get())
+                .isEqualTo(ZonedDateTime.parse("2018-06-22T18:42:59.652+0000", DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSZ")));
+        assertThat(metadata.extraProps().get().get("jiveContentId")).isEqualTo("1278973");
+    }
+
+    @Test
+    public void testCreateAsyncDuplicateDocument() throws Exception {
+        JiveRemote jiveRemote = setup(Arrays.asList(
+                new MockResponse().setBody(Resources.load("src/test/resources/DOC-1072237-Paged.json"))));
+
+        Config.DocumentMetadata metadata = TestData.documentForCreate(jiveRemote.alexandriaContext(), folder);
+        metadata.setExtraProperty(JIVE_TRACKING_TAG, "foo");
+        assertThat(jiveRemote.createAsync(metadata).get()).isSameAs(metadata);
+        assertThat(metadata.extraProps().get().get("jiveContentId")).isEqualTo("1278973");
+    }
+
+    @Test
+    public void testUpdateAsyncUpdatesMetadataFromResponse() throws Exception {
+        JiveRemote jiveRemote = setup(Arrays.asList(
+                new MockResponse().setBody(Resources.load("src/test/resources/DOC-1072237.json"))));
+
+        Config.DocumentMetadata metadata = TestData.documentForUpdate(jiveRemote.alexandriaContext(), folder);
+        metadata.extraProps().get().put("jiveContentId", "1234");
+        jiveRemote.updateAsync(metadata).get();
+
+        assertThat(metadata.lastUpdated().get())
+                .isEqualTo(ZonedDateTime.parse("2018-06-22T18:42:59.652+0000", DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSZ")));
+        assertThat(metadata.extraProps().get().get("jiveContentId")).isEqualTo("1278973");
+    }
+
+    @Test
+    public void testUpdateAsyncHttpExceptionOnBadResponse() throws IOException, URISyntaxException {
+        JiveRemote jiveRemote = setup(Arrays.asList(
+                new MockResponse().setResponseCode(500)));
+
+        Config.DocumentMetadata metadata = TestData.documentForUpdate(jiveRemote.alexandriaContext(), folder);
+        metadata.extraProps().get().put("jiveContentId", "1234");
+
+        CompletableFuture<Config.DocumentMetadata> future = jiveRemote.updateAsync(metadata);
+        assertThatThrownBy(future::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(HttpException.class);
+    }
+
+    @Test
+    public void testDeleteAsyncSetsDeletedDateTime() throws Exception {
+        JiveRemote jiveRemote = setup(Arrays.asList(
+                new MockResponse().setBody(Resources.load("src/test/resources/DOC-1072237-Paged.json")),
+                new MockResponse().setResponseCode(204)));
+
+        Config.DocumentMetadata metadata = TestData.documentForDelete(jiveRemote.alexandriaContext(), folder);
+        jiveRemote.deleteAsync(metadata).get();
+        assertThat(metadata.deletedOn()).isPresent();
+    }
+
+    @Test
+    public void testDeleteAsyncConsiders404AlreadyDeleted() throws Exception {
+        JiveRemote jiveRemote = setup(Arrays.asList(
+                new MockResponse().setResponseCode(404)));
+
+        Config.DocumentMetadata metadata = TestData.documentForDelete(jiveRemote.alexandriaContext(), folder);
+        metadata.setExtraProperty("jiveContentId", "1234");
+        jiveRemote.deleteAsync(metadata).get();
+        assertThat(metadata.deletedOn()).isPresent();
+    }
+
+    @Test
+    public void testDeleteAsyncFailsWhenLookupFails() throws IOException, URISyntaxException {
+        JiveRemote jiveRemote = spy(setup(new MockResponse().setResponseCode(204)));
+        HttpException e = new HttpException();
+        e.response(Optional.empty());
+        doThrow(e).when(jiveRemote).findDocument(any());
+        Config.DocumentMetadata metadata = TestData.documentForCreate(jiveRemote.alexandriaContext(), folder);
+
+        assertThat(jiveRemote.deleteAsync(metadata)).isCompletedExceptionally();
+    }
+
+    @Test
+    public void testJiveRemoteRequestsShareClient(){
+        JiveRemote remote = new JiveRemote();
+        remote.configure(TestData.completeRemoteConfig());
+        assertThat(remote.remoteJiveContentBuilder().build().client()).isSameAs(remote.client());
+        assertThat(remote.remoteJivePlaceBuilder().build().client()).isSameAs(remote.client());
+    }
+
+    @Test
+    public void testJiveRemoteRequestsShareLimiter(){
+        JiveRemote remote = new JiveRemote();
+        Config.RemoteConfig config = TestData.completeRemoteConfig();
+        config.adaptiveConcurrency(true);
+        remote.configure(config);
+        assertThat(remote.limiter()).isNotNull();
+        assertThat(remote.remoteJiveContentBuilder().build().limiter()).isSameAs(remote.limiter());
+        assertThat(remote.remoteJivePlaceBuilder().build().limiter()).isSameAs(remote.limiter());
+    }
+
     @Test
     public void testJiveRemoteValidateConfigRequiresBaseUrl(){
         RemoteConfig config = TestData.completeRemoteConfig();
@@ -550,6 +780,142 @@ public class JiveRemoteTest {
         assertThatThrownBy(() -> jiveRemote.findParentPlace(metadata)).isInstanceOf(HttpException.class);
     }
 
+    @Test
+    public void testJiveRemotePagesUsePageSizeAndReadAhead() throws IOException {
+        JiveRemote jiveRemote = setup(Collections.emptyList());
+        jiveRemote.config().pageSize(50);
+        jiveRemote.config().pageReadAhead(2);
+
+        RemoteDocument content = jiveRemote.remoteJiveContentBuilder().build();
+        RemoteDocument places = jiveRemote.remoteJivePlaceBuilder().build();
+        assertThat(content.pageSize()).isEqualTo(50);
+        assertThat(content.pageReadAhead()).isEqualTo(2);
+        assertThat(places.pageSize()).isEqualTo(50);
+        assertThat(places.pageReadAhead()).isEqualTo(2);
+    }
+
+    @Test
+    public void testJiveRemoteCapsPageSize() throws IOException {
+        JiveRemote jiveRemote = setup(Collections.emptyList());
+        jiveRemote.config().pageSize(1000);
+
+        assertThat(jiveRemote.remoteJiveContentBuilder().build().pageSize()).isEqualTo(JiveRemote.MAX_PAGE_SIZE);
+    }
+
+    @Test
+    public void testFindParentPlaceSharesLookupWithDocumentsWithSameParent() throws IOException {
+        JiveRemote jiveRemote = setup(Arrays.asList(
+                new MockResponse().setBody(Resources.load("src/test/resources/parent_group-paged.json"))));
+
+        Config.DocumentMetadata first = parentPlaceDocument("first.md");
+        Config.DocumentMetadata second = parentPlaceDocument("second.md");
+        jiveRemote.findParentPlace(first);
+        jiveRemote.findParentPlace(second);
+
+        assertThat(second.extraProps().get().get("jiveParentPlaceId")).isEqualTo("61562");
+        assertThat(second.extraProps().get().get("jiveParentApiUri")).isEqualTo("https://jive.com/api/core/v3/places/61562");
+        assertThat(jiveRemote.places().size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFindParentPlaceRemembersPlaceNotFound() throws IOException {
+        JiveRemote jiveRemote = setup(Arrays.asList(
+                new MockResponse().setBody("{\"itemsPerPage\": 1,\n\"list\": [],\n\"startIndex\": 1\n}"),
+                new MockResponse().setBody("{\"itemsPerPage\": 1,\n\"list\": [],\n\"startIndex\": 1\n}"),
+                new MockResponse().setBody("{\"itemsPerPage\": 1,\n\"list\": [],\n\"startIndex\": 1\n}"),
+                new MockResponse().setBody("{\"itemsPerPage\": 1,\n\"list\": [],\n\"startIndex\": 1\n}"),
+                new MockResponse().setBody(Resources.load("src/test/resources/parent_group-paged.json"))));
+
+        Config.DocumentMetadata first = parentPlaceDocument("first.md");
+        Config.DocumentMetadata second = parentPlaceDocument("second.md");
+        jiveRemote.findParentPlace(first);
+        jiveRemote.findParentPlace(second);
+
+        assertThat(second.extraProps().get()).doesNotContainKey("jiveParentApiUri");
+        assertThat(jiveRemote.places().contains("https://jive.com/places/parent_group")).isTrue();
+    }
+
+    @Test
+    public void testFindParentPlaceRetriesFailedLookup() throws IOException {
+        JiveRemote jiveRemote = setup(Arrays.asList(
+                new MockResponse().setBody("asldalskd"),
+                new MockResponse().setBody(Resources.load("src/test/resources/parent_group-paged.json"))));
+
+        Config.DocumentMetadata first = parentPlaceDocument("first.md");
+        Config.DocumentMetadata second = parentPlaceDocument("second.md");
+        assertThatThrownBy(() -> jiveRemote.findParentPlace(first)).isInstanceOf(HttpException.class);
+        assertThat(jiveRemote.places().size()).isEqualTo(0);
+
+        jiveRemote.findParentPlace(second);
+        assertThat(second.extraProps().get().get("jiveParentPlaceId")).isEqualTo("61562");
+    }
+
+    @Test
+    public void testPlaceCacheMergesConcurrentLookups() throws Exception {
+        JivePlaceCache places = new JivePlaceCache();
+        JiveData.JivePlace place = new JiveData.JivePlace();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger lookups = new AtomicInteger();
+        JivePlaceCache.PlaceLookup lookup = () -> {
+            lookups.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {}
+            return Optional.of(place);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<JiveData.JivePlace>> first = executor.submit(() -> places.get("parent", lookup));
+            started.await();
+            Future<Optional<JiveData.JivePlace>> second = executor.submit(() -> places.get("parent", lookup));
+            release.countDown();
+
+            assertThat(first.get().get()).isSameAs(place);
+            assertThat(second.get().get()).isSameAs(place);
+            assertThat(lookups.get()).isEqualTo(1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testPlaceCacheWaitingLookupsSeeFailure() throws Exception {
+        JivePlaceCache places = new JivePlaceCache();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FutureTask<Optional<JiveData.JivePlace>> first = new FutureTask<>(() -> places.get("parent", () -> {
+            // only runs once the lookup is registered, so the second caller has to wait on it
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {}
+            throw new IOException("boom");
+        }));
+        FutureTask<Optional<JiveData.JivePlace>> second = new FutureTask<>(() -> places.get("parent", () -> {
+            throw new AssertionError("Waiting caller shouldnt look up the place itself.");
+        }));
+
+        new Thread(first).start();
+        started.await();
+        Thread waiting = new Thread(second);
+        waiting.start();
+        while(waiting.getState() != Thread.State.WAITING){
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        assertThatThrownBy(first::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class);
+        assertThatThrownBy(second::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class)
+                .hasMessageContaining("boom");
+        assertThat(places.contains("parent")).isFalse();
+        assertThat(places.get("parent", () -> Optional.empty())).isEmpty();
+    }
+
     @Test
     public void testJiveUpdateMetadataFromParentPlacePlaceId(){
         Config.DocumentMetadata metadata = new Config.DocumentMetadata();
@@ -608,6 +974,13 @@ public class JiveRemoteTest {
         assertThat(remote.markdownConverter()).isEqualTo(converter);
     }
 
+    protected Config.DocumentMetadata parentPlaceDocument(String sourcePath){
+        Config.DocumentMetadata metadata = new Config.DocumentMetadata();
+        metadata.sourcePath(Paths.get(folder.getRoot().toString(), sourcePath));
+        metadata.extraProps().get().put("jiveParentUri", "https://jive.com/places/parent_group");
+        return metadata;
+    }
+
     protected JiveRemote setup(MockResponse mockResponses) throws IOException {
         return setup(Collections.singletonList(mockResponses));
     }
@@ -617,6 +990,10 @@ public class JiveRemoteTest {
         for(MockResponse mockResponse : mockResponses) {
             server.enqueue(mockResponse);
         }
+        return setup(server);
+    }
+
+    protected JiveRemote setup(MockWebServer server) throws IOException {
         server.start();
 
         HttpUrl baseUrl = server.url("api/core/v3");
@@ -0,0 +1,513 @@
+package com.github.macgregor.alexandria.stores;
+
+import com.github.macgregor.alexandria.Config;
+import com.github.macgregor.alexandria.Context;
+import com.github.macgregor.alexandria.MetadataStore;
+import com.github.macgregor.alexandria.Resources;
+import com.github.macgregor.alexandria.SyncState;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * {@link MetadataStore} keeping all indexed documents in a single embedded store file next to the config, e.g.
+ * {@code .alexandria.db}, for indexes too large to keep in the config file.
+ *
+ * Select it by adding this module to the classpath and setting
+ * {@code metadataStore: com.github.macgregor.alexandria.stores.EmbeddedMetadataStore} in the config, or with the
+ * {@code --metadata-store} command line option or {@code alexandria.metadataStore} maven property, which switch an
+ * existing index over on its next save. The store keeps whole documents, so the config file is left with only user
+ * configuration. Documents added to the config by hand are merged on top of the stored ones when loading and moved into
+ * the store on the next save.
+ *
+ * The store is an append only log of commits. Each document is an entry keyed by its source path relative to the
+ * config, holding its title and tags followed by its state and extra properties encoded as a {@link SyncState} record.
+ * While Alexandria runs, documents are kept in a sorted map, so finding a document by source path is O(log n) and
+ * finding the documents in a directory is a range scan over just that directory. Documents are
+ * {@link #put(Context, Config.DocumentMetadata) staged} as they change, and a save appends a single commit with the
+ * staged documents whose entry actually changed and the documents added or removed since the last one, followed by a
+ * CRC32 of the commit, and forces it to disk before returning. Unchanged documents arent encoded again. On load, commits
+ * are replayed in order up to the first one that is incomplete or fails its checksum, so every save is all or nothing:
+ * a save interrupted mid commit leaves the previous commit in effect, and the partial commit is dropped by the next save.
+ *
+ * Once the log grows past twice the size of the live entries (and at least {@link #compactionThreshold}), it is compacted
+ * into a single commit and replaced atomically, see {@link Resources#saveAtomically(Path, byte[])}.
+ */
+@Slf4j
+public class EmbeddedMetadataStore implements MetadataStore {
+    public static final String STORE_SUFFIX = ".db";
+
+    /** "ALXD", identifies the file type. */
+    protected static final int MAGIC = 0x414C5844;
+    protected static final int VERSION = 2;
+    /** "COMT", marks the start of each commit. */
+    private static final int COMMIT = 0x434F4D54;
+
+    /** Smallest log size that is compacted, so small stores arent rewritten on every save. Default: 1MB */
+    @Getter @Setter @Accessors(fluent = true)
+    protected long compactionThreshold = 1024 * 1024;
+
+    private final ConcurrentSkipListMap<String, Config.DocumentMetadata> byKey = new ConcurrentSkipListMap<>();
+    private final Map<String, Config.DocumentMetadata> staged = new ConcurrentHashMap<>();
+    private final Map<String, Committed> committed = new HashMap<>();
+    private long liveSize = 0;
+    private long committedSize = 0;
+    private boolean opened = false;
+
+    /**
+     * Path to the store file for the given context.
+     *
+     * @param context  Alexandria context
+     * @return  absolute path to the store file, which may not exist
+     */
+    public static Path path(Context context){
+        return Paths.get(context.configPath().toString() + STORE_SUFFIX);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Stored documents that arent in the config are added to it. Documents in the config take precedence, their stored
+     * state fills in what they dont set and they are staged so the next save moves them into the store.
+     */
+    @Override
+    public synchronized int load(Context context) throws IOException {
+        Map<String, byte[]> entries = open(context);
+        if(!context.config().metadata().isPresent()){
+            context.config().metadata(Optional.of(new ArrayList<>()));
+        }
+        List<Config.DocumentMetadata> metadata = context.config().metadata().get();
+
+        for(Map.Entry<String, byte[]> entry : entries.entrySet()){
+            Path sourcePath = context.absolutePath(Paths.get(entry.getKey()));
+            Config.DocumentMetadata stored = decode(sourcePath, entry.getValue());
+            Optional<Config.DocumentMetadata> indexed = context.isIndexed(sourcePath);
+            if(indexed.isPresent()){
+                SyncState.merge(indexed.get(), stored);
+                if(!indexed.get().tags().isPresent() || indexed.get().tags().get().isEmpty()){
+                    indexed.get().tags(stored.tags());
+                }
+                context.metadataIndex().add(indexed.get());
+                byKey.put(entry.getKey(), indexed.get());
+                staged.put(entry.getKey(), indexed.get().copy());
+            } else {
+                metadata.add(stored);
+                context.metadataIndex().add(stored);
+                byKey.put(entry.getKey(), stored);
+            }
+        }
+        for(Config.DocumentMetadata m : metadata){
+            byKey.putIfAbsent(key(context, m.sourcePath()), m);
+        }
+        log.debug(String.format("Loaded %d documents from %s", entries.size(), path(context).toString()));
+        return entries.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only staged documents are encoded, along with documents that arent in the store yet. Nothing is written if no
+     * entry changed since the last commit.
+     */
+    @Override
+    public synchronized void save(Context context, List<Config.DocumentMetadata> documents) throws IOException {
+        open(context);
+        Map<String, Config.DocumentMetadata> staging = new HashMap<>(staged);
+        Map<String, Config.DocumentMetadata> added = new HashMap<>();
+        Set<String> keys = new HashSet<>();
+        for(Config.DocumentMetadata metadata : documents){
+            String key = key(context, metadata.sourcePath());
+            keys.add(key);
+            if(!committed.containsKey(key) && !staging.containsKey(key)){
+                added.put(key, metadata);
+            }
+        }
+
+        Map<String, byte[]> changed = new TreeMap<>();
+        for(Map.Entry<String, Config.DocumentMetadata> entry : added.entrySet()){
+            changed.put(entry.getKey(), encode(entry.getValue()));
+        }
+        for(Map.Entry<String, Config.DocumentMetadata> entry : staging.entrySet()){
+            if(keys.contains(entry.getKey())){
+                byte[] bytes = encode(entry.getValue());
+                Committed previous = committed.get(entry.getKey());
+                if(previous == null || !previous.matches(entry.getKey(), bytes)){
+                    changed.put(entry.getKey(), bytes);
+                }
+            }
+        }
+        for(String key : committed.keySet()){
+            if(!keys.contains(key)){
+                changed.put(key, null);
+            }
+        }
+
+        Path store = path(context);
+        if(!changed.isEmpty() || !Files.exists(store)){
+            byte[] commit = commit(changed);
+            if(!Files.exists(store) || committedSize + commit.length > Math.max(compactionThreshold, 2 * liveSize(changed))){
+                compact(context, store, documents, staging);
+            } else {
+                append(store, commit);
+                apply(changed);
+            }
+            log.debug(String.format("Committed %d documents to %s", changed.size(), store.toString()));
+        }
+
+        for(Map.Entry<String, Config.DocumentMetadata> entry : staging.entrySet()){
+            // documents staged again while saving keep their newer copy for the next save
+            staged.remove(entry.getKey(), entry.getValue());
+        }
+        for(Map.Entry<String, byte[]> entry : changed.entrySet()){
+            if(entry.getValue() == null){
+                byKey.remove(entry.getKey());
+            }
+        }
+        for(Map.Entry<String, Config.DocumentMetadata> entry : added.entrySet()){
+            byKey.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A copy of the document is staged, so a save commits it as it was when it was put even if it keeps changing.
+     */
+    @Override
+    public void put(Context context, Config.DocumentMetadata metadata) {
+        String key = key(context, metadata.sourcePath());
+        byKey.put(key, metadata);
+        staged.put(key, metadata.copy());
+    }
+
+    @Override
+    public Optional<Config.DocumentMetadata> find(Context context, Path sourcePath) {
+        return Optional.ofNullable(byKey.get(key(context, sourcePath)))
+                .filter(m -> sourcePath.equals(m.sourcePath()));
+    }
+
+    @Override
+    public List<Config.DocumentMetadata> findInDirectory(Context context, Path directory) {
+        String prefix = key(context, directory);
+        // everything under the directory sorts between the directory followed by a separator and the next character
+        Collection<Config.DocumentMetadata> candidates = prefix.isEmpty() ? byKey.values() :
+                byKey.subMap(prefix + File.separatorChar, prefix + (char) (File.separatorChar + 1)).values();
+        return candidates.stream()
+                .filter(m -> m.sourcePath().startsWith(directory))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean storesDocuments() {
+        return true;
+    }
+
+    /**
+     * Serialize a document as a store entry, its title and tags followed by its state and all of its extra properties,
+     * see {@link SyncState#encode(Config.DocumentMetadata, Set)}.
+     *
+     * @param metadata  document metadata
+     * @return  serialized entry
+     * @throws IOException  problems serializing the document
+     */
+    public static byte[] encode(Config.DocumentMetadata metadata) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            SyncState.writeString(out, metadata.title());
+            if(metadata.tags().isPresent()){
+                out.writeInt(metadata.tags().get().size());
+                for(String tag : metadata.tags().get()){
+                    SyncState.writeString(out, tag);
+                }
+            } else {
+                out.writeInt(-1);
+            }
+            out.write(SyncState.encode(metadata, metadata.extraProps().map(Map::keySet).orElse(Collections.emptySet())));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Read a document written by {@link #encode(Config.DocumentMetadata)}.
+     *
+     * @param sourcePath  absolute source path of the document, the entry's key
+     * @param entry  serialized entry
+     * @return  the stored document
+     * @throws IOException  the entry is corrupt
+     */
+    public static Config.DocumentMetadata decode(Path sourcePath, byte[] entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(entry);
+        String title;
+        Optional<List<String>> tags = Optional.empty();
+        try {
+            title = SyncState.readString(buffer);
+            int count = buffer.getInt();
+            if(count >= 0){
+                List<String> values = new ArrayList<>(count);
+                for(int i = 0; i < count; i++){
+                    values.add(SyncState.readString(buffer));
+                }
+                tags = Optional.of(values);
+            }
+        } catch(BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e){
+            throw new IOException(String.format("Corrupt store entry for %s.", sourcePath.toString()), e);
+        }
+        Config.DocumentMetadata metadata = SyncState.decode(buffer);
+        metadata.sourcePath(sourcePath);
+        metadata.title(title);
+        metadata.tags(tags);
+        return metadata;
+    }
+
+    /**
+     * Key of a document, its source path relative to the config.
+     */
+    private static String key(Context context, Path sourcePath){
+        Path base = context.configPath().getParent();
+        return (sourcePath.isAbsolute() ? Resources.relativeTo(base, sourcePath) : sourcePath).toString();
+    }
+
+    /**
+     * Read the store file the first time the store is used, so a save never appends to a log it hasnt read.
+     *
+     * @return  the committed entries, empty if the store was already opened
+     */
+    private Map<String, byte[]> open(Context context) throws IOException {
+        Map<String, byte[]> entries = new TreeMap<>();
+        if(opened){
+            return entries;
+        }
+        Path store = path(context);
+        if(!Files.exists(store)){
+            opened = true;
+            return entries;
+        }
+
+        // read rather than mapped, a mapped file cant be truncated on some platforms
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(store));
+        try {
+            if(buffer.getInt() != MAGIC){
+                throw new IOException(String.format("%s is not an Alexandria store.", store.toString()));
+            }
+            int version = buffer.getInt();
+            if(version != VERSION){
+                throw new IOException(String.format("Unsupported store version %d in %s.", version, store.toString()));
+            }
+        } catch(BufferUnderflowException e){
+            throw new IOException(String.format("Corrupt store %s.", store.toString()), e);
+        }
+
+        committedSize = buffer.position();
+        int commits = 0;
+        while(buffer.hasRemaining()){
+            Map<String, byte[]> changed = replay(buffer);
+            if(changed == null){
+                log.warn(String.format("Ignoring incomplete commit at offset %d of %s, the last save was interrupted.",
+                        committedSize, store.toString()));
+                break;
+            }
+            for(Map.Entry<String, byte[]> entry : changed.entrySet()){
+                if(entry.getValue() == null){
+                    entries.remove(entry.getKey());
+                } else{
+                    entries.put(entry.getKey(), entry.getValue());
+                }
+            }
+            committedSize = buffer.position();
+            commits++;
+        }
+        apply(entries);
+        opened = true;
+        log.debug(String.format("Replayed %d commits from %s", commits, store.toString()));
+        return entries;
+    }
+
+    /**
+     * Read the commit at the buffer's position if it is complete and its checksum matches.
+     *
+     * @return  the entries changed by the commit, null for removed entries, or null if the commit is incomplete
+     */
+    private static Map<String, byte[]> replay(ByteBuffer buffer){
+        int start = buffer.position();
+        Map<String, byte[]> changed = new TreeMap<>();
+        try {
+            if(buffer.getInt() != COMMIT){
+                return null;
+            }
+            int count = buffer.getInt();
+            for(int i = 0; i < count; i++){
+                String key = SyncState.readString(buffer);
+                int length = buffer.getInt();
+                if(length > buffer.remaining()){
+                    return null;
+                }
+                byte[] value = null;
+                if(length >= 0){
+                    value = new byte[length];
+                    buffer.get(value);
+                }
+                changed.put(key, value);
+            }
+
+            ByteBuffer contents = buffer.duplicate();
+            contents.position(start);
+            contents.limit(buffer.position());
+            CRC32 crc = new CRC32();
+            crc.update(contents);
+            if(buffer.getLong() != crc.getValue()){
+                return null;
+            }
+        } catch(BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e){
+            return null;
+        }
+        return changed;
+    }
+
+    /**
+     * Record committed entries, null values for removed entries.
+     */
+    private void apply(Map<String, byte[]> changed){
+        for(Map.Entry<String, byte[]> entry : changed.entrySet()){
+            Committed previous = committed.remove(entry.getKey());
+            if(previous != null){
+                liveSize -= previous.size;
+            }
+            if(entry.getValue() != null){
+                Committed current = new Committed(entry.getKey(), entry.getValue());
+                committed.put(entry.getKey(), current);
+                liveSize += current.size;
+            }
+        }
+    }
+
+    /**
+     * Size of the live entries once the changed entries are committed.
+     */
+    private long liveSize(Map<String, byte[]> changed){
+        long size = liveSize;
+        for(Map.Entry<String, byte[]> entry : changed.entrySet()){
+            Committed previous = committed.get(entry.getKey());
+            size += (entry.getValue() == null ? 0 : Committed.size(entry.getKey(), entry.getValue())) - (previous == null ? 0 : previous.size);
+        }
+        return size;
+    }
+
+    private static byte[] commit(Map<String, byte[]> changed) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(COMMIT);
+            out.writeInt(changed.size());
+            for(Map.Entry<String, byte[]> entry : changed.entrySet()){
+                SyncState.writeString(out, entry.getKey());
+                if(entry.getValue() == null){
+                    out.writeInt(-1);
+                } else{
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            out.flush();
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Append a commit after the last complete one, dropping any partial commit left by an interrupted save.
+     */
+    private void append(Path store, byte[] commit) throws IOException {
+        try(FileChannel channel = FileChannel.open(store, StandardOpenOption.WRITE)) {
+            channel.truncate(committedSize);
+            channel.position(committedSize);
+            ByteBuffer buffer = ByteBuffer.wrap(commit);
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        committedSize += commit.length;
+    }
+
+    /**
+     * Replace the log with a single commit holding every document, the staged copy of documents that have one.
+     */
+    private void compact(Context context, Path store, List<Config.DocumentMetadata> documents,
+                         Map<String, Config.DocumentMetadata> staging) throws IOException {
+        Map<String, byte[]> current = new TreeMap<>();
+        for(Config.DocumentMetadata metadata : documents){
+            String key = key(context, metadata.sourcePath());
+            current.put(key, encode(staging.getOrDefault(key, metadata)));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(commit(current));
+        }
+        Resources.saveAtomically(store, bytes.toByteArray());
+        committedSize = bytes.size();
+        committed.clear();
+        liveSize = 0;
+        apply(current);
+        log.debug(String.format("Compacted %s to %d documents", store.toString(), current.size()));
+    }
+
+    /**
+     * Checksum and size of a committed entry, so staged documents that didnt change arent committed again.
+     */
+    @AllArgsConstructor
+    private static class Committed {
+        private final long crc;
+        private final long size;
+
+        Committed(String key, byte[] entry){
+            this(crc(entry), size(key, entry));
+        }
+
+        boolean matches(String key, byte[] entry){
+            return size == size(key, entry) && crc == crc(entry);
+        }
+
+        static long size(String key, byte[] entry){
+            return key.getBytes(StandardCharsets.UTF_8).length + entry.length + 8;
+        }
+
+        static long crc(byte[] entry){
+            CRC32 crc = new CRC32();
+            crc.update(entry);
+            return crc.getValue();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.github.macgregor.alexandria.stores;
+
+import com.github.macgregor.alexandria.Config;
+import com.github.macgregor.alexandria.Context;
+import com.github.macgregor.alexandria.Resources;
+import com.github.macgregor.alexandria.SyncState;
+import com.github.macgregor.alexandria.SyncStateStore;
+import com.github.macgregor.alexandria.remotes.NoopRemote;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EmbeddedMetadataStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testContextLoadUsesEmbeddedStore() throws IOException, URISyntaxException {
+        Context context = context();
+        document(context, "readme.md");
+        Context.save(context);
+
+        assertThat(EmbeddedMetadataStore.path(context)).exists();
+        assertThat(SyncState.path(context)).doesNotExist();
+        assertThat(Context.load(context.configPath().toString()).metadataStore()).isInstanceOf(EmbeddedMetadataStore.class);
+    }
+
+    @Test
+    public void testSaveLeavesDocumentsOutOfConfig() throws IOException, URISyntaxException {
+        Context context = context();
+        document(context, "readme.md");
+        Context.save(context);
+
+        assertThat(Resources.load(context.configPath().toString()))
+                .contains(EmbeddedMetadataStore.class.getName())
+                .doesNotContain("readme.md");
+        assertThat(Context.load(context.configPath().toString()).config().metadata().get()).hasSize(1);
+    }
+
+    @Test
+    public void testSaveAndLoadRoundTripsDocuments() throws IOException, URISyntaxException {
+        Context context = context();
+        Config.DocumentMetadata metadata = document(context, "readme.md");
+        metadata.tags(Optional.of(Arrays.asList("foo", "bar")));
+        metadata.createdOn(Optional.of(ZonedDateTime.of(2019, 3, 4, 5, 6, 7, 123456789, ZoneId.of("America/New_York"))));
+        metadata.sourceChecksum(Optional.of(1234L));
+        metadata.setExtraProperty("contentId", "5678");
+        metadata.setExtraProperty("parentUri", "https://parent");
+        Context.save(context);
+
+        Config.DocumentMetadata reloaded = reload(context);
+        assertThat(reloaded.sourcePath()).isEqualTo(metadata.sourcePath());
+        assertThat(reloaded.title()).isEqualTo("readme.md");
+        assertThat(reloaded.tags().get()).containsExactly("foo", "bar");
+        assertThat(reloaded.remoteUri()).isEqualTo(metadata.remoteUri());
+        assertThat(reloaded.createdOn()).isEqualTo(metadata.createdOn());
+        assertThat(reloaded.sourceChecksum()).contains(1234L);
+        assertThat(reloaded.extraProps().get())
+                .containsEntry("contentId", "5678")
+                .containsEntry("parentUri", "https://parent");
+    }
+
+    @Test
+    public void testLoadMergesDocumentsInConfig() throws IOException, URISyntaxException {
+        Context context = context();
+        Config.DocumentMetadata metadata = document(context, "readme.md");
+        metadata.sourceChecksum(Optional.of(1234L));
+        Context.save(context);
+        Resources.save(context.configPath().toString(), Resources.load(context.configPath().toString())
+                + "metadata:\n- sourcePath: readme.md\n  title: Readme\n  remoteUri: https://override\n");
+
+        Context loaded = Context.load(context.configPath().toString());
+        assertThat(loaded.config().metadata().get()).hasSize(1);
+        Config.DocumentMetadata merged = loaded.config().metadata().get().get(0);
+        assertThat(merged.title()).isEqualTo("Readme");
+        assertThat(merged.remoteUri()).contains(new URI("https://override"));
+        assertThat(merged.sourceChecksum()).contains(1234L);
+
+        Context.save(loaded);
+        assertThat(Resources.load(loaded.configPath().toString())).doesNotContain("readme.md");
+        assertThat(reload(loaded).remoteUri()).contains(new URI("https://override"));
+    }
+
+    @Test
+    public void testSaveOnlyAppendsStagedDocuments() throws IOException, URISyntaxException {
+        Context context = context();
+        for(int i = 0; i < 20; i++){
+            document(context, String.format("doc-%d.md", i));
+        }
+        Context.save(context);
+        long initial = Files.size(EmbeddedMetadataStore.path(context));
+
+        Config.DocumentMetadata metadata = context.config().metadata().get().get(0);
+        metadata.remoteUri(Optional.of(new URI("https://changed")));
+        context.metadataStore().put(context, metadata);
+        Context.save(context);
+        long updated = Files.size(EmbeddedMetadataStore.path(context));
+        assertThat(updated).isGreaterThan(initial).isLessThan(initial + initial / 10);
+
+        context.metadataStore().put(context, metadata);
+        Context.save(context);
+        assertThat(Files.size(EmbeddedMetadataStore.path(context))).isEqualTo(updated);
+    }
+
+    @Test
+    public void testSaveDoesntEncodeDocumentsThatWerentStaged() throws IOException, URISyntaxException {
+        Context context = context();
+        Config.DocumentMetadata metadata = document(context, "readme.md");
+        Context.save(context);
+        long initial = Files.size(EmbeddedMetadataStore.path(context));
+
+        metadata.remoteUri(Optional.of(new URI("https://unstaged")));
+        Context.save(context);
+        assertThat(Files.size(EmbeddedMetadataStore.path(context))).isEqualTo(initial);
+    }
+
+    @Test
+    public void testSaveCommitsStagedCopy() throws IOException, URISyntaxException {
+        Context context = context();
+        Config.DocumentMetadata metadata = document(context, "readme.md");
+        Context.save(context);
+
+        metadata.remoteUri(Optional.of(new URI("https://staged")));
+        context.metadataStore().put(context, metadata);
+        metadata.remoteUri(Optional.of(new URI("https://still-syncing")));
+        Context.save(context);
+        assertThat(reload(context).remoteUri()).contains(new URI("https://staged"));
+    }
+
+    @Test
+    public void testLoadIgnoresIncompleteCommit() throws IOException, URISyntaxException {
+        Context context = context();
+        Config.DocumentMetadata metadata = document(context, "readme.md");
+        Context.save(context);
+        metadata.remoteUri(Optional.of(new URI("https://interrupted")));
+        context.metadataStore().put(context, metadata);
+        Context.save(context);
+        Path store = EmbeddedMetadataStore.path(context);
+        try(RandomAccessFile file = new RandomAccessFile(store.toFile(), "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        Context loaded = Context.load(context.configPath().toString());
+        Config.DocumentMetadata reloaded = loaded.config().metadata().get().get(0);
+        assertThat(reloaded.remoteUri()).contains(new URI("https://readme.md"));
+
+        reloaded.remoteUri(Optional.of(new URI("https://recovered")));
+        loaded.metadataStore().put(loaded, reloaded);
+        Context.save(loaded);
+        assertThat(reload(loaded).remoteUri()).contains(new URI("https://recovered"));
+    }
+
+    @Test
+    public void testSaveRemovesDocumentsNoLongerIndexed() throws IOException, URISyntaxException {
+        Context context = context();
+        document(context, "readme.md");
+        Config.DocumentMetadata removed = document(context, "removed.md");
+        Context.save(context);
+        context.config().metadata().get().remove(removed);
+        Context.save(context);
+
+        Context loaded = Context.load(context.configPath().toString());
+        assertThat(loaded.config().metadata().get()).extracting(Config.DocumentMetadata::title).containsExactly("readme.md");
+        assertThat(loaded.metadataStore().find(loaded, removed.sourcePath())).isEmpty();
+    }
+
+    @Test
+    public void testSaveCompactsLog() throws IOException, URISyntaxException {
+        Context context = context();
+        EmbeddedMetadataStore store = new EmbeddedMetadataStore().compactionThreshold(0);
+        context.metadataStore(store);
+        Config.DocumentMetadata metadata = document(context, "readme.md");
+        document(context, "other.md");
+        Context.save(context);
+        long initial = Files.size(EmbeddedMetadataStore.path(context));
+
+        for(int i = 0; i < 20; i++){
+            metadata.remoteUri(Optional.of(new URI("https://update-" + i)));
+            store.put(context, metadata);
+            Context.save(context);
+        }
+        assertThat(Files.size(EmbeddedMetadataStore.path(context))).isLessThanOrEqualTo(2 * initial + 64);
+        assertThat(reload(context, metadata.sourcePath()).remoteUri()).contains(new URI("https://update-19"));
+    }
+
+    @Test
+    public void testFindLooksUpDocumentsBySourcePath() throws IOException, URISyntaxException {
+        Context context = context();
+        Config.DocumentMetadata metadata = document(context, "readme.md");
+        Context.save(context);
+
+        Context loaded = Context.load(context.configPath().toString());
+        assertThat(loaded.metadataStore().find(loaded, metadata.sourcePath()))
+                .contains(loaded.config().metadata().get().get(0));
+        assertThat(loaded.metadataStore().find(loaded, folder.getRoot().toPath().resolve("missing.md"))).isEmpty();
+    }
+
+    @Test
+    public void testFindInDirectoryScansDirectory() throws IOException, URISyntaxException {
+        Context context = context();
+        Files.createDirectories(folder.getRoot().toPath().resolve("docs").resolve("guide"));
+        Files.createDirectories(folder.getRoot().toPath().resolve("docs-old"));
+        document(context, Paths.get("docs", "readme.md").toString());
+        document(context, Paths.get("docs", "guide", "intro.md").toString());
+        document(context, Paths.get("docs-old", "readme.md").toString());
+        document(context, "other.md");
+        Context.save(context);
+
+        Context loaded = Context.load(context.configPath().toString());
+        assertThat(loaded.findInDirectory(Paths.get("docs")))
+                .extracting(Config.DocumentMetadata::title)
+                .containsExactly(Paths.get("docs", "guide", "intro.md").toString(), Paths.get("docs", "readme.md").toString());
+        assertThat(loaded.findInDirectory(folder.getRoot().toPath())).hasSize(4);
+    }
+
+    @Test
+    public void testUseMetadataStoreMovesDocumentsIntoStore() throws IOException, URISyntaxException {
+        Context context = context();
+        context.config().metadataStore(SyncStateStore.class.getName());
+        context.originalConfig().metadataStore(SyncStateStore.class.getName());
+        document(context, "readme.md").sourceChecksum(Optional.of(1234L));
+        Context.save(context);
+        assertThat(Resources.load(context.configPath().toString())).contains("readme.md");
+
+        Context loaded = Context.load(context.configPath().toString());
+        loaded.useMetadataStore(EmbeddedMetadataStore.class.getName());
+        Context.save(loaded);
+        assertThat(Resources.load(loaded.configPath().toString()))
+                .contains(EmbeddedMetadataStore.class.getName())
+                .doesNotContain("readme.md");
+
+        Config.DocumentMetadata reloaded = reload(loaded);
+        assertThat(reloaded.title()).isEqualTo("readme.md");
+        assertThat(reloaded.sourceChecksum()).contains(1234L);
+    }
+
+    @Test
+    public void testLoadRejectsOtherFiles() throws IOException {
+        Context context = context();
+        Files.write(EmbeddedMetadataStore.path(context), "not a store".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> new EmbeddedMetadataStore().load(context)).isInstanceOf(IOException.class);
+    }
+
+    private Context context() throws IOException {
+        Path base = folder.getRoot().toPath().toAbsolutePath();
+        Context context = new Context();
+        context.configPath(base.resolve(".alexandria"));
+        context.projectBase(base);
+        context.searchPath(Collections.singletonList(base));
+        context.config().metadataStore(EmbeddedMetadataStore.class.getName());
+        context.originalConfig().metadataStore(EmbeddedMetadataStore.class.getName());
+        context.config().metadata(Optional.of(new ArrayList<>()));
+        context.remote(Optional.of(new NoopRemote() {
+            @Override
+            public Set<String> managedProperties() {
+                return Collections.singleton("contentId");
+            }
+        }));
+        return context;
+    }
+
+    private Config.DocumentMetadata document(Context context, String fileName) throws IOException, URISyntaxException {
+        Path sourcePath = folder.getRoot().toPath().toAbsolutePath().resolve(fileName);
+        if(!Files.exists(sourcePath)){
+            Files.write(sourcePath, fileName.getBytes(StandardCharsets.UTF_8));
+        }
+        Config.DocumentMetadata metadata = new Config.DocumentMetadata();
+        metadata.sourcePath(sourcePath);
+        metadata.title(fileName);
+        metadata.remoteUri(Optional.of(new URI("https://" + fileName.replace(File.separatorChar, '-'))));
+        context.addMetadata(metadata);
+        return metadata;
+    }
+
+    private static Config.DocumentMetadata reload(Context context) throws IOException {
+        return Context.load(context.configPath().toString()).config().metadata().get().get(0);
+    }
+
+    private static Config.DocumentMetadata reload(Context context, Path sourcePath) throws IOException {
+        Context loaded = Context.load(context.configPath().toString());
+        return loaded.metadataStore().find(loaded, sourcePath).get();
+    }
+}